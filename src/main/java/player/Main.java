@@ -2,21 +2,34 @@ package player;
 
 import javafx.application.Application;
 import javafx.stage.Stage;
+import player.model.Song;
+import player.util.MusicLibrary;
+import player.util.SingleInstance;
+import player.util.StartupPipeline;
 import player.view.MainWindow;
-import uk.co.caprica.vlcj.factory.discovery.NativeDiscovery;
 
 public class Main extends Application {
+    /** libvlc 查找与初始化、音乐库索引与扫描、命令行文件的解析在 JavaFX 启动的同时进行 */
+    private static StartupPipeline startup;
+    private static MainWindow.Preload preload;
+    private static SingleInstance instance;
+
     @Override
     public void start(Stage primaryStage) {
-        boolean found = new NativeDiscovery().discover();
-        if (!found) {
-            System.setProperty("jna.library.path", "F:\\exploit\\code\\java_code\\MusicPlayer\\VLC");
-        }
         MainWindow window = new MainWindow();
-        window.initStage(primaryStage);
+        window.initStage(primaryStage, preload);
+        instance.setHandler(window::handleRequest);
     }
 
     public static void main(String[] args) {
+        // 已有实例在运行：参数转交给它后直接退出
+        instance = SingleInstance.claim(args);
+        if (instance == null) {
+            return;
+        }
+        Song.setLyricsLoader(MusicLibrary::loadLyrics);
+        startup = new StartupPipeline();
+        preload = MainWindow.preload(startup, SingleInstance.parse(args));
         launch(args);
     }
 }
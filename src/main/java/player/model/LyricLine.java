@@ -1,18 +1,37 @@
 // 文件：src/main/java/player/model/LyricLine.java
 package player.model;
 
+import java.util.List;
+
 /**
  * 表示一行歌词，包含时间戳（毫秒）和歌词文本
+ * <p>
+ * 增强 LRC（行内 {@code <mm:ss.xx>} 逐字时间）在加载时展开为两个基本类型数组：每个字词的开始时间与在文本中的起始下标，
+ * 逐帧计算卡拉 OK 进度时只做一次二分查找，不分配对象。
  */
 public class LyricLine {
     /** 歌词对应的时间戳（毫秒） */
     private final long timeInMillis;
     /** 歌词文本 */
     private final String text;
+    /** 各字词的开始时间（毫秒，升序），没有逐字时间时为 null */
+    private final long[] wordTimes;
+    /** 各字词在 text 中的起始下标，与 wordTimes 一一对应；末尾的结束标记下标为 text.length() */
+    private final int[] wordOffsets;
 
     public LyricLine(long timeInMillis, String text) {
+        this(timeInMillis, text, null, null);
+    }
+
+    /**
+     * @param wordTimes   各字词的开始时间，可为 null
+     * @param wordOffsets 各字词在 text 中的起始下标
+     */
+    public LyricLine(long timeInMillis, String text, long[] wordTimes, int[] wordOffsets) {
         this.timeInMillis = timeInMillis;
         this.text = text;
+        this.wordTimes = wordTimes;
+        this.wordOffsets = wordOffsets;
     }
 
     /** 返回该行歌词的时间戳（毫秒） */
@@ -24,4 +43,73 @@ public class LyricLine {
     public String getText() {
         return text;
     }
+
+    /** 是否带逐字时间 */
+    public boolean hasWordTimes() {
+        return wordTimes != null;
+    }
+
+    /**
+     * millis 时刻已唱到的字符位置（可为小数，0～text.length()）：有逐字时间时二分查找所在字词并在词内插值，
+     * 否则在本行开始到 endMillis 之间均匀推进
+     *
+     * @param endMillis 本行结束时间（通常为下一行的时间戳）
+     */
+    public double charPositionAt(long millis, long endMillis) {
+        int length = text.length();
+        if (wordTimes == null) {
+            if (millis <= timeInMillis) return 0;
+            if (millis >= endMillis || endMillis <= timeInMillis) return length;
+            return length * (double) (millis - timeInMillis) / (endMillis - timeInMillis);
+        }
+        int lo = 0;
+        int hi = wordTimes.length - 1;
+        int k = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (wordTimes[mid] <= millis) {
+                k = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        if (k < 0) return 0;
+        long start = wordTimes[k];
+        long end = k + 1 < wordTimes.length ? wordTimes[k + 1] : endMillis;
+        int from = wordOffsets[k];
+        int to = k + 1 < wordOffsets.length ? wordOffsets[k + 1] : length;
+        if (end <= start || millis >= end) return to;
+        return from + (to - from) * (double) (millis - start) / (end - start);
+    }
+
+    /** 同一行歌词出现在另一个时间戳上（[a][b]歌词），逐字时间随之平移 */
+    public LyricLine shiftedTo(long newTimeInMillis) {
+        if (wordTimes == null) {
+            return new LyricLine(newTimeInMillis, text);
+        }
+        long delta = newTimeInMillis - timeInMillis;
+        long[] times = new long[wordTimes.length];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = wordTimes[i] + delta;
+        }
+        return new LyricLine(newTimeInMillis, text, times, wordOffsets);
+    }
+
+    /** 二分查找 millis 时刻所在的歌词行（时间戳不大于 millis 的最后一行），lyrics 须按时间升序 */
+    public static int indexAt(List<LyricLine> lyrics, long millis) {
+        int lo = 0;
+        int hi = lyrics.size() - 1;
+        int found = 0;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (lyrics.get(mid).timeInMillis <= millis) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
 }
@@ -0,0 +1,32 @@
+// 文件：src/main/java/player/model/PlayMode.java
+package player.model;
+
+/**
+ * 播放模式：一首播完后如何继续，以及上一曲/下一曲如何选曲
+ */
+public enum PlayMode {
+    /** 顺序播放，播到队列末尾停止 */
+    SEQUENTIAL("顺序播放"),
+    /** 列表循环 */
+    REPEAT_ALL("列表循环"),
+    /** 单曲循环 */
+    REPEAT_ONE("单曲循环"),
+    /** 随机播放 */
+    SHUFFLE("随机播放");
+
+    private final String label;
+
+    PlayMode(String label) {
+        this.label = label;
+    }
+
+    /** 返回界面上显示的名称 */
+    public String getLabel() {
+        return label;
+    }
+
+    /** 返回按钮循环切换时的下一个模式 */
+    public PlayMode next() {
+        return values()[(ordinal() + 1) % values().length];
+    }
+}
@@ -0,0 +1,49 @@
+// 文件：src/main/java/player/model/PlayerEvent.java
+package player.model;
+
+/**
+ * 播放器事件，由 {@link player.util.PlayerEventBus} 发布
+ * <p>
+ * 订阅者跟不上时只保留每个 {@link #key()} 的最新一个事件：位置、歌词行等只关心最新值；
+ * 状态变化逐个投递、不合并，先播放后暂停不会只剩下暂停（缓冲有上限，只保留最近若干个）。
+ * 来自 libvlc 的事件带有所属媒体的代号（{@link #media()}），投递前播放器已换了媒体的旧事件直接丢弃。
+ */
+public sealed interface PlayerEvent {
+
+    /** 合并键：同一订阅者尚未处理的事件中，键相同的只保留最新一个；null 表示不合并 */
+    default Object key() {
+        return getClass();
+    }
+
+    /** 所属媒体的代号，libvlc 每换一次媒体加一；与媒体无关的事件为 -1 */
+    default long media() {
+        return -1;
+    }
+
+    /** 播放状态 */
+    enum State {PLAYING, PAUSED, STOPPED, FINISHED, ERROR}
+
+    /** 换歌（加载到播放器，不一定已开始播放） */
+    record TrackChanged(Song song, int index) implements PlayerEvent {
+    }
+
+    /** 播放状态变化 */
+    record StateChanged(State state, long media) implements PlayerEvent {
+        @Override
+        public Object key() {
+            return null;
+        }
+    }
+
+    /** 播放时钟前进（libvlc 的 timeChanged） */
+    record PositionTick(long positionMillis, long media) implements PlayerEvent {
+    }
+
+    /** 当前歌词行变化 */
+    record LyricLineChanged(int index, LyricLine line, long media) implements PlayerEvent {
+    }
+
+    /** 音乐库内容变化 */
+    record LibraryUpdated(int size) implements PlayerEvent {
+    }
+}
@@ -0,0 +1,39 @@
+// 文件：src/main/java/player/model/Playlist.java
+package player.model;
+
+import java.util.List;
+
+/**
+ * 从歌单文件导入的播放列表：名称、已在音乐库中找到的歌曲，以及找不到的条目
+ */
+public class Playlist {
+    /** 歌单名称（文件名去掉扩展名） */
+    private final String name;
+
+    /** 按歌单顺序排列的歌曲 */
+    private final List<Song> songs;
+
+    /** 音乐库中找不到的条目（原文） */
+    private final List<String> unresolved;
+
+    public Playlist(String name, List<Song> songs, List<String> unresolved) {
+        this.name = name;
+        this.songs = songs;
+        this.unresolved = unresolved;
+    }
+
+    /** 返回歌单名称 */
+    public String getName() {
+        return name;
+    }
+
+    /** 返回歌曲列表 */
+    public List<Song> getSongs() {
+        return songs;
+    }
+
+    /** 返回找不到的条目 */
+    public List<String> getUnresolved() {
+        return unresolved;
+    }
+}
@@ -1,17 +1,32 @@
 // 文件：src/main/java/player/model/Song.java
 package player.model;
 
-import javafx.scene.image.Image;
-
 import java.io.File;
 import java.util.List;
 
 /**
- * 表示一首歌曲，包含文件路径、标题、艺术家、封面图片，以及对应的歌词列表
+ * 表示一首歌曲，包含文件路径、标题、艺术家、专辑与音频格式信息；歌词在用到时才读取
+ * <p>
+ * 整个音乐库的歌曲都常驻内存，所以记录尽量紧凑：路径存为目录编号 + 文件名，
+ * 艺术家、专辑、流派、编码格式经 {@link SymbolTable} 去重，
+ * 封面不放在这里（由 util 层按文件读取并缓存最近几张），歌词只在播放过后保留。
+ * 目标为每首常驻不超过 256 字节（含标题与文件名字符串），由 SongBenchmark 按堆增量实测。
+ * 模型本身不读文件：歌词经 {@link #setLyricsLoader} 注册的读取方式取得。
  */
 public class Song {
-    /** 本地音频文件（如 .mp3、.wav、.flac） */
-    private final File file;
+    /** 读取一首歌的歌词，由 util 层实现 */
+    @FunctionalInterface
+    public interface LyricsLoader {
+        List<LyricLine> load(File file);
+    }
+
+    private static volatile LyricsLoader lyricsLoader = file -> List.of();
+
+    /** 所在目录在 {@link SymbolTable} 中的编号 */
+    private final int dirId;
+
+    /** 文件名（如 "歌手 - 标题.mp3"） */
+    private final String fileName;
 
     /** 歌曲标题 */
     private final String title;
@@ -19,32 +34,84 @@ public class Song {
     /** 歌曲艺术家 */
     private final String artist;
 
-    /** 歌曲封面，如果音频文件中没有封面，则使用默认封面 */
-    private final Image coverImage;
+    /** 已解析的歌词行列表，首次访问时读取 */
+    private volatile List<LyricLine> lyrics;
+
+    /** 专辑，未知为空字符串 */
+    private final String album;
+
+    /** 专辑艺术家，未知为空字符串 */
+    private final String albumArtist;
+
+    /** 年份，未知为 0 */
+    private final int year;
+
+    /** 流派，未知为空字符串 */
+    private final String genre;
 
-    /** 已解析的歌词行列表，按时间升序排列 */
-    private final List<LyricLine> lyrics;
+    /** 时长（毫秒），扫描时从音频头读取，未知为 0 */
+    private final long durationMillis;
+
+    /** 采样率（Hz），未知为 0 */
+    private final int sampleRate;
+
+    /** 位深，有损格式或未知为 0 */
+    private final int bitsPerSample;
+
+    /** 码率（kbps），未知为 0 */
+    private final int bitrate;
+
+    /** 编码格式，如 "MPEG-1 Layer 3"、"FLAC 16 bits"，未知为空字符串 */
+    private final String codec;
 
     /**
      * 构造一个 Song 对象
      *
-     *本 @param file       地音频文件
-     * @param title      歌曲标题
-     * @param artist     艺术家名称
-     * @param coverImage 封面图片（从文件中提取或默认图片）
-     * @param lyrics     歌词行列表（时间戳升序）
+     * @param file           本地音频文件
+     * @param title          歌曲标题
+     * @param artist         艺术家名称
+     * @param album          专辑
+     * @param albumArtist    专辑艺术家
+     * @param year           年份
+     * @param genre          流派
+     * @param durationMillis 时长（毫秒）
+     * @param sampleRate     采样率（Hz）
+     * @param bitsPerSample  位深
+     * @param bitrate        码率（kbps）
+     * @param codec          编码格式
      */
-    public Song(File file, String title, String artist, Image coverImage, List<LyricLine> lyrics) {
-        this.file = file;
+    public Song(File file, String title, String artist,
+                String album, String albumArtist, int year, String genre,
+                long durationMillis, int sampleRate, int bitsPerSample, int bitrate, String codec) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        this.dirId = SymbolTable.dirId(parent == null ? "" : parent.getPath());
+        this.fileName = file.getName();
         this.title = title;
-        this.artist = artist;
-        this.coverImage = coverImage;
-        this.lyrics = lyrics;
+        this.artist = SymbolTable.intern(artist);
+        this.album = SymbolTable.intern(album);
+        this.albumArtist = SymbolTable.intern(albumArtist);
+        this.year = year;
+        this.genre = SymbolTable.intern(genre);
+        this.durationMillis = durationMillis;
+        this.sampleRate = sampleRate;
+        this.bitsPerSample = bitsPerSample;
+        this.bitrate = bitrate;
+        this.codec = SymbolTable.intern(codec);
     }
 
-    /** 返回本地音频文件 */
+    /** 注册歌词的读取方式，应在第一次调用 {@link #getLyrics} 之前设置 */
+    public static void setLyricsLoader(LyricsLoader loader) {
+        lyricsLoader = loader;
+    }
+
+    /** 返回本地音频文件（每次由目录与文件名拼出） */
     public File getFile() {
-        return file;
+        return new File(SymbolTable.dir(dirId), fileName);
+    }
+
+    /** 返回文件名 */
+    public String getFileName() {
+        return fileName;
     }
 
     /** 返回歌曲标题 */
@@ -57,13 +124,58 @@ public class Song {
         return artist;
     }
 
-    /** 返回封面图片 */
-    public Image getCoverImage() {
-        return coverImage;
+    /** 返回已解析的歌词行列表，首次访问时从文件读取 */
+    public List<LyricLine> getLyrics() {
+        List<LyricLine> l = lyrics;
+        if (l == null) {
+            l = lyricsLoader.load(getFile());
+            lyrics = l;
+        }
+        return l;
     }
 
-    /** 返回已解析的歌词行列表 */
-    public List<LyricLine> getLyrics() {
-        return lyrics;
+    /** 返回专辑 */
+    public String getAlbum() {
+        return album;
+    }
+
+    /** 返回专辑艺术家 */
+    public String getAlbumArtist() {
+        return albumArtist;
+    }
+
+    /** 返回年份，未知为 0 */
+    public int getYear() {
+        return year;
+    }
+
+    /** 返回流派 */
+    public String getGenre() {
+        return genre;
+    }
+
+    /** 返回时长（毫秒），未知为 0 */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /** 返回采样率（Hz） */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /** 返回位深 */
+    public int getBitsPerSample() {
+        return bitsPerSample;
+    }
+
+    /** 返回码率（kbps） */
+    public int getBitrate() {
+        return bitrate;
+    }
+
+    /** 返回编码格式 */
+    public String getCodec() {
+        return codec;
     }
 }
@@ -0,0 +1,143 @@
+// 文件：src/main/java/player/model/SongList.java
+package player.model;
+
+import java.io.File;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * 可按文件查下标的歌曲列表：播放队列与音乐库用它代替 ArrayList，
+ * 目录监听的增量更新、libvlc 补全结果按文件定位时不必逐首比较
+ * <p>
+ * 文件到下标的索引在第一次查询时建立；替换为同一文件、在末尾追加时就地更新，
+ * 中间插入、删除与替换为别的文件后失效，下次查询时重建。同一文件出现多次时索引指向第一次出现的位置。
+ */
+public class SongList extends AbstractList<Song> implements RandomAccess {
+    private final List<Song> songs;
+    private final Map<File, Integer> index = new HashMap<>();
+    private boolean indexed;
+    /** 每次增删改加一 */
+    private int version;
+
+    public SongList() {
+        songs = new ArrayList<>();
+    }
+
+    public SongList(Collection<? extends Song> songs) {
+        this.songs = new ArrayList<>(songs);
+    }
+
+    @Override
+    public Song get(int i) {
+        return songs.get(i);
+    }
+
+    @Override
+    public int size() {
+        return songs.size();
+    }
+
+    @Override
+    public Song set(int i, Song song) {
+        Song old = songs.set(i, song);
+        version++;
+        if (indexed && !old.getFile().equals(song.getFile())) {
+            indexed = false;
+        }
+        return old;
+    }
+
+    @Override
+    public void add(int i, Song song) {
+        if (indexed && i == songs.size()) {
+            index.putIfAbsent(song.getFile(), i);
+        } else {
+            indexed = false;
+        }
+        songs.add(i, song);
+        modCount++;
+        version++;
+    }
+
+    @Override
+    public boolean addAll(int i, Collection<? extends Song> added) {
+        if (added.isEmpty()) {
+            return false;
+        }
+        if (indexed && i == songs.size()) {
+            int at = i;
+            for (Song song : added) {
+                index.putIfAbsent(song.getFile(), at++);
+            }
+        } else {
+            indexed = false;
+        }
+        songs.addAll(i, added);
+        modCount++;
+        version++;
+        return true;
+    }
+
+    @Override
+    public Song remove(int i) {
+        Song old = songs.remove(i);
+        if (indexed && i == songs.size() && Integer.valueOf(i).equals(index.get(old.getFile()))) {
+            index.remove(old.getFile());
+        } else {
+            indexed = false;
+        }
+        modCount++;
+        version++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        songs.clear();
+        index.clear();
+        indexed = true;
+        modCount++;
+        version++;
+    }
+
+    /** 内容版本，列表有任何改动后都会变化；用来判断上次复制的快照是否仍然有效 */
+    public int version() {
+        return version;
+    }
+
+    /** 文件第一次出现的下标，不在列表中时返回 -1 */
+    public int indexOfFile(File file) {
+        if (!indexed) {
+            index.clear();
+            for (int i = songs.size() - 1; i >= 0; i--) {
+                index.put(songs.get(i).getFile(), i);
+            }
+            indexed = true;
+        }
+        Integer i = index.get(file);
+        return i != null ? i : -1;
+    }
+
+    /** 歌曲按实例比较：先按文件查下标，命中的不是这一实例（同一文件出现多次）时才逐个查找 */
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Song song)) {
+            return -1;
+        }
+        int i = indexOfFile(song.getFile());
+        if (i < 0 || songs.get(i) == song) {
+            return i;
+        }
+        return songs.indexOf(song);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+}
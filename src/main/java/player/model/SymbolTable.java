@@ -0,0 +1,58 @@
+// 文件：src/main/java/player/model/SymbolTable.java
+package player.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 全库共享的符号表：重复出现的字符串（艺术家、专辑、流派等）只保留一份，
+ * 歌曲所在目录用整数编号代替完整路径
+ * <p>
+ * 扫描线程并发调用，编号一经分配不会改变；按编号取目录不加锁。
+ */
+public final class SymbolTable {
+    private static final ConcurrentHashMap<String, String> STRINGS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Integer> DIR_IDS = new ConcurrentHashMap<>();
+    private static volatile String[] dirs = new String[64];
+    private static int dirCount;
+
+    private SymbolTable() {
+    }
+
+    /** 返回与 s 相等的共享实例；null 视为空字符串 */
+    public static String intern(String s) {
+        if (s == null || s.isEmpty()) {
+            return "";
+        }
+        String prev = STRINGS.putIfAbsent(s, s);
+        return prev != null ? prev : s;
+    }
+
+    /** 返回目录路径的编号，首次出现时分配 */
+    public static int dirId(String dir) {
+        Integer id = DIR_IDS.get(dir);
+        if (id != null) {
+            return id;
+        }
+        synchronized (SymbolTable.class) {
+            id = DIR_IDS.get(dir);
+            if (id != null) {
+                return id;
+            }
+            String[] arr = dirs;
+            if (dirCount == arr.length) {
+                arr = Arrays.copyOf(arr, arr.length * 2);
+            }
+            arr[dirCount] = dir;
+            // 先写元素再发布数组，读方拿到编号时一定能看到对应目录
+            dirs = arr;
+            DIR_IDS.put(dir, dirCount);
+            return dirCount++;
+        }
+    }
+
+    /** 返回编号对应的目录路径 */
+    public static String dir(int id) {
+        return dirs[id];
+    }
+}
@@ -0,0 +1,60 @@
+// 文件：src/main/java/player/util/AppFiles.java
+package player.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 应用数据目录与缓存文件的读写工具
+ * <p>
+ * 默认目录为用户主目录下的 .musicplayer，可用 -Dplayer.data.dir 指定。
+ * 所有缓存都以“写临时文件再重命名”的方式落盘，中途崩溃不会留下半个文件。
+ */
+public final class AppFiles {
+    private static final Path DATA_DIR = Paths.get(System.getProperty(
+            "player.data.dir",
+            Paths.get(System.getProperty("user.home"), ".musicplayer").toString()
+    ));
+
+    private AppFiles() {
+    }
+
+    /** 写文件内容的回调 */
+    @FunctionalInterface
+    public interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /** 返回数据目录下的文件路径（目录不存在时自动创建） */
+    public static Path resolve(String name) {
+        try {
+            Files.createDirectories(DATA_DIR);
+        } catch (IOException e) {
+            System.err.println("无法创建数据目录：" + DATA_DIR);
+        }
+        return DATA_DIR.resolve(name);
+    }
+
+    /** 原子写入：先写同目录临时文件并刷盘，再重命名覆盖目标 */
+    public static void writeAtomically(Path target, Writer writer) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+            writer.write(out);
+            out.flush();
+            fos.getFD().sync();
+        }
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
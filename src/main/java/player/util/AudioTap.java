@@ -0,0 +1,308 @@
+// 文件：src/main/java/player/util/AudioTap.java
+package player.util;
+
+import com.sun.jna.Pointer;
+import uk.co.caprica.vlcj.player.base.MediaPlayer;
+import uk.co.caprica.vlcj.player.base.callback.AudioCallbackAdapter;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * vlcj 音频回调：接管 libvlc 解码后的 PCM，一路交给 Java Sound 输出，一路混成单声道推入环形缓冲供频谱分析
+ * <p>
+ * 启用音频回调后 libvlc 不再自行输出声音，所以这里必须负责播放。
+ * 音量由 libvlc 的音量回调交给这里，在输出前按增益缩放。
+ * 回调路径只做内存拷贝、缩放与无锁写入，不加锁、不分配（仅在遇到更大的数据块时扩容一次），也不碰声卡：
+ * PCM 写进约 2 秒的字节环形缓冲，由 "audio-tap" 线程取出写入输出线路。
+ * 输出线路只由该线程操作：暂停、继续、清空与排空只记下请求，由它在两次写入之间执行，不会落在重开中的旧线路上。
+ * libvlc 按时间戳送数据，缓冲正常不会满；万一满了回调才短暂等待，不丢声音。
+ * 输出采样率跟随曲目（{@link #useRate}），避免 libvlc 与系统混音器各重采样一次。
+ */
+public class AudioTap extends AudioCallbackAdapter {
+    /** libvlc 输出格式：本机字节序 16 位有符号 */
+    public static final String FORMAT = "S16N";
+    /** 曲目采样率未知或设备不支持时使用 */
+    public static final int RATE = 44100;
+    public static final int CHANNELS = 2;
+    private static final int FRAME_BYTES = CHANNELS * 2;
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+    /** 环形缓冲容量，2 的幂，192kHz 下约 0.7 秒、44.1kHz 下约 3 秒 */
+    private static final int RING_BYTES = 1 << 19;
+    /** 输出线程每次最多写入的字节数，约 10～25ms */
+    private static final int CHUNK_BYTES = 4096;
+
+    private final SampleRingBuffer ring;
+    private final byte[] out = new byte[RING_BYTES];
+    /** 回调已写入的字节总数，仅回调线程修改 */
+    private final AtomicLong head = new AtomicLong();
+    /** 输出线程已取走的字节总数，仅输出线程修改 */
+    private final AtomicLong tail = new AtomicLong();
+    /** flush 请求：输出线程把 tail 推进到这里，丢弃之前的数据 */
+    private final AtomicLong flushTo = new AtomicLong();
+    /** 请求清空设备缓冲的次数，输出线程处理到哪次自己记着 */
+    private final AtomicLong flushRequests = new AtomicLong();
+    /** 请求排空的次数与输出线程已完成的次数 */
+    private final AtomicLong drainRequests = new AtomicLong();
+    private volatile long drained;
+    private final Thread writer;
+
+    private byte[] pcm = new byte[8192 * FRAME_BYTES];
+    private float[] mono = new float[8192];
+    /** libvlc 通过音量回调交来的线性增益（音量滑块 100 对应 1.0） */
+    private volatile float gain = 1f;
+    /** 当前输出线路，仅输出线程打开、关闭、启停与写入 */
+    private volatile SourceDataLine line;
+    private volatile int rate;
+    /** 请求的采样率，与 rate 不同时输出线程重开线路 */
+    private volatile int requestedRate;
+    /** libvlc 要求的暂停状态，输出线程据此停止或启动线路 */
+    private volatile boolean paused;
+    private volatile boolean closed;
+
+    private AudioTap(SourceDataLine line, int rate, SampleRingBuffer ring) {
+        this.line = line;
+        this.rate = rate;
+        this.requestedRate = rate;
+        this.ring = ring;
+        this.writer = new Thread(this::runWriter, "audio-tap");
+        writer.setDaemon(true);
+        writer.setPriority(Thread.MAX_PRIORITY);
+    }
+
+    /**
+     * 打开 Java Sound 输出线路
+     *
+     * @return 无可用输出设备时返回 null，此时应继续使用 libvlc 自带输出
+     */
+    public static AudioTap open(SampleRingBuffer ring) {
+        try {
+            AudioTap tap = new AudioTap(openLine(RATE), RATE, ring);
+            tap.writer.start();
+            return tap;
+        } catch (Exception e) {
+            System.err.println("无法打开音频输出，频谱不可用：" + e.getMessage());
+            return null;
+        }
+    }
+
+    private static AudioFormat format(int rate) {
+        return new AudioFormat(rate, 16, CHANNELS, true, !LITTLE_ENDIAN);
+    }
+
+    private static SourceDataLine openLine(int rate) throws LineUnavailableException {
+        AudioFormat format = format(rate);
+        SourceDataLine line = AudioSystem.getSourceDataLine(format);
+        // 约 100ms 的设备缓冲，兼顾延迟与抗抖动
+        line.open(format, rate / 10 * FRAME_BYTES);
+        line.start();
+        return line;
+    }
+
+    /** 当前输出采样率 */
+    public int getRate() {
+        return rate;
+    }
+
+    /**
+     * 下一首曲目准备前调用：设备支持该采样率时改用它输出，之前缓冲的数据丢弃
+     *
+     * @param sampleRate 曲目采样率，未知时为 0
+     * @return 应交给 libvlc 的输出采样率
+     */
+    public int useRate(int sampleRate) {
+        int target = requestedRate;
+        if (sampleRate > 0 && sampleRate != target
+                && AudioSystem.isLineSupported(new DataLine.Info(SourceDataLine.class, format(sampleRate)))) {
+            target = sampleRate;
+        }
+        flushTo.set(head.get());
+        requestedRate = target;
+        LockSupport.unpark(writer);
+        return target;
+    }
+
+    @Override
+    public void play(MediaPlayer mediaPlayer, Pointer samples, int sampleCount, long pts) {
+        int bytes = sampleCount * FRAME_BYTES;
+        if (bytes > pcm.length) {
+            pcm = new byte[bytes];
+            mono = new float[sampleCount];
+        }
+        samples.read(0, pcm, 0, bytes);
+
+        for (int i = 0, p = 0; i < sampleCount; i++, p += FRAME_BYTES) {
+            mono[i] = (sample(p) + sample(p + 2)) / 65536f;
+        }
+        ring.offer(mono, 0, sampleCount);
+
+        float g = gain;
+        if (g != 1f) {
+            for (int p = 0; p < bytes; p += 2) {
+                int v = Math.round(sample(p) * g);
+                writeSample(p, Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, v)));
+            }
+        }
+        enqueue(bytes);
+    }
+
+    /** 把 pcm 的前 bytes 字节写进环形缓冲，空间不够时等输出线程腾出 */
+    private void enqueue(int bytes) {
+        int mask = out.length - 1;
+        long h = head.get();
+        for (int written = 0; written < bytes && !closed; ) {
+            int free = out.length - (int) (h - tail.get());
+            if (free == 0) {
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(1_000_000L);
+                continue;
+            }
+            int offset = (int) (h & mask);
+            int n = Math.min(Math.min(free, bytes - written), out.length - offset);
+            System.arraycopy(pcm, written, out, offset, n);
+            written += n;
+            h += n;
+            head.set(h);
+        }
+        LockSupport.unpark(writer);
+    }
+
+    private void runWriter() {
+        int mask = out.length - 1;
+        boolean stopped = false;
+        long flushed = 0;
+        try {
+            while (!closed) {
+                if (requestedRate != rate) {
+                    reopen(requestedRate);
+                    stopped = false;
+                }
+                if (paused != stopped) {
+                    stopped = !stopped;
+                    if (stopped) {
+                        line.stop();
+                    } else {
+                        line.start();
+                    }
+                }
+                long f = flushRequests.get();
+                if (f != flushed) {
+                    line.flush();
+                    flushed = f;
+                }
+                long t = Math.max(tail.get(), flushTo.get());
+                long available = head.get() - t;
+                if (available <= 0 || stopped) {
+                    tail.set(t);
+                    long d = drainRequests.get();
+                    if (d != drained) {
+                        // 停止的线路上 drain 会一直阻塞，暂停中的排空请求直接算完成
+                        if (!stopped) {
+                            line.drain();
+                        }
+                        drained = d;
+                        continue;
+                    }
+                    LockSupport.parkNanos(5_000_000L);
+                    continue;
+                }
+                // 暂停时不写：写满停止的线路会阻塞，输出线程就无法再处理继续请求
+                int offset = (int) (t & mask);
+                int n = (int) Math.min(Math.min(available, CHUNK_BYTES), out.length - offset);
+                line.write(out, offset, n);
+                tail.set(t + n);
+            }
+        } finally {
+            line.close();
+        }
+    }
+
+    private void reopen(int newRate) {
+        SourceDataLine old = line;
+        old.close();
+        try {
+            line = openLine(newRate);
+            rate = newRate;
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            System.err.println("切换输出采样率失败：" + e.getMessage());
+            try {
+                line = openLine(rate);
+            } catch (LineUnavailableException | IllegalArgumentException e2) {
+                System.err.println("重新打开音频输出失败：" + e2.getMessage());
+                closed = true;
+            }
+            requestedRate = rate;
+        }
+    }
+
+    private int sample(int p) {
+        return LITTLE_ENDIAN
+                ? (short) ((pcm[p] & 0xff) | (pcm[p + 1] << 8))
+                : (short) ((pcm[p] << 8) | (pcm[p + 1] & 0xff));
+    }
+
+    private void writeSample(int p, int v) {
+        if (LITTLE_ENDIAN) {
+            pcm[p] = (byte) v;
+            pcm[p + 1] = (byte) (v >> 8);
+        } else {
+            pcm[p] = (byte) (v >> 8);
+            pcm[p + 1] = (byte) v;
+        }
+    }
+
+    @Override
+    public void pause(MediaPlayer mediaPlayer, long pts) {
+        paused = true;
+        LockSupport.unpark(writer);
+    }
+
+    @Override
+    public void resume(MediaPlayer mediaPlayer, long pts) {
+        paused = false;
+        LockSupport.unpark(writer);
+    }
+
+    @Override
+    public void flush(MediaPlayer mediaPlayer, long pts) {
+        flushTo.set(head.get());
+        flushRequests.incrementAndGet();
+        LockSupport.unpark(writer);
+    }
+
+    @Override
+    public void drain(MediaPlayer mediaPlayer) {
+        // 输出线程写完缓冲、等声卡播完后记下完成的序号
+        long request = drainRequests.incrementAndGet();
+        while (!closed && drained < request) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(2_000_000L);
+        }
+    }
+
+    @Override
+    public void setVolume(float volume, boolean mute) {
+        gain = mute ? 0f : volume;
+    }
+
+    /** 停止输出线程并关闭输出线路，应在释放播放器之后调用 */
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            // 输出线程卡在设备写入里时由这里关闭线路，让它退出
+            line.close();
+        }
+    }
+}
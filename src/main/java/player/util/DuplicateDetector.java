@@ -0,0 +1,367 @@
+// 文件：src/main/java/player/util/DuplicateDetector.java
+package player.util;
+
+import player.model.Song;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 重复曲目与多音质版本检测
+ * <p>
+ * 两种情况归为同一组：规范化后的 艺术家 + 标题 相同（同一首歌的 SQ/HQ 等不同音质），
+ * 或音频数据的内容哈希相同（标签不同、字节相同的拷贝）。
+ * 哈希只覆盖音频数据本身（跳过 ID3、FLAC 元数据块、RIFF 非 data 块），
+ * 且只对音频数据长度撞车的文件计算；计算时分块内存映射读取、多核并行，结果按 路径 + 大小 + 修改时间 缓存。
+ * 音频数据的范围也一并缓存，文件没变时扫描不再打开它读头尾。
+ * 折叠后被隐藏的低音质版本也会记入缓存，下次扫描时直接跳过、不再解析标签。
+ * 每次折叠后，既不在扫描结果中、也没有被当作已知副本跳过的路径（已删除的文件）从缓存中移除。
+ */
+public class DuplicateDetector {
+    private static final int CACHE_MAGIC = 0x44555053; // "DUPS"
+    private static final int CACHE_VERSION = 2;
+    private static final long MAP_CHUNK = 16L * 1024 * 1024;
+    private static final String[] LOSSLESS = {".flac", ".wav", ".ape"};
+
+    /**
+     * 缓存项：hash 为空表示尚未计算，shadowedBy 为空表示它自身就是主版本；
+     * payloadStart / payloadEnd 为音频数据的范围，读取失败时为 -1
+     */
+    private record Entry(long size, long lastModified, long payloadStart, long payloadEnd,
+                         String hash, String shadowedBy) {
+        long[] range() {
+            return payloadEnd >= 0 ? new long[]{payloadStart, payloadEnd} : null;
+        }
+    }
+
+    private final Path cacheFile = AppFiles.resolve("duplicates.cache");
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    /** 本次扫描中作为已知副本跳过的路径，折叠时与扫描结果一起保留在缓存中 */
+    private final Set<String> skipped = ConcurrentHashMap.newKeySet();
+
+    public DuplicateDetector() {
+        loadCache();
+    }
+
+    /** 扫描阶段使用：文件未变化、已知是其他曲目的副本且主版本仍存在时返回 true；直接使用遍历得到的属性 */
+    public boolean isKnownDuplicate(Path path, BasicFileAttributes attrs) {
+        String key = path.toAbsolutePath().toString();
+        Entry entry = cache.get(key);
+        if (entry == null || entry.size() != attrs.size()
+                || entry.lastModified() != attrs.lastModifiedTime().toMillis()) {
+            return false;
+        }
+        if (entry.shadowedBy() != null && new File(entry.shadowedBy()).isFile()) {
+            skipped.add(key);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 分组并把每组折叠为音质最高的版本，保持原有顺序
+     *
+     * @return 折叠后的新列表
+     */
+    public List<Song> collapse(List<Song> songs) {
+        int n = songs.size();
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) parent[i] = i;
+
+        // 1) 规范化 艺术家 + 标题（没有艺术家时只凭标题无法判断，跳过）
+        Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Song s = songs.get(i);
+            String artist = normalize(s.getArtist());
+            if (artist.isEmpty()) continue;
+            String key = artist + "\u0000" + normalize(s.getTitle());
+            Integer first = byName.putIfAbsent(key, i);
+            if (first != null) union(parent, first, i);
+        }
+
+        // 2) 内容哈希：先按音频数据长度分桶，只有长度相同的才需要计算；缓存仍有效的不再打开文件
+        Map<Long, List<Integer>> byLength = new HashMap<>();
+        long[][] ranges = new long[n][];
+        Entry[] entries = new Entry[n];
+        for (int i = 0; i < n; i++) {
+            File file = songs.get(i).getFile();
+            entries[i] = valid(file);
+            ranges[i] = entries[i] != null ? entries[i].range() : payloadRange(file);
+            if (ranges[i] != null) {
+                byLength.computeIfAbsent(ranges[i][1] - ranges[i][0], k -> new ArrayList<>()).add(i);
+            }
+        }
+        List<Integer> candidates = new ArrayList<>();
+        for (List<Integer> bucket : byLength.values()) {
+            if (bucket.size() > 1) candidates.addAll(bucket);
+        }
+        String[] hashes = new String[n];
+        candidates.parallelStream().forEach(i -> hashes[i] = entries[i] != null && entries[i].hash() != null
+                ? entries[i].hash() : hash(songs.get(i).getFile(), ranges[i]));
+        Map<String, Integer> byHash = new HashMap<>();
+        for (int i : candidates) {
+            if (hashes[i] == null) continue;
+            Integer first = byHash.putIfAbsent(hashes[i], i);
+            if (first != null) union(parent, first, i);
+        }
+
+        // 3) 每组选出音质最高的版本
+        int[] best = new int[n];
+        for (int i = 0; i < n; i++) best[i] = -1;
+        for (int i = 0; i < n; i++) {
+            int root = find(parent, i);
+            if (best[root] < 0 || compareQuality(songs.get(i), songs.get(best[root])) > 0) {
+                best[root] = i;
+            }
+        }
+
+        List<Song> result = new ArrayList<>();
+        boolean[] emitted = new boolean[n];
+        Set<String> seen = new HashSet<>(skipped);
+        for (int i = 0; i < n; i++) {
+            int root = find(parent, i);
+            int keep = best[root];
+            File file = songs.get(i).getFile();
+            String path = file.getAbsolutePath();
+            seen.add(path);
+            // 这次没算哈希的沿用缓存中仍有效的哈希
+            String hash = hashes[i];
+            if (hash == null && entries[i] != null) {
+                hash = entries[i].hash();
+            }
+            String shadowedBy = keep == i ? null : songs.get(keep).getFile().getAbsolutePath();
+            long[] range = ranges[i];
+            cache.put(path, new Entry(file.length(), file.lastModified(),
+                    range != null ? range[0] : -1, range != null ? range[1] : -1, hash, shadowedBy));
+            if (!emitted[root]) {
+                emitted[root] = true;
+                result.add(songs.get(keep));
+            }
+        }
+        cache.keySet().retainAll(seen);
+        skipped.clear();
+        saveCache();
+        return result;
+    }
+
+    /** 规范化：全角转半角、转小写、去掉空白与标点，以及文件名里的 _SQ/_HQ 后缀 */
+    private static String normalize(String text) {
+        if (text == null) return "";
+        String s = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        s = s.replaceAll("_(sq|hq)$", "");
+        return s.replaceAll("[\\p{Punct}\\p{IsPunctuation}\\s]+", "");
+    }
+
+    /** 音质比较：无损优先，其次文件名 SQ > HQ，最后文件越大越好 */
+    private static int compareQuality(Song a, Song b) {
+        int c = Integer.compare(losslessRank(a.getFile()), losslessRank(b.getFile()));
+        if (c != 0) return c;
+        c = Integer.compare(suffixRank(a.getFile()), suffixRank(b.getFile()));
+        if (c != 0) return c;
+        return Long.compare(a.getFile().length(), b.getFile().length());
+    }
+
+    private static int losslessRank(File file) {
+        String lower = file.getName().toLowerCase(Locale.ROOT);
+        for (String ext : LOSSLESS) {
+            if (lower.endsWith(ext)) return 1;
+        }
+        return 0;
+    }
+
+    private static int suffixRank(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        String base = (dot > 0 ? name.substring(0, dot) : name).toUpperCase(Locale.ROOT);
+        if (base.endsWith("_SQ")) return 2;
+        if (base.endsWith("_HQ")) return 1;
+        return 0;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra != rb) parent[rb] = ra;
+    }
+
+    private Entry valid(File file) {
+        Entry entry = cache.get(file.getAbsolutePath());
+        if (entry == null || entry.size() != file.length() || entry.lastModified() != file.lastModified()) {
+            return null;
+        }
+        return entry;
+    }
+
+    /** 分块内存映射读取音频数据并计算 SHA-256 */
+    private static String hash(File file, long[] range) {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            long pos = range[0];
+            while (pos < range[1]) {
+                long len = Math.min(MAP_CHUNK, range[1] - pos);
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                md.update(buf);
+                pos += len;
+            }
+            return HexFormat.of().formatHex(md.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 计算音频数据在文件中的范围 [start, end)
+     * 只读取文件头尾的少量字节，失败时返回 null
+     */
+    static long[] payloadRange(File file) {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = ch.size();
+            long start = 0;
+            long end = size;
+            ByteBuffer head = ByteBuffer.allocate(10);
+            readFully(ch, head, 0);
+            String magic = new String(head.array(), 0, 4, StandardCharsets.ISO_8859_1);
+
+            if (magic.startsWith("ID3")) {
+                byte[] b = head.array();
+                long tagSize = ((b[6] & 0x7f) << 21) | ((b[7] & 0x7f) << 14) | ((b[8] & 0x7f) << 7) | (b[9] & 0x7f);
+                start = 10 + tagSize + ((b[5] & 0x10) != 0 ? 10 : 0);
+                head.clear();
+                readFully(ch, head, start);
+                magic = new String(head.array(), 0, 4, StandardCharsets.ISO_8859_1);
+            }
+
+            if (magic.equals("fLaC")) {
+                // 跳过所有元数据块
+                long pos = start + 4;
+                ByteBuffer block = ByteBuffer.allocate(4);
+                while (pos + 4 <= size) {
+                    block.clear();
+                    readFully(ch, block, pos);
+                    int header = block.getInt(0);
+                    pos += 4 + (header & 0xffffff);
+                    if ((header & 0x80000000) != 0) break;
+                }
+                return new long[]{Math.min(pos, size), size};
+            }
+
+            if (magic.equals("RIFF")) {
+                // 只取 data 块
+                long pos = 12;
+                ByteBuffer chunk = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+                while (pos + 8 <= size) {
+                    chunk.clear();
+                    readFully(ch, chunk, pos);
+                    String id = new String(chunk.array(), 0, 4, StandardCharsets.ISO_8859_1);
+                    long len = chunk.getInt(4) & 0xffffffffL;
+                    if (id.equals("data")) {
+                        return new long[]{pos + 8, Math.min(size, pos + 8 + len)};
+                    }
+                    pos += 8 + len + (len & 1);
+                }
+                return new long[]{0, size};
+            }
+
+            // 末尾的 ID3v1 标签
+            if (size - start >= 128) {
+                ByteBuffer tail = ByteBuffer.allocate(3);
+                readFully(ch, tail, size - 128);
+                if (new String(tail.array(), StandardCharsets.ISO_8859_1).equals("TAG")) {
+                    end = size - 128;
+                }
+            }
+            return new long[]{Math.min(start, end), end};
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, pos + buf.position());
+            if (n < 0) throw new IOException("文件过短");
+        }
+    }
+
+    private void loadCache() {
+        if (!Files.isRegularFile(cacheFile)) {
+            return;
+        }
+        try (InputStream fis = Files.newInputStream(cacheFile);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(fis))) {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long modified = in.readLong();
+                long payloadStart = in.readLong();
+                long payloadEnd = in.readLong();
+                String hash = in.readBoolean() ? in.readUTF() : null;
+                String shadowedBy = in.readBoolean() ? in.readUTF() : null;
+                cache.put(path, new Entry(size, modified, payloadStart, payloadEnd, hash, shadowedBy));
+            }
+        } catch (IOException e) {
+            System.err.println("读取重复检测缓存失败：" + e.getMessage());
+        }
+    }
+
+    private void saveCache() {
+        try {
+            AppFiles.writeAtomically(cacheFile, out -> {
+                Map<String, Entry> snapshot = Map.copyOf(cache);
+                out.writeInt(CACHE_MAGIC);
+                out.writeInt(CACHE_VERSION);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> e : snapshot.entrySet()) {
+                    Entry entry = e.getValue();
+                    out.writeUTF(e.getKey());
+                    out.writeLong(entry.size());
+                    out.writeLong(entry.lastModified());
+                    out.writeLong(entry.payloadStart());
+                    out.writeLong(entry.payloadEnd());
+                    out.writeBoolean(entry.hash() != null);
+                    if (entry.hash() != null) out.writeUTF(entry.hash());
+                    out.writeBoolean(entry.shadowedBy() != null);
+                    if (entry.shadowedBy() != null) out.writeUTF(entry.shadowedBy());
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("保存重复检测缓存失败：" + e.getMessage());
+        }
+    }
+}
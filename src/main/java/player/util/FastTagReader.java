@@ -0,0 +1,679 @@
+// 文件：src/main/java/player/util/FastTagReader.java
+package player.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 轻量标签读取：只解析 mp3 的 ID3v2 / ID3v1 与首个音频帧、FLAC 的 STREAMINFO / VORBIS_COMMENT / PICTURE 块、
+ * wav 的 fmt / LIST-INFO / id3 块，取出标题、艺术家、内嵌歌词、封面和时长等音频信息
+ * <p>
+ * {@link #readGain} 只读回放增益标签（ID3 TXXX、Vorbis 注释，另支持 Ogg / Opus 的注释头），不找音频帧，供响度分析扫整个音乐库。
+ * <p>
+ * 开头一次读入 16KB，绝大多数标签都落在其中；超出部分（主要是封面）按需定位读取，
+ * 音频数据本身只跳过不读。遇到不常见的写法（ID3v2.2、整体反同步、压缩或加密帧、找不到帧头等）
+ * 一律返回 null，由调用方退回 jaudiotagger 完整解析。
+ */
+final class FastTagReader {
+    private static final int PREFIX_SIZE = 16 * 1024;
+    /** 单个块的长度上限，超出视为异常文件 */
+    private static final int MAX_BLOCK = 16 * 1024 * 1024;
+    private static final Charset GBK = Charset.forName("GBK");
+
+    private static final int[] MP3_BITRATE_V1 = {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320};
+    private static final int[] MP3_BITRATE_V2 = {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160};
+    private static final int[] MP3_SAMPLE_RATE = {44100, 48000, 32000};
+
+    private FastTagReader() {
+    }
+
+    /** 读取结果，缺失的文本字段为空字符串，数值为 0 */
+    static final class Tags {
+        String title = "";
+        String artist = "";
+        String lyrics = "";
+        String album = "";
+        String albumArtist = "";
+        String year = "";
+        String genre = "";
+        /** REPLAYGAIN_TRACK_GAIN / REPLAYGAIN_TRACK_PEAK / R128_TRACK_GAIN 的原始文本 */
+        String trackGain = "";
+        String trackPeak = "";
+        String r128TrackGain = "";
+        /** 封面原始字节，没有或未要求读取时为 null */
+        byte[] artwork;
+        int artworkType = -1;
+
+        long durationMillis;
+        int sampleRate;
+        int bitsPerSample;
+        int bitrate;
+        String codec = "";
+    }
+
+    /**
+     * 读取标签与音频信息
+     *
+     * @param file    音频文件
+     * @param artwork 是否读取封面
+     * @return 不支持的格式或遇到不常见的写法时返回 null
+     */
+    static Tags read(File file, boolean artwork) {
+        String lower = file.getName().toLowerCase(Locale.ROOT);
+        try (Source src = new Source(file)) {
+            Tags tags = new Tags();
+            if (lower.endsWith(".mp3")) {
+                readMp3(src, tags, artwork);
+            } else if (lower.endsWith(".flac")) {
+                readFlac(src, tags, artwork);
+            } else if (lower.endsWith(".wav")) {
+                readWav(src, tags, artwork);
+            } else {
+                return null;
+            }
+            return tags;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 只读取回放增益标签
+     *
+     * @return 不支持的格式或遇到不常见的写法时返回 null；没有增益标签时各字段为空字符串
+     */
+    static Tags readGain(File file) {
+        String lower = file.getName().toLowerCase(Locale.ROOT);
+        try (Source src = new Source(file)) {
+            Tags tags = new Tags();
+            if (lower.endsWith(".mp3")) {
+                if (isId3(src, 0)) readId3(src, 0, tags, false);
+            } else if (lower.endsWith(".flac")) {
+                readFlac(src, tags, false);
+            } else if (lower.endsWith(".wav")) {
+                readWav(src, tags, false);
+            } else if (lower.endsWith(".ogg") || lower.endsWith(".opus")) {
+                readOggComments(src, tags);
+            } else {
+                return null;
+            }
+            return tags;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // ========================= mp3 =========================
+
+    private static void readMp3(Source src, Tags tags, boolean artwork) throws IOException {
+        long audioStart = 0;
+        if (isId3(src, 0)) {
+            audioStart = readId3(src, 0, tags, artwork);
+        }
+        long audioEnd = src.size;
+        if (src.size >= 128 && "TAG".equals(ascii(src.read(src.size - 128, 3), 0, 3))) {
+            audioEnd -= 128;
+            readId3v1(src.read(audioEnd, 128), tags);
+        }
+
+        // 在音频起点附近找第一个合法帧头（跳过填充）
+        byte[] b = src.read(audioStart, (int) Math.min(4096, audioEnd - audioStart));
+        int pos = -1;
+        for (int i = 0; i + 4 <= b.length; i++) {
+            if ((b[i] & 0xFF) == 0xFF && (b[i + 1] & 0xE0) == 0xE0 && mp3FrameLength(b, i) > 0) {
+                int next = i + mp3FrameLength(b, i);
+                if (next + 2 > b.length || ((b[next] & 0xFF) == 0xFF && (b[next + 1] & 0xE0) == 0xE0)) {
+                    pos = i;
+                    break;
+                }
+            }
+        }
+        if (pos < 0) {
+            throw new IOException("找不到 MPEG 帧头");
+        }
+
+        int version = (b[pos + 1] >> 3) & 3;          // 3 = MPEG-1，2 = MPEG-2，0 = MPEG-2.5
+        boolean mono = ((b[pos + 3] >> 6) & 3) == 3;
+        int sampleRate = MP3_SAMPLE_RATE[(b[pos + 2] >> 2) & 3] / (version == 3 ? 1 : version == 2 ? 2 : 4);
+        int bitrate = (version == 3 ? MP3_BITRATE_V1 : MP3_BITRATE_V2)[(b[pos + 2] >> 4) & 0x0F];
+        int samplesPerFrame = version == 3 ? 1152 : 576;
+        long audioBytes = audioEnd - audioStart - pos;
+
+        // Xing / Info（VBR 或 LAME 写入的 CBR）与 VBRI 头给出总帧数
+        long frames = 0;
+        int sideInfo = version == 3 ? (mono ? 17 : 32) : (mono ? 9 : 17);
+        int xing = pos + 4 + sideInfo;
+        int vbri = pos + 4 + 32;
+        if (xing + 16 <= b.length && ("Xing".equals(ascii(b, xing, 4)) || "Info".equals(ascii(b, xing, 4)))) {
+            int flags = beInt(b, xing + 4);
+            int p = xing + 8;
+            if ((flags & 1) != 0) {
+                frames = beInt(b, p) & 0xFFFFFFFFL;
+                p += 4;
+            }
+            if ((flags & 2) != 0 && p + 4 <= b.length) {
+                audioBytes = beInt(b, p) & 0xFFFFFFFFL;
+            }
+        } else if (vbri + 18 <= b.length && "VBRI".equals(ascii(b, vbri, 4))) {
+            audioBytes = beInt(b, vbri + 10) & 0xFFFFFFFFL;
+            frames = beInt(b, vbri + 14) & 0xFFFFFFFFL;
+        }
+
+        if (frames > 0) {
+            tags.durationMillis = frames * samplesPerFrame * 1000L / sampleRate;
+            tags.bitrate = (int) (audioBytes * 8 / Math.max(1, tags.durationMillis));
+        } else {
+            tags.durationMillis = audioBytes * 8 / bitrate;
+            tags.bitrate = bitrate;
+        }
+        tags.sampleRate = sampleRate;
+        tags.codec = (version == 3 ? "MPEG-1" : version == 2 ? "MPEG-2" : "MPEG-2.5") + " Layer 3";
+    }
+
+    /** Layer III 帧长度，不是合法帧头时返回 0 */
+    private static int mp3FrameLength(byte[] b, int i) {
+        int version = (b[i + 1] >> 3) & 3;
+        int layer = (b[i + 1] >> 1) & 3;
+        int bitrateIndex = (b[i + 2] >> 4) & 0x0F;
+        int rateIndex = (b[i + 2] >> 2) & 3;
+        if (version == 1 || layer != 1 || bitrateIndex == 0 || bitrateIndex == 15 || rateIndex == 3) {
+            return 0;
+        }
+        int bitrate = (version == 3 ? MP3_BITRATE_V1 : MP3_BITRATE_V2)[bitrateIndex] * 1000;
+        int sampleRate = MP3_SAMPLE_RATE[rateIndex] / (version == 3 ? 1 : version == 2 ? 2 : 4);
+        int padding = (b[i + 2] >> 1) & 1;
+        return (version == 3 ? 144 : 72) * bitrate / sampleRate + padding;
+    }
+
+    // ========================= ID3v2 =========================
+
+    private static boolean isId3(Source src, long offset) throws IOException {
+        return src.size >= offset + 10 && "ID3".equals(ascii(src.read(offset, 3), 0, 3));
+    }
+
+    /**
+     * 解析 offset 处的 ID3v2.3 / 2.4 标签
+     *
+     * @return 标签之后的位置
+     */
+    private static long readId3(Source src, long offset, Tags tags, boolean artwork) throws IOException {
+        byte[] h = src.read(offset, 10);
+        int major = h[3];
+        int flags = h[5] & 0xFF;
+        long tagSize = syncsafe(h, 6);
+        long end = offset + 10 + tagSize;
+        if (major != 3 && major != 4) {
+            throw new IOException("不支持的 ID3v2 版本");
+        }
+        if ((flags & 0x80) != 0) {
+            throw new IOException("整体反同步");
+        }
+        long pos = offset + 10;
+        if ((flags & 0x40) != 0) {
+            byte[] ext = src.read(pos, 4);
+            pos += major == 4 ? syncsafe(ext, 0) : 4 + (beInt(ext, 0) & 0xFFFFFFFFL);
+        }
+
+        while (pos + 10 <= end) {
+            byte[] fh = src.read(pos, 10);
+            if (fh[0] == 0) break; // 填充
+            String id = ascii(fh, 0, 4);
+            if (!isFrameId(fh)) break;
+            long size = major == 4 ? syncsafe(fh, 4) : beInt(fh, 4) & 0xFFFFFFFFL;
+            long body = pos + 10;
+            if (body + size > end || size > MAX_BLOCK) {
+                throw new IOException("帧长度越界：" + id);
+            }
+            pos = body + size;
+
+            boolean wanted = switch (id) {
+                case "TIT2", "TPE1", "TALB", "TPE2", "TDRC", "TYER", "TCON", "USLT", "TXXX" -> true;
+                case "APIC" -> artwork;
+                default -> false;
+            };
+            if (!wanted || size == 0) continue;
+            int formatFlags = fh[9] & 0xFF;
+            if (major == 3 ? (formatFlags & 0xE0) != 0 : (formatFlags & 0x4F) != 0) {
+                throw new IOException("压缩、加密或分组的帧：" + id);
+            }
+
+            byte[] b = src.read(body, (int) size);
+            switch (id) {
+                case "TIT2" -> {
+                    if (tags.title.isEmpty()) tags.title = id3Text(b, 1, b.length, b[0]);
+                }
+                case "TPE1" -> {
+                    if (tags.artist.isEmpty()) tags.artist = id3Text(b, 1, b.length, b[0]);
+                }
+                case "TALB" -> {
+                    if (tags.album.isEmpty()) tags.album = id3Text(b, 1, b.length, b[0]);
+                }
+                case "TPE2" -> {
+                    if (tags.albumArtist.isEmpty()) tags.albumArtist = id3Text(b, 1, b.length, b[0]);
+                }
+                case "TDRC", "TYER" -> {
+                    if (tags.year.isEmpty()) tags.year = id3Text(b, 1, b.length, b[0]);
+                }
+                case "TCON" -> {
+                    if (tags.genre.isEmpty()) tags.genre = id3Genre(id3Text(b, 1, b.length, b[0]));
+                }
+                case "USLT" -> {
+                    int descEnd = terminator(b, 4, b.length, b[0]);
+                    int textStart = Math.min(b.length, descEnd + (isWide(b[0]) ? 2 : 1));
+                    if (tags.lyrics.isEmpty()) tags.lyrics = decode(b, textStart, b.length, b[0]);
+                }
+                case "TXXX" -> {
+                    int descEnd = terminator(b, 1, b.length, b[0]);
+                    int valueStart = Math.min(b.length, descEnd + (isWide(b[0]) ? 2 : 1));
+                    offerGain(tags, decode(b, 1, descEnd, b[0]), id3Text(b, valueStart, b.length, b[0]));
+                }
+                case "APIC" -> {
+                    int mimeEnd = terminator(b, 1, b.length, (byte) 0);
+                    int type = b[mimeEnd + 1] & 0xFF;
+                    int descEnd = terminator(b, mimeEnd + 2, b.length, b[0]);
+                    int dataStart = descEnd + (isWide(b[0]) ? 2 : 1);
+                    offerArtwork(tags, type, Arrays.copyOfRange(b, dataStart, b.length));
+                }
+                default -> {
+                }
+            }
+        }
+        return end + (major == 4 && (flags & 0x10) != 0 ? 10 : 0);
+    }
+
+    /** 文件末尾 128 字节的 ID3v1：ID3v2 没给出的标题、艺术家、专辑、年份用它补上 */
+    private static void readId3v1(byte[] b, Tags tags) {
+        if (tags.title.isEmpty()) tags.title = id3v1Text(b, 3, 30);
+        if (tags.artist.isEmpty()) tags.artist = id3v1Text(b, 33, 30);
+        if (tags.album.isEmpty()) tags.album = id3v1Text(b, 63, 30);
+        if (tags.year.isEmpty()) tags.year = id3v1Text(b, 93, 4);
+    }
+
+    /** 定长字段以 0 或空格补齐；编码没有规定，与 INFO 文本一样先试 UTF-8 再按 GBK */
+    private static String id3v1Text(byte[] b, int from, int len) {
+        return infoText(b, from, terminator(b, from, from + len, (byte) 0) - from);
+    }
+
+    private static boolean isFrameId(byte[] b) {
+        for (int i = 0; i < 4; i++) {
+            if (!((b[i] >= 'A' && b[i] <= 'Z') || (b[i] >= '0' && b[i] <= '9'))) return false;
+        }
+        return true;
+    }
+
+    private static boolean isWide(byte encoding) {
+        return encoding == 1 || encoding == 2;
+    }
+
+    /** 从 from 开始找字符串结束符（宽字符编码为对齐的两个 0），找不到返回 end */
+    private static int terminator(byte[] b, int from, int end, byte encoding) {
+        if (isWide(encoding)) {
+            for (int i = from; i + 1 < end; i += 2) {
+                if (b[i] == 0 && b[i + 1] == 0) return i;
+            }
+        } else {
+            for (int i = from; i < end; i++) {
+                if (b[i] == 0) return i;
+            }
+        }
+        return end;
+    }
+
+    /** 文本帧：取第一个值 */
+    private static String id3Text(byte[] b, int from, int end, byte encoding) {
+        return decode(b, from, terminator(b, from, end, encoding), encoding);
+    }
+
+    /** ID3v1 风格的 "(13)" 或纯数字流派只保留文字部分，数字编号原样保留 */
+    private static String id3Genre(String genre) {
+        String text = genre.replaceFirst("^\\(\\d+\\)", "").trim();
+        return text.isEmpty() ? genre : text;
+    }
+
+    private static String decode(byte[] b, int from, int end, byte encoding) {
+        if (from >= end) return "";
+        Charset cs = switch (encoding) {
+            case 1 -> StandardCharsets.UTF_16;
+            case 2 -> StandardCharsets.UTF_16BE;
+            case 3 -> StandardCharsets.UTF_8;
+            default -> StandardCharsets.ISO_8859_1;
+        };
+        return trimNulls(new String(b, from, end - from, cs));
+    }
+
+    // ========================= FLAC =========================
+
+    private static void readFlac(Source src, Tags tags, boolean artwork) throws IOException {
+        long pos = 0;
+        if (isId3(src, 0)) {
+            pos = 10 + syncsafe(src.read(0, 10), 6);
+        }
+        if (!"fLaC".equals(ascii(src.read(pos, 4), 0, 4))) {
+            throw new IOException("缺少 fLaC 标识");
+        }
+        pos += 4;
+        boolean last = false;
+        boolean streamInfo = false;
+        while (!last) {
+            byte[] h = src.read(pos, 4);
+            last = (h[0] & 0x80) != 0;
+            int type = h[0] & 0x7F;
+            int length = ((h[1] & 0xFF) << 16) | ((h[2] & 0xFF) << 8) | (h[3] & 0xFF);
+            long body = pos + 4;
+            pos = body + length;
+            if (pos > src.size) {
+                throw new IOException("元数据块越界");
+            }
+            switch (type) {
+                case 0 -> {
+                    byte[] b = src.read(body, 18);
+                    int sampleRate = ((b[10] & 0xFF) << 12) | ((b[11] & 0xFF) << 4) | ((b[12] & 0xF0) >> 4);
+                    int bits = (((b[12] & 0x01) << 4) | ((b[13] & 0xF0) >> 4)) + 1;
+                    long samples = ((long) (b[13] & 0x0F) << 32) | (beInt(b, 14) & 0xFFFFFFFFL);
+                    tags.sampleRate = sampleRate;
+                    tags.bitsPerSample = bits;
+                    if (sampleRate > 0) {
+                        tags.durationMillis = samples * 1000L / sampleRate;
+                    }
+                    streamInfo = true;
+                }
+                case 4 -> readVorbisComment(src.read(body, length), tags);
+                case 6 -> {
+                    if (artwork) readFlacPicture(src.read(body, length), tags);
+                }
+                default -> {
+                }
+            }
+        }
+        if (!streamInfo) {
+            throw new IOException("缺少 STREAMINFO");
+        }
+        if (tags.durationMillis > 0) {
+            tags.bitrate = (int) ((src.size - pos) * 8 / tags.durationMillis);
+        }
+        tags.codec = "FLAC " + tags.bitsPerSample + " bits";
+    }
+
+    private static void readVorbisComment(byte[] b, Tags tags) {
+        ByteBuffer buf = ByteBuffer.wrap(b).order(ByteOrder.LITTLE_ENDIAN);
+        int vendor = buf.getInt();
+        buf.position(buf.position() + vendor);
+        int count = buf.getInt();
+        for (int i = 0; i < count; i++) {
+            int len = buf.getInt();
+            String comment = new String(b, buf.position(), len, StandardCharsets.UTF_8);
+            buf.position(buf.position() + len);
+            int eq = comment.indexOf('=');
+            if (eq <= 0) continue;
+            String key = comment.substring(0, eq).toUpperCase(Locale.ROOT);
+            String value = comment.substring(eq + 1);
+            switch (key) {
+                case "TITLE" -> {
+                    if (tags.title.isEmpty()) tags.title = value;
+                }
+                case "ARTIST" -> {
+                    if (tags.artist.isEmpty()) tags.artist = value;
+                }
+                case "ALBUM" -> {
+                    if (tags.album.isEmpty()) tags.album = value;
+                }
+                case "ALBUMARTIST", "ALBUM ARTIST" -> {
+                    if (tags.albumArtist.isEmpty()) tags.albumArtist = value;
+                }
+                case "DATE", "YEAR" -> {
+                    if (tags.year.isEmpty()) tags.year = value;
+                }
+                case "GENRE" -> {
+                    if (tags.genre.isEmpty()) tags.genre = value;
+                }
+                case "LYRICS", "UNSYNCEDLYRICS" -> {
+                    if (tags.lyrics.isEmpty()) tags.lyrics = value;
+                }
+                default -> offerGain(tags, key, value);
+            }
+        }
+    }
+
+    private static void readFlacPicture(byte[] b, Tags tags) {
+        ByteBuffer buf = ByteBuffer.wrap(b);
+        int type = buf.getInt();
+        int mime = buf.getInt();
+        buf.position(buf.position() + mime);
+        int description = buf.getInt();
+        buf.position(buf.position() + description);
+        buf.position(buf.position() + 16);           // 宽、高、色深、调色板
+        int length = buf.getInt();
+        offerArtwork(tags, type, Arrays.copyOfRange(b, buf.position(), buf.position() + length));
+    }
+
+    // ========================= Ogg =========================
+
+    /** Ogg Vorbis / Opus：拼出第二个包（注释头），按 Vorbis 注释解析 */
+    private static void readOggComments(Source src, Tags tags) throws IOException {
+        ByteArrayOutputStream packet = new ByteArrayOutputStream();
+        int packetIndex = 0;
+        long pos = 0;
+        while (packetIndex < 2) {
+            byte[] h = src.read(pos, 27);
+            if (!"OggS".equals(ascii(h, 0, 4))) {
+                throw new IOException("缺少 Ogg 页头");
+            }
+            int segments = h[26] & 0xFF;
+            byte[] table = src.read(pos + 27, segments);
+            long body = pos + 27 + segments;
+            for (int i = 0; i < segments && packetIndex < 2; i++) {
+                int len = table[i] & 0xFF;
+                if (packetIndex == 1) {
+                    if (packet.size() + len > MAX_BLOCK) {
+                        throw new IOException("注释头过长");
+                    }
+                    packet.write(src.read(body, len));
+                }
+                body += len;
+                if (len < 255) {
+                    packetIndex++;
+                }
+            }
+            pos = body;
+        }
+        byte[] b = packet.toByteArray();
+        if (b.length >= 8 && "OpusTags".equals(ascii(b, 0, 8))) {
+            readVorbisComment(Arrays.copyOfRange(b, 8, b.length), tags);
+        } else if (b.length >= 7 && b[0] == 3 && "vorbis".equals(ascii(b, 1, 6))) {
+            readVorbisComment(Arrays.copyOfRange(b, 7, b.length), tags);
+        } else {
+            throw new IOException("缺少注释头");
+        }
+    }
+
+    // ========================= wav =========================
+
+    private static void readWav(Source src, Tags tags, boolean artwork) throws IOException {
+        byte[] h = src.read(0, 12);
+        if (!"RIFF".equals(ascii(h, 0, 4)) || !"WAVE".equals(ascii(h, 8, 4))) {
+            throw new IOException("不是 RIFF/WAVE 文件");
+        }
+        long pos = 12;
+        int byteRate = 0;
+        int formatTag = 0;
+        long dataSize = -1;
+        Tags info = new Tags();
+        while (pos + 8 <= src.size) {
+            byte[] ch = src.read(pos, 8);
+            String id = ascii(ch, 0, 4);
+            long size = leInt(ch, 4) & 0xFFFFFFFFL;
+            long body = pos + 8;
+            pos = body + size + (size & 1);
+            switch (id) {
+                case "fmt " -> {
+                    byte[] b = src.read(body, 16);
+                    formatTag = leShort(b, 0);
+                    tags.sampleRate = leInt(b, 4);
+                    byteRate = leInt(b, 8);
+                    tags.bitsPerSample = leShort(b, 14);
+                }
+                case "data" -> dataSize = Math.min(size, src.size - body);
+                case "LIST" -> {
+                    if (size > MAX_BLOCK) continue;
+                    byte[] b = src.read(body, (int) Math.min(size, src.size - body));
+                    if (b.length >= 4 && "INFO".equals(ascii(b, 0, 4))) readInfo(b, info);
+                }
+                case "id3 ", "ID3 " -> {
+                    if (isId3(src, body)) readId3(src, body, tags, artwork);
+                }
+                default -> {
+                }
+            }
+        }
+        if (byteRate <= 0 || dataSize < 0) {
+            throw new IOException("缺少 fmt 或 data 块");
+        }
+        // ID3 优先，缺的字段再用 LIST/INFO 补
+        if (tags.title.isEmpty()) tags.title = info.title;
+        if (tags.artist.isEmpty()) tags.artist = info.artist;
+        if (tags.album.isEmpty()) tags.album = info.album;
+        if (tags.year.isEmpty()) tags.year = info.year;
+        if (tags.genre.isEmpty()) tags.genre = info.genre;
+        tags.durationMillis = dataSize * 1000L / byteRate;
+        tags.bitrate = byteRate * 8 / 1000;
+        tags.codec = (formatTag == 1 || formatTag == 0xFFFE ? "WAV PCM " : "WAV ") + tags.bitsPerSample + " bits";
+    }
+
+    private static void readInfo(byte[] b, Tags info) {
+        int p = 4;
+        while (p + 8 <= b.length) {
+            String id = ascii(b, p, 4);
+            int size = leInt(b, p + 4);
+            int body = p + 8;
+            if (size < 0 || body + size > b.length) break;
+            switch (id) {
+                case "INAM" -> info.title = infoText(b, body, size);
+                case "IART" -> info.artist = infoText(b, body, size);
+                case "IPRD" -> info.album = infoText(b, body, size);
+                case "ICRD" -> info.year = infoText(b, body, size);
+                case "IGNR" -> info.genre = infoText(b, body, size);
+                default -> {
+                }
+            }
+            p = body + size + (size & 1);
+        }
+    }
+
+    /** INFO 文本没有规定编码：能按 UTF-8 解码就用 UTF-8，否则按 GBK */
+    private static String infoText(byte[] b, int from, int len) {
+        try {
+            return trimNulls(StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(b, from, len)).toString());
+        } catch (CharacterCodingException e) {
+            return trimNulls(new String(b, from, len, GBK));
+        }
+    }
+
+    // ========================= 工具 =========================
+
+    /** 名称（TXXX 描述或 Vorbis 注释键）是回放增益字段时记下第一个值 */
+    private static void offerGain(Tags tags, String name, String value) {
+        switch (name.toUpperCase(Locale.ROOT)) {
+            case "REPLAYGAIN_TRACK_GAIN" -> {
+                if (tags.trackGain.isEmpty()) tags.trackGain = value.trim();
+            }
+            case "REPLAYGAIN_TRACK_PEAK" -> {
+                if (tags.trackPeak.isEmpty()) tags.trackPeak = value.trim();
+            }
+            case "R128_TRACK_GAIN" -> {
+                if (tags.r128TrackGain.isEmpty()) tags.r128TrackGain = value.trim();
+            }
+            default -> {
+            }
+        }
+    }
+
+    /** 保留第一张封面，之后遇到正面封面（类型 3）再替换 */
+    private static void offerArtwork(Tags tags, int type, byte[] data) {
+        if (data.length == 0) return;
+        if (tags.artwork == null || (type == 3 && tags.artworkType != 3)) {
+            tags.artwork = data;
+            tags.artworkType = type;
+        }
+    }
+
+    private static String trimNulls(String s) {
+        int end = s.length();
+        while (end > 0 && (s.charAt(end - 1) == 0 || s.charAt(end - 1) == '\uFEFF')) end--;
+        int start = 0;
+        while (start < end && s.charAt(start) == '\uFEFF') start++;
+        return s.substring(start, end).trim();
+    }
+
+    private static String ascii(byte[] b, int from, int len) {
+        return new String(b, from, len, StandardCharsets.ISO_8859_1);
+    }
+
+    private static long syncsafe(byte[] b, int i) {
+        return ((b[i] & 0x7FL) << 21) | ((b[i + 1] & 0x7FL) << 14) | ((b[i + 2] & 0x7FL) << 7) | (b[i + 3] & 0x7FL);
+    }
+
+    private static int beInt(byte[] b, int i) {
+        return ((b[i] & 0xFF) << 24) | ((b[i + 1] & 0xFF) << 16) | ((b[i + 2] & 0xFF) << 8) | (b[i + 3] & 0xFF);
+    }
+
+    private static int leInt(byte[] b, int i) {
+        return (b[i] & 0xFF) | ((b[i + 1] & 0xFF) << 8) | ((b[i + 2] & 0xFF) << 16) | ((b[i + 3] & 0xFF) << 24);
+    }
+
+    private static int leShort(byte[] b, int i) {
+        return (b[i] & 0xFF) | ((b[i + 1] & 0xFF) << 8);
+    }
+
+    /** 文件开头一次读入 PREFIX_SIZE 字节，落在其中的读取直接复用，其余按位置单独读取 */
+    private static final class Source implements AutoCloseable {
+        final FileChannel channel;
+        final long size;
+        final byte[] prefix;
+        final int prefixLength;
+
+        Source(File file) throws IOException {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            size = channel.size();
+            ByteBuffer buf = ByteBuffer.allocate((int) Math.min(PREFIX_SIZE, size));
+            while (buf.hasRemaining() && channel.read(buf, buf.position()) > 0) {
+                // 读满前缀
+            }
+            prefix = buf.array();
+            prefixLength = buf.position();
+        }
+
+        byte[] read(long pos, int len) throws IOException {
+            if (pos < 0 || len < 0 || len > MAX_BLOCK || pos + len > size) {
+                throw new IOException("读取越界");
+            }
+            if (pos + len <= prefixLength) {
+                return Arrays.copyOfRange(prefix, (int) pos, (int) pos + len);
+            }
+            ByteBuffer buf = ByteBuffer.allocate(len);
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, pos + buf.position()) < 0) {
+                    throw new IOException("文件提前结束");
+                }
+            }
+            return buf.array();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
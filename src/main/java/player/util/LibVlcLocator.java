@@ -0,0 +1,90 @@
+// 文件：src/main/java/player/util/LibVlcLocator.java
+package player.util;
+
+import uk.co.caprica.vlcj.factory.discovery.NativeDiscovery;
+import uk.co.caprica.vlcj.factory.discovery.provider.DiscoveryDirectoryProvider;
+import uk.co.caprica.vlcj.factory.discovery.provider.DiscoveryProviderPriority;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 查找 libvlc，并把找到的目录缓存下来，下次启动直接先试这个目录
+ * <p>
+ * 作为 vlcj 的目录提供者（经 META-INF/services 注册），优先级高于 vlcj 自带的各个提供者，依次给出：
+ * -Dplayer.vlc.path 指定的目录、上次找到的目录、工作目录下的 VLC 文件夹，
+ * 以及 vlcj 没有覆盖的 Linux 常见位置（其他架构的多架构目录、snap、flatpak、/opt）。
+ */
+public class LibVlcLocator implements DiscoveryDirectoryProvider {
+    private static final Path CACHE = AppFiles.resolve("libvlc.path");
+    private static final String[] LINUX_DIRS = {
+            "/usr/lib/aarch64-linux-gnu",
+            "/usr/lib/arm-linux-gnueabihf",
+            "/snap/vlc/current/usr/lib",
+            "/snap/vlc/current/usr/lib/x86_64-linux-gnu",
+            "/app/lib",
+            "/opt/vlc/lib",
+    };
+
+    /** 查找 libvlc 并设置好 vlcj 的加载路径；找到的目录与缓存不同时更新缓存 */
+    public static boolean discover() {
+        NativeDiscovery discovery = new NativeDiscovery();
+        boolean found = discovery.discover();
+        String path = discovery.discoveredPath();
+        if (!found) {
+            System.err.println("未找到 libvlc，可用 -Dplayer.vlc.path 指定其所在目录");
+        } else if (path != null && !path.equals(cachedPath())) {
+            try {
+                AppFiles.writeAtomically(CACHE, out -> out.writeUTF(path));
+            } catch (IOException e) {
+                System.err.println("保存 libvlc 路径失败：" + e.getMessage());
+            }
+        }
+        return found;
+    }
+
+    private static String cachedPath() {
+        if (!Files.isRegularFile(CACHE)) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(CACHE)) {
+            return new DataInputStream(in).readUTF();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public int priority() {
+        return DiscoveryProviderPriority.CONFIG_FILE + 1;
+    }
+
+    @Override
+    public String[] directories() {
+        List<String> dirs = new ArrayList<>();
+        String configured = System.getProperty("player.vlc.path");
+        if (configured != null && !configured.isBlank()) {
+            dirs.add(configured);
+        }
+        String cached = cachedPath();
+        if (cached != null) {
+            dirs.add(cached);
+        }
+        dirs.add(Paths.get(System.getProperty("user.dir"), "VLC").toString());
+        if (System.getProperty("os.name", "").toLowerCase().contains("linux")) {
+            dirs.addAll(List.of(LINUX_DIRS));
+        }
+        return dirs.toArray(new String[0]);
+    }
+
+    @Override
+    public boolean supported() {
+        return true;
+    }
+}
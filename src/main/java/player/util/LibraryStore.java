@@ -0,0 +1,643 @@
+// 文件：src/main/java/player/util/LibraryStore.java
+package player.util;
+
+import player.model.Song;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 持久化的音乐库索引，支持按艺术家、专辑、专辑艺术家、年份、流派浏览和分页排序查询
+ * <p>
+ * 磁盘上是两个文件：library.idx 为压缩后的全量快照，library.log 为其后追加的增删记录。
+ * 启动时读快照并重放日志，日志过长或关闭时重新写快照并清空日志，不依赖外部数据库。
+ * 内存中每首歌只保留一条不含封面和歌词的 {@link Track} 记录，二级索引为 值 → 曲目 id 列表；
+ * 文本按 {@link SortKeys} 预先生成的排序键比较；全库排序结果按排序方式缓存，数据变化后失效。
+ * 写操作在单独的后台线程按提交顺序执行，查询可在任意线程调用。
+ */
+public class LibraryStore implements AutoCloseable {
+    private static final int SNAPSHOT_MAGIC = 0x4C494258; // "LIBX"
+    private static final int LOG_MAGIC = 0x4C49424C;      // "LIBL"
+    private static final int VERSION = 1;
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    /** 日志条数超过 max(该值, 曲目数 / 2) 时压缩 */
+    private static final int COMPACT_MIN_ENTRIES = 1024;
+
+    /** 可浏览的字段 */
+    public enum Field {ARTIST, ALBUM, ALBUM_ARTIST, YEAR, GENRE}
+
+    /** 排序方式 */
+    public enum Sort {TITLE, ARTIST, ALBUM, YEAR, DURATION, ADDED}
+
+    /** 一首歌在库中的记录（不含封面与歌词） */
+    public record Track(int id, String path, long size, long lastModified, long addedAt,
+                        String title, String artist, String album, String albumArtist, int year, String genre,
+                        long durationMillis, int sampleRate, int bitsPerSample, int bitrate, String codec) {
+        /** 字段值，用作索引键与浏览显示 */
+        public String value(Field field) {
+            return switch (field) {
+                case ARTIST -> artist;
+                case ALBUM -> album;
+                case ALBUM_ARTIST -> albumArtist;
+                case YEAR -> year > 0 ? String.valueOf(year) : "";
+                case GENRE -> genre;
+            };
+        }
+
+        /** 用库中的记录构造歌曲（不读文件），供扫描完成前使用 */
+        public Song toSong() {
+            return new Song(new File(path), title, artist, album, albumArtist, year, genre,
+                    durationMillis, sampleRate, bitsPerSample, bitrate, codec);
+        }
+    }
+
+    /** 浏览列表中的一项：字段值与曲目数 */
+    public record Facet(String name, int count) {
+    }
+
+    private final Path snapshotFile = AppFiles.resolve("library.idx");
+    private final Path logFile = AppFiles.resolve("library.log");
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "library-store");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Runnable onChange;
+
+    // —— 以下状态由 this 加锁保护 ——
+    private Track[] tracks = new Track[1024];
+    private int nextId;
+    private int liveCount;
+    private final Map<String, Integer> idByPath = new HashMap<>();
+    private final Map<Field, Map<String, IntList>> indexes = new EnumMap<>(Field.class);
+    /** 按 分类 + 排序方式 缓存排好序的曲目，库内容变化时整体作废 */
+    private final Map<View, Track[]> sorted = new HashMap<>();
+    /** 每次写入加一，锁外排好的结果只在期间没有写入时放进缓存 */
+    private int version;
+    /** 被替换或删除的记录用过的文本，批次结束时其中已无曲目用到的交给 {@link SortKeys#forget} */
+    private final Set<String> droppedText = new HashSet<>();
+
+    // —— 以下只在写线程访问 ——
+    private FileOutputStream logStream;
+    private DataOutputStream log;
+    private int logEntries;
+
+    /**
+     * 读入快照与日志；此后的写入在后台线程进行
+     *
+     * @param onChange 每次写入完成后在写线程回调，可为 null
+     */
+    public LibraryStore(Runnable onChange) {
+        this.onChange = onChange;
+        for (Field field : Field.values()) {
+            indexes.put(field, new HashMap<>());
+        }
+        loadSnapshot();
+        replayLog();
+        writer.execute(() -> {
+            if (logEntries > 0) {
+                compact();
+            } else {
+                openLog();
+            }
+        });
+    }
+
+    // ========================= 写入 =========================
+
+    /** 以一次完整扫描的结果为准同步：新增或变化的写入，不在结果中的删除 */
+    public void sync(List<Song> songs) {
+        List<Song> copy = new ArrayList<>(songs);
+        writer.execute(() -> {
+            Set<String> present = new HashSet<>();
+            for (Song song : copy) {
+                present.add(song.getFile().getAbsolutePath());
+                putIfChanged(song);
+            }
+            List<String> missing = new ArrayList<>();
+            synchronized (this) {
+                for (String path : idByPath.keySet()) {
+                    if (!present.contains(path)) missing.add(path);
+                }
+            }
+            for (String path : missing) {
+                delete(path);
+            }
+            finishBatch();
+        });
+    }
+
+    /** 增量变化：新增或重新解析的歌曲，以及已删除的文件 */
+    public void apply(List<Song> changed, List<File> removed) {
+        List<Song> songs = new ArrayList<>(changed);
+        List<File> files = new ArrayList<>(removed);
+        writer.execute(() -> {
+            for (Song song : songs) {
+                putIfChanged(song);
+            }
+            for (File file : files) {
+                delete(file.getAbsolutePath());
+            }
+            finishBatch();
+        });
+    }
+
+    /** 写完快照后关闭，最多等待数秒 */
+    @Override
+    public void close() {
+        writer.execute(() -> {
+            compact();
+            closeLog();
+        });
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void putIfChanged(Song song) {
+        File file = song.getFile();
+        String path = file.getAbsolutePath();
+        Track old;
+        synchronized (this) {
+            Integer id = idByPath.get(path);
+            old = id != null ? tracks[id] : null;
+        }
+        long size = file.length();
+        long modified = file.lastModified();
+        Track track = new Track(old != null ? old.id() : -1, path, size, modified,
+                old != null ? old.addedAt() : System.currentTimeMillis(),
+                song.getTitle(), song.getArtist(), song.getAlbum(), song.getAlbumArtist(), song.getYear(),
+                song.getGenre(), song.getDurationMillis(), song.getSampleRate(), song.getBitsPerSample(),
+                song.getBitrate(), song.getCodec());
+        if (old != null && old.equals(track)) {
+            return;
+        }
+        track = put(track);
+        appendLog(OP_PUT, track, null);
+    }
+
+    private void delete(String path) {
+        if (remove(path)) {
+            appendLog(OP_DELETE, null, path);
+        }
+    }
+
+    private void finishBatch() {
+        try {
+            if (log != null) {
+                log.flush();
+                logStream.getFD().sync();
+            }
+        } catch (IOException e) {
+            System.err.println("写入音乐库日志失败：" + e.getMessage());
+        }
+        int count;
+        synchronized (this) {
+            count = liveCount;
+        }
+        if (logEntries > Math.max(COMPACT_MIN_ENTRIES, count / 2)) {
+            compact();
+        }
+        releaseSortKeys();
+        if (onChange != null) {
+            onChange.run();
+        }
+    }
+
+    /** 只在有记录被替换或删除时扫一遍现存曲目，排除仍被用到的文本 */
+    private void releaseSortKeys() {
+        List<String> unused;
+        synchronized (this) {
+            if (droppedText.isEmpty()) {
+                return;
+            }
+            for (int id = 0; id < nextId && !droppedText.isEmpty(); id++) {
+                Track t = tracks[id];
+                if (t != null) {
+                    droppedText.remove(t.title());
+                    droppedText.remove(t.artist());
+                    droppedText.remove(t.album());
+                    droppedText.remove(t.albumArtist());
+                    droppedText.remove(t.genre());
+                }
+            }
+            unused = new ArrayList<>(droppedText);
+            droppedText.clear();
+        }
+        SortKeys.forget(unused);
+    }
+
+    // ========================= 查询 =========================
+
+    /** 库中曲目数 */
+    public synchronized int size() {
+        return liveCount;
+    }
+
+    /** 按路径查找 */
+    public synchronized Track get(String path) {
+        Integer id = idByPath.get(path);
+        return id != null ? tracks[id] : null;
+    }
+
+    /** 按 id 查找，不存在时返回 null */
+    public synchronized Track byId(int id) {
+        return id >= 0 && id < nextId ? tracks[id] : null;
+    }
+
+    /** 某字段的全部取值及曲目数，按排序键排序（年份从新到旧）；空值不列出 */
+    public synchronized List<Facet> facets(Field field) {
+        Map<String, IntList> index = indexes.get(field);
+        List<Facet> result = new ArrayList<>(index.size());
+        for (IntList ids : index.values()) {
+            if (ids.size > 0) {
+                result.add(new Facet(tracks[ids.data[0]].value(field), ids.size));
+            }
+        }
+        if (field == Field.YEAR) {
+            result.sort(Comparator.comparing(Facet::name).reversed());
+            return result;
+        }
+        return SortKeys.sort(result, SortKeys.byText(result, Facet::name));
+    }
+
+    /**
+     * 符合条件的曲目数
+     *
+     * @param field 为 null 时表示全库
+     */
+    public synchronized int count(Field field, String value) {
+        if (field == null) {
+            return liveCount;
+        }
+        IntList ids = indexes.get(field).get(key(value));
+        return ids != null ? ids.size : 0;
+    }
+
+    /**
+     * 分页查询
+     *
+     * @param field  筛选字段，为 null 时表示全库
+     * @param value  筛选值
+     * @param sort   排序方式
+     * @param offset 起始位置
+     * @param limit  最多返回条数
+     */
+    public List<Track> query(Field field, String value, Sort sort, int offset, int limit) {
+        Track[] all = sorted(new View(field, field != null ? key(value) : "", sort));
+        int from = Math.max(0, Math.min(offset, all.length));
+        int to = (int) Math.min(all.length, (long) from + limit);
+        return new ArrayList<>(Arrays.asList(all).subList(from, to));
+    }
+
+    /** 一个分类按一种方式只排一次，之后翻页直接取缓存；排序在锁外进行，不挡住写入与其他查询 */
+    private Track[] sorted(View view) {
+        Track[] items;
+        int seen;
+        synchronized (this) {
+            Track[] cached = sorted.get(view);
+            if (cached != null) {
+                return cached;
+            }
+            items = view.field() == null ? liveTracks() : tracksOf(indexes.get(view.field()).get(view.key()));
+            seen = version;
+        }
+        Track[] result = sortTracks(items, view.sort());
+        synchronized (this) {
+            if (version == seen) {
+                sorted.put(view, result);
+            }
+        }
+        return result;
+    }
+
+    private Track[] liveTracks() {
+        Track[] items = new Track[liveCount];
+        int n = 0;
+        for (int id = 0; id < nextId; id++) {
+            if (tracks[id] != null) items[n++] = tracks[id];
+        }
+        return items;
+    }
+
+    private Track[] tracksOf(IntList ids) {
+        if (ids == null) {
+            return new Track[0];
+        }
+        Track[] items = new Track[ids.size];
+        for (int i = 0; i < ids.size; i++) {
+            items[i] = tracks[ids.data[i]];
+        }
+        return items;
+    }
+
+    /** 排序前为参与比较的文本字段取出排序键，比较时只比较字节 */
+    private static Track[] sortTracks(Track[] items, Sort sort) {
+        SortKeys.IndexOrder order = switch (sort) {
+            case TITLE -> text(items, Track::title);
+            case ARTIST -> text(items, Track::artist).then(text(items, Track::album)).then(text(items, Track::title));
+            case ALBUM -> text(items, Track::album).then(text(items, Track::title));
+            case YEAR -> ((SortKeys.IndexOrder) (a, b) -> Integer.compare(items[b].year(), items[a].year()))
+                    .then(text(items, Track::album)).then(text(items, Track::title));
+            case DURATION -> (a, b) -> Long.compare(items[a].durationMillis(), items[b].durationMillis());
+            case ADDED -> (a, b) -> Long.compare(items[b].addedAt(), items[a].addedAt());
+        };
+        int[] positions = SortKeys.order(items.length, order.then((a, b) -> Integer.compare(items[a].id(), items[b].id())));
+        Track[] result = new Track[items.length];
+        for (int i = 0; i < items.length; i++) result[i] = items[positions[i]];
+        return result;
+    }
+
+    private static SortKeys.IndexOrder text(Track[] items, Function<Track, String> getter) {
+        byte[][] keys = new byte[items.length][];
+        for (int i = 0; i < items.length; i++) {
+            keys[i] = SortKeys.of(getter.apply(items[i]));
+        }
+        return (a, b) -> SortKeys.compare(keys[a], keys[b]);
+    }
+
+    /** 查询缓存的键：筛选字段（全库为 null）、归一化后的取值、排序方式 */
+    private record View(Field field, String key, Sort sort) {
+    }
+
+    // ========================= 内存状态 =========================
+
+    /** 写入或替换一条记录，id 为 -1 时分配新 id */
+    private synchronized Track put(Track track) {
+        Integer existing = idByPath.get(track.path());
+        if (existing != null) {
+            unindex(tracks[existing]);
+            dropText(tracks[existing]);
+            track = withId(track, existing);
+        } else {
+            int id = track.id() >= 0 ? track.id() : nextId;
+            if (id >= tracks.length) {
+                tracks = Arrays.copyOf(tracks, Math.max(tracks.length * 2, id + 1));
+            }
+            nextId = Math.max(nextId, id + 1);
+            track = withId(track, id);
+            idByPath.put(track.path(), id);
+            liveCount++;
+        }
+        tracks[track.id()] = track;
+        index(track);
+        sorted.clear();
+        version++;
+        return track;
+    }
+
+    private synchronized boolean remove(String path) {
+        Integer id = idByPath.remove(path);
+        if (id == null) {
+            return false;
+        }
+        unindex(tracks[id]);
+        dropText(tracks[id]);
+        tracks[id] = null;
+        liveCount--;
+        sorted.clear();
+        version++;
+        return true;
+    }
+
+    private void dropText(Track track) {
+        droppedText.add(track.title());
+        droppedText.add(track.artist());
+        droppedText.add(track.album());
+        droppedText.add(track.albumArtist());
+        droppedText.add(track.genre());
+    }
+
+    private static Track withId(Track t, int id) {
+        if (t.id() == id) return t;
+        return new Track(id, t.path(), t.size(), t.lastModified(), t.addedAt(), t.title(), t.artist(), t.album(),
+                t.albumArtist(), t.year(), t.genre(), t.durationMillis(), t.sampleRate(), t.bitsPerSample(),
+                t.bitrate(), t.codec());
+    }
+
+    private void index(Track track) {
+        for (Field field : Field.values()) {
+            String key = key(track.value(field));
+            if (!key.isEmpty()) {
+                indexes.get(field).computeIfAbsent(key, k -> new IntList()).add(track.id());
+            }
+        }
+    }
+
+    private void unindex(Track track) {
+        for (Field field : Field.values()) {
+            String key = key(track.value(field));
+            IntList ids = indexes.get(field).get(key);
+            if (ids != null) {
+                ids.remove(track.id());
+                if (ids.size == 0) indexes.get(field).remove(key);
+            }
+        }
+    }
+
+    /** 索引键：去掉首尾空白并忽略大小写 */
+    private static String key(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // ========================= 持久化 =========================
+
+    private void loadSnapshot() {
+        if (!Files.isRegularFile(snapshotFile)) {
+            return;
+        }
+        try (InputStream fis = Files.newInputStream(snapshotFile);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(fis))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                put(readTrack(in));
+            }
+        } catch (IOException e) {
+            System.err.println("读取音乐库快照失败：" + e.getMessage());
+        }
+    }
+
+    /** 重放日志；末尾写了一半的记录（崩溃时）直接忽略 */
+    private void replayLog() {
+        if (!Files.isRegularFile(logFile)) {
+            return;
+        }
+        try (InputStream fis = Files.newInputStream(logFile);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(fis))) {
+            if (in.readInt() != LOG_MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            while (true) {
+                byte op = in.readByte();
+                if (op == OP_PUT) {
+                    put(readTrack(in));
+                } else if (op == OP_DELETE) {
+                    remove(in.readUTF());
+                } else {
+                    break;
+                }
+                logEntries++;
+            }
+        } catch (EOFException e) {
+            // 日志结束
+        } catch (IOException e) {
+            System.err.println("读取音乐库日志失败：" + e.getMessage());
+        }
+        // 只要日志里有内容（包括损坏的尾部）就在写线程压缩一次
+        if (logEntries == 0) {
+            try {
+                logEntries = Files.size(logFile) > 8 ? 1 : 0;
+            } catch (IOException e) {
+                logEntries = 1;
+            }
+        }
+    }
+
+    private void openLog() {
+        try {
+            boolean fresh = !Files.isRegularFile(logFile) || Files.size(logFile) == 0;
+            logStream = new FileOutputStream(logFile.toFile(), true);
+            log = new DataOutputStream(new BufferedOutputStream(logStream));
+            if (fresh) {
+                log.writeInt(LOG_MAGIC);
+                log.writeInt(VERSION);
+                log.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("打开音乐库日志失败：" + e.getMessage());
+            log = null;
+        }
+    }
+
+    private void closeLog() {
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                System.err.println("关闭音乐库日志失败：" + e.getMessage());
+            }
+            log = null;
+        }
+    }
+
+    private void appendLog(byte op, Track track, String path) {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.writeByte(op);
+            if (op == OP_PUT) {
+                writeTrack(log, track);
+            } else {
+                log.writeUTF(path);
+            }
+            logEntries++;
+        } catch (IOException e) {
+            System.err.println("写入音乐库日志失败：" + e.getMessage());
+        }
+    }
+
+    /** 写全量快照并清空日志 */
+    private void compact() {
+        List<Track> snapshot = new ArrayList<>();
+        synchronized (this) {
+            for (int id = 0; id < nextId; id++) {
+                if (tracks[id] != null) snapshot.add(tracks[id]);
+            }
+        }
+        try {
+            AppFiles.writeAtomically(snapshotFile, out -> {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(snapshot.size());
+                for (Track track : snapshot) {
+                    writeTrack(out, track);
+                }
+            });
+            closeLog();
+            Files.deleteIfExists(logFile);
+            logEntries = 0;
+        } catch (IOException e) {
+            System.err.println("压缩音乐库失败：" + e.getMessage());
+        }
+        if (log == null) {
+            openLog();
+        }
+    }
+
+    private static void writeTrack(DataOutputStream out, Track t) throws IOException {
+        out.writeInt(t.id());
+        out.writeUTF(t.path());
+        out.writeLong(t.size());
+        out.writeLong(t.lastModified());
+        out.writeLong(t.addedAt());
+        out.writeUTF(t.title());
+        out.writeUTF(t.artist());
+        out.writeUTF(t.album());
+        out.writeUTF(t.albumArtist());
+        out.writeInt(t.year());
+        out.writeUTF(t.genre());
+        out.writeLong(t.durationMillis());
+        out.writeInt(t.sampleRate());
+        out.writeInt(t.bitsPerSample());
+        out.writeInt(t.bitrate());
+        out.writeUTF(t.codec());
+    }
+
+    private static Track readTrack(DataInputStream in) throws IOException {
+        return new Track(in.readInt(), in.readUTF(), in.readLong(), in.readLong(), in.readLong(),
+                in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readInt(), in.readUTF(),
+                in.readLong(), in.readInt(), in.readInt(), in.readInt(), in.readUTF());
+    }
+
+    /** 不装箱的 int 列表，用作索引的值 */
+    private static final class IntList {
+        int[] data = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = value;
+        }
+
+        void remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (data[i] == value) {
+                    System.arraycopy(data, i + 1, data, i, size - i - 1);
+                    size--;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+// 文件：src/main/java/player/util/LibraryWatcher.java
+package player.util;
+
+import player.model.Song;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 监听音乐库目录，把文件的新增、修改、删除转换为增量更新
+ * <p>
+ * WatchService 只监听单层目录，所以启动时为根目录下的每个子目录注册，新建的子目录随后补注册。
+ * 事件先按路径去重并防抖：静默 500ms 或累计 3s 后整批处理，大批量拷贝只会产生少量几次更新。
+ * 事件丢失（OVERFLOW）时退回按修改时间比对的重扫，只重新解析变化过的文件。
+ * 解析在监听线程完成，与全量扫描一样经 {@link ScanQuarantine} 限时并记录问题文件，回调收到的是已解析好的一批结果。
+ */
+public class LibraryWatcher implements AutoCloseable {
+    private static final long QUIET_MILLIS = 500;
+    private static final long MAX_DELAY_MILLIS = 3000;
+
+    /** 一批增量变化：新增、重新解析后的歌曲，以及已删除的文件 */
+    public record Batch(List<Song> added, List<Song> updated, List<File> removed) {
+        public boolean isEmpty() {
+            return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    private final List<Path> roots = new ArrayList<>();
+    private final Consumer<Batch> onBatch;
+    private final MusicLibrary.SkipFilter skip;
+    private final ScanQuarantine quarantine;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+    private final Set<Path> watchedDirs = new HashSet<>();
+    /** 库中已有文件及其修改时间，只在监听线程访问 */
+    private final Map<Path, Long> known = new HashMap<>();
+    private Thread thread;
+
+    /**
+     * @param onBatch 在监听线程回调，界面更新需自行切回 FX 线程
+     * @param skip       与全量扫描相同的跳过判断（如已知的重复副本）
+     * @param quarantine 与全量扫描共用的隔离列表
+     */
+    public LibraryWatcher(Consumer<Batch> onBatch, MusicLibrary.SkipFilter skip, ScanQuarantine quarantine)
+            throws IOException {
+        this.onBatch = onBatch;
+        this.skip = skip;
+        this.quarantine = quarantine;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        for (Path root : MusicLibrary.libraryRoots()) {
+            if (Files.isDirectory(root)) {
+                roots.add(root.toAbsolutePath().normalize());
+            }
+        }
+    }
+
+    /** 以当前歌曲列表为基准开始监听 */
+    public void start(List<Song> songs) {
+        List<File> files = new ArrayList<>();
+        for (Song song : songs) {
+            files.add(song.getFile());
+        }
+        thread = new Thread(() -> run(files), "library-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("关闭目录监听失败：" + e.getMessage());
+        }
+    }
+
+    private void run(List<File> initial) {
+        for (File file : initial) {
+            known.put(file.toPath().toAbsolutePath().normalize(), file.lastModified());
+        }
+        for (Path root : roots) {
+            registerTree(root, null);
+        }
+
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean overflow = collect(key, changed);
+
+                // 防抖：直到静默 QUIET_MILLIS，或从第一个事件起累计 MAX_DELAY_MILLIS
+                long deadline = System.currentTimeMillis() + MAX_DELAY_MILLIS;
+                long now;
+                while ((now = System.currentTimeMillis()) < deadline) {
+                    WatchKey next = watchService.poll(Math.min(QUIET_MILLIS, deadline - now), TimeUnit.MILLISECONDS);
+                    if (next == null) break;
+                    overflow |= collect(next, changed);
+                }
+
+                Batch batch = overflow ? rescan() : apply(changed);
+                quarantine.save();
+                if (!batch.isEmpty()) {
+                    onBatch.accept(batch);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 关闭监听
+        }
+    }
+
+    /** 取出一个目录的全部事件，返回是否发生了 OVERFLOW */
+    private boolean collect(WatchKey key, Set<Path> changed) {
+        boolean overflow = false;
+        Path dir = keys.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+            } else if (dir != null) {
+                changed.add(dir.resolve((Path) event.context()));
+            }
+        }
+        if (!key.reset()) {
+            watchedDirs.remove(keys.remove(key));
+        }
+        return overflow;
+    }
+
+    /** 逐个处理变化的路径 */
+    private Batch apply(Set<Path> changed) {
+        List<Song> added = new ArrayList<>();
+        List<Song> updated = new ArrayList<>();
+        List<File> removed = new ArrayList<>();
+        for (Path path : changed) {
+            if (Files.isDirectory(path)) {
+                // 新建（或移入）的目录：补注册监听，并把其中已有的文件当作新增
+                List<Path> files = new ArrayList<>();
+                registerTree(path, files);
+                for (Path file : files) {
+                    refresh(file, added, updated);
+                }
+            } else if (Files.isRegularFile(path)) {
+                refresh(path, added, updated);
+            } else {
+                // 已删除：可能是单个文件，也可能是整个目录
+                Iterator<Path> it = known.keySet().iterator();
+                while (it.hasNext()) {
+                    Path p = it.next();
+                    if (p.startsWith(path)) {
+                        it.remove();
+                        removed.add(p.toFile());
+                    }
+                }
+            }
+        }
+        return new Batch(added, updated, removed);
+    }
+
+    /** 文件新增或修改时间变化时重新解析；写入中途解析失败的会被隔离，文件变化后的 MODIFY 事件再次触发时重新尝试 */
+    private void refresh(Path file, List<Song> added, List<Song> updated) {
+        Path root = rootOf(file);
+        if (root == null || !MusicLibrary.accepts(root, file)) {
+            return;
+        }
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return;
+        }
+        long modified = attrs.lastModifiedTime().toMillis();
+        Long previous = known.get(file);
+        if (previous != null && previous == modified) {
+            return;
+        }
+        if (previous == null && skip.skip(file, attrs)) {
+            return;
+        }
+        Song song = quarantine.parse(file, attrs);
+        if (song == null) {
+            return;
+        }
+        known.put(file, modified);
+        (previous == null ? added : updated).add(song);
+    }
+
+    /** OVERFLOW 后按修改时间比对整个音乐库 */
+    private Batch rescan() {
+        List<Song> added = new ArrayList<>();
+        List<Song> updated = new ArrayList<>();
+        List<File> removed = new ArrayList<>();
+        Set<Path> seen = new HashSet<>();
+        for (Path root : roots) {
+            List<Path> files = new ArrayList<>();
+            registerTree(root, files);
+            for (Path file : files) {
+                seen.add(file);
+                refresh(file, added, updated);
+            }
+        }
+        Iterator<Path> it = known.keySet().iterator();
+        while (it.hasNext()) {
+            Path p = it.next();
+            if (!seen.contains(p)) {
+                it.remove();
+                removed.add(p.toFile());
+            }
+        }
+        return new Batch(added, updated, removed);
+    }
+
+    /** 递归注册 start 下尚未监听的目录；files 不为 null 时顺便收集其中的文件 */
+    private void registerTree(Path start, List<Path> files) {
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (watchedDirs.add(dir)) {
+                        try {
+                            WatchKey key = dir.register(watchService,
+                                    StandardWatchEventKinds.ENTRY_CREATE,
+                                    StandardWatchEventKinds.ENTRY_MODIFY,
+                                    StandardWatchEventKinds.ENTRY_DELETE);
+                            keys.put(key, dir);
+                        } catch (IOException e) {
+                            watchedDirs.remove(dir);
+                            System.err.println("无法监听目录：" + dir + "（" + e.getMessage() + "）");
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (files != null && attrs.isRegularFile()) {
+                        files.add(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("遍历目录失败：" + start + "（" + e.getMessage() + "）");
+        }
+    }
+
+    private Path rootOf(Path file) {
+        for (Path root : roots) {
+            if (file.startsWith(root)) {
+                return root;
+            }
+        }
+        return null;
+    }
+}
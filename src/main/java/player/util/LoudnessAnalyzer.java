@@ -0,0 +1,281 @@
+// 文件：src/main/java/player/util/LoudnessAnalyzer.java
+package player.util;
+
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.tag.Tag;
+import org.jaudiotagger.tag.TagField;
+import org.jaudiotagger.tag.TagTextField;
+import org.jaudiotagger.tag.id3.AbstractID3v2Frame;
+import org.jaudiotagger.tag.id3.framebody.FrameBodyTXXX;
+import player.model.Song;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 后台响度分析与按曲目缓存的回放增益
+ * <p>
+ * 整个音乐库只读 ReplayGain / R128 标签（{@link #analyzeAll}），不解码：mp3、flac、wav、ogg、opus 经
+ * {@link FastTagReader#readGain} 只读标签所在的几 KB，其余格式才用 jaudiotagger 完整解析。
+ * 没有标签的歌曲不单独解码，由 {@link WaveformAnalyzer} 的后台解码池计算波形时顺带喂给 {@link LoudnessMeter}，
+ * 测得 EBU R128 积分响度与峰值后交回（{@link #accept}），每首歌只解码一次。
+ * 结果以 路径 + 大小 + 修改时间 为键持久化到 loudness.cache，没有标签的文件也记下来，下次启动不再重读；
+ * 文件变化后自动重新分析。
+ */
+public class LoudnessAnalyzer {
+    /** ReplayGain 2.0 参考响度 */
+    public static final double REFERENCE_LUFS = -18.0;
+    /** Opus R128_TRACK_GAIN 的参考响度 */
+    private static final double R128_REFERENCE_LUFS = -23.0;
+    private static final int CACHE_MAGIC = 0x4C4F5544; // "LOUD"
+    private static final int CACHE_VERSION = 1;
+    /** 每完成多少首落盘一次 */
+    private static final int SAVE_EVERY = 20;
+
+    /** 一首歌的分析结果；gainDb 为 NaN 表示没有标签、尚未测量 */
+    public record Entry(long size, long lastModified, double gainDb, double peak) {
+        boolean measured() {
+            return !Double.isNaN(gainDb);
+        }
+    }
+
+    private final Path cacheFile = AppFiles.resolve("loudness.cache");
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger unsaved = new AtomicInteger();
+    /** 读标签，整个音乐库排队 */
+    private final ThreadPoolExecutor tagReader = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "loudness-tags");
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            });
+
+    public LoudnessAnalyzer() {
+        tagReader.allowCoreThreadTimeOut(true);
+        loadCache();
+    }
+
+    /** 为缓存中缺失或已过期的歌曲排队读取响度标签，不解码 */
+    public void analyzeAll(List<Song> songs) {
+        for (Song song : songs) {
+            File file = song.getFile();
+            String key = file.getAbsolutePath();
+            if (cached(file) == null && pending.add(key)) {
+                tagReader.execute(() -> {
+                    try {
+                        long size = file.length();
+                        long modified = file.lastModified();
+                        Entry entry = readReplayGainTags(file, size, modified);
+                        cache.put(key, entry != null ? entry : new Entry(size, modified, Double.NaN, 0.0));
+                    } finally {
+                        pending.remove(key);
+                        afterTask();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * 解码前询问：该文件是否还需要测量。标签还没读过时就地读取（在调用方的后台线程上），
+     * 有 ReplayGain / R128 标签的不必测量
+     */
+    public boolean needsMeasurement(File file) {
+        Entry entry = cached(file);
+        if (entry == null) {
+            long size = file.length();
+            long modified = file.lastModified();
+            entry = readReplayGainTags(file, size, modified);
+            if (entry == null) {
+                entry = new Entry(size, modified, Double.NaN, 0.0);
+            }
+            cache.put(file.getAbsolutePath(), entry);
+            afterMeasure();
+        }
+        return !entry.measured();
+    }
+
+    /**
+     * 交回一次解码的测量结果，size 与 modified 为解码开始前读到的文件状态
+     *
+     * @param meter 已喂完整首歌的采样
+     */
+    public void accept(File file, long size, long modified, LoudnessMeter meter) {
+        double lufs = meter.integratedLoudness();
+        double gainDb = Double.isInfinite(lufs) ? 0.0 : REFERENCE_LUFS - lufs;
+        cache.put(file.getAbsolutePath(), new Entry(size, modified, gainDb, meter.samplePeak()));
+        afterMeasure();
+    }
+
+    private void afterTask() {
+        if (unsaved.incrementAndGet() >= SAVE_EVERY || pending.isEmpty()) {
+            saveCache();
+        }
+    }
+
+    /** 测量随波形逐首到来，攒够 SAVE_EVERY 首才落盘，其余在 {@link #shutdown} 时保存 */
+    private void afterMeasure() {
+        if (unsaved.incrementAndGet() >= SAVE_EVERY) {
+            saveCache();
+        }
+    }
+
+    /**
+     * 返回播放该文件时音量应乘的系数：把响度拉到参考值，并保证峰值不削波。
+     * 尚未分析完成时返回 1.0
+     */
+    public double volumeFactor(File file) {
+        Entry entry = cached(file);
+        if (entry == null || !entry.measured()) {
+            return 1.0;
+        }
+        double factor = Math.pow(10.0, entry.gainDb() / 20.0);
+        if (entry.peak() > 0) {
+            factor = Math.min(factor, 1.0 / entry.peak());
+        }
+        return factor;
+    }
+
+    /** 停止后台分析并保存缓存 */
+    public void shutdown() {
+        tagReader.shutdownNow();
+        saveCache();
+    }
+
+    /** 缓存中仍有效的记录（可能是“没有标签、尚未测量”） */
+    private Entry cached(File file) {
+        Entry entry = cache.get(file.getAbsolutePath());
+        if (entry == null || entry.size() != file.length() || entry.lastModified() != file.lastModified()) {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * 读取 REPLAYGAIN_TRACK_GAIN / REPLAYGAIN_TRACK_PEAK 标签（ID3 TXXX、Vorbis 注释、MP4 自由格式），
+     * 没有时读 Opus 的 R128_TRACK_GAIN（1/256 dB，参考 -23 LUFS）
+     */
+    private static Entry readReplayGainTags(File file, long size, long modified) {
+        FastTagReader.Tags fast = FastTagReader.readGain(file);
+        if (fast != null) {
+            return toEntry(size, modified, emptyToNull(fast.trackGain), emptyToNull(fast.trackPeak),
+                    emptyToNull(fast.r128TrackGain));
+        }
+        try {
+            Tag tag = AudioFileIO.read(file).getTag();
+            if (tag == null) {
+                return null;
+            }
+            String gain = null;
+            String peak = null;
+            String r128 = null;
+            Iterator<TagField> fields = tag.getFields();
+            while (fields.hasNext()) {
+                TagField field = fields.next();
+                String name;
+                String value;
+                if (field instanceof AbstractID3v2Frame frame && frame.getBody() instanceof FrameBodyTXXX txxx) {
+                    name = txxx.getDescription();
+                    value = txxx.getFirstTextValue();
+                } else if (field instanceof TagTextField text) {
+                    name = field.getId();
+                    value = text.getContent();
+                } else {
+                    continue;
+                }
+                if (name == null || value == null) continue;
+                String upper = name.toUpperCase(Locale.ROOT);
+                if (upper.endsWith("REPLAYGAIN_TRACK_GAIN")) {
+                    gain = value;
+                } else if (upper.endsWith("REPLAYGAIN_TRACK_PEAK")) {
+                    peak = value;
+                } else if (upper.equals("R128_TRACK_GAIN")) {
+                    r128 = value;
+                }
+            }
+            return toEntry(size, modified, gain, peak, r128);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /** 标签文本换算成增益与峰值，没有可用的增益或格式不对时返回 null */
+    private static Entry toEntry(long size, long modified, String gain, String peak, String r128) {
+        try {
+            if (gain == null && r128 != null) {
+                double r128Db = Integer.parseInt(r128.trim()) / 256.0;
+                return new Entry(size, modified, r128Db + (REFERENCE_LUFS - R128_REFERENCE_LUFS), 0.0);
+            }
+            if (gain == null) {
+                return null;
+            }
+            double gainDb = Double.parseDouble(gain.replaceAll("(?i)\\s*dB\\s*$", "").trim());
+            double peakValue = peak != null ? Double.parseDouble(peak.trim()) : 0.0;
+            return new Entry(size, modified, gainDb, peakValue);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String emptyToNull(String s) {
+        return s.isEmpty() ? null : s;
+    }
+
+    private void loadCache() {
+        if (!Files.isRegularFile(cacheFile)) {
+            return;
+        }
+        try (InputStream fis = Files.newInputStream(cacheFile);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(fis))) {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                cache.put(path, new Entry(in.readLong(), in.readLong(), in.readDouble(), in.readDouble()));
+            }
+        } catch (IOException e) {
+            System.err.println("读取响度缓存失败：" + e.getMessage());
+        }
+    }
+
+    private synchronized void saveCache() {
+        unsaved.set(0);
+        try {
+            AppFiles.writeAtomically(cacheFile, out -> {
+                Map<String, Entry> snapshot = Map.copyOf(cache);
+                out.writeInt(CACHE_MAGIC);
+                out.writeInt(CACHE_VERSION);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> e : snapshot.entrySet()) {
+                    Entry entry = e.getValue();
+                    out.writeUTF(e.getKey());
+                    out.writeLong(entry.size());
+                    out.writeLong(entry.lastModified());
+                    out.writeDouble(entry.gainDb());
+                    out.writeDouble(entry.peak());
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("保存响度缓存失败：" + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+// 文件：src/main/java/player/util/LoudnessMeter.java
+package player.util;
+
+import java.util.Arrays;
+
+/**
+ * EBU R128 / ITU-R BS.1770 积分响度与采样峰值计算
+ * <p>
+ * 采样先经过 K 加权（高架 + 高通两级双二阶滤波），每 100ms 记录一次均方能量，
+ * 结束时按 400ms 块（75% 重叠）做 -70 LUFS 绝对门限与 -10 LU 相对门限。
+ * 内存占用只与时长相关：每秒 10 个 float。
+ */
+public class LoudnessMeter {
+    private static final double ABSOLUTE_GATE = -70.0;
+    private static final double RELATIVE_GATE = -10.0;
+
+    private final int channels;
+    private final int subBlockFrames;
+    // 两级滤波系数（已按 a0 归一化）
+    private final double pb0, pb1, pb2, pa1, pa2;
+    private final double rb0, rb1, rb2, ra1, ra2;
+    /** 每声道滤波状态：x1 x2 y1 y2 (高架) + x1 x2 y1 y2 (高通) */
+    private final double[][] state;
+
+    private double energy;
+    private int fill;
+    private float[] subBlocks = new float[1024];
+    private int subBlockCount;
+    private double peak;
+
+    public LoudnessMeter(int sampleRate, int channels) {
+        this.channels = channels;
+        this.subBlockFrames = Math.max(1, sampleRate / 10);
+        this.state = new double[channels][8];
+
+        // 高架滤波（与 libebur128 相同的按采样率推导方式）
+        double f0 = 1681.974450955533;
+        double gain = 3.999843853973347;
+        double q = 0.7071752369554196;
+        double k = Math.tan(Math.PI * f0 / sampleRate);
+        double vh = Math.pow(10.0, gain / 20.0);
+        double vb = Math.pow(vh, 0.4996667741545416);
+        double a0 = 1.0 + k / q + k * k;
+        pb0 = (vh + vb * k / q + k * k) / a0;
+        pb1 = 2.0 * (k * k - vh) / a0;
+        pb2 = (vh - vb * k / q + k * k) / a0;
+        pa1 = 2.0 * (k * k - 1.0) / a0;
+        pa2 = (1.0 - k / q + k * k) / a0;
+
+        // 高通滤波（RLB 加权）
+        f0 = 38.13547087602444;
+        q = 0.5003270373238773;
+        k = Math.tan(Math.PI * f0 / sampleRate);
+        a0 = 1.0 + k / q + k * k;
+        rb0 = 1.0;
+        rb1 = -2.0;
+        rb2 = 1.0;
+        ra1 = 2.0 * (k * k - 1.0) / a0;
+        ra2 = (1.0 - k / q + k * k) / a0;
+    }
+
+    /**
+     * 送入交错排列的采样（-1.0 ~ 1.0）
+     *
+     * @param samples 交错采样
+     * @param frames  帧数（每帧 channels 个采样）
+     */
+    public void add(float[] samples, int frames) {
+        int i = 0;
+        for (int f = 0; f < frames; f++) {
+            for (int c = 0; c < channels; c++, i++) {
+                double x = samples[i];
+                double abs = Math.abs(x);
+                if (abs > peak) peak = abs;
+
+                double[] s = state[c];
+                double y1 = pb0 * x + pb1 * s[0] + pb2 * s[1] - pa1 * s[2] - pa2 * s[3];
+                s[1] = s[0];
+                s[0] = x;
+                s[3] = s[2];
+                s[2] = y1;
+                double y2 = rb0 * y1 + rb1 * s[4] + rb2 * s[5] - ra1 * s[6] - ra2 * s[7];
+                s[5] = s[4];
+                s[4] = y1;
+                s[7] = s[6];
+                s[6] = y2;
+                energy += y2 * y2;
+            }
+            if (++fill == subBlockFrames) {
+                if (subBlockCount == subBlocks.length) {
+                    subBlocks = Arrays.copyOf(subBlocks, subBlockCount * 2);
+                }
+                subBlocks[subBlockCount++] = (float) (energy / subBlockFrames);
+                energy = 0;
+                fill = 0;
+            }
+        }
+    }
+
+    /** 积分响度（LUFS），有效内容不足时返回 Double.NEGATIVE_INFINITY */
+    public double integratedLoudness() {
+        int blocks = subBlockCount - 3;
+        if (blocks <= 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        double[] power = new double[blocks];
+        double sum = 0;
+        int count = 0;
+        for (int b = 0; b < blocks; b++) {
+            power[b] = (subBlocks[b] + subBlocks[b + 1] + subBlocks[b + 2] + subBlocks[b + 3]) / 4.0;
+            if (loudness(power[b]) > ABSOLUTE_GATE) {
+                sum += power[b];
+                count++;
+            }
+        }
+        if (count == 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        double relativeGate = loudness(sum / count) + RELATIVE_GATE;
+        sum = 0;
+        count = 0;
+        for (double p : power) {
+            double l = loudness(p);
+            if (l > ABSOLUTE_GATE && l > relativeGate) {
+                sum += p;
+                count++;
+            }
+        }
+        return count == 0 ? Double.NEGATIVE_INFINITY : loudness(sum / count);
+    }
+
+    /** 采样峰值（线性，1.0 为满幅） */
+    public double samplePeak() {
+        return peak;
+    }
+
+    private static double loudness(double power) {
+        return -0.691 + 10.0 * Math.log10(power);
+    }
+}
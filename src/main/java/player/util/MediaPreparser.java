@@ -0,0 +1,215 @@
+// 文件：src/main/java/player/util/MediaPreparser.java
+package player.util;
+
+import player.model.Song;
+import uk.co.caprica.vlcj.factory.MediaPlayerFactory;
+import uk.co.caprica.vlcj.media.AudioTrackInfo;
+import uk.co.caprica.vlcj.media.Media;
+import uk.co.caprica.vlcj.media.MediaEventAdapter;
+import uk.co.caprica.vlcj.media.MediaParsedStatus;
+import uk.co.caprica.vlcj.media.Meta;
+import uk.co.caprica.vlcj.media.ParseFlag;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * 用 libvlc 补全标签读取器读不出来的歌曲（jaudiotagger 抛异常的文件，以及 opus、ape 等）
+ * <p>
+ * 扫描时这类歌曲只有文件名得来的标题和艺术家、没有时长。这里在 2 个后台线程上逐个交给 libvlc 解析，
+ * 每个文件最多等 -Dplayer.preparse.timeout 毫秒（默认 5000），超时即放弃；结果攒成一批，
+ * 约每 300ms 回调一次（计时在单独的线程上，解析线程全忙时也按时回调），不阻塞扫描与 FX 线程。同一文件（路径 + 修改时间）只尝试一次；
+ * libvlc 也解析失败的文件记入 {@link ScanQuarantine}，之后的启动不再尝试。
+ */
+public class MediaPreparser implements AutoCloseable {
+    private static final int THREADS = 2;
+    private static final int TIMEOUT_MILLIS = Integer.getInteger("player.preparse.timeout", 5000);
+    private static final long FLUSH_DELAY_MILLIS = 300;
+
+    private final MediaPlayerFactory factory;
+    /** 解析一首歌；默认为 {@link #parse}，测试时换成不依赖 libvlc 的实现 */
+    private final UnaryOperator<Song> parser;
+    private final Consumer<List<Song>> onParsed;
+    private final ScanQuarantine quarantine;
+    private final ThreadPoolExecutor pool;
+    /** 攒批回调的计时；与解析线程分开，否则第一次扫描时定时任务排在所有解析任务之后 */
+    private final ScheduledThreadPoolExecutor flusher;
+    /** 已提交过的文件（路径 + 修改时间），避免结果回来后再次提交 */
+    private final Set<String> attempted = ConcurrentHashMap.newKeySet();
+    private final List<Song> parsed = new ArrayList<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /**
+     * @param factory    libvlc 工厂
+     * @param onParsed   在后台线程回调一批补全后的歌曲，界面更新需自行切回 FX 线程
+     * @param quarantine 记录解析失败的文件
+     */
+    public MediaPreparser(MediaPlayerFactory factory, Consumer<List<Song>> onParsed, ScanQuarantine quarantine) {
+        this(factory, null, onParsed, quarantine);
+    }
+
+    /** parser 为 null 时用 libvlc 解析 */
+    MediaPreparser(MediaPlayerFactory factory, UnaryOperator<Song> parser, Consumer<List<Song>> onParsed,
+                   ScanQuarantine quarantine) {
+        this.factory = factory;
+        this.parser = parser != null ? parser : this::parse;
+        this.onParsed = onParsed;
+        this.quarantine = quarantine;
+        this.pool = new ThreadPoolExecutor(THREADS, THREADS, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "media-preparse");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        this.flusher = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "media-preparse-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /** 标签读取没有得到时长与格式的歌曲需要补全 */
+    public static boolean needsParse(Song song) {
+        return song.getDurationMillis() <= 0 && song.getCodec().isEmpty();
+    }
+
+    /** 为其中需要补全、且尚未尝试过的歌曲排队解析 */
+    public void submit(Collection<Song> songs) {
+        for (Song song : songs) {
+            File file = song.getFile();
+            if (needsParse(song) && !quarantine.nativeFailed(file)
+                    && attempted.add(file.getAbsolutePath() + '|' + file.lastModified())) {
+                pool.execute(() -> {
+                    Song result = parser.apply(song);
+                    if (result != null) {
+                        synchronized (parsed) {
+                            parsed.add(result);
+                        }
+                        if (!flusher.isShutdown() && flushScheduled.compareAndSet(false, true)) {
+                            flusher.schedule(this::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+        flusher.shutdownNow();
+    }
+
+    /** 等关闭后仍在进行的解析结束，超时返回 false */
+    public boolean awaitClosed(long timeoutMillis) {
+        try {
+            return pool.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        List<Song> batch;
+        synchronized (parsed) {
+            batch = new ArrayList<>(parsed);
+            parsed.clear();
+        }
+        if (!batch.isEmpty()) {
+            quarantine.save();
+            onParsed.accept(batch);
+        }
+    }
+
+    /** 解析一个文件，超时、失败或什么也没解析出来时返回 null */
+    private Song parse(Song song) {
+        File file = song.getFile();
+        Media media = factory.media().newMedia(MusicLibrary.toMrl(file));
+        if (media == null) {
+            quarantine.reportNative(file, "libvlc 无法打开");
+            return null;
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            media.events().addMediaEventListener(new MediaEventAdapter() {
+                @Override
+                public void mediaParsedChanged(Media m, MediaParsedStatus status) {
+                    done.countDown();
+                }
+            });
+            if (!media.parsing().parse(TIMEOUT_MILLIS, ParseFlag.PARSE_LOCAL)) {
+                quarantine.reportNative(file, "libvlc 无法开始解析");
+                return null;
+            }
+            // libvlc 自己也按 TIMEOUT_MILLIS 超时，这里多等一点作为兜底
+            if (!done.await(TIMEOUT_MILLIS + 1000L, TimeUnit.MILLISECONDS)) {
+                media.parsing().stop();
+                quarantine.reportNative(file, "libvlc 解析超时");
+                return null;
+            }
+            MediaParsedStatus status = media.parsing().status();
+            if (status != MediaParsedStatus.DONE) {
+                quarantine.reportNative(file, "libvlc 解析失败（" + status + "）");
+                return null;
+            }
+            long durationMillis = Math.max(0, media.info().duration());
+            List<AudioTrackInfo> tracks = media.info().audioTracks();
+            AudioTrackInfo track = tracks.isEmpty() ? null : tracks.getFirst();
+            if (durationMillis == 0 && track == null) {
+                quarantine.reportNative(file, "libvlc 未找到音轨");
+                return null;
+            }
+            Song result = new Song(
+                    file,
+                    orElse(media.meta().get(Meta.TITLE), song.getTitle(), file.getName()),
+                    orElse(media.meta().get(Meta.ARTIST), song.getArtist(), null),
+                    orElse(media.meta().get(Meta.ALBUM), song.getAlbum(), null),
+                    orElse(media.meta().get(Meta.ALBUM_ARTIST), song.getAlbumArtist(), null),
+                    song.getYear() != 0 ? song.getYear() : MusicLibrary.parseYear(media.meta().get(Meta.DATE)),
+                    orElse(media.meta().get(Meta.GENRE), song.getGenre(), null),
+                    durationMillis,
+                    track != null ? track.rate() : 0,
+                    0,
+                    track != null ? track.bitRate() / 1000 : 0,
+                    track != null && track.codecDescription() != null ? track.codecDescription() : ""
+            );
+            SortKeys.prepare(result);
+            quarantine.resolved(file);
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (RuntimeException e) {
+            quarantine.reportNative(file, "libvlc 解析失败：" + e.getMessage());
+            return null;
+        } finally {
+            media.release();
+        }
+    }
+
+    /**
+     * libvlc 给出的值优先；没有时用扫描得到的值。libvlc 在没有标题标签时会以文件名作标题，
+     * 这种情况保留扫描时从文件名拆出的标题
+     */
+    private static String orElse(String fromVlc, String scanned, String fileName) {
+        if (fromVlc == null || fromVlc.isBlank() || fromVlc.equals(fileName)) {
+            return scanned;
+        }
+        return fromVlc;
+    }
+}
@@ -12,41 +12,302 @@ import org.jaudiotagger.tag.FieldKey;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 
 /**
- * 用于扫描 MusicList 文件夹并提取所有支持的音频文件信息
+ * 用于扫描音乐库目录并提取所有支持的音频文件信息
+ * <p>
+ * 音乐库根目录用 -Dplayer.library.roots 指定（多个目录用系统路径分隔符隔开），默认为 MusicList；
+ * 每个根目录递归遍历，多个根目录并发扫描。
+ * 可用 -Dplayer.library.include / -Dplayer.library.exclude 指定逗号分隔的 glob（相对根目录匹配），
+ * 例如 -Dplayer.library.exclude=Podcasts/**,*.wav。
  */
 public class MusicLibrary {
-    private static final String[] EXTENSIONS = {".mp3", ".wav", ".flac"};
+    private static final String[] EXTENSIONS = {".mp3", ".wav", ".flac", ".ogg", ".opus", ".m4a", ".ape"};
+    /** jaudiotagger 不支持的格式：只从文件名与同名 .lrc 取信息，时长等播放时由 libvlc 给出 */
+    private static final String[] UNTAGGED_EXTENSIONS = {".opus", ".ape"};
 
-    public static List<Song> loadAllSongs() {
-        List<Song> songs = new ArrayList<>();
-        File musicDir = new File("MusicList");
-        if (!musicDir.exists() || !musicDir.isDirectory()) {
-            return songs;
+    /** 扫描时的跳过判断，直接使用遍历得到的文件属性，无需再次 stat */
+    @FunctionalInterface
+    public interface SkipFilter {
+        boolean skip(Path path, BasicFileAttributes attrs);
+    }
+
+    /**
+     * 扫描全部音乐库根目录，每个文件的解析限时，超时或出错的文件记入隔离列表
+     *
+     * @param priorityDir 优先扫描的目录（如当前播放曲目所在目录），可为 null
+     * @param skip        返回 true 的文件不解析（如已知的重复副本）
+     * @param quarantine  隔离列表，为 null 时不限时
+     * @return 优先目录的歌曲在前，其余按根目录顺序排列
+     */
+    public static List<Song> loadAllSongs(Path priorityDir, SkipFilter skip, ScanQuarantine quarantine) {
+        List<Path> roots = new ArrayList<>();
+        for (Path root : libraryRoots()) {
+            if (Files.isDirectory(root)) {
+                roots.add(root.toAbsolutePath().normalize());
+            }
         }
-        File[] files = musicDir.listFiles();
-        if (files == null) {
+        if (roots.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<PathMatcher> includes = globs("player.library.include");
+        List<PathMatcher> excludes = globs("player.library.exclude");
+
+        // 优先目录作为单独的任务最先提交，各根目录遍历时跳过它
+        Path first = null;
+        Path firstRoot = null;
+        if (priorityDir != null) {
+            Path dir = priorityDir.toAbsolutePath().normalize();
+            for (Path root : roots) {
+                if (dir.startsWith(root) && Files.isDirectory(dir)) {
+                    first = dir;
+                    firstRoot = root;
+                    break;
+                }
+            }
+        }
+
+        Set<Path> seen = ConcurrentHashMap.newKeySet();
+        int threads = Math.min(roots.size() + (first != null ? 1 : 0),
+                Math.max(1, Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "library-scan");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<List<Song>>> tasks = new ArrayList<>();
+            if (first != null) {
+                Path dir = first;
+                Path root = firstRoot;
+                tasks.add(pool.submit(() -> walk(root, dir, null, includes, excludes, skip, quarantine, seen)));
+            }
+            for (Path root : roots) {
+                Path prune = first;
+                tasks.add(pool.submit(() -> walk(root, root, prune, includes, excludes, skip, quarantine, seen)));
+            }
+            List<Song> songs = new ArrayList<>();
+            for (Future<List<Song>> task : tasks) {
+                try {
+                    songs.addAll(task.get());
+                } catch (ExecutionException e) {
+                    System.err.println("扫描音乐库失败：" + e.getCause());
+                }
+            }
             return songs;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ArrayList<>();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** 配置的音乐库根目录 */
+    public static List<Path> libraryRoots() {
+        List<Path> roots = new ArrayList<>();
+        String value = System.getProperty("player.library.roots", "MusicList");
+        for (String part : value.split(Pattern.quote(File.pathSeparator))) {
+            if (!part.isBlank()) {
+                roots.add(Paths.get(part.trim()));
+            }
+        }
+        return roots;
+    }
+
+    private static List<PathMatcher> globs(String property) {
+        List<PathMatcher> matchers = new ArrayList<>();
+        String value = System.getProperty(property, "");
+        for (String glob : value.split(",")) {
+            if (!glob.isBlank()) {
+                matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + glob.trim()));
+            }
+        }
+        return matchers;
+    }
+
+    /** 增量更新时判断单个文件是否属于音乐库：扩展名、include/exclude，以及是否位于被排除的目录下 */
+    static boolean accepts(Path root, Path file) {
+        if (!matchesExtension(file.getFileName().toString())) {
+            return false;
+        }
+        List<PathMatcher> includes = globs("player.library.include");
+        List<PathMatcher> excludes = globs("player.library.exclude");
+        Path relative = root.relativize(file);
+        if ((!includes.isEmpty() && !matchesAny(includes, relative)) || matchesAny(excludes, relative)) {
+            return false;
+        }
+        for (Path dir = relative.getParent(); dir != null; dir = dir.getParent()) {
+            if (matchesAny(excludes, dir)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesAny(List<PathMatcher> matchers, Path relative) {
+        for (PathMatcher m : matchers) {
+            if (m.matches(relative)) {
+                return true;
+            }
         }
-        for (File file : files) {
-            if (file.isFile() && matchesExtension(file.getName())) {
-                Song song = parseSongFile(file);
+        return false;
+    }
+
+    /**
+     * 递归遍历 start，glob 相对 root 匹配；prune 目录整棵跳过（已由优先任务扫描）
+     */
+    private static List<Song> walk(Path root, Path start, Path prune, List<PathMatcher> includes,
+                                   List<PathMatcher> excludes, SkipFilter skip, ScanQuarantine quarantine,
+                                   Set<Path> seen)
+            throws IOException {
+        List<Song> songs = new ArrayList<>();
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(start) && dir.equals(prune)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (!dir.equals(root) && matchesAny(excludes, root.relativize(dir))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return FileVisitResult.TERMINATE;
+                }
+                if (!attrs.isRegularFile() || !matchesExtension(file.getFileName().toString())) {
+                    return FileVisitResult.CONTINUE;
+                }
+                Path relative = root.relativize(file);
+                if ((!includes.isEmpty() && !matchesAny(includes, relative)) || matchesAny(excludes, relative)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                // 根目录互相嵌套时同一文件只解析一次
+                if (!seen.add(file) || skip.skip(file, attrs)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                Song song = quarantine != null ? quarantine.parse(file, attrs) : parseSongFile(file.toFile());
                 if (song != null) {
                     songs.add(song);
                 }
+                return FileVisitResult.CONTINUE;
             }
-        }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                System.err.println("无法访问：" + file + "（" + e.getMessage() + "）");
+                return FileVisitResult.CONTINUE;
+            }
+        });
         return songs;
     }
 
+    /** 把本地文件转换为 libvlc 可用的 file:/// 形式 MRL */
+    public static String toMrl(File file) {
+        String mrl = file.toURI().toString();
+        if (mrl.startsWith("file:/") && !mrl.startsWith("file:///")) {
+            mrl = mrl.replaceFirst("^file:/+", "file:///");
+        }
+        return mrl;
+    }
+
+    /**
+     * 展开命令行或拖放打开的路径：文件原样保留（不支持的格式跳过），目录递归列出其中的音频文件，每层按名称排序；
+     * 边遍历边给出，取第一个文件时只读到它所在的那几层目录，不先走完整棵树。只列目录不读标签，与音乐库扫描无关
+     */
+    public static Iterator<File> audioFiles(List<File> paths) {
+        return new AudioFileIterator(paths);
+    }
+
+    /** 深度优先遍历：栈里放待处理的路径，弹出目录时才列出它的子项 */
+    private static final class AudioFileIterator implements Iterator<File> {
+        private final Deque<Path> stack = new ArrayDeque<>();
+        private File next;
+
+        AudioFileIterator(List<File> paths) {
+            for (int i = paths.size() - 1; i >= 0; i--) {
+                File path = paths.get(i);
+                if (path.isDirectory() || path.isFile() && matchesExtension(path.getName())) {
+                    stack.push(path.toPath());
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !stack.isEmpty()) {
+                Path path = stack.pop();
+                if (Files.isDirectory(path)) {
+                    pushChildren(path);
+                } else {
+                    next = path.toFile();
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public File next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            File file = next;
+            next = null;
+            return file;
+        }
+
+        /** 子目录（不跟随符号链接）与音频文件按名称倒序入栈，弹出时即为正序 */
+        private void pushChildren(Path dir) {
+            List<Path> children = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path child : entries) {
+                    if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)
+                            || matchesExtension(child.getFileName().toString()) && Files.isRegularFile(child)) {
+                        children.add(child);
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                System.err.println("读取目录失败：" + e.getMessage());
+            }
+            children.sort(Comparator.reverseOrder());
+            for (Path child : children) {
+                stack.push(child);
+            }
+        }
+    }
+
     private static boolean matchesExtension(String fileName) {
+        return hasExtension(fileName, EXTENSIONS);
+    }
+
+    private static boolean hasExtension(String fileName, String[] extensions) {
         String lower = fileName.toLowerCase();
-        for (String ext : EXTENSIONS) {
+        for (String ext : extensions) {
             if (lower.endsWith(ext)) {
                 return true;
             }
@@ -54,24 +315,79 @@ public class MusicLibrary {
         return false;
     }
 
-    private static Song parseSongFile(File file) {
-        try {
-            AudioFile audioFile = AudioFileIO.read(file);
-            Tag tag = audioFile.getTag();
-            AudioHeader header = audioFile.getAudioHeader();
+    /**
+     * 解析单个音频文件的标签与音频头（不读封面和歌词），失败返回 null；
+     * 标签读不出来时只用文件名，这类歌曲由 {@link MediaPreparser} 在后台补全
+     */
+    public static Song parseSongFile(File file) {
+        return parseSongFile(file, true, null);
+    }
 
+    /**
+     * @param readTags false 时不读标签，只用文件名（隔离中的文件）
+     * @param onError  读取失败时回调原因，为 null 时打印到 System.err
+     */
+    static Song parseSongFile(File file, boolean readTags, Consumer<String> onError) {
+        try {
             String artist = "";
             String title  = "";
+            String album = "";
+            String albumArtist = "";
+            String year = "";
+            String genre = "";
+            long durationMillis = 0L;
+            int sampleRate = 0;
+            int bitsPerSample = 0;
+            int bitrate = 0;
+            String codec = "";
 
-            // —— 先尝试从标签里取 TITLE/ARTIST ——
-            if (tag != null) {
-                String t = tag.getFirst(FieldKey.TITLE);
-                String a = tag.getFirst(FieldKey.ARTIST);
-                if (t != null && !t.isEmpty()) {
-                    title = t;
-                }
-                if (a != null && !a.isEmpty()) {
-                    artist = a;
+            // —— 先走轻量读取，只读标签所在的开头几 KB；不支持时退回 jaudiotagger ——
+            FastTagReader.Tags fast = readTags ? FastTagReader.read(file, false) : null;
+            if (fast != null) {
+                title = fast.title;
+                artist = fast.artist;
+                album = fast.album;
+                albumArtist = fast.albumArtist;
+                year = fast.year;
+                genre = fast.genre;
+                durationMillis = fast.durationMillis;
+                sampleRate = fast.sampleRate;
+                bitsPerSample = fast.bitsPerSample;
+                bitrate = fast.bitrate;
+                codec = fast.codec;
+            } else if (readTags && !hasExtension(file.getName(), UNTAGGED_EXTENSIONS)) {
+                try {
+                    AudioFile audioFile = AudioFileIO.read(file);
+                    Tag tag = audioFile.getTag();
+                    AudioHeader header = audioFile.getAudioHeader();
+
+                    // —— 从标签里取 TITLE/ARTIST 与专辑信息 ——
+                    if (tag != null) {
+                        String t = tag.getFirst(FieldKey.TITLE);
+                        String a = tag.getFirst(FieldKey.ARTIST);
+                        if (t != null && !t.isEmpty()) {
+                            title = t;
+                        }
+                        if (a != null && !a.isEmpty()) {
+                            artist = a;
+                        }
+                        album = tag.getFirst(FieldKey.ALBUM);
+                        albumArtist = tag.getFirst(FieldKey.ALBUM_ARTIST);
+                        year = tag.getFirst(FieldKey.YEAR);
+                        genre = tag.getFirst(FieldKey.GENRE);
+                    }
+
+                    // —— 音频头：时长与格式，播放前即可显示总时长 ——
+                    if (header != null) {
+                        durationMillis = Math.round(header.getPreciseTrackLength() * 1000.0);
+                        sampleRate = header.getSampleRateAsNumber();
+                        bitsPerSample = header.getBitsPerSample();
+                        bitrate = (int) header.getBitRateAsNumber();
+                        codec = header.getEncodingType();
+                    }
+                } catch (Exception e) {
+                    // jaudiotagger 读不了的文件（部分 m4a、异常的 MP3 等）先按文件名入库，再交给 libvlc 补全
+                    reportError(onError, file, "读取标签失败", e);
                 }
             }
 
@@ -94,61 +410,185 @@ public class MusicLibrary {
                 }
             }
 
-            // —— 封面图处理 ——
-            Image coverImage;
-            if (tag != null && tag.getFirstArtwork() != null) {
-                byte[] imageData = tag.getFirstArtwork().getBinaryData();
-                coverImage = new Image(new ByteArrayInputStream(imageData));
-            } else {
-                coverImage = new Image(
-                        MusicLibrary.class.getResource("/images/disc.png").toExternalForm()
-                );
+            // —— 构造 Song 对象，并在扫描线程上预先生成排序键 ——
+            Song song = new Song(
+                    file,
+                    title,
+                    artist,
+                    album,
+                    albumArtist,
+                    parseYear(year),
+                    genre,
+                    durationMillis,
+                    sampleRate,
+                    bitsPerSample,
+                    bitrate,
+                    codec
+            );
+            SortKeys.prepare(song);
+            return song;
+
+        } catch (Exception e) {
+            reportError(onError, file, "读取歌曲失败", e);
+            return null;
+        }
+    }
+
+    private static void reportError(Consumer<String> onError, File file, String what, Exception e) {
+        String reason = what + "：" + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        if (onError != null) {
+            onError.accept(reason);
+        } else {
+            System.err.println(reason + "（" + file.getName() + "）");
+        }
+    }
+
+    /** 所有没有内嵌封面的歌曲共用的默认封面 */
+    public static Image defaultCover() {
+        return DefaultCover.IMAGE;
+    }
+
+    private static final class DefaultCover {
+        static final Image IMAGE = new Image(
+                MusicLibrary.class.getResource("/images/disc.png").toExternalForm());
+    }
+
+    /** 缓存中的封面，没有时返回 null，不读文件 */
+    public static Image cachedCover(File file) {
+        synchronized (COVER_CACHE) {
+            return COVER_CACHE.get(file);
+        }
+    }
+
+    /**
+     * 读取歌曲封面；最近用过的几张缓存起来（切歌动画与加载会先后取同一张），
+     * 没有内嵌封面时返回 {@link #defaultCover()}
+     */
+    public static Image loadCover(File file) {
+        synchronized (COVER_CACHE) {
+            Image cached = COVER_CACHE.get(file);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        byte[] artwork = null;
+        try {
+            FastTagReader.Tags fast = FastTagReader.read(file, true);
+            if (fast != null) {
+                artwork = fast.artwork;
+            } else if (!hasExtension(file.getName(), UNTAGGED_EXTENSIONS)) {
+                Tag tag = AudioFileIO.read(file).getTag();
+                if (tag != null && tag.getFirstArtwork() != null) {
+                    artwork = tag.getFirstArtwork().getBinaryData();
+                }
             }
+        } catch (Exception e) {
+            System.err.println("读取封面失败：" + e.getMessage());
+        }
+        Image cover = artwork != null ? new Image(new ByteArrayInputStream(artwork)) : defaultCover();
+        synchronized (COVER_CACHE) {
+            COVER_CACHE.put(file, cover);
+        }
+        return cover;
+    }
+
+    private static final int COVER_CACHE_SIZE = 8;
+    private static final Map<File, Image> COVER_CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, Image> eldest) {
+            return size() > COVER_CACHE_SIZE;
+        }
+    };
 
-            // —— 解析歌词：优先标签内嵌歌词，否则查找同名 .lrc ——
-            List<LyricLine> lyricList = new ArrayList<>();
+    /** 读取歌词：优先同名 .lrc，否则用标签内嵌歌词，结果按时间升序 */
+    public static List<LyricLine> loadLyrics(File file) {
+        List<LyricLine> lyricList = new ArrayList<>();
 
-            // 1) 如果标签内有歌词，先按简单行拆，也可忽略，后面检测 .lrc 覆盖
-            if (tag != null) {
-                String rawLyrics = tag.getFirst(FieldKey.LYRICS);
-                if (rawLyrics != null && !rawLyrics.isEmpty()) {
-                    String[] lines = rawLyrics.split("\\r?\\n");
-                    long ts = 0L;
-                    for (String line : lines) {
-                        lyricList.add(new LyricLine(ts, line));
-                        ts += 1000L;
+        // 1) 查找同目录下与音频同名的 .lrc 文件
+        String fileName = file.getName();
+        int dotIndex = fileName.lastIndexOf('.');
+        String baseName = (dotIndex > 0) ? fileName.substring(0, dotIndex) : fileName;
+        File lrcFile = new File(file.getParent(), baseName + ".lrc");
+        if (lrcFile.exists() && lrcFile.isFile()) {
+            parseLrcFile(lrcFile, lyricList);
+        } else {
+            // 2) 没有 .lrc 时按行拆标签内嵌歌词
+            String rawLyrics = "";
+            try {
+                FastTagReader.Tags fast = FastTagReader.read(file, false);
+                if (fast != null) {
+                    rawLyrics = fast.lyrics;
+                } else if (!hasExtension(fileName, UNTAGGED_EXTENSIONS)) {
+                    Tag tag = AudioFileIO.read(file).getTag();
+                    if (tag != null && tag.getFirst(FieldKey.LYRICS) != null) {
+                        rawLyrics = tag.getFirst(FieldKey.LYRICS);
                     }
                 }
+            } catch (Exception e) {
+                System.err.println("读取歌词失败：" + e.getMessage());
             }
-
-            // 2) 查找同目录下与音频同名的 .lrc 文件
-            String fileName = file.getName();
-            int dotIndex = fileName.lastIndexOf('.');
-            String baseName = (dotIndex > 0) ? fileName.substring(0, dotIndex) : fileName;
-            File lrcFile = new File(file.getParent(), baseName + ".lrc");
-            if (lrcFile.exists() && lrcFile.isFile()) {
-                // 把之前标签里简单拆的清空，改用 LRC 解析结果
-                lyricList.clear();
-                parseLrcFile(lrcFile, lyricList);
+            if (rawLyrics != null && !rawLyrics.isEmpty()) {
+                long ts = 0L;
+                for (String line : rawLyrics.split("\\r?\\n")) {
+                    lyricList.add(new LyricLine(ts, line));
+                    ts += 1000L;
+                }
             }
+        }
 
-            // 3) 按时间戳排序，确保升序
-            lyricList.sort(Comparator.comparingLong(LyricLine::getTimeInMillis));
+        // 3) 按时间戳排序，确保升序
+        lyricList.sort(Comparator.comparingLong(LyricLine::getTimeInMillis));
+        return lyricList;
+    }
 
-            // —— 构造并返回 Song 对象 ——
-            return new Song(
-                    file,
-                    title,
-                    artist,
-                    coverImage,
-                    lyricList
-            );
+    /** 年份字段可能是 "2004"、"2004-05-01" 等，只取开头四位数字 */
+    static int parseYear(String year) {
+        if (year != null && year.length() >= 4) {
+            try {
+                return Integer.parseInt(year.trim().substring(0, 4));
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
 
-        } catch (Exception e) {
-            System.err.println("读取歌曲失败：" + file.getName());
-            e.printStackTrace();
-            return null;
+    /** 增强 LRC 的逐字时间标记 {@code <mm:ss.xx>} */
+    private static final Pattern WORD_TIME = Pattern.compile("<(\\d{1,2}):(\\d{2})\\.(\\d{2,3})>");
+
+    /**
+     * 解析增强 LRC 的行内逐字时间：去掉 {@code <mm:ss.xx>} 标记得到纯文本，
+     * 每个标记记为其后字词的开始时间与在纯文本中的下标；没有标记时返回普通歌词行
+     */
+    static LyricLine parseWordTimes(long lineTime, String raw) {
+        Matcher matcher = WORD_TIME.matcher(raw);
+        if (!matcher.find()) {
+            return new LyricLine(lineTime, raw);
+        }
+        StringBuilder text = new StringBuilder(raw.length());
+        List<long[]> words = new ArrayList<>();
+        int last = 0;
+        do {
+            text.append(raw, last, matcher.start());
+            String frac = matcher.group(3);
+            long millis = Integer.parseInt(matcher.group(1)) * 60_000L + Integer.parseInt(matcher.group(2)) * 1000L
+                    + (frac.length() == 2 ? Integer.parseInt(frac) * 10L : Integer.parseInt(frac));
+            words.add(new long[]{millis, text.length()});
+            last = matcher.end();
+        } while (matcher.find());
+        text.append(raw, last, raw.length());
+        // 标记前后的空白不参与显示
+        int lead = 0;
+        while (lead < text.length() && Character.isWhitespace(text.charAt(lead))) lead++;
+        String plain = text.toString().strip();
+        long[] times = new long[words.size()];
+        int[] offsets = new int[words.size()];
+        for (int i = 0; i < times.length; i++) {
+            // 时间乱序的标记按前一个时间处理，保证升序
+            times[i] = i > 0 ? Math.max(times[i - 1], words.get(i)[0]) : words.get(i)[0];
+            offsets[i] = (int) Math.max(0, Math.min(plain.length(), words.get(i)[1] - lead));
         }
+        return new LyricLine(lineTime, plain, times, offsets);
     }
 
     /** 解析 .lrc 文件，把解析出的 (毫秒, 文本) 填入 lyricList **/
@@ -179,9 +619,9 @@ public class MusicLibrary {
                     lastMatchEnd = matcher.end();
                 }
                 if (!times.isEmpty()) {
-                    String text = line.substring(lastMatchEnd).trim();
+                    LyricLine parsed = parseWordTimes(times.getFirst(), line.substring(lastMatchEnd).trim());
                     for (Long t : times) {
-                        lyricList.add(new LyricLine(t, text));
+                        lyricList.add(parsed.shiftedTo(t));
                     }
                 }
             }
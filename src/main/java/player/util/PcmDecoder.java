@@ -0,0 +1,271 @@
+// 文件：src/main/java/player/util/PcmDecoder.java
+package player.util;
+
+import uk.co.caprica.vlcj.factory.MediaPlayerFactory;
+import uk.co.caprica.vlcj.player.base.MediaPlayer;
+import uk.co.caprica.vlcj.player.base.MediaPlayerEventAdapter;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 把音频文件解码为 16 位有符号小端 PCM 流，供响度、波形等后台分析按块流式读取
+ * <p>
+ * Java Sound 能直接解码的格式（wav 等）直接读取；其余格式（mp3、flac…）借助 libvlc 的流输出转码成临时 wav，
+ * 边写边读：转码不受播放时钟约束、尽快进行，读取方跟在写入位置后面，不必等整首转完。关闭流时删除临时文件。
+ * 当前与下一首（priority）有一个转码许可，后台的其余曲目共用 {@link #BACKGROUND_PERMITS} 个，两者互不等待、互不打断；
+ * 后台许可数由 {@code -Dplayer.analysis.threads} 指定，默认为 CPU 核数的一半（1～4），转码总路数有上限。
+ */
+public final class PcmDecoder {
+    /** 后台同时进行的转码数，也是后台分析线程数 */
+    public static final int BACKGROUND_PERMITS = Math.max(1, Integer.getInteger("player.analysis.threads",
+            Math.min(4, Runtime.getRuntime().availableProcessors() / 2)));
+    private static final Semaphore PRIORITY_PERMIT = new Semaphore(1);
+    private static final Semaphore BACKGROUND_PERMIT = new Semaphore(BACKGROUND_PERMITS);
+    /** 读到临时文件末尾、转码仍在进行时的等待间隔 */
+    private static final long POLL_MILLIS = 20;
+
+    private PcmDecoder() {
+    }
+
+    /**
+     * 打开 PCM 流，调用方负责关闭
+     *
+     * @param file          音频文件
+     * @param factory       libvlc 工厂，为 null 时不做转码
+     * @param timeoutMillis 转码超时
+     * @param priority      true 时使用当前与下一首的转码许可
+     */
+    public static AudioInputStream open(File file, MediaPlayerFactory factory, long timeoutMillis, boolean priority)
+            throws IOException {
+        try {
+            return toPcm16(AudioSystem.getAudioInputStream(file));
+        } catch (UnsupportedAudioFileException e) {
+            if (factory == null) {
+                throw new IOException("不支持的音频格式：" + file.getName());
+            }
+        }
+
+        Transcode transcode = new Transcode(file, priority ? PRIORITY_PERMIT : BACKGROUND_PERMIT, timeoutMillis);
+        try {
+            transcode.start(factory);
+            return transcode.audioStream();
+        } catch (IOException e) {
+            transcode.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 退出时调用：等进行中的转码结束并占住全部许可，之后不再开始新的转码，libvlc 工厂可以安全释放
+     *
+     * @return 超时仍有转码在进行时返回 false
+     */
+    public static boolean awaitIdle(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            return PRIORITY_PERMIT.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)
+                    && BACKGROUND_PERMIT.tryAcquire(BACKGROUND_PERMITS,
+                    Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static AudioInputStream toPcm16(AudioInputStream in) {
+        AudioFormat src = in.getFormat();
+        if (src.getEncoding() == AudioFormat.Encoding.PCM_SIGNED
+                && src.getSampleSizeInBits() == 16 && !src.isBigEndian()) {
+            return in;
+        }
+        AudioFormat target = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, src.getSampleRate(), 16,
+                src.getChannels(), src.getChannels() * 2, src.getSampleRate(), false);
+        return AudioSystem.getAudioInputStream(target, in);
+    }
+
+    /**
+     * 一次 libvlc 转码：流输出写 44.1kHz 双声道 wav 临时文件，本流从文件读取，读到末尾时等转码继续写入。
+     * 许可从开始转码占到转码结束（或流被提前关闭）
+     */
+    private static final class Transcode extends InputStream {
+        private final File file;
+        private final Semaphore permit;
+        private final long deadline;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final AtomicBoolean failed = new AtomicBoolean(false);
+        private Path wav;
+        private RandomAccessFile in;
+        /** 转码中的播放器，转码结束或流关闭后为 null */
+        private MediaPlayer player;
+        private boolean acquired;
+
+        Transcode(File file, Semaphore permit, long timeoutMillis) {
+            this.file = file;
+            this.permit = permit;
+            this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        }
+
+        void start(MediaPlayerFactory factory) throws IOException {
+            wav = Files.createTempFile("musicplayer-", ".wav");
+            in = new RandomAccessFile(wav.toFile(), "r");
+            String dst = wav.toAbsolutePath().toString().replace('\\', '/');
+            String sout = ":sout=#transcode{vcodec=none,acodec=s16l,channels=2,samplerate=44100}"
+                    + ":std{access=file,mux=wav,dst='" + dst + "'}";
+            try {
+                permit.acquire();
+                acquired = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("转码被中断：" + file.getName());
+            }
+            player = factory.mediaPlayers().newMediaPlayer();
+            player.events().addMediaPlayerEventListener(new MediaPlayerEventAdapter() {
+                @Override
+                public void finished(MediaPlayer mp) {
+                    done.countDown();
+                }
+
+                @Override
+                public void error(MediaPlayer mp) {
+                    failed.set(true);
+                    done.countDown();
+                }
+            });
+            if (!player.media().play(MusicLibrary.toMrl(file), sout, ":no-sout-video", ":no-video")) {
+                throw new IOException("libvlc 无法打开：" + file.getName());
+            }
+        }
+
+        /** 跳过 wav 头，按 fmt 块的声道数与采样率返回位于 data 块开头的 PCM 流 */
+        AudioInputStream audioStream() throws IOException {
+            DataInputStream header = new DataInputStream(this);
+            byte[] id = new byte[4];
+            header.readFully(id);
+            if (!"RIFF".equals(new String(id, StandardCharsets.US_ASCII))) {
+                throw new IOException("转码结果不是 wav：" + file.getName());
+            }
+            header.skipNBytes(8);
+            int channels = 2;
+            float sampleRate = 44100;
+            while (true) {
+                header.readFully(id);
+                long size = Integer.toUnsignedLong(Integer.reverseBytes(header.readInt()));
+                String chunk = new String(id, StandardCharsets.US_ASCII);
+                if (chunk.equals("data")) {
+                    break;
+                }
+                if (chunk.equals("fmt ") && size >= 16) {
+                    header.skipNBytes(2);
+                    channels = Short.reverseBytes(header.readShort());
+                    sampleRate = Integer.reverseBytes(header.readInt());
+                    size -= 8;
+                }
+                header.skipNBytes(size + (size & 1));
+            }
+            AudioFormat format = new AudioFormat(sampleRate, 16, channels, true, false);
+            return new AudioInputStream(this, format, AudioSystem.NOT_SPECIFIED);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (true) {
+                int n = in.read(b, off, len);
+                if (n > 0) {
+                    return n;
+                }
+                if (player == null) {
+                    return -1;
+                }
+                if (done.getCount() == 0) {
+                    // 停止播放器才会冲刷并关闭流输出，之后文件不再增长
+                    finish();
+                    if (failed.get()) {
+                        throw new IOException("转码失败：" + file.getName());
+                    }
+                    continue;
+                }
+                if (System.nanoTime() - deadline > 0) {
+                    throw new IOException("转码超时：" + file.getName());
+                }
+                try {
+                    done.await(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("转码被中断：" + file.getName());
+                }
+            }
+        }
+
+        /** 释放转码播放器与许可，可重复调用 */
+        private void finish() {
+            if (player != null) {
+                player.controls().stop();
+                player.release();
+                player = null;
+            }
+            if (acquired) {
+                acquired = false;
+                permit.release();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+            try {
+                if (in != null) {
+                    in.close();
+                }
+            } finally {
+                if (wav != null) {
+                    Files.deleteIfExists(wav);
+                }
+            }
+        }
+    }
+
+    /** 从 PCM 流读取一块并转换为交错的 float 采样，返回帧数，流结束返回 -1 */
+    public static int readFrames(AudioInputStream in, byte[] buffer, float[] out) throws IOException {
+        int frameBytes = in.getFormat().getFrameSize();
+        int want = Math.min(buffer.length, out.length * 2) / frameBytes * frameBytes;
+        int read = 0;
+        while (read < want) {
+            int n = in.read(buffer, read, want - read);
+            if (n < 0) break;
+            read += n;
+        }
+        if (read == 0) {
+            return -1;
+        }
+        read = read / frameBytes * frameBytes;
+        for (int i = 0, p = 0; p < read; i++, p += 2) {
+            out[i] = (short) ((buffer[p] & 0xff) | (buffer[p + 1] << 8)) / 32768f;
+        }
+        return read / frameBytes;
+    }
+}
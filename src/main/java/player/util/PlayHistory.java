@@ -0,0 +1,584 @@
+// 文件：src/main/java/player/util/PlayHistory.java
+package player.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 播放历史：记录开始播放、播完与跳过，统计播放次数、最近播放与跳过次数，供智能歌单使用
+ * <p>
+ * 磁盘上与 {@link LibraryStore} 一样是两个文件：history.idx 为压缩后的统计快照，history.log 为其后追加的事件。
+ * 记录事件时只更新内存中的统计并放进待写列表，由后台线程攒够一批或等 5 秒后一次写入日志，播放路径上没有 I/O；
+ * 启动时日志非空、日志过长以及关闭时把统计重写为快照并清空日志。
+ * 内存中每首歌按 id 存在几个基本类型数组里，另有按天的播放次数（保留 {@value #RETENTION_DAYS} 天），
+ * “最近 30 天播放最多的 100 首”只需累加 30 个按天的计数表再取前 N，不扫描日志。
+ */
+public class PlayHistory implements AutoCloseable {
+    private static final int SNAPSHOT_MAGIC = 0x48495354; // "HIST"
+    private static final int LOG_MAGIC = 0x4849534C;      // "HISL"
+    private static final int VERSION = 1;
+    private static final byte OP_PATH = 1;
+    private static final byte OP_EVENT = 2;
+    private static final long FLUSH_DELAY_MILLIS = 5000;
+    private static final int FLUSH_BATCH = 64;
+    private static final int COMPACT_MIN_ENTRIES = 4096;
+    private static final int RETENTION_DAYS = 400;
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    /** 事件类型 */
+    public enum Kind {PLAY, COMPLETE, SKIP}
+
+    /**
+     * 一首歌的统计
+     *
+     * @param plays      播放次数（按时间窗口查询时为窗口内的次数）
+     * @param completes  播完次数
+     * @param skips      播完前切走的次数
+     * @param lastPlayed 最近一次开始播放的时间，没有时为 0
+     */
+    public record Stat(String path, int plays, int completes, int skips, long lastPlayed) {
+    }
+
+    private record Event(Kind kind, int id, long time, int playedMillis) {
+    }
+
+    private final Path snapshotFile = AppFiles.resolve("history.idx");
+    private final Path logFile = AppFiles.resolve("history.log");
+    private final ScheduledThreadPoolExecutor writer = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "play-history");
+        t.setDaemon(true);
+        return t;
+    });
+    private final TimeZone zone = TimeZone.getDefault();
+
+    // —— 以下状态由 this 加锁保护 ——
+    private final List<String> paths = new ArrayList<>();
+    private final Map<String, Integer> idByPath = new HashMap<>();
+    private int[] plays = new int[256];
+    private int[] completes = new int[256];
+    private int[] skips = new int[256];
+    private long[] lastPlayed = new long[256];
+    /** 按天的播放次数，下标为 天数 % RETENTION_DAYS */
+    private final DayCounts[] days = new DayCounts[RETENTION_DAYS];
+    private List<Event> pending = new ArrayList<>();
+    private boolean flushScheduled;
+    // 按时间窗口查询时的累加缓冲，复用避免每次分配
+    private int[] windowCounts = new int[256];
+    private int[] touched = new int[256];
+
+    // —— 以下只在写线程访问 ——
+    private FileOutputStream logStream;
+    private DataOutputStream log;
+    private int logEntries;
+    /** 已写入快照或日志的路径数，id 小于它的路径不必再写 */
+    private int loggedPaths;
+
+    /** 读入快照与日志；此后的写入在后台线程进行 */
+    public PlayHistory() {
+        writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        loadSnapshot();
+        replayLog();
+        writer.execute(() -> {
+            synchronized (this) {
+                loggedPaths = paths.size();
+            }
+            if (logEntries > 0) {
+                compact();
+            } else {
+                openLog();
+            }
+        });
+    }
+
+    // ========================= 记录 =========================
+
+    /**
+     * 记录一个事件（任意线程，通常为 FX 线程）：立即计入统计，写盘由后台线程批量完成
+     *
+     * @param playedMillis 已播放的时长，PLAY 时为 0
+     */
+    public void record(Kind kind, File file, long playedMillis) {
+        Event event;
+        boolean flushNow;
+        synchronized (this) {
+            event = new Event(kind, idFor(file.getAbsolutePath()), System.currentTimeMillis(),
+                    (int) Math.min(Integer.MAX_VALUE, Math.max(0, playedMillis)));
+            apply(event);
+            pending.add(event);
+            flushNow = pending.size() >= FLUSH_BATCH;
+            if (!flushScheduled && !writer.isShutdown()) {
+                flushScheduled = true;
+                writer.schedule(this::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (flushNow && !writer.isShutdown()) {
+            writer.execute(this::flush);
+        }
+    }
+
+    /** 写出剩余事件、重写快照后关闭，最多等待数秒 */
+    @Override
+    public void close() {
+        writer.execute(() -> {
+            flush();
+            compact();
+            closeLog();
+        });
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int idFor(String path) {
+        Integer id = idByPath.get(path);
+        if (id != null) {
+            return id;
+        }
+        int newId = paths.size();
+        paths.add(path);
+        idByPath.put(path, newId);
+        if (newId >= plays.length) {
+            int n = plays.length * 2;
+            plays = Arrays.copyOf(plays, n);
+            completes = Arrays.copyOf(completes, n);
+            skips = Arrays.copyOf(skips, n);
+            lastPlayed = Arrays.copyOf(lastPlayed, n);
+        }
+        return newId;
+    }
+
+    private void apply(Event e) {
+        switch (e.kind()) {
+            case PLAY -> {
+                plays[e.id()]++;
+                lastPlayed[e.id()] = Math.max(lastPlayed[e.id()], e.time());
+                int day = dayOf(e.time());
+                int slot = Math.floorMod(day, RETENTION_DAYS);
+                DayCounts counts = days[slot];
+                if (counts == null || counts.day != day) {
+                    if (counts != null && counts.day > day) {
+                        return; // 比保留期还早的事件只计入总数
+                    }
+                    counts = new DayCounts(day);
+                    days[slot] = counts;
+                }
+                counts.increment(e.id(), 1);
+            }
+            case COMPLETE -> completes[e.id()]++;
+            case SKIP -> skips[e.id()]++;
+        }
+    }
+
+    private int dayOf(long time) {
+        return (int) Math.floorDiv(time + zone.getOffset(time), DAY_MILLIS);
+    }
+
+    // ========================= 查询 =========================
+
+    /**
+     * 播放次数最多的前 limit 首
+     *
+     * @param lastDays 只统计最近几天（含今天），不大于 0 时统计全部
+     */
+    public synchronized List<Stat> topPlayed(int lastDays, int limit) {
+        TopN top = new TopN(Math.min(limit, paths.size()));
+        if (lastDays <= 0) {
+            for (int id = 0; id < paths.size(); id++) {
+                if (plays[id] > 0) top.offer(plays[id], id);
+            }
+            return top.toStats(this, null);
+        }
+        if (windowCounts.length < paths.size()) {
+            windowCounts = new int[plays.length];
+            touched = new int[plays.length];
+        }
+        int today = dayOf(System.currentTimeMillis());
+        int n = 0;
+        for (int day = today - Math.min(lastDays, RETENTION_DAYS) + 1; day <= today; day++) {
+            DayCounts counts = days[Math.floorMod(day, RETENTION_DAYS)];
+            if (counts == null || counts.day != day) continue;
+            for (int i = 0; i < counts.keys.length; i++) {
+                int id = counts.keys[i];
+                if (id < 0) continue;
+                if (windowCounts[id] == 0) touched[n++] = id;
+                windowCounts[id] += counts.values[i];
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            top.offer(windowCounts[touched[i]], touched[i]);
+        }
+        List<Stat> result = top.toStats(this, windowCounts);
+        for (int i = 0; i < n; i++) {
+            windowCounts[touched[i]] = 0;
+        }
+        return result;
+    }
+
+    /** 最近开始播放的前 limit 首，新的在前 */
+    public synchronized List<Stat> recentlyPlayed(int limit) {
+        TopN top = new TopN(Math.min(limit, paths.size()));
+        for (int id = 0; id < paths.size(); id++) {
+            if (lastPlayed[id] > 0) top.offer(lastPlayed[id], id);
+        }
+        return top.toStats(this, null);
+    }
+
+    /** 跳过次数最多的前 limit 首 */
+    public synchronized List<Stat> mostSkipped(int limit) {
+        TopN top = new TopN(Math.min(limit, paths.size()));
+        for (int id = 0; id < paths.size(); id++) {
+            if (skips[id] > 0) top.offer(skips[id], id);
+        }
+        return top.toStats(this, null);
+    }
+
+    /** 一首歌的统计，没有记录时返回 null */
+    public synchronized Stat stat(File file) {
+        Integer id = idByPath.get(file.getAbsolutePath());
+        return id != null ? statOf(id, plays[id]) : null;
+    }
+
+    private Stat statOf(int id, int playCount) {
+        return new Stat(paths.get(id), playCount, completes[id], skips[id], lastPlayed[id]);
+    }
+
+    // ========================= 持久化 =========================
+
+    /** 写线程：把待写事件追加到日志，一批只刷盘一次 */
+    private void flush() {
+        List<Event> batch;
+        int pathCount;
+        List<String> newPaths;
+        synchronized (this) {
+            flushScheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+            pathCount = paths.size();
+            newPaths = new ArrayList<>(paths.subList(Math.min(loggedPaths, pathCount), pathCount));
+        }
+        if (log == null) {
+            return;
+        }
+        try {
+            for (String path : newPaths) {
+                log.writeByte(OP_PATH);
+                log.writeUTF(path);
+                logEntries++;
+            }
+            loggedPaths = pathCount;
+            for (Event e : batch) {
+                log.writeByte(OP_EVENT);
+                log.writeByte(e.kind().ordinal());
+                log.writeInt(e.id());
+                log.writeLong(e.time());
+                log.writeInt(e.playedMillis());
+                logEntries++;
+            }
+            log.flush();
+            logStream.getFD().sync();
+        } catch (IOException e) {
+            System.err.println("写入播放历史失败：" + e.getMessage());
+        }
+        if (logEntries > COMPACT_MIN_ENTRIES) {
+            compact();
+        }
+    }
+
+    private void loadSnapshot() {
+        if (!Files.isRegularFile(snapshotFile)) {
+            return;
+        }
+        try (InputStream fis = Files.newInputStream(snapshotFile);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(fis))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int id = idFor(in.readUTF());
+                plays[id] = in.readInt();
+                completes[id] = in.readInt();
+                skips[id] = in.readInt();
+                lastPlayed[id] = in.readLong();
+            }
+            int dayCount = in.readInt();
+            for (int i = 0; i < dayCount; i++) {
+                DayCounts counts = new DayCounts(in.readInt());
+                int entries = in.readInt();
+                for (int j = 0; j < entries; j++) {
+                    counts.increment(in.readInt(), in.readInt());
+                }
+                days[Math.floorMod(counts.day, RETENTION_DAYS)] = counts;
+            }
+        } catch (IOException e) {
+            System.err.println("读取播放历史失败：" + e.getMessage());
+        }
+    }
+
+    /** 重放日志；末尾写了一半的记录（崩溃时）直接忽略 */
+    private void replayLog() {
+        if (!Files.isRegularFile(logFile)) {
+            return;
+        }
+        try (InputStream fis = Files.newInputStream(logFile);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(fis))) {
+            if (in.readInt() != LOG_MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            Kind[] kinds = Kind.values();
+            while (true) {
+                byte op = in.readByte();
+                if (op == OP_PATH) {
+                    idFor(in.readUTF());
+                } else if (op == OP_EVENT) {
+                    int kind = in.readByte();
+                    int id = in.readInt();
+                    long time = in.readLong();
+                    int played = in.readInt();
+                    if (kind >= 0 && kind < kinds.length && id >= 0 && id < paths.size()) {
+                        apply(new Event(kinds[kind], id, time, played));
+                    }
+                } else {
+                    break;
+                }
+                logEntries++;
+            }
+        } catch (EOFException e) {
+            // 日志结束
+        } catch (IOException e) {
+            System.err.println("读取播放历史日志失败：" + e.getMessage());
+        }
+        if (logEntries == 0) {
+            try {
+                logEntries = Files.size(logFile) > 8 ? 1 : 0;
+            } catch (IOException e) {
+                logEntries = 1;
+            }
+        }
+    }
+
+    private void openLog() {
+        try {
+            boolean fresh = !Files.isRegularFile(logFile) || Files.size(logFile) == 0;
+            logStream = new FileOutputStream(logFile.toFile(), true);
+            log = new DataOutputStream(new BufferedOutputStream(logStream));
+            if (fresh) {
+                log.writeInt(LOG_MAGIC);
+                log.writeInt(VERSION);
+                log.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("打开播放历史日志失败：" + e.getMessage());
+            log = null;
+        }
+    }
+
+    private void closeLog() {
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                System.err.println("关闭播放历史日志失败：" + e.getMessage());
+            }
+            log = null;
+        }
+    }
+
+    /** 写统计快照并清空日志；尚未写出的事件留给下一批，快照里已含它们的路径 */
+    private void compact() {
+        List<String> pathCopy;
+        int[] p, c, s;
+        long[] last;
+        List<DayCounts> dayCopy = new ArrayList<>();
+        synchronized (this) {
+            // 还在待写列表里的事件已计入统计，一并进入快照，不再写日志
+            pending.clear();
+            pathCopy = new ArrayList<>(paths);
+            p = Arrays.copyOf(plays, paths.size());
+            c = Arrays.copyOf(completes, paths.size());
+            s = Arrays.copyOf(skips, paths.size());
+            last = Arrays.copyOf(lastPlayed, paths.size());
+            int oldest = dayOf(System.currentTimeMillis()) - RETENTION_DAYS + 1;
+            for (DayCounts counts : days) {
+                if (counts != null && counts.day >= oldest) dayCopy.add(counts.copy());
+            }
+        }
+        try {
+            AppFiles.writeAtomically(snapshotFile, out -> {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(pathCopy.size());
+                for (int id = 0; id < pathCopy.size(); id++) {
+                    out.writeUTF(pathCopy.get(id));
+                    out.writeInt(p[id]);
+                    out.writeInt(c[id]);
+                    out.writeInt(s[id]);
+                    out.writeLong(last[id]);
+                }
+                out.writeInt(dayCopy.size());
+                for (DayCounts counts : dayCopy) {
+                    out.writeInt(counts.day);
+                    out.writeInt(counts.size);
+                    for (int i = 0; i < counts.keys.length; i++) {
+                        if (counts.keys[i] >= 0) {
+                            out.writeInt(counts.keys[i]);
+                            out.writeInt(counts.values[i]);
+                        }
+                    }
+                }
+            });
+            closeLog();
+            Files.deleteIfExists(logFile);
+            logEntries = 0;
+            loggedPaths = pathCopy.size();
+        } catch (IOException e) {
+            System.err.println("压缩播放历史失败：" + e.getMessage());
+        }
+        if (log == null) {
+            openLog();
+        }
+    }
+
+    /** 一天内各曲目的播放次数：开放寻址的 int → int 表，空槽为 -1 */
+    private static final class DayCounts {
+        final int day;
+        int[] keys = newKeys(16);
+        int[] values = new int[16];
+        int size;
+
+        DayCounts(int day) {
+            this.day = day;
+        }
+
+        private static int[] newKeys(int n) {
+            int[] k = new int[n];
+            Arrays.fill(k, -1);
+            return k;
+        }
+
+        void increment(int id, int by) {
+            if ((size + 1) * 2 > keys.length) {
+                int[] oldKeys = keys;
+                int[] oldValues = values;
+                keys = newKeys(oldKeys.length * 2);
+                values = new int[oldKeys.length * 2];
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] >= 0) increment(oldKeys[i], oldValues[i]);
+                }
+            }
+            int mask = keys.length - 1;
+            int i = (id * 0x9E3779B9) >>> 16 & mask;
+            while (keys[i] >= 0 && keys[i] != id) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] < 0) {
+                keys[i] = id;
+                size++;
+            }
+            values[i] += by;
+        }
+
+        DayCounts copy() {
+            DayCounts c = new DayCounts(day);
+            c.keys = keys.clone();
+            c.values = values.clone();
+            c.size = size;
+            return c;
+        }
+    }
+
+    /** 取分数最高的前 N 个：大小为 N 的最小堆，分数相同时 id 大的在前 */
+    private static final class TopN {
+        private final long[] scores;
+        private final int[] ids;
+        private int size;
+
+        TopN(int limit) {
+            scores = new long[Math.max(0, limit)];
+            ids = new int[Math.max(0, limit)];
+        }
+
+        void offer(long score, int id) {
+            if (size < scores.length) {
+                scores[size] = score;
+                ids[size] = id;
+                siftUp(size++);
+            } else if (size > 0 && less(0, score, id)) {
+                scores[0] = score;
+                ids[0] = id;
+                siftDown(0);
+            }
+        }
+
+        /** 堆中第 i 个是否比 (score, id) 小 */
+        private boolean less(int i, long score, int id) {
+            return scores[i] < score || scores[i] == score && ids[i] < id;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!less(i, scores[parent], ids[parent])) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                    if (less(child, scores[smallest], ids[smallest])) smallest = child;
+                }
+                if (smallest == i) return;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long s = scores[a];
+            scores[a] = scores[b];
+            scores[b] = s;
+            int t = ids[a];
+            ids[a] = ids[b];
+            ids[b] = t;
+        }
+
+        /** 按分数从高到低输出；windowCounts 不为 null 时播放次数取窗口内的值 */
+        List<Stat> toStats(PlayHistory history, int[] windowCounts) {
+            Stat[] out = new Stat[size];
+            while (size > 0) {
+                int id = ids[0];
+                out[size - 1] = history.statOf(id, windowCounts != null ? windowCounts[id] : history.plays[id]);
+                swap(0, --size);
+                siftDown(0);
+            }
+            return List.of(out);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+// 文件：src/main/java/player/util/PlayerEventBus.java
+package player.util;
+
+import player.model.LyricLine;
+import player.model.PlayerEvent;
+import player.model.Song;
+import uk.co.caprica.vlcj.media.MediaRef;
+import uk.co.caprica.vlcj.player.base.MediaPlayer;
+import uk.co.caprica.vlcj.player.base.MediaPlayerEventAdapter;
+import uk.co.caprica.vlcj.player.base.MediaPlayerEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 播放器事件流：换歌、状态变化、播放位置、歌词行与音乐库变化，基于 {@link Flow}
+ * <p>
+ * libvlc 的回调经 {@link #mediaListener()} 统一转换为事件，歌词行由播放位置推算；其余事件由播放器调用 {@link #publish}。
+ * 每个订阅者有自己的待处理缓冲，按 {@link PlayerEvent#key()} 合并，只保留每种事件的最新值；
+ * 状态变化不合并，但连续相同的只留一个，且最多保留最近 {@value #MAX_UNMERGED} 个，订阅者不请求或投递线程卡住时缓冲也有上限。
+ * 投递在订阅时指定的 Executor 上进行，同一订阅者任一时刻最多排队一个投递任务，
+ * 订阅者再慢也不会在 FX 线程堆积 runLater。投递时 libvlc 已换了媒体的旧事件（上一首的播完、停止、位置）丢弃。
+ */
+public class PlayerEventBus implements Flow.Publisher<PlayerEvent> {
+    /** 每个订阅者最多缓冲的不合并事件数，超出时丢弃最早的 */
+    static final int MAX_UNMERGED = 16;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final MediaPlayerEventListener mediaListener = new MediaListener();
+    private final Executor defaultExecutor;
+    /** libvlc 换媒体的次数，即当前媒体的代号 */
+    private final AtomicLong media = new AtomicLong();
+
+    // 由播放器事件线程推算歌词行
+    private volatile List<LyricLine> lyrics = List.of();
+    private List<LyricLine> lastLyrics;
+    private int lastLyric = -1;
+
+    /**
+     * @param defaultExecutor {@link #subscribe(Flow.Subscriber)} 使用的投递线程
+     */
+    public PlayerEventBus(Executor defaultExecutor) {
+        this.defaultExecutor = defaultExecutor;
+    }
+
+    /** 注册到 vlcj 播放器上的监听，整个生命周期只需注册一次 */
+    public MediaPlayerEventListener mediaListener() {
+        return mediaListener;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super PlayerEvent> subscriber) {
+        subscribe(subscriber, defaultExecutor);
+    }
+
+    /** 订阅，事件在 executor 上投递给 subscriber */
+    public void subscribe(Flow.Subscriber<? super PlayerEvent> subscriber, Executor executor) {
+        Subscription subscription = new Subscription(subscriber, executor);
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /** 便捷订阅：不限需求量，逐个交给 handler；handler 抛出的异常只记录，不影响后续事件 */
+    public void subscribe(Executor executor, Consumer<? super PlayerEvent> handler) {
+        subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(PlayerEvent item) {
+                try {
+                    handler.accept(item);
+                } catch (RuntimeException e) {
+                    System.err.println("处理播放器事件失败：" + e.getMessage());
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                System.err.println("处理播放器事件失败：" + throwable.getMessage());
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        }, executor);
+    }
+
+    /** 发布一个事件；换歌时顺带切换用于推算歌词行的歌词 */
+    public void publish(PlayerEvent event) {
+        if (event instanceof PlayerEvent.TrackChanged changed) {
+            List<LyricLine> lines = changed.song() != null ? changed.song().getLyrics() : null;
+            lyrics = lines != null ? lines : List.of();
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /** 结束全部订阅 */
+    public void close() {
+        for (Subscription subscription : subscriptions) {
+            subscription.complete();
+        }
+        subscriptions.clear();
+    }
+
+    private void onTime(long millis) {
+        long m = media.get();
+        publish(new PlayerEvent.PositionTick(millis, m));
+        List<LyricLine> lines = lyrics;
+        int index = lines.isEmpty() ? -1 : LyricLine.indexAt(lines, millis);
+        if (index != lastLyric || lines != lastLyrics) {
+            lastLyric = index;
+            lastLyrics = lines;
+            if (index >= 0) {
+                publish(new PlayerEvent.LyricLineChanged(index, lines.get(index), m));
+            }
+        }
+    }
+
+    /** libvlc 回调 → 事件，在 libvlc 的事件线程上调用，只做转换 */
+    private void onState(PlayerEvent.State state) {
+        publish(new PlayerEvent.StateChanged(state, media.get()));
+    }
+
+    /** 换媒体：此前发布、尚未投递的旧媒体事件在投递时丢弃 */
+    void onMediaChanged() {
+        media.incrementAndGet();
+    }
+
+    private final class MediaListener extends MediaPlayerEventAdapter {
+        @Override
+        public void mediaChanged(MediaPlayer mp, MediaRef ref) {
+            onMediaChanged();
+        }
+
+        @Override
+        public void playing(MediaPlayer mp) {
+            onState(PlayerEvent.State.PLAYING);
+        }
+
+        @Override
+        public void paused(MediaPlayer mp) {
+            onState(PlayerEvent.State.PAUSED);
+        }
+
+        @Override
+        public void stopped(MediaPlayer mp) {
+            onState(PlayerEvent.State.STOPPED);
+        }
+
+        @Override
+        public void finished(MediaPlayer mp) {
+            onState(PlayerEvent.State.FINISHED);
+        }
+
+        @Override
+        public void error(MediaPlayer mp) {
+            onState(PlayerEvent.State.ERROR);
+        }
+
+        @Override
+        public void timeChanged(MediaPlayer mp, long newTime) {
+            onTime(newTime);
+        }
+    }
+
+    /** 不合并事件在缓冲中的键，每个事件一个 */
+    private static final class Unmerged {
+    }
+
+    /** 一个订阅者的缓冲与投递 */
+    private final class Subscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super PlayerEvent> subscriber;
+        private final Executor executor;
+        /** 合并键 → 最新事件，插入顺序即投递顺序；不合并的事件各用一个 {@link Unmerged} 键。由自身加锁保护 */
+        private final LinkedHashMap<Object, PlayerEvent> pending = new LinkedHashMap<>();
+        /** pending 中不合并事件的个数 */
+        private int unmerged;
+        private final AtomicLong demand = new AtomicLong();
+        /** 大于 0 时已有投递任务在排队或执行 */
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile boolean completed;
+
+        Subscription(Flow.Subscriber<? super PlayerEvent> subscriber, Executor executor) {
+            this.subscriber = subscriber;
+            this.executor = executor;
+        }
+
+        void offer(PlayerEvent event) {
+            synchronized (pending) {
+                // 先移除再放入，合并后的事件排到最后
+                Object key = event.key();
+                if (key == null) {
+                    Map.Entry<Object, PlayerEvent> last = pending.lastEntry();
+                    if (last != null && last.getKey() instanceof Unmerged && last.getValue().equals(event)) {
+                        return;
+                    }
+                    if (unmerged == MAX_UNMERGED) {
+                        dropOldestUnmerged();
+                    }
+                    key = new Unmerged();
+                    unmerged++;
+                }
+                pending.remove(key);
+                pending.put(key, event);
+            }
+            schedule();
+        }
+
+        void complete() {
+            completed = true;
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("request 必须为正数：" + n));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            while (true) {
+                while (!cancelled && demand.get() > 0) {
+                    PlayerEvent next = poll();
+                    if (next == null) break;
+                    if (next.media() >= 0 && next.media() != media.get()) {
+                        continue;
+                    }
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    try {
+                        subscriber.onNext(next);
+                    } catch (RuntimeException e) {
+                        cancel();
+                        subscriber.onError(e);
+                        return;
+                    }
+                }
+                if (completed && !cancelled && isEmpty()) {
+                    cancelled = true;
+                    subscriber.onComplete();
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private PlayerEvent poll() {
+            synchronized (pending) {
+                Map.Entry<Object, PlayerEvent> first = pending.pollFirstEntry();
+                if (first == null) return null;
+                if (first.getKey() instanceof Unmerged) unmerged--;
+                return first.getValue();
+            }
+        }
+
+        private void dropOldestUnmerged() {
+            Iterator<Object> it = pending.keySet().iterator();
+            while (it.hasNext()) {
+                if (it.next() instanceof Unmerged) {
+                    it.remove();
+                    unmerged--;
+                    return;
+                }
+            }
+        }
+
+        private boolean isEmpty() {
+            synchronized (pending) {
+                return pending.isEmpty();
+            }
+        }
+    }
+}
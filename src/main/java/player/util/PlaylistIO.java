@@ -0,0 +1,260 @@
+// 文件：src/main/java/player/util/PlaylistIO.java
+package player.util;
+
+import player.model.Playlist;
+import player.model.Song;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 读写 M3U / M3U8 / PLS 歌单
+ * <p>
+ * 读取时逐行解析，每个条目当场在音乐库中查找，不先把整个歌单读成中间列表。
+ * 条目可以是绝对路径、相对歌单所在目录的路径或 file: URI；
+ * 路径找不到时，再用 #EXTINF / TitleN 里的 “艺术家 - 标题” 匹配（应对音乐库搬过家的情况）。
+ * 找不到的条目记入结果，不会中断导入。
+ * .m3u8 按 UTF-8 读写；.m3u 与 .pls 没有规定编码，读取时按 UTF-8，不合法时退回 GBK。
+ */
+public final class PlaylistIO {
+    private static final Charset GBK = Charset.forName("GBK");
+
+    private PlaylistIO() {
+    }
+
+    /** 是否为支持的歌单文件 */
+    public static boolean isPlaylist(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        return name.endsWith(".m3u") || name.endsWith(".m3u8") || name.endsWith(".pls");
+    }
+
+    /**
+     * 读取歌单并在音乐库中查找条目
+     *
+     * @param file    歌单文件
+     * @param library 音乐库全部歌曲
+     */
+    public static Playlist read(Path file, Collection<Song> library) throws IOException {
+        Resolver resolver = new Resolver(file.toAbsolutePath().getParent(), library);
+        List<Song> songs = new ArrayList<>();
+        List<String> unresolved = new ArrayList<>();
+        boolean pls = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".pls");
+        try (BufferedReader reader = open(file)) {
+            if (pls) {
+                readPls(reader, resolver, songs, unresolved);
+            } else {
+                readM3u(reader, resolver, songs, unresolved);
+            }
+        }
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return new Playlist(dot > 0 ? name.substring(0, dot) : name, songs, unresolved);
+    }
+
+    private static void readM3u(BufferedReader reader, Resolver resolver,
+                                List<Song> songs, List<String> unresolved) throws IOException {
+        String extinf = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.strip();
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.startsWith("#")) {
+                if (line.regionMatches(true, 0, "#EXTINF:", 0, 8)) {
+                    // #EXTINF:时长秒数,艺术家 - 标题
+                    int comma = line.indexOf(',');
+                    extinf = comma >= 0 ? line.substring(comma + 1).strip() : null;
+                }
+                continue;
+            }
+            add(resolver.resolve(line, extinf), line, songs, unresolved);
+            extinf = null;
+        }
+    }
+
+    /** PLS：FileN=路径，随后的 TitleN=标题 用于路径找不到时的匹配，所以每个条目等读到下一个 FileN 时再查找 */
+    private static void readPls(BufferedReader reader, Resolver resolver,
+                                List<Song> songs, List<String> unresolved) throws IOException {
+        String number = null;
+        String path = null;
+        String title = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.strip();
+            int eq = line.indexOf('=');
+            if (eq < 0) {
+                continue;
+            }
+            String key = line.substring(0, eq).strip().toLowerCase(Locale.ROOT);
+            String value = line.substring(eq + 1).strip();
+            if (key.startsWith("file") && key.length() > 4) {
+                if (path != null) {
+                    add(resolver.resolve(path, title), path, songs, unresolved);
+                }
+                number = key.substring(4);
+                path = value;
+                title = null;
+            } else if (key.startsWith("title") && key.substring(5).equals(number)) {
+                title = value;
+            }
+        }
+        if (path != null) {
+            add(resolver.resolve(path, title), path, songs, unresolved);
+        }
+    }
+
+    private static void add(Song song, String entry, List<Song> songs, List<String> unresolved) {
+        if (song != null) {
+            songs.add(song);
+        } else {
+            unresolved.add(entry);
+        }
+    }
+
+    /** 先按 UTF-8 读，遇到不合法的字节序列时整体改按 GBK 读 */
+    private static BufferedReader open(Path file) throws IOException {
+        if (!file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".m3u8")) {
+            try (BufferedReader probe = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                char[] buf = new char[8192];
+                while (probe.read(buf) >= 0) {
+                    // 只做校验
+                }
+            } catch (MalformedInputException e) {
+                return Files.newBufferedReader(file, GBK);
+            }
+        }
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8), 64 * 1024);
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+        return reader;
+    }
+
+    /**
+     * 写出歌单；扩展名为 .pls 时写 PLS，否则写扩展 M3U（UTF-8）。
+     * 歌单所在目录之下的歌曲写相对路径，其余写绝对路径。
+     */
+    public static void write(Path file, List<Song> songs) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        boolean pls = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".pls");
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(tmp), StandardCharsets.UTF_8), 64 * 1024)) {
+            if (pls) {
+                out.write("[playlist]\n");
+            } else {
+                out.write("#EXTM3U\n");
+            }
+            int n = 0;
+            for (Song song : songs) {
+                n++;
+                String path = pathFor(dir, song.getFile());
+                long seconds = song.getDurationMillis() > 0 ? Math.round(song.getDurationMillis() / 1000.0) : -1;
+                String title = song.getArtist().isEmpty() ? song.getTitle() : song.getArtist() + " - " + song.getTitle();
+                if (pls) {
+                    out.write("File" + n + "=" + path + "\n");
+                    out.write("Title" + n + "=" + title + "\n");
+                    out.write("Length" + n + "=" + seconds + "\n");
+                } else {
+                    out.write("#EXTINF:" + seconds + "," + title + "\n");
+                    out.write(path + "\n");
+                }
+            }
+            if (pls) {
+                out.write("NumberOfEntries=" + n + "\nVersion=2\n");
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String pathFor(Path dir, File file) {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        if (dir != null && path.startsWith(dir)) {
+            return dir.relativize(path).toString();
+        }
+        return path.toString();
+    }
+
+    /** 把歌单条目对应到音乐库中的歌曲 */
+    private static final class Resolver {
+        private final Path base;
+        private final Collection<Song> library;
+        private final Map<String, Song> byPath;
+        private Map<String, Song> byTitle;
+
+        Resolver(Path base, Collection<Song> library) {
+            this.base = base;
+            this.library = library;
+            this.byPath = new HashMap<>(library.size() * 2);
+            for (Song song : library) {
+                byPath.put(song.getFile().toPath().toAbsolutePath().normalize().toString(), song);
+            }
+        }
+
+        Song resolve(String entry, String title) {
+            Song song = byPath(entry);
+            if (song == null && title != null) {
+                song = byTitle(title);
+            }
+            return song;
+        }
+
+        private Song byPath(String entry) {
+            Path path;
+            try {
+                if (entry.regionMatches(true, 0, "file:", 0, 5)) {
+                    path = Paths.get(URI.create(entry));
+                } else {
+                    // Windows 下导出的歌单在其他系统上打开时，把反斜杠当作分隔符
+                    if (File.separatorChar == '/') {
+                        entry = entry.replace('\\', '/');
+                    }
+                    path = Paths.get(entry);
+                    if (!path.isAbsolute() && base != null) {
+                        path = base.resolve(path);
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            return byPath.get(path.toAbsolutePath().normalize().toString());
+        }
+
+        /** “艺术家 - 标题”或单独的标题，忽略大小写；第一次用到时才建索引 */
+        Song byTitle(String title) {
+            if (byTitle == null) {
+                byTitle = new HashMap<>();
+                for (Song song : library) {
+                    byTitle.putIfAbsent(titleKey(song.getArtist() + " - " + song.getTitle()), song);
+                    byTitle.putIfAbsent(titleKey(song.getTitle()), song);
+                }
+            }
+            return byTitle.get(titleKey(title));
+        }
+
+        private static String titleKey(String s) {
+            return s.strip().toLowerCase(Locale.ROOT);
+        }
+    }
+}
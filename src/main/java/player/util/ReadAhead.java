@@ -0,0 +1,108 @@
+// 文件：src/main/java/player/util/ReadAhead.java
+package player.util;
+
+import player.model.Song;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 预读下一首：当前曲目开始播放后，在最低优先级的后台线程把下一首的音频文件读进系统页缓存，
+ * 并提前读好它的歌词与封面，机械硬盘与 NFS 上换歌时 libvlc 不必等 I/O
+ * <p>
+ * 先读文件开头 1MB（libvlc 起播需要的部分），再解析同名 .lrc 与标签内封面（进入 {@link Song} 与封面缓存），
+ * 然后按 256KB 块顺序读到字节预算为止；文件超出预算时再读末尾 256KB（m4a 的索引、尾部标签）。
+ * 每块之间检查是否已被取消，用户跳到别处时 {@link #cancel()} 立即生效。
+ * 预算由 -Dplayer.readahead.bytes 指定（默认 32MB），为 0 时关闭。
+ */
+public class ReadAhead {
+    private static final int CHUNK = 256 * 1024;
+    private static final long HEAD_BYTES = 1024 * 1024;
+
+    private final long budget = Long.getLong("player.readahead.bytes", 32L * 1024 * 1024);
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "read-ahead");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    /** 每次 warm / cancel 加一，任务发现代数变了就退出 */
+    private final AtomicLong generation = new AtomicLong();
+    /** 只在后台线程使用 */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK);
+
+    /** 取消进行中的预读，改为预读 song；song 为 null 时只取消 */
+    public void warm(Song song) {
+        long gen = generation.incrementAndGet();
+        if (song == null || budget <= 0) {
+            return;
+        }
+        worker.execute(() -> {
+            if (generation.get() == gen) {
+                run(song, gen);
+            }
+        });
+    }
+
+    /** 取消进行中的预读 */
+    public void cancel() {
+        generation.incrementAndGet();
+    }
+
+    /** 停止后台线程 */
+    public void close() {
+        cancel();
+        worker.shutdownNow();
+    }
+
+    private void run(Song song, long gen) {
+        File file = song.getFile();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long limit = Math.min(size, budget);
+            long pos = read(channel, 0, Math.min(limit, HEAD_BYTES), gen);
+            if (pos < 0) return;
+
+            // 歌词与封面在这里读好，换歌时 FX 线程直接命中
+            song.getLyrics();
+            if (generation.get() != gen) return;
+            MusicLibrary.loadCover(file);
+            if (generation.get() != gen) return;
+
+            if (read(channel, pos, limit, gen) < 0) return;
+            if (size > limit) {
+                read(channel, Math.max(limit, size - CHUNK), size, gen);
+            }
+        } catch (IOException e) {
+            if (generation.get() == gen) {
+                System.err.println("预读失败：" + file.getName() + "（" + e.getMessage() + "）");
+            }
+        }
+    }
+
+    /**
+     * 顺序读 [from, to)，数据丢弃，只为进入页缓存
+     *
+     * @return 读到的位置，被取消时返回 -1
+     */
+    private long read(FileChannel channel, long from, long to, long gen) throws IOException {
+        long pos = from;
+        while (pos < to) {
+            if (generation.get() != gen) {
+                return -1;
+            }
+            buffer.clear();
+            buffer.limit((int) Math.min(CHUNK, to - pos));
+            int n = channel.read(buffer, pos);
+            if (n < 0) break;
+            pos += n;
+        }
+        return pos;
+    }
+}
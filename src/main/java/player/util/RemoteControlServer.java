@@ -0,0 +1,405 @@
+// 文件：src/main/java/player/util/RemoteControlServer.java
+package player.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import player.model.PlayerEvent;
+import player.model.Song;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地 HTTP 遥控接口，用 -Dplayer.remote.port 开启，默认只监听 127.0.0.1（-Dplayer.remote.host 可改）
+ * <p>
+ * 每个请求在一个虚拟线程上处理。带 Origin 头的请求必须与 Host 同源；POST 还必须带上本次启动的令牌
+ * （请求头 X-Player-Token，启动时写入数据目录的 remote.token，可用 -Dplayer.remote.token 固定），
+ * 防止网页跨站提交表单操控播放器。接口：
+ * <pre>
+ * GET  /api/status                   当前曲目、播放状态与位置
+ * POST /api/play | pause | toggle | next | previous
+ * POST /api/seek?ms=60000            跳到指定位置
+ * GET  /api/queue                    播放队列
+ * POST /api/queue/play?index=3       播放队列中的第 index 首
+ * GET  /api/search?q=...&amp;limit=50    按标题、艺术家、专辑搜索音乐库
+ * GET  /api/events                   SSE：track、state、position、lyric、library 事件
+ * </pre>
+ * 事件订阅自 {@link PlayerEventBus}，由播放时钟推送，不轮询。每个事件只序列化一次，
+ * 再放进各连接的有界队列；队列满（客户端跟不上）时断开该连接，浏览器的 EventSource 会自动重连。
+ */
+public class RemoteControlServer implements AutoCloseable {
+    private static final int CLIENT_QUEUE = 64;
+    private static final long KEEPALIVE_SECONDS = 15;
+    /** 位置事件的最小间隔，界面上秒级显示已足够平滑 */
+    private static final long POSITION_STEP_MILLIS = 250;
+    /** 放进队列表示服务端要断开该连接 */
+    private static final byte[] DISCONNECT = new byte[0];
+    private static final String TOKEN_HEADER = "X-Player-Token";
+
+    /** 播放器一侧的操作；在 HTTP 线程上调用，实现需自行切回 FX 线程 */
+    public interface Player {
+        Status status();
+
+        void play();
+
+        void pause();
+
+        void toggle();
+
+        void next();
+
+        void previous();
+
+        void seek(long millis);
+
+        List<Song> queue();
+
+        void playAt(int index);
+
+        /** 全部歌曲的快照，搜索在 HTTP 线程上进行 */
+        List<Song> library();
+    }
+
+    /** 播放状态快照 */
+    public record Status(Song song, int index, boolean playing, long positionMillis, long durationMillis) {
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Player player;
+    private final byte[] token;
+    private final List<BlockingQueue<byte[]>> clients = new CopyOnWriteArrayList<>();
+
+    /** 只在事件投递线程上访问 */
+    private long lastPosition = Long.MIN_VALUE;
+
+    private RemoteControlServer(InetSocketAddress address, Player player, PlayerEventBus events, String token)
+            throws IOException {
+        this.player = player;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+        this.server = HttpServer.create(address, 0);
+        server.createContext("/api/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+        // 处理只是序列化后放进各连接的队列，不会阻塞，直接在发布线程上投递
+        events.subscribe(Runnable::run, this::onEvent);
+    }
+
+    /** 配置了 -Dplayer.remote.port 时启动，否则返回 null */
+    public static RemoteControlServer startIfEnabled(Player player, PlayerEventBus events) {
+        Integer port = Integer.getInteger("player.remote.port");
+        if (port == null) {
+            return null;
+        }
+        String host = System.getProperty("player.remote.host", "127.0.0.1");
+        String token = System.getProperty("player.remote.token", newToken());
+        try {
+            AppFiles.writeAtomically(AppFiles.resolve("remote.token"),
+                    out -> out.write(token.getBytes(StandardCharsets.UTF_8)));
+            RemoteControlServer remote = new RemoteControlServer(
+                    new InetSocketAddress(InetAddress.getByName(host), port), player, events, token);
+            System.out.println("远程控制：http://" + host + ":" + remote.server.getAddress().getPort()
+                    + "/api/status（POST 需带请求头 " + TOKEN_HEADER + "，令牌见数据目录下的 remote.token）");
+            return remote;
+        } catch (IOException e) {
+            System.err.println("启动远程控制失败：" + e.getMessage());
+            return null;
+        }
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // —— 播放器事件 ——
+
+    private void onEvent(PlayerEvent event) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        switch (event) {
+            case PlayerEvent.TrackChanged e -> broadcast("track", trackJson(e.song(), e.index()));
+            case PlayerEvent.StateChanged e -> broadcast("state",
+                    "{\"state\":" + json(e.state().name().toLowerCase(Locale.ROOT)) + "}");
+            case PlayerEvent.PositionTick e -> {
+                if (Math.abs(e.positionMillis() - lastPosition) >= POSITION_STEP_MILLIS) {
+                    lastPosition = e.positionMillis();
+                    broadcast("position", "{\"positionMillis\":" + e.positionMillis() + "}");
+                }
+            }
+            case PlayerEvent.LyricLineChanged e -> broadcast("lyric", "{\"index\":" + e.index()
+                    + ",\"timeMillis\":" + e.line().getTimeInMillis() + ",\"text\":" + json(e.line().getText()) + "}");
+            case PlayerEvent.LibraryUpdated e -> broadcast("library", "{\"size\":" + e.size() + "}");
+        }
+    }
+
+    private void broadcast(String event, String data) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        byte[] frame = ("event: " + event + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+        for (BlockingQueue<byte[]> client : clients) {
+            if (!client.offer(frame)) {
+                // 跟不上的客户端：断开，由其自行重连
+                clients.remove(client);
+                client.clear();
+                client.offer(DISCONNECT);
+            }
+        }
+    }
+
+    // —— 请求处理 ——
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!isLocalHost(exchange) || !isSameOrigin(exchange)) {
+                send(exchange, 403, "{\"error\":\"forbidden\"}");
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            boolean post = method.equals("POST");
+            switch (path) {
+                case "/api/status" -> send(exchange, 200, statusJson(player.status()));
+                case "/api/events" -> stream(exchange);
+                case "/api/queue" -> send(exchange, 200, songsJson(player.queue()));
+                case "/api/search" -> send(exchange, 200, songsJson(search(query.getOrDefault("q", ""),
+                        parseInt(query.get("limit"), 50))));
+                case "/api/play", "/api/pause", "/api/toggle", "/api/next", "/api/previous", "/api/seek",
+                     "/api/queue/play" -> {
+                    if (!post) {
+                        send(exchange, 405, "{\"error\":\"use POST\"}");
+                        return;
+                    }
+                    if (!hasToken(exchange)) {
+                        send(exchange, 403, "{\"error\":\"missing or wrong " + TOKEN_HEADER + "\"}");
+                        return;
+                    }
+                    command(path, query);
+                    send(exchange, 200, statusJson(player.status()));
+                }
+                default -> send(exchange, 404, "{\"error\":\"not found\"}");
+            }
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, "{\"error\":" + json(e.getMessage()) + "}");
+        } catch (RuntimeException e) {
+            send(exchange, 500, "{\"error\":" + json(String.valueOf(e.getMessage())) + "}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void command(String path, Map<String, String> query) {
+        switch (path) {
+            case "/api/play" -> player.play();
+            case "/api/pause" -> player.pause();
+            case "/api/toggle" -> player.toggle();
+            case "/api/next" -> player.next();
+            case "/api/previous" -> player.previous();
+            case "/api/seek" -> player.seek(parseLong(query.get("ms")));
+            case "/api/queue/play" -> player.playAt(parseInt(query.get("index"), -1));
+            default -> throw new IllegalArgumentException(path);
+        }
+    }
+
+    /** SSE 连接：先发一次当前状态，之后只转发推送的事件，空闲时定期发注释保活 */
+    private void stream(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(CLIENT_QUEUE);
+        Status status = player.status();
+        queue.offer(("event: track\ndata: " + trackJson(status.song(), status.index()) + "\n\n")
+                .getBytes(StandardCharsets.UTF_8));
+        clients.add(queue);
+        OutputStream out = exchange.getResponseBody();
+        try {
+            while (true) {
+                byte[] frame = queue.poll(KEEPALIVE_SECONDS, TimeUnit.SECONDS);
+                if (frame == DISCONNECT || (frame == null && !clients.contains(queue))) {
+                    return;
+                }
+                if (frame == null) {
+                    frame = ":\n\n".getBytes(StandardCharsets.UTF_8);
+                }
+                out.write(frame);
+                out.flush();
+            }
+        } catch (IOException | InterruptedException e) {
+            // 客户端断开或服务关闭
+        } finally {
+            clients.remove(queue);
+        }
+    }
+
+    private List<Song> search(String text, int limit) {
+        String needle = text.strip().toLowerCase(Locale.ROOT);
+        if (needle.isEmpty()) {
+            return List.of();
+        }
+        return player.library().stream()
+                .filter(s -> s.getTitle().toLowerCase(Locale.ROOT).contains(needle)
+                        || s.getArtist().toLowerCase(Locale.ROOT).contains(needle)
+                        || s.getAlbum().toLowerCase(Locale.ROOT).contains(needle))
+                .limit(Math.max(0, limit))
+                .toList();
+    }
+
+    /** 只监听回环地址时，拒绝 Host 不是本机的请求（防 DNS 重绑定） */
+    private boolean isLocalHost(HttpExchange exchange) {
+        if (!server.getAddress().getAddress().isLoopbackAddress()) {
+            return true;
+        }
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        if (host == null) {
+            return true;
+        }
+        String name = host.startsWith("[") ? host.substring(0, host.indexOf(']') + 1)
+                : host.contains(":") ? host.substring(0, host.lastIndexOf(':')) : host;
+        return name.equals("localhost") || name.equals("127.0.0.1") || name.equals("[::1]");
+    }
+
+    /** 浏览器发起的请求带 Origin，必须与 Host 同源；命令行工具不带 Origin，不受限制 */
+    private static boolean isSameOrigin(HttpExchange exchange) {
+        String origin = exchange.getRequestHeaders().getFirst("Origin");
+        if (origin == null) {
+            return true;
+        }
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        try {
+            URI uri = new URI(origin);
+            String authority = uri.getPort() >= 0 ? uri.getHost() + ":" + uri.getPort() : uri.getHost();
+            return "http".equals(uri.getScheme()) && host != null && host.equalsIgnoreCase(authority);
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+
+    private boolean hasToken(HttpExchange exchange) {
+        String value = exchange.getRequestHeaders().getFirst(TOKEN_HEADER);
+        return value != null && MessageDigest.isEqual(token, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> result = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return result;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq >= 0 ? pair.substring(0, eq) : pair;
+            String value = eq >= 0 ? pair.substring(eq + 1) : "";
+            result.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+
+    private static int parseInt(String value, int fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("不是整数：" + value);
+        }
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value == null ? "" : value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("不是整数：" + value);
+        }
+    }
+
+    // —— JSON ——
+
+    private static String statusJson(Status status) {
+        return "{\"track\":" + songJson(status.song()) + ",\"index\":" + status.index()
+                + ",\"playing\":" + status.playing() + ",\"positionMillis\":" + status.positionMillis()
+                + ",\"durationMillis\":" + status.durationMillis() + "}";
+    }
+
+    private static String trackJson(Song song, int index) {
+        return "{\"track\":" + songJson(song) + ",\"index\":" + index + "}";
+    }
+
+    private static String songsJson(List<Song> songs) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < songs.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(songJson(songs.get(i)));
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String songJson(Song song) {
+        if (song == null) {
+            return "null";
+        }
+        return "{\"title\":" + json(song.getTitle()) + ",\"artist\":" + json(song.getArtist())
+                + ",\"album\":" + json(song.getAlbum()) + ",\"durationMillis\":" + song.getDurationMillis()
+                + ",\"path\":" + json(song.getFile().getPath()) + "}";
+    }
+
+    private static String json(String s) {
+        if (s == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,66 @@
+// 文件：src/main/java/player/util/SampleRingBuffer.java
+package player.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单生产者 / 单消费者的无锁采样环形缓冲
+ * <p>
+ * 生产者（音频回调线程）只推进 head，消费者（分析线程）只推进 tail，
+ * 两边都不加锁、不分配内存。缓冲满时生产者直接丢弃放不下的采样，
+ * 消费者每次只取最新的一个窗口，落后时跳过旧数据，因此不会累积延迟。
+ */
+public final class SampleRingBuffer {
+    private final float[] data;
+    private final int mask;
+    /** 已写入的采样总数，仅生产者修改 */
+    private final AtomicLong head = new AtomicLong();
+    /** 已释放的采样总数，仅消费者修改 */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity 容量，必须是 2 的幂
+     */
+    public SampleRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("容量必须是 2 的幂：" + capacity);
+        }
+        this.data = new float[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * 生产者写入采样，空间不足时丢弃多出的部分
+     *
+     * @return 实际写入的采样数
+     */
+    public int offer(float[] src, int offset, int length) {
+        long h = head.get();
+        int free = data.length - (int) (h - tail.get());
+        int n = Math.min(free, length);
+        for (int i = 0; i < n; i++) {
+            data[(int) ((h + i) & mask)] = src[offset + i];
+        }
+        head.lazySet(h + n);
+        return n;
+    }
+
+    /**
+     * 消费者读取最新的 window 个采样，并保留 window - hop 个供下一窗口重叠使用
+     *
+     * @return 新数据不足一个窗口时返回 false，dst 不被修改
+     */
+    public boolean readLatest(float[] dst, int window, int hop) {
+        long h = head.get();
+        long t = tail.get();
+        if (h - t < window) {
+            return false;
+        }
+        long start = h - window;
+        for (int i = 0; i < window; i++) {
+            dst[i] = data[(int) ((start + i) & mask)];
+        }
+        tail.lazySet(start + hop);
+        return true;
+    }
+}
@@ -0,0 +1,189 @@
+// 文件：src/main/java/player/util/ScanQuarantine.java
+package player.util;
+
+import player.model.Song;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 扫描时的单文件限时与问题文件隔离列表
+ * <p>
+ * 扫描线程把每个文件交给解析线程，最多等 -Dplayer.scan.timeout 毫秒（默认 3000）；
+ * 超时或读取出错的文件按路径 + 大小 + 修改时间记入隔离列表并持久化。之后的扫描不再读这些文件的标签，
+ * 只按文件名入库（再由 {@link MediaPreparser} 尝试），直到文件发生变化或 libvlc 补全成功。
+ * 超时的解析线程无法强行终止，只发出中断后放弃等待，扫描另起线程继续。
+ */
+public class ScanQuarantine {
+    private static final int CACHE_MAGIC = 0x51554152; // "QUAR"
+    private static final int CACHE_VERSION = 1;
+    private static final long BUDGET_MILLIS = Long.getLong("player.scan.timeout", 3000L);
+    private static final int MAX_REASON_LENGTH = 500;
+
+    /**
+     * 一个问题文件
+     *
+     * @param reason       最近一次的失败原因
+     * @param nativeFailed libvlc 也没能解析，之后不再交给 libvlc
+     */
+    public record Entry(String path, long size, long lastModified, String reason, boolean nativeFailed) {
+    }
+
+    private final Path cacheFile = AppFiles.resolve("quarantine.bin");
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ExecutorService parsers = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "library-parse");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean dirty;
+
+    public ScanQuarantine() {
+        loadCache();
+    }
+
+    /** 限时解析一个文件；隔离中的文件只按文件名生成歌曲 */
+    public Song parse(Path file, BasicFileAttributes attrs) {
+        File f = file.toFile();
+        String key = f.getAbsolutePath();
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.size() == attrs.size() && entry.lastModified() == attrs.lastModifiedTime().toMillis()) {
+                return MusicLibrary.parseSongFile(f, false, null);
+            }
+            // 文件已变化，重新尝试
+            entries.remove(key);
+            dirty = true;
+        }
+
+        AtomicReference<String> error = new AtomicReference<>();
+        Future<Song> task = parsers.submit(() -> MusicLibrary.parseSongFile(f, true, error::set));
+        try {
+            Song song = task.get(BUDGET_MILLIS, TimeUnit.MILLISECONDS);
+            if (error.get() != null) {
+                add(key, attrs.size(), attrs.lastModifiedTime().toMillis(), error.get(), false);
+            }
+            return song;
+        } catch (TimeoutException e) {
+            task.cancel(true);
+            add(key, attrs.size(), attrs.lastModifiedTime().toMillis(), "读取超过 " + BUDGET_MILLIS + " ms", false);
+            return MusicLibrary.parseSongFile(f, false, null);
+        } catch (ExecutionException e) {
+            add(key, attrs.size(), attrs.lastModifiedTime().toMillis(), String.valueOf(e.getCause()), false);
+            return null;
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /** 记录 libvlc 解析失败，之后不再交给 libvlc，直到文件变化 */
+    public void reportNative(File file, String reason) {
+        String key = file.getAbsolutePath();
+        Entry entry = entries.get(key);
+        String combined = entry != null && !entry.nativeFailed() ? entry.reason() + "；" + reason : reason;
+        add(key, file.length(), file.lastModified(), combined, true);
+    }
+
+    /** libvlc 补全成功：移出隔离列表 */
+    public void resolved(File file) {
+        if (entries.remove(file.getAbsolutePath()) != null) {
+            dirty = true;
+        }
+    }
+
+    /** libvlc 是否已经解析失败过（且文件之后没有变化） */
+    public boolean nativeFailed(File file) {
+        Entry entry = entries.get(file.getAbsolutePath());
+        return entry != null && entry.nativeFailed()
+                && entry.size() == file.length() && entry.lastModified() == file.lastModified();
+    }
+
+    /** 全部问题文件，按路径排列 */
+    public List<Entry> entries() {
+        List<Entry> list = new ArrayList<>(entries.values());
+        list.sort(Comparator.comparing(Entry::path));
+        return list;
+    }
+
+    /** 清空隔离列表，下次扫描全部重新尝试 */
+    public void clear() {
+        entries.clear();
+        dirty = true;
+        save();
+    }
+
+    /** 有变化时落盘 */
+    public void save() {
+        if (dirty) {
+            dirty = false;
+            saveCache();
+        }
+    }
+
+    private void add(String path, long size, long modified, String reason, boolean nativeFailed) {
+        if (reason.length() > MAX_REASON_LENGTH) {
+            reason = reason.substring(0, MAX_REASON_LENGTH);
+        }
+        entries.put(path, new Entry(path, size, modified, reason, nativeFailed));
+        dirty = true;
+    }
+
+    private void loadCache() {
+        if (!Files.isRegularFile(cacheFile)) {
+            return;
+        }
+        try (InputStream fis = Files.newInputStream(cacheFile);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(fis))) {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Entry entry = new Entry(in.readUTF(), in.readLong(), in.readLong(), in.readUTF(), in.readBoolean());
+                entries.put(entry.path(), entry);
+            }
+        } catch (IOException e) {
+            System.err.println("读取隔离列表失败：" + e.getMessage());
+        }
+    }
+
+    private void saveCache() {
+        try {
+            AppFiles.writeAtomically(cacheFile, out -> {
+                List<Entry> snapshot = entries();
+                out.writeInt(CACHE_MAGIC);
+                out.writeInt(CACHE_VERSION);
+                out.writeInt(snapshot.size());
+                for (Entry entry : snapshot) {
+                    out.writeUTF(entry.path());
+                    out.writeLong(entry.size());
+                    out.writeLong(entry.lastModified());
+                    out.writeUTF(entry.reason());
+                    out.writeBoolean(entry.nativeFailed());
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("保存隔离列表失败：" + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,182 @@
+// 文件：src/main/java/player/util/SessionStore.java
+package player.util;
+
+import player.model.PlayMode;
+import player.model.Song;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 会话快照：播放队列、当前曲目与播放位置、音量、歌词模式和播放模式，下次启动时据此恢复
+ * <p>
+ * 存为 session.bin。队列里的歌曲记为音乐库索引中的曲目 id（4 字节），索引里还没有的才记路径，
+ * 恢复时直接从索引构造歌曲，不必等扫描。
+ * 保存请求会合并：2 秒内的多次保存只写最后一次，写入在后台线程以“临时文件 + 重命名”完成；
+ * 关闭窗口时同步写一次。
+ */
+public class SessionStore implements AutoCloseable {
+    private static final int MAGIC = 0x53455353; // "SESS"
+    private static final int VERSION = 1;
+    private static final long SAVE_DELAY_MILLIS = 2000;
+
+    /**
+     * 一次会话的状态
+     *
+     * @param queue            播放队列
+     * @param queueIsLibrary   队列是否为整个音乐库（新扫描到的歌曲会追加进来）
+     * @param current          当前曲目在队列中的下标，没有时为 -1
+     * @param positionMillis   播放位置（毫秒）
+     * @param volume           音量滑块的值
+     * @param fullScreenLyrics 是否为全屏歌词模式
+     * @param playMode         播放模式
+     */
+    public record Session(List<Song> queue, boolean queueIsLibrary, int current, long positionMillis,
+                          double volume, boolean fullScreenLyrics, PlayMode playMode) {
+    }
+
+    private final Path file = AppFiles.resolve("session.bin");
+    private final LibraryStore library;
+    private final ScheduledThreadPoolExecutor writer = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "session-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    /** 等待写入的最新状态，由 this 加锁保护 */
+    private Session pending;
+
+    /**
+     * @param library 用于把队列中的歌曲记为曲目 id
+     */
+    public SessionStore(LibraryStore library) {
+        this.library = library;
+        writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /** 读取上次的会话，没有或读取失败时返回 null */
+    public Session load() {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (InputStream fis = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(fis))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            boolean queueIsLibrary = in.readBoolean();
+            int current = in.readInt();
+            long position = in.readLong();
+            double volume = in.readDouble();
+            boolean fullScreen = in.readBoolean();
+            int modeIndex = in.readByte();
+            PlayMode mode = modeIndex >= 0 && modeIndex < PlayMode.values().length
+                    ? PlayMode.values()[modeIndex] : PlayMode.SEQUENTIAL;
+            int count = in.readInt();
+            List<Song> queue = new ArrayList<>(count);
+            int restoredCurrent = -1;
+            for (int i = 0; i < count; i++) {
+                Song song = readSong(in);
+                if (song == null) {
+                    continue;
+                }
+                if (i == current) {
+                    restoredCurrent = queue.size();
+                }
+                queue.add(song);
+            }
+            if (restoredCurrent < 0) {
+                position = 0;
+            }
+            return new Session(queue, queueIsLibrary, restoredCurrent, position, volume, fullScreen, mode);
+        } catch (IOException e) {
+            System.err.println("读取会话失败：" + e.getMessage());
+            return null;
+        }
+    }
+
+    private Song readSong(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        if (id >= 0) {
+            LibraryStore.Track track = library.byId(id);
+            return track != null ? track.toSong() : null;
+        }
+        File songFile = new File(in.readUTF());
+        return songFile.isFile() ? MusicLibrary.parseSongFile(songFile) : null;
+    }
+
+    /** 请求保存；稍后在后台写入，期间的新请求覆盖旧的 */
+    public synchronized void save(Session session) {
+        boolean scheduled = pending != null;
+        pending = session;
+        if (!scheduled && !writer.isShutdown()) {
+            writer.schedule(this::flush, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** 立即写入最终状态后关闭，最多等待数秒 */
+    public void close(Session session) {
+        synchronized (this) {
+            pending = session;
+        }
+        writer.execute(this::flush);
+        close();
+    }
+
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flush() {
+        Session session;
+        synchronized (this) {
+            session = pending;
+            pending = null;
+        }
+        if (session == null) {
+            return;
+        }
+        try {
+            AppFiles.writeAtomically(file, out -> write(out, session));
+        } catch (IOException e) {
+            System.err.println("保存会话失败：" + e.getMessage());
+        }
+    }
+
+    private void write(DataOutputStream out, Session s) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeBoolean(s.queueIsLibrary());
+        out.writeInt(s.current());
+        out.writeLong(s.positionMillis());
+        out.writeDouble(s.volume());
+        out.writeBoolean(s.fullScreenLyrics());
+        out.writeByte(s.playMode().ordinal());
+        out.writeInt(s.queue().size());
+        for (Song song : s.queue()) {
+            String path = song.getFile().getAbsolutePath();
+            LibraryStore.Track track = library.get(path);
+            if (track != null) {
+                out.writeInt(track.id());
+            } else {
+                out.writeInt(-1);
+                out.writeUTF(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+// 文件：src/main/java/player/util/SingleInstance.java
+package player.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 单实例：同一数据目录只运行一个播放器，再次启动时把参数转交给已运行的实例后立即退出
+ * <p>
+ * 先抢数据目录下 instance.lock 的文件锁，抢到的是主实例，在 instance.sock 上监听 Unix 域套接字；
+ * 没抢到的连上该套接字，发送“播放 / 加入队列 / 激活窗口”请求，收到应答即退出，不初始化 JavaFX 与 libvlc。
+ * 可用 -Dplayer.singleInstance=false 关闭。
+ */
+public final class SingleInstance {
+    private static final int MAGIC = 0x504C4159; // "PLAY"
+    private static final long CONNECT_RETRY_MILLIS = 2000;
+
+    /** 请求的动作 */
+    public enum Action {PLAY, ENQUEUE, ACTIVATE}
+
+    /** 转交给主实例的请求，paths 为绝对路径 */
+    public record Request(Action action, List<String> paths) {
+    }
+
+    private final Path socketFile;
+    private final List<Request> buffered = new ArrayList<>();
+    /** 由 this 加锁保护；设置之前收到的请求先缓存 */
+    private Consumer<Request> handler;
+
+    private SingleInstance(Path socketFile) {
+        this.socketFile = socketFile;
+    }
+
+    /**
+     * 解析命令行并确定主实例
+     *
+     * @return 本进程是主实例时返回实例（之后用 {@link #setHandler} 接收转交的请求），
+     * 已转交给正在运行的实例时返回 null，调用方应直接退出
+     */
+    public static SingleInstance claim(String[] args) {
+        if (!Boolean.parseBoolean(System.getProperty("player.singleInstance", "true"))) {
+            return new SingleInstance(null);
+        }
+        Path lockFile = AppFiles.resolve("instance.lock");
+        Path socketFile = AppFiles.resolve("instance.sock");
+        try {
+            FileChannel lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = lockChannel.tryLock();
+            if (lock == null) {
+                lockChannel.close();
+                if (forward(socketFile, parse(args))) {
+                    return null;
+                }
+                System.err.println("已有实例在运行但无法连接，以独立实例启动");
+                return new SingleInstance(null);
+            }
+            // 锁随进程存活，进程退出时由系统释放；残留的套接字文件来自上次异常退出
+            Files.deleteIfExists(socketFile);
+            SingleInstance instance = new SingleInstance(socketFile);
+            instance.listen(lockChannel);
+            return instance;
+        } catch (IOException | UnsupportedOperationException e) {
+            System.err.println("单实例检测失败：" + e.getMessage());
+            return new SingleInstance(null);
+        }
+    }
+
+    /** 把命令行解析为请求：--enqueue 表示加入队列，其余参数为文件或目录；没有路径时只激活窗口 */
+    public static Request parse(String[] args) {
+        Action action = Action.PLAY;
+        List<String> paths = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--enqueue")) {
+                action = Action.ENQUEUE;
+            } else if (!arg.startsWith("-")) {
+                paths.add(new File(arg).getAbsolutePath());
+            }
+        }
+        return new Request(paths.isEmpty() ? Action.ACTIVATE : action, List.copyOf(paths));
+    }
+
+    /** 设置请求处理器（在监听线程上调用），并交付此前缓存的请求 */
+    public synchronized void setHandler(Consumer<Request> handler) {
+        this.handler = handler;
+        for (Request request : buffered) {
+            handler.accept(request);
+        }
+        buffered.clear();
+    }
+
+    private synchronized void dispatch(Request request) {
+        if (handler != null) {
+            handler.accept(request);
+        } else {
+            buffered.add(request);
+        }
+    }
+
+    /** 监听线程只负责 accept，每个连接在自己的虚拟线程上读请求，不发数据的连接挡不住后来的实例 */
+    private void listen(FileChannel lockChannel) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socketFile));
+        Thread thread = new Thread(() -> {
+            try (lockChannel; server) {
+                while (true) {
+                    SocketChannel client = server.accept();
+                    Thread.ofVirtual().name("single-instance-client").start(() -> serve(client));
+                }
+            } catch (IOException e) {
+                // 关闭监听
+            } finally {
+                try {
+                    Files.deleteIfExists(socketFile);
+                } catch (IOException ignored) {
+                }
+            }
+        }, "single-instance");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void serve(SocketChannel channel) {
+        try (SocketChannel client = channel) {
+            DataInputStream in = new DataInputStream(Channels.newInputStream(client));
+            Request request = read(in);
+            if (request != null) {
+                dispatch(request);
+            }
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(client));
+            out.writeBoolean(request != null);
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("接收转交请求失败：" + e.getMessage());
+        }
+    }
+
+    /** 发送给主实例；主实例刚启动、还没开始监听时稍作重试 */
+    private static boolean forward(Path socketFile, Request request) {
+        long deadline = System.currentTimeMillis() + CONNECT_RETRY_MILLIS;
+        while (true) {
+            try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketFile))) {
+                DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+                out.writeInt(MAGIC);
+                out.writeUTF(request.action().name());
+                out.writeInt(request.paths().size());
+                for (String path : request.paths()) {
+                    out.writeUTF(path);
+                }
+                out.flush();
+                return new DataInputStream(Channels.newInputStream(channel)).readBoolean();
+            } catch (IOException e) {
+                if (System.currentTimeMillis() >= deadline) {
+                    return false;
+                }
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+    }
+
+    private static Request read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            return null;
+        }
+        Action action;
+        try {
+            action = Action.valueOf(in.readUTF());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int count = in.readInt();
+        List<String> paths = new ArrayList<>(Math.max(0, Math.min(count, 10_000)));
+        for (int i = 0; i < count; i++) {
+            paths.add(in.readUTF());
+        }
+        return new Request(action, List.copyOf(paths));
+    }
+}
@@ -0,0 +1,171 @@
+// 文件：src/main/java/player/util/SortKeys.java
+package player.util;
+
+import player.model.Song;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 按语言规则排序用的 CollationKey 字节串
+ * <p>
+ * 扫描时为每首歌的标题、艺术家、专辑各生成一次并缓存（同一字符串只算一次），
+ * 排序时只做字节比较，不在比较器里调用 Collator.compare。
+ * 缓存按字符串内容保存，删歌、改标签后由 {@link LibraryStore} 在写入批次结束时
+ * 丢掉已没有任何曲目用到的文本（见 {@link #forget}）。
+ * 默认用中文规则，汉字按拼音排在一起；-Dplayer.sort.pinyin=false 时改用通用规则，汉字按码位排序。
+ */
+public final class SortKeys {
+    private static final Locale LOCALE =
+            Boolean.parseBoolean(System.getProperty("player.sort.pinyin", "true")) ? Locale.CHINA : Locale.ROOT;
+    /** Collator 的生成方法带锁，扫描线程各用一个 */
+    private static final ThreadLocal<Collator> COLLATOR = ThreadLocal.withInitial(() -> Collator.getInstance(LOCALE));
+    private static final ConcurrentHashMap<String, byte[]> CACHE = new ConcurrentHashMap<>();
+
+    private SortKeys() {
+    }
+
+    /** 返回字符串的排序键，首次请求时生成 */
+    public static byte[] of(String s) {
+        if (s == null) {
+            s = "";
+        }
+        byte[] key = CACHE.get(s);
+        if (key == null) {
+            key = COLLATOR.get().getCollationKey(s).toByteArray();
+            CACHE.putIfAbsent(s, key);
+        }
+        return key;
+    }
+
+    /** 丢掉这些字符串的排序键，调用方保证它们已不再被库中曲目用到 */
+    public static void forget(Collection<String> strings) {
+        for (String s : strings) {
+            if (s != null) {
+                CACHE.remove(s);
+            }
+        }
+    }
+
+    /** 是否已缓存该字符串的排序键 */
+    static boolean isCached(String s) {
+        return CACHE.containsKey(s);
+    }
+
+    /** 扫描时预先生成一首歌用到的排序键 */
+    public static void prepare(Song song) {
+        of(song.getTitle());
+        of(song.getArtist());
+        of(song.getAlbum());
+    }
+
+    /** 比较两个排序键，与 CollationKey.compareTo 结果一致 */
+    public static int compare(byte[] a, byte[] b) {
+        return Arrays.compareUnsigned(a, b);
+    }
+
+    /** 按下标比较两个元素 */
+    @FunctionalInterface
+    public interface IndexOrder {
+        int compare(int a, int b);
+
+        default IndexOrder then(IndexOrder next) {
+            return (a, b) -> {
+                int c = compare(a, b);
+                return c != 0 ? c : next.compare(a, b);
+            };
+        }
+    }
+
+    /** 为 items 的某个文本字段取出排序键，返回按下标比较的顺序 */
+    public static <T> IndexOrder byText(List<T> items, Function<T, String> getter) {
+        byte[][] keys = new byte[items.size()][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = of(getter.apply(items.get(i)));
+        }
+        return (a, b) -> compare(keys[a], keys[b]);
+    }
+
+    /** 按顺序重排后返回新列表；相等时保持原顺序 */
+    public static <T> List<T> sort(List<T> items, IndexOrder order) {
+        int[] positions = order(items.size(), order);
+        List<T> sorted = new ArrayList<>(positions.length);
+        for (int p : positions) sorted.add(items.get(p));
+        return sorted;
+    }
+
+    /** 返回 0..n-1 按顺序排好的下标；相等时保持原顺序 */
+    public static int[] order(int n, IndexOrder order) {
+        int[] positions = new int[n];
+        for (int i = 0; i < n; i++) positions[i] = i;
+        mergeSort(positions, new int[n], 0, n, order);
+        return positions;
+    }
+
+    /** 对 int 下标做稳定归并排序，免去 Integer 装箱 */
+    private static void mergeSort(int[] a, int[] tmp, int from, int to, IndexOrder order) {
+        if (to - from <= 16) {
+            for (int i = from + 1; i < to; i++) {
+                int v = a[i];
+                int j = i - 1;
+                while (j >= from && order.compare(a[j], v) > 0) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = v;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, tmp, from, mid, order);
+        mergeSort(a, tmp, mid, to, order);
+        if (order.compare(a[mid - 1], a[mid]) <= 0) {
+            return;
+        }
+        System.arraycopy(a, from, tmp, from, to - from);
+        int i = from, j = mid, k = from;
+        while (i < mid && j < to) {
+            a[k++] = order.compare(tmp[j], tmp[i]) < 0 ? tmp[j++] : tmp[i++];
+        }
+        while (i < mid) a[k++] = tmp[i++];
+        while (j < to) a[k++] = tmp[j++];
+    }
+
+    /**
+     * 按排序方式重排歌曲
+     *
+     * @param addedAt 歌曲加入音乐库的时间，用于 {@link LibraryStore.Sort#ADDED}
+     */
+    public static List<Song> sortSongs(List<Song> songs, LibraryStore.Sort sort, ToLongFunction<Song> addedAt) {
+        IndexOrder order = switch (sort) {
+            case TITLE -> byText(songs, Song::getTitle);
+            case ARTIST -> byText(songs, Song::getArtist)
+                    .then(byText(songs, Song::getAlbum)).then(byText(songs, Song::getTitle));
+            case ALBUM -> byText(songs, Song::getAlbum).then(byText(songs, Song::getTitle));
+            case YEAR -> {
+                int[] years = new int[songs.size()];
+                for (int i = 0; i < years.length; i++) years[i] = songs.get(i).getYear();
+                IndexOrder byYear = (a, b) -> Integer.compare(years[b], years[a]);
+                yield byYear.then(byText(songs, Song::getAlbum)).then(byText(songs, Song::getTitle));
+            }
+            case DURATION -> {
+                long[] durations = new long[songs.size()];
+                for (int i = 0; i < durations.length; i++) durations[i] = songs.get(i).getDurationMillis();
+                yield (a, b) -> Long.compare(durations[a], durations[b]);
+            }
+            case ADDED -> {
+                long[] added = new long[songs.size()];
+                for (int i = 0; i < added.length; i++) added[i] = addedAt.applyAsLong(songs.get(i));
+                yield (a, b) -> Long.compare(added[b], added[a]);
+            }
+        };
+        return sort(songs, order);
+    }
+}
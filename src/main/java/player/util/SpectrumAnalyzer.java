@@ -0,0 +1,209 @@
+// 文件：src/main/java/player/util/SpectrumAnalyzer.java
+package player.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 后台频谱分析：从 SampleRingBuffer 取最新窗口做 FFT，输出对数分布的频段强度（0~1）
+ * <p>
+ * 所有数组在构造时分配，分析循环中不再分配内存。
+ * 结果通过三缓冲交给 FX 线程：写端与读端永远不会同时操作同一个数组，也无需加锁。
+ */
+public class SpectrumAnalyzer {
+    public static final int FFT_SIZE = 2048;
+    private static final int HOP = 1024;
+    private static final float MIN_FREQ = 40f;
+    private static final float MAX_FREQ = 16000f;
+    private static final float MIN_DB = -70f;
+    /** 每次刷新的衰减系数，让频段平滑回落 */
+    private static final float DECAY = 0.88f;
+    /** 超过该时长没有新采样（暂停、停止）则逐步回落到 0 */
+    private static final long IDLE_NANOS = 50_000_000L;
+
+    private static final int DIRTY = 4;
+    private static final int INDEX_MASK = 3;
+
+    private final SampleRingBuffer ring;
+    private final int bandCount;
+
+    private final float[] window = new float[FFT_SIZE];
+    private final float[] hann = new float[FFT_SIZE];
+    private final float[] re = new float[FFT_SIZE];
+    private final float[] im = new float[FFT_SIZE];
+    private final float[] cos = new float[FFT_SIZE / 2];
+    private final float[] sin = new float[FFT_SIZE / 2];
+    private final int[] bitReverse = new int[FFT_SIZE];
+    /** 每个频段对应的 FFT bin 范围 [bandStart[i], bandEnd[i]) */
+    private final int[] bandStart;
+    private final int[] bandEnd;
+    private final float[] smoothed;
+
+    /** 三缓冲：writeIndex 仅分析线程使用，readIndex 仅 FX 线程使用，middle 用于交换 */
+    private final float[][] buffers;
+    private int writeIndex = 0;
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int readIndex = 2;
+
+    private volatile boolean running;
+    private Thread worker;
+    /** 频段划分所依据的采样率，仅分析线程使用；requestedRate 由其他线程设置 */
+    private int sampleRate;
+    private volatile int requestedRate;
+
+    /**
+     * @param ring       音频回调写入的单声道采样
+     * @param sampleRate 采样率
+     * @param bandCount  输出频段数
+     */
+    public SpectrumAnalyzer(SampleRingBuffer ring, int sampleRate, int bandCount) {
+        this.ring = ring;
+        this.bandCount = bandCount;
+        this.bandStart = new int[bandCount];
+        this.bandEnd = new int[bandCount];
+        this.smoothed = new float[bandCount];
+        this.buffers = new float[3][bandCount];
+
+        int bits = Integer.numberOfTrailingZeros(FFT_SIZE);
+        for (int i = 0; i < FFT_SIZE; i++) {
+            hann[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / (FFT_SIZE - 1)));
+            bitReverse[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+        for (int i = 0; i < FFT_SIZE / 2; i++) {
+            cos[i] = (float) Math.cos(-2 * Math.PI * i / FFT_SIZE);
+            sin[i] = (float) Math.sin(-2 * Math.PI * i / FFT_SIZE);
+        }
+        mapBands(sampleRate);
+        requestedRate = sampleRate;
+    }
+
+    /** 输出采样率变化（换到不同采样率的曲目）时调用，分析线程随后重新划分频段 */
+    public void setSampleRate(int sampleRate) {
+        requestedRate = sampleRate;
+    }
+
+    /** 频段按对数均分，每段至少包含一个 bin */
+    private void mapBands(int sampleRate) {
+        this.sampleRate = sampleRate;
+        float binHz = (float) sampleRate / FFT_SIZE;
+        double ratio = Math.log(MAX_FREQ / MIN_FREQ);
+        int prev = Math.max(1, (int) (MIN_FREQ / binHz));
+        for (int b = 0; b < bandCount; b++) {
+            double hi = MIN_FREQ * Math.exp(ratio * (b + 1) / bandCount);
+            int end = Math.min(FFT_SIZE / 2, Math.max(prev + 1, (int) Math.round(hi / binHz)));
+            bandStart[b] = prev;
+            bandEnd[b] = end;
+            prev = Math.min(end, FFT_SIZE / 2 - 1);
+        }
+    }
+
+    /** 启动低优先级的后台分析线程 */
+    public void start() {
+        if (running) return;
+        running = true;
+        worker = new Thread(this::runLoop, "spectrum-analyzer");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+    }
+
+    /** 停止分析线程 */
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            LockSupport.unpark(worker);
+            worker = null;
+        }
+    }
+
+    /** 频段数 */
+    public int getBandCount() {
+        return bandCount;
+    }
+
+    /**
+     * 返回最新一帧频段强度（仅供 FX 线程调用）。
+     * 返回的数组在下次调用前不会被分析线程改写，调用方不得修改。
+     */
+    public float[] latestBands() {
+        if ((middle.get() & DIRTY) != 0) {
+            readIndex = middle.getAndSet(readIndex) & INDEX_MASK;
+        }
+        return buffers[readIndex];
+    }
+
+    private void runLoop() {
+        long lastData = System.nanoTime();
+        while (running) {
+            if (requestedRate != sampleRate) {
+                mapBands(requestedRate);
+            }
+            if (ring.readLatest(window, FFT_SIZE, HOP)) {
+                lastData = System.nanoTime();
+                analyze();
+                publish();
+            } else {
+                if (System.nanoTime() - lastData > IDLE_NANOS && decayIdle()) {
+                    publish();
+                }
+                LockSupport.parkNanos(10_000_000L);
+            }
+        }
+    }
+
+    /** 无新采样时让频段回落，全部归零后返回 false，不再发布新帧 */
+    private boolean decayIdle() {
+        boolean changed = false;
+        for (int b = 0; b < bandCount; b++) {
+            if (smoothed[b] > 0f) {
+                smoothed[b] = smoothed[b] < 0.01f ? 0f : smoothed[b] * DECAY;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private void analyze() {
+        for (int i = 0; i < FFT_SIZE; i++) {
+            int j = bitReverse[i];
+            re[j] = window[i] * hann[i];
+            im[j] = 0f;
+        }
+        // 迭代基 2 FFT
+        for (int size = 2; size <= FFT_SIZE; size <<= 1) {
+            int half = size >> 1;
+            int step = FFT_SIZE / size;
+            for (int start = 0; start < FFT_SIZE; start += size) {
+                for (int k = 0; k < half; k++) {
+                    float wr = cos[k * step];
+                    float wi = sin[k * step];
+                    int a = start + k;
+                    int b = a + half;
+                    float tr = re[b] * wr - im[b] * wi;
+                    float ti = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+        // 每个频段取最大幅度，换算为 dB 后归一化到 0~1
+        float norm = FFT_SIZE / 4f;
+        for (int band = 0; band < bandCount; band++) {
+            float peak = 0f;
+            for (int k = bandStart[band]; k < bandEnd[band]; k++) {
+                float mag = re[k] * re[k] + im[k] * im[k];
+                if (mag > peak) peak = mag;
+            }
+            float db = (float) (10 * Math.log10(peak / (norm * norm) + 1e-12));
+            float level = Math.max(0f, Math.min(1f, (db - MIN_DB) / -MIN_DB));
+            smoothed[band] = Math.max(level, smoothed[band] * DECAY);
+        }
+    }
+
+    private void publish() {
+        System.arraycopy(smoothed, 0, buffers[writeIndex], 0, bandCount);
+        writeIndex = middle.getAndSet(writeIndex | DIRTY) & INDEX_MASK;
+    }
+}
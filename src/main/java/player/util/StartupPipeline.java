@@ -0,0 +1,125 @@
+// 文件：src/main/java/player/util/StartupPipeline.java
+package player.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * 启动流水线：各阶段声明依赖后并发执行，并记录每个阶段的起止时间
+ * <p>
+ * 后台阶段用 {@link #async} 提交，依赖全部完成后才开始；必须在当前线程（如 FX 线程）执行的阶段用 {@link #run}。
+ * {@link #report()} 列出每个阶段的起止时间，并沿“最晚完成的依赖”回溯出关键路径，即决定启动总时长的那条依赖链。
+ */
+public final class StartupPipeline {
+    private final long origin = System.nanoTime();
+    private final ExecutorService pool = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "startup");
+        t.setDaemon(true);
+        return t;
+    });
+    /** 阶段名 → 起止时间，由 this 加锁保护 */
+    private final Map<String, Timing> timings = new LinkedHashMap<>();
+    private final Map<CompletableFuture<?>, String> names = new LinkedHashMap<>();
+
+    private record Timing(long start, long end, List<String> deps) {
+    }
+
+    /** 在后台执行一个阶段，deps 全部完成后开始；依赖失败时本阶段也以同样的异常结束 */
+    public <T> CompletableFuture<T> async(String name, Supplier<T> work, CompletableFuture<?>... deps) {
+        List<String> depNames = namesOf(deps);
+        CompletableFuture<T> future = CompletableFuture.allOf(deps)
+                .thenApplyAsync(v -> timed(name, depNames, work), pool);
+        synchronized (this) {
+            names.put(future, name);
+        }
+        return future;
+    }
+
+    /** 在当前线程执行一个阶段：先等 deps 完成（等待时间不计入本阶段），依赖失败时抛出其异常 */
+    public <T> T run(String name, Supplier<T> work, CompletableFuture<?>... deps) {
+        CompletableFuture.allOf(deps).join();
+        return timed(name, namesOf(deps), work);
+    }
+
+    /** 记录一个从流水线创建时开始、到现在结束的阶段（如 JavaFX 工具包启动） */
+    public synchronized void mark(String name) {
+        timings.put(name, new Timing(origin, System.nanoTime(), List.of()));
+    }
+
+    private <T> T timed(String name, List<String> deps, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            synchronized (this) {
+                timings.put(name, new Timing(start, System.nanoTime(), deps));
+            }
+        }
+    }
+
+    private synchronized List<String> namesOf(CompletableFuture<?>[] deps) {
+        List<String> result = new ArrayList<>();
+        for (CompletableFuture<?> dep : deps) {
+            String name = names.get(dep);
+            if (name != null) result.add(name);
+        }
+        return result;
+    }
+
+    /** 已完成阶段的耗时表与关键路径 */
+    public synchronized String report() {
+        StringBuilder sb = new StringBuilder("启动阶段（毫秒，开始 → 结束，耗时）：\n");
+        String last = null;
+        long lastEnd = Long.MIN_VALUE;
+        for (Map.Entry<String, Timing> e : timings.entrySet()) {
+            sb.append(line(e.getKey(), e.getValue())).append('\n');
+            if (e.getValue().end() > lastEnd) {
+                lastEnd = e.getValue().end();
+                last = e.getKey();
+            }
+        }
+        if (last != null) {
+            List<String> path = new ArrayList<>();
+            for (String stage = last; stage != null; stage = latestDep(timings.get(stage))) {
+                path.addFirst(stage);
+            }
+            sb.append("关键路径：").append(String.join(" → ", path))
+                    .append("，共 ").append(millis(lastEnd - origin)).append(" ms");
+        }
+        return sb.toString();
+    }
+
+    /** 单个阶段的耗时，阶段尚未完成时返回 null */
+    public synchronized String report(String name) {
+        Timing t = timings.get(name);
+        return t != null ? line(name, t).strip() : null;
+    }
+
+    private String line(String name, Timing t) {
+        return String.format("  %-12s %6d → %6d  (%d)", name, millis(t.start() - origin), millis(t.end() - origin),
+                millis(t.end() - t.start()));
+    }
+
+    private String latestDep(Timing t) {
+        String latest = null;
+        long end = Long.MIN_VALUE;
+        for (String dep : t.deps()) {
+            Timing d = timings.get(dep);
+            if (d != null && d.end() > end) {
+                end = d.end();
+                latest = dep;
+            }
+        }
+        return latest;
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
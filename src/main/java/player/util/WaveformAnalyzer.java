@@ -0,0 +1,395 @@
+// 文件：src/main/java/player/util/WaveformAnalyzer.java
+package player.util;
+
+import player.model.Song;
+import uk.co.caprica.vlcj.factory.MediaPlayerFactory;
+
+import javax.sound.sampled.AudioInputStream;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 波形摘要：每首歌 1024～2047 个桶的峰值与均方根，供底部的波形进度条绘制
+ * <p>
+ * 按 64KB 块边解码边累积（libvlc 转码的格式也是边转边读，见 {@link PcmDecoder}）；
+ * 桶数达到上限时相邻两桶合并、每桶帧数翻倍，不必预知总长，内存占用恒定。
+ * 同一遍解码顺带喂给 {@link LoudnessMeter}，没有响度标签的歌曲不必再为 {@link LoudnessAnalyzer} 解码一次。
+ * 每桶量化为两个字节，每首歌一个文件（约 2～4KB）存放在 waveforms 目录下，按 路径 + 大小 + 修改时间 校验。
+ * 当前与下一首（{@link #prioritize}）由单独的线程、单独的转码许可计算，不打断后台正在计算的曲目。
+ * 其余曲目由 {@link PcmDecoder#BACKGROUND_PERMITS} 个最低优先级线程并行解码，每个线程只占一块 64KB 缓冲与定长的桶数组；
+ * 当前与下一首有活要干时后台线程不开始新的解码，播放相关的计算优先。
+ */
+public final class WaveformAnalyzer {
+    private static final int MAGIC = 0x57415646; // "WAVF"
+    private static final int VERSION = 1;
+    /** 合并后桶数在 [MIN_BUCKETS, 2 * MIN_BUCKETS) 之间 */
+    private static final int MIN_BUCKETS = 1024;
+    private static final int INITIAL_FRAMES_PER_BUCKET = 256;
+    private static final int RECENT_LIMIT = 16;
+
+    /** 一首歌的波形，peak 与 rms 为 0～255 的无符号量化值 */
+    public record Waveform(byte[] peak, byte[] rms) {
+        /** 桶数 */
+        public int size() {
+            return peak.length;
+        }
+
+        /** 第 i 个桶的峰值，0～1 */
+        public double peakAt(int i) {
+            return (peak[i] & 0xff) / 255.0;
+        }
+
+        /** 第 i 个桶的均方根，0～1 */
+        public double rmsAt(int i) {
+            return (rms[i] & 0xff) / 255.0;
+        }
+    }
+
+    private record Cached(long size, long lastModified, Waveform waveform) {
+    }
+
+    private final MediaPlayerFactory factory;
+    private final LoudnessAnalyzer loudness;
+    private final BiConsumer<File, Waveform> onReady;
+    private final Path dir = AppFiles.resolve("waveforms");
+    /** 最近用过的几首，访问顺序；由自身加锁保护 */
+    private final Map<File, Cached> recent = new LinkedHashMap<>(RECENT_LIMIT, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, Cached> eldest) {
+            return size() > RECENT_LIMIT;
+        }
+    };
+    /** 当前与下一首，换歌时整体替换 */
+    private final LinkedBlockingDeque<File> priorityJobs = new LinkedBlockingDeque<>();
+    /** 音乐库中缓存缺失的其余曲目 */
+    private final LinkedBlockingDeque<File> jobs = new LinkedBlockingDeque<>();
+    private final Set<File> queued = ConcurrentHashMap.newKeySet();
+    /** 各线程中正在解码的文件，其他线程遇到时跳过 */
+    private final Set<File> decoding = ConcurrentHashMap.newKeySet();
+    private final Thread priorityWorker;
+    private final List<Thread> workers = new ArrayList<>();
+    /** 优先线程正在处理曲目 */
+    private volatile boolean priorityBusy;
+    /** 最近一次 prioritize 的曲目，它们就绪时经 onReady 回调 */
+    private volatile List<File> wanted = List.of();
+    private volatile boolean closed;
+
+    /**
+     * @param factory  libvlc 工厂，用于解码 Java Sound 不支持的格式，可为 null
+     * @param loudness 解码时顺带测量响度，结果交给它
+     * @param onReady  当前或下一首的波形就绪（计算完成或从缓存读出）时在后台线程回调
+     */
+    public WaveformAnalyzer(MediaPlayerFactory factory, LoudnessAnalyzer loudness,
+                            BiConsumer<File, Waveform> onReady) {
+        this.factory = factory;
+        this.loudness = loudness;
+        this.onReady = onReady;
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            System.err.println("无法创建波形缓存目录：" + e.getMessage());
+        }
+        priorityWorker = startWorker("waveform-priority", priorityJobs, true);
+        for (int i = 0; i < PcmDecoder.BACKGROUND_PERMITS; i++) {
+            workers.add(startWorker("waveform-analyzer-" + i, jobs, false));
+        }
+    }
+
+    private Thread startWorker(String name, LinkedBlockingDeque<File> queue, boolean priority) {
+        Thread t = new Thread(() -> run(queue, priority), name);
+        t.setDaemon(true);
+        t.setPriority(priority ? Thread.NORM_PRIORITY - 1 : Thread.MIN_PRIORITY);
+        t.start();
+        return t;
+    }
+
+    /** 内存中已有的波形，没有时返回 null（FX 线程调用，不读盘） */
+    public Waveform get(File file) {
+        Cached cached;
+        synchronized (recent) {
+            cached = recent.get(file);
+        }
+        if (cached == null || cached.size() != file.length() || cached.lastModified() != file.lastModified()) {
+            return null;
+        }
+        return cached.waveform();
+    }
+
+    /**
+     * 换成这几首（当前、下一首），就绪后经 onReady 回调，没有响度标签的同时测量响度；
+     * 之前排队但还没开始的作废（用户已跳到别处），正在计算的不打断
+     */
+    public void prioritize(File... files) {
+        List<File> list = new ArrayList<>(files.length);
+        for (File file : files) {
+            if (file != null) {
+                list.add(file);
+            }
+        }
+        wanted = List.copyOf(list);
+        priorityJobs.clear();
+        priorityJobs.addAll(list);
+    }
+
+    /** 把缓存中缺失的歌曲排到队尾，空闲时计算 */
+    public void analyzeAll(List<Song> songs) {
+        for (Song song : songs) {
+            File file = song.getFile();
+            if (queued.add(file)) {
+                jobs.offerLast(file);
+            }
+        }
+    }
+
+    /** 停止后台计算，进行中的解码随即结束并释放转码许可 */
+    public void close() {
+        closed = true;
+        priorityWorker.interrupt();
+        workers.forEach(Thread::interrupt);
+    }
+
+    private void run(LinkedBlockingDeque<File> queue, boolean priority) {
+        while (!closed) {
+            File file;
+            try {
+                file = queue.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (priority) {
+                priorityBusy = true;
+                try {
+                    handle(file, true);
+                } finally {
+                    if (priorityJobs.isEmpty()) {
+                        priorityBusy = false;
+                    }
+                }
+            } else {
+                queued.remove(file);
+                if (awaitPriorityIdle()) {
+                    handle(file, false);
+                }
+            }
+        }
+    }
+
+    private void handle(File file, boolean priority) {
+        // 另一个线程正在解码同一首：由它算完，算完时若在 wanted 中由它回调
+        if (!decoding.add(file)) {
+            return;
+        }
+        Waveform waveform;
+        try {
+            waveform = process(file, priority);
+        } finally {
+            decoding.remove(file);
+        }
+        if (waveform != null && wanted.contains(file)) {
+            onReady.accept(file, waveform);
+        }
+    }
+
+    /** 后台线程开始解码前等当前与下一首处理完，被关闭时返回 false */
+    private boolean awaitPriorityIdle() {
+        while (priorityBusy || !priorityJobs.isEmpty()) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                if (closed) {
+                    return false;
+                }
+            }
+        }
+        return !closed;
+    }
+
+    /** 读缓存或解码；需要时顺带测量响度。失败或被关闭时返回 null */
+    private Waveform process(File file, boolean priority) {
+        long size = file.length();
+        long modified = file.lastModified();
+        if (size == 0) {
+            return null; // 文件已不存在
+        }
+        Waveform waveform = get(file);
+        if (waveform == null) {
+            waveform = load(file, size, modified);
+        }
+        // 波形已有时只为当前与下一首补测响度，后台不为响度单独解码
+        boolean measure = (waveform == null || priority) && loudness.needsMeasurement(file);
+        if (waveform == null || measure) {
+            Waveform computed = decode(file, size, modified, priority, measure);
+            if (waveform == null) {
+                if (computed == null) {
+                    return null;
+                }
+                waveform = computed;
+                save(file, size, modified, waveform);
+            }
+        }
+        synchronized (recent) {
+            recent.put(file, new Cached(size, modified, waveform));
+        }
+        return waveform;
+    }
+
+    /** 一遍解码同时累积波形的桶与（measure 时）响度 */
+    private Waveform decode(File file, long size, long modified, boolean priority, boolean measure) {
+        try (AudioInputStream in = PcmDecoder.open(file, factory, TimeUnit.MINUTES.toMillis(5), priority)) {
+            int channels = in.getFormat().getChannels();
+            Buckets buckets = new Buckets();
+            LoudnessMeter meter = measure ? new LoudnessMeter((int) in.getFormat().getSampleRate(), channels) : null;
+            byte[] buffer = new byte[64 * 1024];
+            float[] samples = new float[buffer.length / 2];
+            int frames;
+            while ((frames = PcmDecoder.readFrames(in, buffer, samples)) > 0) {
+                if (closed) {
+                    return null;
+                }
+                buckets.add(samples, frames, channels);
+                if (meter != null) {
+                    meter.add(samples, frames);
+                }
+            }
+            if (meter != null) {
+                loudness.accept(file, size, modified, meter);
+            }
+            return buckets.finish();
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println("波形计算失败：" + file.getName() + "（" + e.getMessage() + "）");
+            }
+            return null;
+        }
+    }
+
+    /** 缓存文件名：路径的 64 位 FNV-1a 哈希，文件内另存完整路径以排除碰撞 */
+    private Path cacheFile(File file) {
+        long hash = 0xcbf29ce484222325L;
+        String path = file.getAbsolutePath();
+        for (int i = 0; i < path.length(); i++) {
+            hash ^= path.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return dir.resolve(String.format("%016x.wf", hash));
+    }
+
+    private Waveform load(File file, long size, long modified) {
+        Path path = cacheFile(file);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (InputStream fis = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(fis))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || !in.readUTF().equals(file.getAbsolutePath())
+                    || in.readLong() != size || in.readLong() != modified) {
+                return null;
+            }
+            int count = in.readInt();
+            if (count <= 0 || count >= 2 * MIN_BUCKETS) {
+                return null;
+            }
+            byte[] peak = new byte[count];
+            byte[] rms = new byte[count];
+            in.readFully(peak);
+            in.readFully(rms);
+            return new Waveform(peak, rms);
+        } catch (IOException e) {
+            System.err.println("读取波形缓存失败：" + e.getMessage());
+            return null;
+        }
+    }
+
+    private void save(File file, long size, long modified, Waveform waveform) {
+        try {
+            AppFiles.writeAtomically(cacheFile(file), out -> {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(file.getAbsolutePath());
+                out.writeLong(size);
+                out.writeLong(modified);
+                out.writeInt(waveform.size());
+                out.write(waveform.peak());
+                out.write(waveform.rms());
+            });
+        } catch (IOException e) {
+            System.err.println("保存波形缓存失败：" + e.getMessage());
+        }
+    }
+
+    /** 定长的桶数组：满 2 * MIN_BUCKETS 个时两两合并，每桶帧数翻倍 */
+    private static final class Buckets {
+        private final float[] peak = new float[2 * MIN_BUCKETS];
+        private final double[] sumSquares = new double[2 * MIN_BUCKETS];
+        private final int[] frames = new int[2 * MIN_BUCKETS];
+        private int count;
+        private int framesPerBucket = INITIAL_FRAMES_PER_BUCKET;
+        private float currentPeak;
+        private double currentSquares;
+        private int currentFrames;
+
+        void add(float[] samples, int frameCount, int channels) {
+            for (int f = 0, i = 0; f < frameCount; f++) {
+                for (int c = 0; c < channels; c++, i++) {
+                    float v = samples[i];
+                    float a = Math.abs(v);
+                    if (a > currentPeak) currentPeak = a;
+                    currentSquares += (double) v * v / channels;
+                }
+                if (++currentFrames == framesPerBucket) {
+                    push();
+                }
+            }
+        }
+
+        private void push() {
+            peak[count] = currentPeak;
+            sumSquares[count] = currentSquares;
+            frames[count] = currentFrames;
+            count++;
+            currentPeak = 0;
+            currentSquares = 0;
+            currentFrames = 0;
+            if (count == peak.length) {
+                for (int i = 0; i < MIN_BUCKETS; i++) {
+                    peak[i] = Math.max(peak[2 * i], peak[2 * i + 1]);
+                    sumSquares[i] = sumSquares[2 * i] + sumSquares[2 * i + 1];
+                    frames[i] = frames[2 * i] + frames[2 * i + 1];
+                }
+                count = MIN_BUCKETS;
+                framesPerBucket *= 2;
+            }
+        }
+
+        Waveform finish() {
+            if (currentFrames > 0) {
+                push();
+            }
+            if (count == 0) {
+                return null;
+            }
+            byte[] p = new byte[count];
+            byte[] r = new byte[count];
+            for (int i = 0; i < count; i++) {
+                p[i] = (byte) Math.round(Math.min(1f, peak[i]) * 255);
+                r[i] = (byte) Math.round(Math.min(1.0, Math.sqrt(sumSquares[i] / frames[i])) * 255);
+            }
+            return new Waveform(p, r);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+// 文件：src/main/java/player/view/AnimationScheduler.java
+package player.view;
+
+import javafx.animation.Animation;
+import javafx.scene.Node;
+import javafx.stage.Stage;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 可见性感知的动画调度器
+ * <p>
+ * 所有装饰动画与 UI 定时刷新都通过它启停：窗口最小化/隐藏、或动画所属面板不可见时自动暂停，
+ * 重新可见后恢复“应当运行”的动画，并回调 onResync 让界面从播放时钟一步同步到位。
+ * 只影响 JavaFX 动画，不触碰 vlcj 播放器，音频不受影响。
+ */
+public class AnimationScheduler {
+    /** 动画 → 所属面板（null 表示只受窗口可见性约束） */
+    private final Map<Animation, Node> owners = new HashMap<>();
+    /** 业务上“应当运行”的动画，可见时才真正 play */
+    private final Set<Animation> wanted = new HashSet<>();
+    /** 已挂过监听的面板，避免重复监听 */
+    private final Set<Node> watchedOwners = new HashSet<>();
+
+    private boolean stageVisible = true;
+    private Runnable onResync;
+
+    /** 监听舞台的最小化 / 显示状态 */
+    public void bindStage(Stage stage) {
+        stageVisible = stage.isShowing() && !stage.isIconified();
+        stage.iconifiedProperty().addListener((obs, oldVal, newVal) -> updateStageVisible(stage));
+        stage.showingProperty().addListener((obs, oldVal, newVal) -> updateStageVisible(stage));
+    }
+
+    /** 设置从隐藏恢复为可见时的同步回调（在 FX 线程执行） */
+    public void setOnResync(Runnable onResync) {
+        this.onResync = onResync;
+    }
+
+    /** 登记一个受调度的动画 */
+    public void register(Animation animation, Node owner) {
+        owners.put(animation, owner);
+        if (owner != null && watchedOwners.add(owner)) {
+            owner.visibleProperty().addListener((obs, oldVal, newVal) -> ownerChanged(owner));
+            owner.sceneProperty().addListener((obs, oldVal, newVal) -> ownerChanged(owner));
+        }
+    }
+
+    /** 注销动画并停止它 */
+    public void unregister(Animation animation) {
+        if (animation == null) return;
+        wanted.remove(animation);
+        owners.remove(animation);
+        animation.stop();
+    }
+
+    /** 请求播放：可见时立即播放，否则等到可见再播放 */
+    public void play(Animation animation) {
+        if (animation == null) return;
+        wanted.add(animation);
+        apply(animation);
+    }
+
+    /** 请求暂停（业务暂停，可见后也不会自动恢复） */
+    public void pause(Animation animation) {
+        if (animation == null) return;
+        wanted.remove(animation);
+        animation.pause();
+    }
+
+    /** 请求停止 */
+    public void stop(Animation animation) {
+        if (animation == null) return;
+        wanted.remove(animation);
+        animation.stop();
+    }
+
+    /** 节点当前是否真正可见：窗口可见、节点可见且仍挂在场景中 */
+    public boolean isShowing(Node owner) {
+        if (!stageVisible) return false;
+        return owner == null || (owner.isVisible() && owner.getScene() != null);
+    }
+
+    private void updateStageVisible(Stage stage) {
+        boolean visible = stage.isShowing() && !stage.isIconified();
+        if (visible == stageVisible) return;
+        stageVisible = visible;
+        for (Animation animation : owners.keySet()) {
+            apply(animation);
+        }
+        if (visible) {
+            resync();
+        }
+    }
+
+    private void ownerChanged(Node owner) {
+        for (Map.Entry<Animation, Node> entry : owners.entrySet()) {
+            if (entry.getValue() == owner) {
+                apply(entry.getKey());
+            }
+        }
+        if (isShowing(owner)) {
+            resync();
+        }
+    }
+
+    private void apply(Animation animation) {
+        boolean showing = isShowing(owners.get(animation));
+        if (wanted.contains(animation) && showing) {
+            if (animation.getStatus() != Animation.Status.RUNNING) {
+                animation.play();
+            }
+        } else if (!showing && animation.getStatus() == Animation.Status.RUNNING) {
+            animation.pause();
+        }
+    }
+
+    private void resync() {
+        if (onResync != null) {
+            onResync.run();
+        }
+    }
+}
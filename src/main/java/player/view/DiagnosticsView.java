@@ -0,0 +1,79 @@
+// 文件：src/main/java/player/view/DiagnosticsView.java
+package player.view;
+
+import javafx.geometry.Pos;
+import javafx.scene.Parent;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import player.util.ScanQuarantine;
+
+import java.io.File;
+
+/**
+ * 播放列表浮层里的“诊断”页：列出扫描时超时或读取出错、已被隔离的文件及原因
+ * <p>
+ * 隔离中的文件只按文件名入库，直到文件变化；“全部重试”清空列表，下次扫描重新读取。
+ */
+public final class DiagnosticsView {
+    private final ScanQuarantine quarantine;
+    private final VBox root;
+    private final Label summary = new Label();
+    private final ListView<ScanQuarantine.Entry> list = new ListView<>();
+
+    public DiagnosticsView(ScanQuarantine quarantine) {
+        this.quarantine = quarantine;
+
+        summary.setTextFill(Color.WHITE);
+        summary.setFont(new Font("Arial", 13));
+        Button retry = new Button("全部重试");
+        retry.setFont(new Font("Arial", 11));
+        retry.setStyle("-fx-background-color: transparent; -fx-text-fill: rgba(255,255,255,0.7);");
+        retry.setOnAction(e -> {
+            quarantine.clear();
+            refresh();
+        });
+        HBox header = new HBox(6, summary, retry);
+        header.setAlignment(Pos.CENTER_LEFT);
+
+        list.setStyle("-fx-background-color: transparent; -fx-control-inner-background: transparent;");
+        list.setCellFactory(lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(ScanQuarantine.Entry item, boolean empty) {
+                super.updateItem(item, empty);
+                setStyle("-fx-background-color: transparent;");
+                if (empty || item == null) {
+                    setText(null);
+                    setTooltip(null);
+                    return;
+                }
+                setText(new File(item.path()).getName() + "\n" + item.reason());
+                setTooltip(new Tooltip(item.path()));
+                setTextFill(Color.WHITE);
+                setFont(new Font("Arial", 12));
+            }
+        });
+        VBox.setVgrow(list, Priority.ALWAYS);
+
+        root = new VBox(4, header, list);
+        VBox.setVgrow(root, Priority.ALWAYS);
+    }
+
+    /** 返回诊断页的根节点 */
+    public Parent getRoot() {
+        return root;
+    }
+
+    /** 重新读取隔离列表（FX 线程调用） */
+    public void refresh() {
+        list.getItems().setAll(quarantine.entries());
+        summary.setText(list.getItems().isEmpty() ? "没有问题文件" : "问题文件（" + list.getItems().size() + "）");
+    }
+}
@@ -0,0 +1,138 @@
+// 文件：src/main/java/player/view/KaraokeLyric.java
+package player.view;
+
+import javafx.animation.Animation;
+import javafx.animation.Transition;
+import javafx.geometry.Pos;
+import javafx.scene.Parent;
+import javafx.scene.control.Label;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Text;
+import javafx.util.Duration;
+import player.model.LyricLine;
+
+/**
+ * 局部歌词当前行的卡拉 OK 高亮：在原歌词 Label 上叠一层同文本的高亮 Label，按已唱到的位置裁剪显示宽度
+ * <p>
+ * 换行时把每个字符的横坐标预先量好存进数组；之后每帧只由插值后的播放时钟算出字符位置、
+ * 在数组里插值得到宽度并改裁剪矩形，不分配对象。播放时钟由 libvlc 的位置事件校准，两次事件之间按系统时钟推进。
+ */
+public class KaraokeLyric {
+    private static final Color SUNG_COLOR = Color.rgb(230, 60, 100);
+    /** 距上次校准超过这么久仍没有新位置（缓冲、卡顿）时不再外推 */
+    private static final long MAX_EXTRAPOLATE_MILLIS = 1000;
+
+    private final StackPane root;
+    private final Label sung = new Label();
+    private final Rectangle clip = new Rectangle();
+    private final Text measure = new Text();
+    private final Animation frames;
+
+    private LyricLine line;
+    private long lineEnd;
+    /** 前 i 个字符的宽度，长度为文本长度 + 1 */
+    private double[] charX = new double[1];
+
+    // 插值时钟：最近一次校准的位置与当时的系统时间
+    private long clockMillis;
+    private long clockNanos;
+    private boolean clockRunning;
+
+    /** @param base 原有的当前行 Label，文本、字体与透明度由高亮层跟随 */
+    public KaraokeLyric(Label base) {
+        sung.textProperty().bind(base.textProperty());
+        sung.fontProperty().bind(base.fontProperty());
+        sung.opacityProperty().bind(base.opacityProperty());
+        sung.setTextFill(SUNG_COLOR);
+        sung.setMouseTransparent(true);
+        clip.heightProperty().bind(sung.heightProperty());
+        sung.setClip(clip);
+
+        root = new StackPane(base, sung);
+        root.setAlignment(Pos.CENTER_LEFT);
+
+        frames = new Transition() {
+            {
+                setCycleDuration(Duration.seconds(1));
+                setCycleCount(INDEFINITE);
+            }
+
+            @Override
+            protected void interpolate(double frac) {
+                update();
+            }
+        };
+    }
+
+    /** 返回替代原 Label 放进布局的节点 */
+    public Parent getRoot() {
+        return root;
+    }
+
+    /** 逐帧刷新的动画，由调用方登记到调度器，播放时运行 */
+    public Animation getFrameAnimation() {
+        return frames;
+    }
+
+    /**
+     * 切换当前行，并量好每个字符的横坐标
+     *
+     * @param line    当前行，null 时不高亮（纯音乐等）
+     * @param lineEnd 本行结束时间，没有逐字时间时在本行开始到此之间均匀推进
+     */
+    public void setLine(LyricLine line, long lineEnd) {
+        this.line = line;
+        this.lineEnd = lineEnd;
+        String text = line != null ? line.getText() : "";
+        measure.setFont(sung.getFont());
+        double[] x = new double[text.length() + 1];
+        for (int i = 1; i <= text.length(); i++) {
+            measure.setText(text.substring(0, i));
+            x[i] = measure.getLayoutBounds().getWidth();
+        }
+        charX = x;
+        update();
+    }
+
+    /** 用 libvlc 报告的播放位置校准时钟 */
+    public void sync(long millis) {
+        clockMillis = millis;
+        clockNanos = System.nanoTime();
+        update();
+    }
+
+    /** 播放 / 暂停时冻结或继续推进时钟 */
+    public void setRunning(boolean running) {
+        if (clockRunning && !running) {
+            clockMillis = now();
+        }
+        clockNanos = System.nanoTime();
+        clockRunning = running;
+    }
+
+    private long now() {
+        if (!clockRunning) {
+            return clockMillis;
+        }
+        long elapsed = (System.nanoTime() - clockNanos) / 1_000_000;
+        return clockMillis + Math.min(elapsed, MAX_EXTRAPOLATE_MILLIS);
+    }
+
+    private void update() {
+        if (line == null) {
+            clip.setWidth(0);
+            return;
+        }
+        double pos = line.charPositionAt(now(), lineEnd);
+        int i = (int) pos;
+        double width;
+        if (i >= charX.length - 1) {
+            width = charX[charX.length - 1];
+        } else {
+            width = charX[i] + (charX[i + 1] - charX[i]) * (pos - i);
+        }
+        clip.setWidth(width);
+    }
+}
@@ -0,0 +1,272 @@
+// 文件：src/main/java/player/view/LibraryBrowserView.java
+package player.view;
+
+import javafx.application.Platform;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import player.util.LibraryStore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 播放列表浮层里的浏览界面：播放队列、导入的歌单，按艺术家、专辑、流派、年份浏览音乐库，以及扫描诊断
+ * <p>
+ * 浏览数据全部来自 {@link LibraryStore} 的索引，列表里只有不含封面和歌词的记录；
+ * 曲目列表按页（每页 200 条）从库中取，滚动到接近末尾时再取下一页；
+ * 分类第一次打开或库变化后的第一页要整体排序，放到后台线程取，之后翻页只读库里缓存的排序结果。
+ * 双击曲目时把当前分类下的全部曲目交给 MainWindow 作为新的播放队列。
+ */
+public final class LibraryBrowserView {
+    private static final int PAGE_SIZE = 200;
+    private static final String[] TAB_NAMES = {"队列", "歌单", "艺术家", "专辑", "流派", "年份", "诊断"};
+    /** 前两页（队列、歌单）与最后一页（诊断）由外部提供，不对应库字段 */
+    private static final LibraryStore.Field[] TAB_FIELDS = {
+            null, null, LibraryStore.Field.ARTIST, LibraryStore.Field.ALBUM, LibraryStore.Field.GENRE, LibraryStore.Field.YEAR,
+            null
+    };
+
+    /** 从浏览界面发起播放 */
+    @FunctionalInterface
+    public interface PlayHandler {
+        void play(List<LibraryStore.Track> tracks, int index);
+    }
+
+    private final LibraryStore store;
+    private final Node queueView;
+    private final Node playlistView;
+    private final DiagnosticsView diagnosticsView;
+    private final PlayHandler onPlay;
+    private final VBox root;
+    private final StackPane body;
+    private final List<Button> tabs = new ArrayList<>();
+    private final ListView<LibraryStore.Facet> facetList = new ListView<>();
+    private final ListView<LibraryStore.Track> trackList = new ListView<>();
+    private final Label trackTitle = new Label();
+    private final VBox trackPane;
+
+    private LibraryStore.Field field;
+    private String value;
+    private int total;
+    /** 后台正在取第一页，期间不翻页 */
+    private boolean loading;
+
+    /**
+     * @param store           音乐库索引
+     * @param queueView       播放队列列表，作为“队列”页显示
+     * @param playlistView    导入的歌单列表，作为“歌单”页显示
+     * @param diagnosticsView 扫描出问题的文件，作为“诊断”页显示
+     * @param onPlay          双击曲目时回调
+     */
+    public LibraryBrowserView(LibraryStore store, Node queueView, Node playlistView, DiagnosticsView diagnosticsView,
+                              PlayHandler onPlay) {
+        this.store = store;
+        this.queueView = queueView;
+        this.playlistView = playlistView;
+        this.diagnosticsView = diagnosticsView;
+        this.onPlay = onPlay;
+
+        HBox tabBar = new HBox(4);
+        tabBar.setAlignment(Pos.CENTER);
+        for (int i = 0; i < TAB_NAMES.length; i++) {
+            Button tab = new Button(TAB_NAMES[i]);
+            tab.setFont(new Font("Arial", 12));
+            LibraryStore.Field tabField = TAB_FIELDS[i];
+            int tabIndex = i;
+            tab.setOnAction(e -> {
+                if (tabIndex == 0) showQueue();
+                else if (tabIndex == 1) showPlaylists();
+                else if (tabField == null) showDiagnostics();
+                else showFacets(tabField);
+            });
+            tabs.add(tab);
+            tabBar.getChildren().add(tab);
+        }
+
+        styleList(facetList);
+        facetList.setCellFactory(lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(LibraryStore.Facet item, boolean empty) {
+                super.updateItem(item, empty);
+                setStyle("-fx-background-color: transparent;");
+                if (empty || item == null) {
+                    setText(null);
+                } else {
+                    setText(item.name() + "（" + item.count() + "）");
+                    setTextFill(Color.WHITE);
+                    setFont(new Font("Arial", 14));
+                }
+            }
+        });
+        facetList.setOnMouseClicked(evt -> {
+            LibraryStore.Facet facet = facetList.getSelectionModel().getSelectedItem();
+            if (evt.getClickCount() == 2 && facet != null) {
+                showTracks(field, facet.name());
+            }
+        });
+
+        styleList(trackList);
+        trackList.setCellFactory(lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(LibraryStore.Track item, boolean empty) {
+                super.updateItem(item, empty);
+                setStyle("-fx-background-color: transparent;");
+                if (empty || item == null) {
+                    setText(null);
+                    return;
+                }
+                String artist = item.artist().isBlank() ? "无名" : item.artist();
+                setText(item.title() + " - " + artist);
+                setTextFill(Color.WHITE);
+                setFont(new Font("Arial", 14));
+                // 接近已加载部分的末尾时取下一页
+                if (getIndex() >= trackList.getItems().size() - 20 && trackList.getItems().size() < total) {
+                    Platform.runLater(LibraryBrowserView.this::loadNextPage);
+                }
+            }
+        });
+        trackList.setOnMouseClicked(evt -> {
+            int idx = trackList.getSelectionModel().getSelectedIndex();
+            if (evt.getClickCount() == 2 && idx >= 0) {
+                List<LibraryStore.Track> all = store.query(field, value, sortFor(field), 0, Integer.MAX_VALUE);
+                onPlay.play(all, idx);
+            }
+        });
+
+        Button back = new Button("‹ 返回");
+        back.setFont(new Font("Arial", 12));
+        back.setStyle("-fx-background-color: transparent; -fx-text-fill: white;");
+        back.setOnAction(e -> showFacets(field));
+        trackTitle.setTextFill(Color.WHITE);
+        trackTitle.setFont(new Font("Arial", 13));
+        HBox trackHeader = new HBox(6, back, trackTitle);
+        trackHeader.setAlignment(Pos.CENTER_LEFT);
+        trackPane = new VBox(4, trackHeader, trackList);
+        VBox.setVgrow(trackList, Priority.ALWAYS);
+
+        body = new StackPane(queueView);
+        VBox.setVgrow(body, Priority.ALWAYS);
+        root = new VBox(8, tabBar, body);
+        VBox.setVgrow(root, Priority.ALWAYS);
+        selectTab(0);
+    }
+
+    private static void styleList(ListView<?> list) {
+        list.setStyle("-fx-background-color: transparent; -fx-control-inner-background: transparent;");
+        VBox.setVgrow(list, Priority.ALWAYS);
+    }
+
+    /** 返回浏览界面的根节点 */
+    public Parent getRoot() {
+        return root;
+    }
+
+    /** 切回播放队列页 */
+    public void showQueue() {
+        field = null;
+        body.getChildren().setAll(queueView);
+        selectTab(0);
+    }
+
+    /** 切到歌单页 */
+    public void showPlaylists() {
+        field = null;
+        body.getChildren().setAll(playlistView);
+        selectTab(1);
+    }
+
+    /** 切到诊断页，每次切入时重新读取 */
+    public void showDiagnostics() {
+        field = null;
+        diagnosticsView.refresh();
+        body.getChildren().setAll(diagnosticsView.getRoot());
+        selectTab(TAB_NAMES.length - 1);
+    }
+
+    /** 库内容变化后刷新当前浏览页（FX 线程调用） */
+    public void refresh() {
+        if (body.getChildren().contains(facetList)) {
+            showFacets(field);
+        } else if (body.getChildren().contains(trackPane)) {
+            total = store.count(field, value);
+            if (total == 0) {
+                showFacets(field);
+            } else {
+                loadTracks(Math.max(PAGE_SIZE, trackList.getItems().size()));
+            }
+        }
+    }
+
+    private void showFacets(LibraryStore.Field f) {
+        field = f;
+        facetList.getItems().setAll(store.facets(f));
+        body.getChildren().setAll(facetList);
+        for (int i = 0; i < TAB_FIELDS.length; i++) {
+            if (f != null && TAB_FIELDS[i] == f) selectTab(i);
+        }
+    }
+
+    private void showTracks(LibraryStore.Field f, String v) {
+        field = f;
+        value = v;
+        total = store.count(f, v);
+        trackTitle.setText(v + "（" + total + " 首）");
+        trackList.getItems().clear();
+        body.getChildren().setAll(trackPane);
+        loadTracks(PAGE_SIZE);
+    }
+
+    /** 在后台取前 count 条，取回时仍停在同一分类才显示 */
+    private void loadTracks(int count) {
+        LibraryStore.Field f = field;
+        String v = value;
+        loading = true;
+        Thread t = new Thread(() -> {
+            List<LibraryStore.Track> page = store.query(f, v, sortFor(f), 0, count);
+            Platform.runLater(() -> {
+                if (f != field || !v.equals(value) || !body.getChildren().contains(trackPane)) {
+                    return;
+                }
+                loading = false;
+                boolean first = trackList.getItems().isEmpty();
+                trackList.getItems().setAll(page);
+                if (first) {
+                    trackList.scrollTo(0);
+                }
+            });
+        }, "library-query");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void loadNextPage() {
+        int loaded = trackList.getItems().size();
+        if (!loading && loaded < total) {
+            trackList.getItems().addAll(store.query(field, value, sortFor(field), loaded, PAGE_SIZE));
+        }
+    }
+
+    /** 专辑内按标题排列，其余按艺术家 → 专辑 → 标题排列 */
+    private static LibraryStore.Sort sortFor(LibraryStore.Field f) {
+        return f == LibraryStore.Field.ALBUM ? LibraryStore.Sort.ALBUM : LibraryStore.Sort.ARTIST;
+    }
+
+    private void selectTab(int index) {
+        for (int i = 0; i < tabs.size(); i++) {
+            tabs.get(i).setStyle(i == index
+                    ? "-fx-background-color: rgba(255,255,255,0.25); -fx-text-fill: white; -fx-background-radius: 10;"
+                    : "-fx-background-color: transparent; -fx-text-fill: rgba(255,255,255,0.7);");
+        }
+    }
+}
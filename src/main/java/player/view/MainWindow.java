@@ -12,31 +12,78 @@ import javafx.scene.effect.DropShadow;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseEvent;
+import javafx.scene.input.TransferMode;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 import javafx.scene.text.Font;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
 import javafx.util.Duration;
 import player.model.LyricLine;
+import player.model.PlayMode;
+import player.model.PlayerEvent;
+import player.model.Playlist;
 import player.model.Song;
+import player.model.SongList;
+import player.util.AudioTap;
+import player.util.DuplicateDetector;
+import player.util.LibVlcLocator;
+import player.util.LibraryStore;
+import player.util.LibraryWatcher;
+import player.util.LoudnessAnalyzer;
+import player.util.MediaPreparser;
 import player.util.MusicLibrary;
+import player.util.PcmDecoder;
+import player.util.PlayHistory;
+import player.util.PlayerEventBus;
+import player.util.PlaylistIO;
+import player.util.ReadAhead;
+import player.util.RemoteControlServer;
+import player.util.SampleRingBuffer;
+import player.util.ScanQuarantine;
+import player.util.SessionStore;
+import player.util.SingleInstance;
+import player.util.SortKeys;
+import player.util.SpectrumAnalyzer;
+import player.util.StartupPipeline;
+import player.util.WaveformAnalyzer;
 import uk.co.caprica.vlcj.factory.MediaPlayerFactory;
+import uk.co.caprica.vlcj.factory.discovery.NativeDiscovery;
 import uk.co.caprica.vlcj.player.base.MediaPlayer;
-import uk.co.caprica.vlcj.player.base.MediaPlayerEventAdapter;
-import uk.co.caprica.vlcj.player.base.MediaPlayerEventListener;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class MainWindow {
     /** 底部“播放/暂停”按钮也要作为成员变量，便于在换歌、媒体结束后直接切换图标 **/
     private Button playPauseButton;
     // 资源路径：classpath 下的 images 文件夹
-    private static final String DISC_IMG       = getResource("/images/disc.png");
     private static final String LIST_BG_IMG    = getResource("/images/list.png");
+    /** -Dplayer.startup.report=true 时在控制台输出启动各阶段耗时 */
+    private static final boolean STARTUP_REPORT = Boolean.getBoolean("player.startup.report");
+    /** 每个智能歌单最多列出的曲目数 */
+    private static final int SMART_PLAYLIST_SIZE = 100;
 
     // 新增音量相关成员变量
     private StackPane volumeOverlay;
@@ -61,8 +108,10 @@ public class MainWindow {
     /** 标记当前歌曲的媒体是否已被调用过 prepareAndPlayCurrentSong(...) */
     private boolean mediaPrepared = false;
 
-    private List<Song> allSongs;      // 所有歌曲列表
-    private ListView<String> listView; // 播放列表控件
+    private SongList allSongs;        // 所有歌曲列表（整个音乐库）
+    private SongList queue;           // 播放队列：上一曲/下一曲按它的顺序，默认就是整个音乐库
+    private boolean queueIsLibrary = true; // 队列仍是整个音乐库时，新增的歌曲也追加到队列
+    private ListView<Song> listView;   // 播放列表控件，与 queue 下标一一对应
 
     /** VLCJ 播放器工厂及播放器实例 */
     private MediaPlayerFactory vlcFactory;
@@ -75,14 +124,16 @@ public class MainWindow {
     private int currentLyricIndex = 0;
 
     // 底部进度条 / 时间标签
-    private ProgressBar bottomProgressBar;
+    private WaveformSeekBar bottomProgressBar;
     private Label bottomCurrentTimeLabel;
     private Label bottomTotalTimeLabel;
 
     private Timeline progressTimer;
 
-    private MediaPlayerEventListener currentMediaListener;
-    private long currentTotalDuration = 0; // 存储当前歌曲总时长
+    /** 播放器事件流：libvlc 回调、换歌与音乐库变化，界面和遥控各自订阅 */
+    private PlayerEventBus playerEvents;
+    private boolean awaitingFirstPlaying;  // 准备新曲目后，等第一次 playing 事件补全时长与音量
+    private long currentTotalDuration = 0; // 当前歌曲总时长，扫描时已从音频头读出
 
     private boolean wasPlaying; // 用于记录拖拽进度条前的播放状态
     private boolean isDragging = false; // 添加类成员变量
@@ -94,19 +145,252 @@ public class MainWindow {
     private double lastVvalue = 0.0;
 
     private Label nextLyricLabel;    // 显示下一行歌词（第三行）
+    private KaraokeLyric karaoke;    // 当前行的逐字高亮
 
+    private StackPane discContainer; // 唱片容器，userData 中保存旋转动画
     private Circle discClipCircle; // 用于共享裁剪圆
     private StackPane animationContainer; // 动画容器
 
+    /** 可见性感知调度器：窗口或面板不可见时暂停装饰动画与进度刷新 */
+    private final AnimationScheduler scheduler = new AnimationScheduler();
+
+    // 迷你模式：切换时替换场景根节点，完整界面整体从场景图摘下
+    private Stage stage;
+    private StackPane fullRoot;
+    private MiniPlayerView miniView;
+    private boolean isMiniMode = false;
+    private double fullWidth;
+    private double fullHeight;
+    private Button trackPrevButton;
+    private Button trackNextButton;
+    private ImageView playlistBgView;
+    private DropShadow discShadow;
+
+    // 频谱：音频回调 → 无锁环形缓冲 → 后台 FFT → Canvas
+    private AudioTap audioTap;
+    private SpectrumAnalyzer spectrumAnalyzer;
+    private int tapRate = AudioTap.RATE; // 交给 libvlc 的音频回调采样率，跟随曲目
+
+    /** 后台响度分析，播放时按曲目自动补偿音量 */
+    private LoudnessAnalyzer loudnessAnalyzer;
+    /** 播放、播完与跳过的历史统计 */
+    private PlayHistory playHistory;
+    /** 已记为开始播放、还没播完的曲目；播完前切走时记为跳过 */
+    private Song historyTrack;
+    /** 后台波形摘要，当前与下一首优先 */
+    private WaveformAnalyzer waveformAnalyzer;
+    /** 当前曲目开始播放后把下一首预读进页缓存 */
+    private final ReadAhead readAhead = new ReadAhead();
+    /** 预读没赶上时在这里读封面，不阻塞 FX 线程 */
+    private final ExecutorService coverLoader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "cover-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** 音乐库目录监听，增量更新 allSongs 与播放列表 */
+    private LibraryWatcher libraryWatcher;
+    /** 标签读不出来的歌曲交给 libvlc 在后台补全 */
+    private MediaPreparser mediaPreparser;
+    /** 扫描超时或出错的文件，在“诊断”页列出 */
+    private ScanQuarantine scanQuarantine;
+    /** 本地 HTTP 遥控，未开启时为 null */
+    private RemoteControlServer remoteControl;
+    private Label queueTitleLabel;
+    private ListView<Playlist> playlistList; // 导入的歌单
+    private List<Playlist> smartPlaylists = List.of(); // 由播放历史生成，排在导入的歌单前面
+
+    /** 持久化的音乐库索引，供按艺术家、专辑等浏览 */
+    private LibraryStore libraryStore;
+    private LibraryBrowserView libraryBrowser;
+    private boolean libraryScanned;    // 后台扫描完成前 allSongs 为空，浏览与导入改用索引中的记录
+
+    /** 会话快照：队列、当前曲目与位置、音量、歌词模式、播放模式 */
+    private SessionStore sessionStore;
+    private PlayMode playMode = PlayMode.SEQUENTIAL;
+    private final Random shuffleRandom = new Random();
+    private long resumeAtMillis;       // 恢复会话后第一次播放时的起始位置
+    private long lastSavedPosition;    // 上次保存会话时的播放位置，播放中每前进 10 秒保存一次
+    private List<Song> savedQueue;     // 上次保存会话时复制的队列，队列没变时直接复用
+    private SongList savedQueueSource;
+    private int savedQueueVersion;
+
+    /** 音乐库扫描结果，以及目录监听沿用的跳过判断 */
+    private record ScanResult(List<Song> songs, MusicLibrary.SkipFilter skipFilter) {
+    }
+
+    /** 音乐库索引与上次的会话 */
+    private record LibraryState(LibraryStore store, SessionStore sessionStore, SessionStore.Session session) {
+    }
+
+    /** 外部打开（命令行、拖放、转交）的文件：第一首已解析，其余待遍历、解析 */
+    private record OpenedFiles(Song first, Iterator<File> rest) {
+    }
+
+    /**
+     * 与 JavaFX 工具包启动并行的后台准备，由 {@link #preload} 开始，{@link #initStage} 取用结果：
+     * libvlc 查找 → libvlc 初始化；音乐库索引与会话；命令行打开的文件；音乐库扫描（不阻塞界面，完成后合入）
+     */
+    public static final class Preload {
+        private final StartupPipeline startup;
+        private final SingleInstance.Action action;
+        private final CompletableFuture<OpenedFiles> opened;
+        private final CompletableFuture<MediaPlayerFactory> vlc;
+        private final CompletableFuture<LibraryState> library;
+        private final CompletableFuture<ScanQuarantine> quarantine;
+        private final CompletableFuture<PlayHistory> history;
+        private final CompletableFuture<ScanResult> scan;
+        /** 索引变化时的回调，界面建好后才设置 */
+        private volatile Runnable onLibraryChange = () -> { };
+
+        private Preload(StartupPipeline startup, SingleInstance.Request request) {
+            this.startup = startup;
+            this.action = request.action();
+            // 只读这几个文件本身，不等音乐库扫描
+            opened = startup.async("打开的文件", () -> openFirst(request.paths().stream().map(File::new).toList()));
+            CompletableFuture<Boolean> discovery = startup.async("libvlc 查找", LibVlcLocator::discover);
+            // 已由 LibVlcLocator 完成查找，工厂不再重复；没找到时不去加载，界面启动时给出可读的提示
+            vlc = startup.async("libvlc 初始化", () -> {
+                if (!discovery.join()) {
+                    throw new IllegalStateException("未找到 libvlc，请安装 VLC 或用 -Dplayer.vlc.path 指定其所在目录");
+                }
+                return new MediaPlayerFactory((NativeDiscovery) null);
+            }, discovery);
+            library = startup.async("音乐库索引", () -> {
+                LibraryStore store = new LibraryStore(() -> onLibraryChange.run());
+                SessionStore sessionStore = new SessionStore(store);
+                return new LibraryState(store, sessionStore, sessionStore.load());
+            });
+            quarantine = startup.async("隔离列表", ScanQuarantine::new);
+            history = startup.async("播放历史", PlayHistory::new);
+            // 上次播放的曲目所在目录最先扫描；已知的低音质副本直接跳过，其余同曲不同音质 / 字节相同的拷贝
+            // 折叠为最高音质版本；每个文件限时解析，超时或出错的记入隔离列表
+            scan = startup.async("音乐库扫描", () -> {
+                ScanQuarantine q = quarantine.join();
+                Path priorityDir = sessionDir(library.join().session());
+                ScanResult result;
+                if (Boolean.parseBoolean(System.getProperty("player.collapseDuplicates", "true"))) {
+                    DuplicateDetector duplicateDetector = new DuplicateDetector();
+                    result = new ScanResult(duplicateDetector.collapse(
+                            MusicLibrary.loadAllSongs(priorityDir, duplicateDetector::isKnownDuplicate, q)),
+                            duplicateDetector::isKnownDuplicate);
+                } else {
+                    result = new ScanResult(MusicLibrary.loadAllSongs(priorityDir, (path, attrs) -> false, q),
+                            (path, attrs) -> false);
+                }
+                q.save();
+                return result;
+            }, quarantine, library);
+        }
+
+        /** 会话中当前曲目所在的目录，没有时返回 null */
+        private static Path sessionDir(SessionStore.Session session) {
+            if (session == null || session.current() < 0 || session.current() >= session.queue().size()) {
+                return null;
+            }
+            File parent = session.queue().get(session.current()).getFile().getParentFile();
+            return parent != null ? parent.toPath() : null;
+        }
+    }
+
+    /**
+     * 开始后台准备，应在 JavaFX 启动前调用
+     *
+     * @param request 命令行参数，带文件或目录时界面建好后立即播放（或加入队列）
+     */
+    public static Preload preload(StartupPipeline startup, SingleInstance.Request request) {
+        return new Preload(startup, request);
+    }
+
     /** 初始化舞台 **/
-    public void initStage(  Stage stage) {
-        Font.loadFont(getClass().getResourceAsStream("/iconfont/iconfont.ttf"), 16);
-        // 1) 后端：扫描 MusicList，并保存到 allSongs
-        allSongs = MusicLibrary.loadAllSongs();
+    public void initStage(Stage stage, Preload preload) {
+        this.stage = stage;
+        StartupPipeline startup = preload.startup;
+        startup.mark("JavaFX 启动");
+        CompletableFuture<Font> fonts = startup.async("字体",
+                () -> Font.loadFont(MainWindow.class.getResourceAsStream("/iconfont/iconfont.ttf"), 16));
+        try {
+            startup.run("界面", () -> {
+                playHistory = preload.history.join();
+                buildStage(stage, preload.vlc.join(), preload.library.join(), preload.quarantine.join(),
+                        preload.opened.join(), preload.action == SingleInstance.Action.PLAY);
+                return null;
+            }, fonts, preload.vlc, preload.library, preload.quarantine, preload.history, preload.opened);
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println("启动失败：" + cause.getMessage());
+            Platform.exit();
+            return;
+        }
+        if (STARTUP_REPORT) {
+            System.out.println(startup.report());
+        }
+
+        // 音乐库扫描在后台进行，完成后合入队列并开始目录监听
+        preload.scan.whenComplete((result, error) -> Platform.runLater(() -> {
+            ScanResult scanned = result;
+            if (error != null) {
+                System.err.println("扫描音乐库失败：" + error.getMessage());
+                scanned = new ScanResult(List.of(), (path, attrs) -> false);
+            }
+            onLibraryScanned(scanned.songs(), scanned.skipFilter());
+            if (STARTUP_REPORT) {
+                System.out.println(startup.report("音乐库扫描") + "，共 " + allSongs.size() + " 首");
+            }
+        }));
+        preload.onLibraryChange = () -> Platform.runLater(() -> {
+            if (libraryBrowser != null) {
+                libraryBrowser.refresh();
+            }
+        });
+    }
 
-        // —— 初始化 VLCJ，需先设置 jna.library.path 或在 VM options 加参数 ——
-        vlcFactory = new MediaPlayerFactory();       // 默认会从系统路径加载 libvlc
+    private void buildStage(Stage stage, MediaPlayerFactory factory, LibraryState libraryState,
+                            ScanQuarantine quarantine, OpenedFiles opened, boolean playOpened) {
+        scanQuarantine = quarantine;
+        // 1) 音乐库索引：读上次的快照，扫描完成前浏览与会话恢复都依赖它
+        libraryStore = libraryState.store();
+
+        // 2) 上次的会话：队列直接由索引构造，不必等扫描
+        sessionStore = libraryState.sessionStore();
+        SessionStore.Session session = libraryState.session();
+        allSongs = new SongList();
+        if (session != null && !session.queue().isEmpty()) {
+            queue = new SongList(session.queue());
+            queueIsLibrary = session.queueIsLibrary();
+            playMode = session.playMode();
+        } else {
+            queue = new SongList();
+        }
+
+        // —— VLCJ：libvlc 已在启动时查找并初始化 ——
+        vlcFactory = factory;
         vlcPlayer  = vlcFactory.mediaPlayers().newMediaPlayer();
+        // libvlc 回调统一转换为事件流，界面与其他订阅者各自订阅，跟不上时只拿最新值
+        playerEvents = new PlayerEventBus(Platform::runLater);
+        vlcPlayer.events().addMediaPlayerEventListener(playerEvents.mediaListener());
+        playerEvents.subscribe(Platform::runLater, this::onPlayerEvent);
+
+        // —— 频谱：经 vlcj 音频回调取 PCM，声音改由 AudioTap 输出；可用 -Dplayer.visualizer=false 关闭 ——
+        if (Boolean.parseBoolean(System.getProperty("player.visualizer", "true"))) {
+            SampleRingBuffer ring = new SampleRingBuffer(1 << 14);
+            audioTap = AudioTap.open(ring);
+            if (audioTap != null) {
+                vlcPlayer.audio().callback(AudioTap.FORMAT, AudioTap.RATE, AudioTap.CHANNELS, audioTap, true);
+                spectrumAnalyzer = new SpectrumAnalyzer(ring, AudioTap.RATE, 64);
+                spectrumAnalyzer.start();
+            }
+        }
+
+        // —— 后台响度与波形分析：音乐库只读 ReplayGain 标签，没有标签的在计算波形的同一遍解码中测量（扫描完成后提交）——
+        loudnessAnalyzer = new LoudnessAnalyzer();
+        waveformAnalyzer = new WaveformAnalyzer(vlcFactory, loudnessAnalyzer, (file, waveform) -> Platform.runLater(() -> {
+            if (currentSong != null && currentSong.getFile().equals(file)) {
+                bottomProgressBar.setWaveform(waveform);
+            }
+        }));
+        mediaPreparser = new MediaPreparser(vlcFactory, songs -> Platform.runLater(() -> applyPreparsed(songs)),
+                scanQuarantine);
 
         // —— 改动：将背景图换成渐变色 Pane ——
         Pane gradientPane = new Pane();
@@ -143,6 +427,7 @@ public class MainWindow {
 
         // —— 把 gradientPane、border、playlistOverlay、volumeOverlay 叠放 ——
         StackPane root = new StackPane(gradientPane, border, playlistOverlay, volumeOverlay);
+        fullRoot = root;
         StackPane.setAlignment(playlistOverlay, Pos.CENTER_RIGHT);
 
         // 关键：让 volumeOverlay 浮在右下，但“抬高”到🔊按钮之上
@@ -159,16 +444,531 @@ public class MainWindow {
                 new Image(Objects.requireNonNull(getClass().getResourceAsStream("/images/icon.png")))
         );
 
+        // 拖入文件或目录：立即播放，不等音乐库扫描
+        scene.setOnDragOver(e -> {
+            if (e.getDragboard().hasFiles()) {
+                e.acceptTransferModes(TransferMode.COPY);
+            }
+            e.consume();
+        });
+        scene.setOnDragDropped(e -> {
+            boolean accepted = e.getDragboard().hasFiles();
+            if (accepted) {
+                openFiles(e.getDragboard().getFiles(), true);
+            }
+            e.setDropCompleted(accepted);
+            e.consume();
+        });
+
         stage.setTitle("TQ的音乐播放器😋");
         stage.setScene(scene);
         stage.show();
 
-        // 初始化第一首歌
-        if (!allSongs.isEmpty()) {
-            loadSong(allSongs.getFirst());
+        // 最小化或面板隐藏时暂停动画，恢复时从播放时钟一次性同步
+        scheduler.bindStage(stage);
+        scheduler.setOnResync(this::resyncFromClock);
+
+        // 恢复上次的曲目、位置、音量与歌词模式；曲目在保存的位置暂停着准备好，点播放立即出声。
+        // 命令行带了要立即播放的文件时不加载上次的曲目，打开的文件插在它之后；--enqueue 时照常恢复，打开的文件追加到队尾
+        Song sessionCurrent = null;
+        if (session != null) {
+            volumeSlider.setValue(session.volume());
+            if (session.current() >= 0 && opened != null && playOpened) {
+                sessionCurrent = queue.get(session.current());
+            } else if (session.current() >= 0) {
+                loadSong(queue.get(session.current()));
+                resumeAtMillis = session.positionMillis();
+                showRestoredPosition();
+                prepareCurrentSong(bottomProgressBar, bottomCurrentTimeLabel, bottomTotalTimeLabel, true);
+                mediaPrepared = true;
+            }
+            if (session.fullScreenLyrics()) {
+                toggleLyricsMode();
+            }
+            // 恢复过程中的中间状态可能已排队等待保存，以恢复完成后的状态为准
+            saveSession();
+        }
+        if (opened != null) {
+            acceptOpened(opened, playOpened ? sessionCurrent : null, playOpened);
+        } else if (currentSong == null && !queue.isEmpty()) {
+            loadSong(queue.getFirst());
+        }
+
+        // 本地 HTTP 遥控（-Dplayer.remote.port），状态订阅自播放器事件流
+        remoteControl = RemoteControlServer.startIfEnabled(new RemotePlayer(), playerEvents);
+
+        stage.addEventHandler(WindowEvent.WINDOW_HIDDEN, e -> {
+            if (remoteControl != null) {
+                remoteControl.close();
+            }
+            playerEvents.close();
+            if (libraryWatcher != null) {
+                libraryWatcher.close();
+            }
+            loudnessAnalyzer.shutdown();
+            waveformAnalyzer.close();
+            readAhead.close();
+            coverLoader.shutdownNow();
+            playHistory.close();
+            mediaPreparser.close();
+            scanQuarantine.save();
+            sessionStore.close(currentSession());
+            libraryStore.close();
+            // 先释放播放器，音频回调不再被调用后再关输出线路与频谱线程；
+            // 后台转码与解析都结束后才释放 libvlc，来不及结束时留给进程退出回收
+            vlcPlayer.controls().stop();
+            vlcPlayer.release();
+            if (spectrumAnalyzer != null) {
+                spectrumAnalyzer.stop();
+            }
+            if (audioTap != null) {
+                audioTap.close();
+            }
+            if (mediaPreparser.awaitClosed(1000) && PcmDecoder.awaitIdle(2000)) {
+                vlcFactory.release();
+            }
+        });
+    }
+
+    /**
+     * 扫描完成：队列中的歌曲换成扫描结果，去掉已不存在的（音乐库之外、从外部打开的文件仍在则保留），
+     * 同步索引，开始响度分析与目录监听
+     */
+    private void onLibraryScanned(List<Song> songs, MusicLibrary.SkipFilter skipFilter) {
+        allSongs = new SongList(songs);
+        libraryScanned = true;
+        Map<String, Song> byPath = new HashMap<>();
+        for (Song song : allSongs) {
+            byPath.put(song.getFile().getAbsolutePath(), song);
+        }
+        SongList reconciled = new SongList();
+        for (Song song : queue) {
+            Song scanned = byPath.remove(song.getFile().getAbsolutePath());
+            if (scanned != null) {
+                reconciled.add(scanned);
+                if (song == currentSong) {
+                    // 正在播放（或已恢复）的曲目只替换引用，不打断播放
+                    currentSong = scanned;
+                }
+            } else if (song.getFile().isFile()) {
+                reconciled.add(song);
+            }
+        }
+        if (queueIsLibrary) {
+            // 新扫描到的歌曲按扫描顺序追加
+            for (Song song : allSongs) {
+                if (byPath.containsKey(song.getFile().getAbsolutePath())) {
+                    reconciled.add(song);
+                }
+            }
+        }
+        queue = reconciled;
+        listView.getItems().setAll(queue);
+        updateQueueTitle();
+
+        libraryStore.sync(allSongs);
+        loudnessAnalyzer.analyzeAll(allSongs);
+        waveformAnalyzer.analyzeAll(allSongs);
+        mediaPreparser.submit(allSongs);
+        if (currentSong != null && !queue.contains(currentSong) && !mediaPrepared) {
+            currentSong = null;
+        }
+        if (currentSong == null && !queue.isEmpty()) {
+            loadSong(queue.getFirst());
+        }
+        saveSession();
+
+        // 监听音乐库目录：新增、修改、删除的文件直接增量更新，无需重启
+        try {
+            libraryWatcher = new LibraryWatcher(batch -> Platform.runLater(() -> applyLibraryBatch(batch)), skipFilter,
+                    scanQuarantine);
+            libraryWatcher.start(allSongs);
+        } catch (IOException e) {
+            System.err.println("无法监听音乐库目录：" + e.getMessage());
+        }
+        playerEvents.publish(new PlayerEvent.LibraryUpdated(allSongs.size()));
+    }
+
+    /**
+     * 把一批增量变化同步到音乐库、播放队列（与播放列表下标一一对应）和索引，只改动涉及的行。
+     * 按文件定位走列表的下标索引：先就地替换（下标不变），再一次性删除，索引每批最多重建一次
+     */
+    private void applyLibraryBatch(LibraryWatcher.Batch batch) {
+        List<Song> added = new ArrayList<>(batch.added());
+        for (Song song : batch.updated()) {
+            int idx = allSongs.indexOfFile(song.getFile());
+            if (idx < 0) {
+                added.add(song);
+                continue;
+            }
+            allSongs.set(idx, song);
+            idx = queue.indexOfFile(song.getFile());
+            if (idx >= 0) {
+                if (queue.get(idx) == currentSong) {
+                    // 正在播放的曲目只替换引用，不打断播放
+                    currentSong = song;
+                }
+                queue.set(idx, song);
+                listView.getItems().set(idx, song);
+            }
+        }
+        if (!batch.removed().isEmpty()) {
+            int[] removed = indicesOf(allSongs, batch.removed());
+            for (int k = removed.length - 1; k >= 0; k--) {
+                allSongs.remove(removed[k]);
+            }
+            removed = indicesOf(queue, batch.removed());
+            for (int k = removed.length - 1; k >= 0; k--) {
+                queue.remove(removed[k]);
+                listView.getItems().remove(removed[k]);
+            }
+        }
+        allSongs.addAll(added);
+        if (queueIsLibrary) {
+            queue.addAll(added);
+            listView.getItems().addAll(added);
+        }
+        List<Song> changed = new ArrayList<>(added);
+        changed.addAll(batch.updated());
+        loudnessAnalyzer.analyzeAll(changed);
+        waveformAnalyzer.analyzeAll(changed);
+        mediaPreparser.submit(changed);
+        libraryStore.apply(changed, batch.removed());
+        updateQueueTitle();
+        if (currentSong == null && !queue.isEmpty()) {
+            loadSong(queue.getFirst());
+        }
+        saveSession();
+        playerEvents.publish(new PlayerEvent.LibraryUpdated(allSongs.size()));
+    }
+
+    /** libvlc 补全的歌曲按“已修改”合入；解析期间已被删除的文件丢弃 */
+    private void applyPreparsed(List<Song> songs) {
+        List<Song> updated = new ArrayList<>();
+        for (Song song : songs) {
+            if (allSongs.indexOfFile(song.getFile()) >= 0) {
+                updated.add(song);
+            }
+        }
+        if (!updated.isEmpty()) {
+            applyLibraryBatch(new LibraryWatcher.Batch(List.of(), updated, List.of()));
         }
     }
 
+    /** 这些文件在列表中的下标，升序、去重，不在列表中的略过 */
+    private static int[] indicesOf(SongList songs, List<File> files) {
+        return files.stream().mapToInt(songs::indexOfFile).filter(i -> i >= 0).sorted().distinct().toArray();
+    }
+
+    /** 再次启动时转交来的请求（监听线程调用）：激活窗口，带文件时在后台解析后播放或加入队列 */
+    public void handleRequest(SingleInstance.Request request) {
+        Platform.runLater(() -> {
+            stage.setIconified(false);
+            stage.toFront();
+            stage.requestFocus();
+        });
+        if (!request.paths().isEmpty()) {
+            openFiles(request.paths().stream().map(File::new).toList(), request.action() == SingleInstance.Action.PLAY);
+        }
+    }
+
+    /** 边展开路径边解析，遇到第一首能读的文件（连同歌词）即返回，其余留给调用方继续遍历；没有可播放的文件时返回 null */
+    private static OpenedFiles openFirst(List<File> paths) {
+        Iterator<File> files = MusicLibrary.audioFiles(paths);
+        while (files.hasNext()) {
+            Song song = MusicLibrary.parseSongFile(files.next());
+            if (song != null) {
+                song.getLyrics();
+                return new OpenedFiles(song, files);
+            }
+        }
+        return null;
+    }
+
+    /** 在后台展开并解析外部打开的路径（拖放、转交的请求），再回 FX 线程播放或加入队列 */
+    private void openFiles(List<File> paths, boolean play) {
+        Thread t = new Thread(() -> {
+            OpenedFiles opened = openFirst(paths);
+            if (opened != null) {
+                Platform.runLater(() -> acceptOpened(opened, play ? currentSong : null, play));
+            }
+        }, "open-files");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** 第一首立即生效，其余在后台解析后按顺序接在它后面，目录再大也不推迟开始播放 */
+    private void acceptOpened(OpenedFiles opened, Song anchor, boolean play) {
+        Song first = openSongs(List.of(opened.first()), anchor, play);
+        // 其余目录的遍历也放在后台，FX 线程不碰磁盘
+        Thread t = new Thread(() -> {
+            List<Song> songs = new ArrayList<>();
+            Iterator<File> rest = opened.rest();
+            while (rest.hasNext()) {
+                Song song = MusicLibrary.parseSongFile(rest.next());
+                if (song != null) {
+                    songs.add(song);
+                }
+            }
+            if (songs.isEmpty()) {
+                return;
+            }
+            Platform.runLater(() -> openSongs(songs, first, false));
+        }, "open-files");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * 把外部打开的歌曲放进队列：已在队列中的直接复用，其余插到 anchor 之后（anchor 为 null 或已不在队列中时追加到队尾）
+     *
+     * @param play true 时立即播放第一首
+     * @return 第一首在队列中的实例
+     */
+    private Song openSongs(List<Song> songs, Song anchor, boolean play) {
+        int anchorIndex = anchor != null ? queue.indexOf(anchor) : -1;
+        int insertAt = anchorIndex >= 0 ? anchorIndex + 1 : queue.size();
+        // 先按文件查出已在队列中的，其余的一次插入，索引只失效一次
+        Map<File, Song> inserted = new LinkedHashMap<>();
+        Song first = null;
+        for (Song song : songs) {
+            int idx = queue.indexOfFile(song.getFile());
+            Song queued = idx >= 0 ? queue.get(idx) : inserted.putIfAbsent(song.getFile(), song);
+            if (first == null) {
+                first = queued != null ? queued : song;
+            }
+        }
+        if (!inserted.isEmpty()) {
+            List<Song> block = new ArrayList<>(inserted.values());
+            queue.addAll(insertAt, block);
+            listView.getItems().addAll(insertAt, block);
+            queueIsLibrary = false;
+        }
+        if (first == null) {
+            return anchor;
+        }
+        updateQueueTitle();
+        if (play) {
+            playQueueItem(first);
+        } else if (currentSong == null) {
+            loadSong(first);
+        }
+        saveSession();
+        return first;
+    }
+
+    /** 从浏览界面播放：把所选分类的曲目设为新的播放队列，并从第 index 首开始 */
+    private void playFromLibrary(List<LibraryStore.Track> tracks, int index) {
+        Map<String, Song> byPath = new HashMap<>();
+        for (Song song : allSongs) {
+            byPath.put(song.getFile().getAbsolutePath(), song);
+        }
+        List<Song> songs = new ArrayList<>();
+        Song selected = null;
+        for (int i = 0; i < tracks.size(); i++) {
+            Song song = byPath.get(tracks.get(i).path());
+            if (song == null && !libraryScanned) {
+                // 扫描还没完成：直接用索引中的记录
+                song = tracks.get(i).toSong();
+            }
+            if (song != null) {
+                songs.add(song);
+                if (i == index) selected = song;
+            }
+        }
+        replaceQueue(songs, selected);
+    }
+
+    /** 用 songs 替换播放队列，收起浮层并从 start（为 null 时从第一首）开始播放 */
+    private void replaceQueue(List<Song> songs, Song start) {
+        if (songs.isEmpty()) {
+            return;
+        }
+        queue = new SongList(songs);
+        queueIsLibrary = false;
+        listView.getItems().setAll(queue);
+        updateQueueTitle();
+        libraryBrowser.showQueue();
+        playlistOverlay.setVisible(false);
+        playQueueItem(start != null ? start : queue.getFirst());
+        saveSession();
+    }
+
+    /** 选择 M3U/M3U8/PLS 文件导入为歌单；解析在后台线程进行，找不到的条目打印出来并在列表中标明数量 */
+    private void importPlaylist() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("导入歌单");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("歌单", "*.m3u", "*.m3u8", "*.pls"));
+        File file = chooser.showOpenDialog(stage);
+        if (file == null) {
+            return;
+        }
+        List<Song> library = new ArrayList<>(allSongs);
+        if (!libraryScanned) {
+            // 扫描还没完成：用索引中的记录匹配
+            for (LibraryStore.Track track : libraryStore.query(null, null, LibraryStore.Sort.ADDED, 0, Integer.MAX_VALUE)) {
+                library.add(track.toSong());
+            }
+        }
+        Thread t = new Thread(() -> {
+            try {
+                Playlist playlist = PlaylistIO.read(file.toPath(), library);
+                for (String entry : playlist.getUnresolved()) {
+                    System.err.println("歌单条目未找到：" + entry);
+                }
+                Platform.runLater(() -> {
+                    playlistList.getItems().add(playlist);
+                    libraryBrowser.showPlaylists();
+                });
+            } catch (IOException e) {
+                System.err.println("导入歌单失败：" + e.getMessage());
+            }
+        }, "playlist-import");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** 用播放历史生成“最常播放”“最近播放”“常跳过”三个歌单，替换上一次生成的；没有记录的不列出 */
+    private void refreshSmartPlaylists() {
+        Map<String, Song> indexed = new HashMap<>();
+        if (!libraryScanned) {
+            // 扫描还没完成：用索引中的记录匹配
+            for (LibraryStore.Track track : libraryStore.query(null, null, LibraryStore.Sort.ADDED, 0, Integer.MAX_VALUE)) {
+                indexed.put(track.path(), track.toSong());
+            }
+        }
+        List<Playlist> generated = new ArrayList<>(3);
+        addSmartPlaylist(generated, "最常播放（30 天）", playHistory.topPlayed(30, SMART_PLAYLIST_SIZE), indexed);
+        addSmartPlaylist(generated, "最近播放", playHistory.recentlyPlayed(SMART_PLAYLIST_SIZE), indexed);
+        addSmartPlaylist(generated, "常跳过", playHistory.mostSkipped(SMART_PLAYLIST_SIZE), indexed);
+        playlistList.getItems().removeAll(smartPlaylists);
+        playlistList.getItems().addAll(0, generated);
+        smartPlaylists = generated;
+    }
+
+    private void addSmartPlaylist(List<Playlist> out, String name, List<PlayHistory.Stat> stats,
+                                  Map<String, Song> indexed) {
+        if (stats.isEmpty()) {
+            return;
+        }
+        List<Song> songs = new ArrayList<>(stats.size());
+        List<String> unresolved = new ArrayList<>();
+        for (PlayHistory.Stat stat : stats) {
+            int idx = allSongs.indexOfFile(new File(stat.path()));
+            Song song = idx >= 0 ? allSongs.get(idx) : indexed.get(stat.path());
+            if (song != null) {
+                songs.add(song);
+            } else {
+                unresolved.add(stat.path());
+            }
+        }
+        out.add(new Playlist(name, songs, unresolved));
+    }
+
+    /** 把当前播放队列导出为 M3U8（或 PLS） */
+    private void exportQueue() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("导出播放队列");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("M3U8", "*.m3u8"),
+                new FileChooser.ExtensionFilter("PLS", "*.pls"));
+        chooser.setInitialFileName("播放队列.m3u8");
+        File file = chooser.showSaveDialog(stage);
+        if (file == null) {
+            return;
+        }
+        try {
+            PlaylistIO.write(file.toPath(), queue);
+        } catch (IOException e) {
+            System.err.println("导出歌单失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 上一曲 / 下一曲：随机模式随机选一首，其余模式按队列顺序循环
+     *
+     * @param direction -1 为上一曲，1 为下一曲
+     */
+    private void skipTrack(int direction) {
+        if (currentSong == null || queue.size() <= 1) {
+            return;
+        }
+        int idx = queue.indexOf(currentSong);
+        int target;
+        if (playMode == PlayMode.SHUFFLE) {
+            target = shuffleRandom.nextInt(queue.size() - 1);
+            if (target >= idx) target++;
+        } else {
+            target = (idx + direction + queue.size()) % queue.size();
+        }
+        Song newSong = queue.get(target);
+
+        // 迷你模式下唱片不在场景中，不做切换动画
+        if (!isMiniMode) {
+            playDiscChangeAnimation(newSong);
+        }
+
+        loadSong(newSong);
+        mediaPrepared = false;
+        prepareAndPlayCurrentSong(
+                bottomProgressBar,
+                bottomCurrentTimeLabel,
+                bottomTotalTimeLabel
+        );
+        mediaPrepared = true;
+        isPlaying = true;
+        applyFadeSwitch(playPauseButton, "\ue690", 28);
+    }
+
+    /** 按播放模式推算当前曲目之后要播的歌：随机播放与单曲循环时不确定或不换歌，返回 null */
+    private Song upcomingSong() {
+        int idx = currentSong != null ? queue.indexOf(currentSong) : -1;
+        if (idx < 0) {
+            return null;
+        }
+        return switch (playMode) {
+            case SEQUENTIAL -> idx + 1 < queue.size() ? queue.get(idx + 1) : null;
+            case REPEAT_ALL -> queue.size() > 1 ? queue.get((idx + 1) % queue.size()) : null;
+            case REPEAT_ONE, SHUFFLE -> null;
+        };
+    }
+
+    /** 一首播完后按播放模式继续：单曲循环重播，顺序播放到队尾为止，列表循环与随机接着播下一首 */
+    private void continueAfterFinished() {
+        if (currentSong == null || queue.isEmpty()) {
+            return;
+        }
+        switch (playMode) {
+            case REPEAT_ONE -> playQueueItem(currentSong);
+            case SEQUENTIAL -> {
+                int idx = queue.indexOf(currentSong);
+                if (idx >= 0 && idx < queue.size() - 1) {
+                    skipTrack(1);
+                }
+            }
+            case REPEAT_ALL, SHUFFLE -> {
+                if (queue.size() > 1) {
+                    skipTrack(1);
+                } else {
+                    playQueueItem(currentSong);
+                }
+            }
+        }
+    }
+
+    /** 切到队列中的某首歌并开始播放 */
+    private void playQueueItem(Song song) {
+        loadSong(song);
+        mediaPrepared = false;
+        prepareAndPlayCurrentSong(bottomProgressBar, bottomCurrentTimeLabel, bottomTotalTimeLabel);
+        mediaPrepared = true;
+        isPlaying = true;
+        RotateTransition rt = (RotateTransition) discContainer.getUserData();
+        scheduler.play(rt);
+        playPauseButton.setText("\ue690");
+        playPauseButton.setFont(Font.font("iconfont", 28));
+    }
+
 
     /** 创建顶部栏：歌曲名 + 艺术家 **/
     private VBox createTopBar() {
@@ -188,7 +988,7 @@ public class MainWindow {
     private void createLocalPane() {
 
         // —— 圆形唱片容器 ——
-        StackPane discContainer = new StackPane();
+        discContainer = new StackPane();
         discContainer.setPrefSize(260, 260);
         discContainer.setMaxSize(260, 260);
         discContainer.setAlignment(Pos.CENTER);
@@ -208,7 +1008,7 @@ public class MainWindow {
         discClipCircle.setCenterY(120);
 
         // 唱片图片 240×240
-        discImageView = new ImageView(new Image(DISC_IMG));
+        discImageView = new ImageView(MusicLibrary.defaultCover());
         discImageView.setPreserveRatio(true);
         discImageView.setFitWidth(240);
         discImageView.setFitHeight(240);
@@ -228,12 +1028,12 @@ public class MainWindow {
         StackPane.setMargin(discContainer, new Insets(20, 0, 0, 0));
 
         // 阴影应用到整个 discContainer
-        DropShadow containerShadow = new DropShadow();
-        containerShadow.setColor(Color.rgb(0, 0, 0, 0.5));
-        containerShadow.setRadius(50);
-        containerShadow.setOffsetX(8);
-        containerShadow.setOffsetY(8);
-        discContainer.setEffect(containerShadow);
+        discShadow = new DropShadow();
+        discShadow.setColor(Color.rgb(0, 0, 0, 0.5));
+        discShadow.setRadius(50);
+        discShadow.setOffsetX(8);
+        discShadow.setOffsetY(8);
+        discContainer.setEffect(discShadow);
 
         // 唱片旋转动画
         RotateTransition rotateTransition = new RotateTransition(Duration.seconds(10), discContainer);
@@ -253,16 +1053,30 @@ public class MainWindow {
         nextLyricLabel.setTextFill(Color.rgb(255, 100, 100, 0.5)); // 更半透明
         nextLyricLabel.setOpacity(1.0);
 
-        lyricBoxContent = new VBox(3, prevLyricLabel, nextLyricLabel);
+        // 当前行上叠一层逐字高亮，播放时逐帧刷新，局部歌词不可见时由调度器暂停
+        karaoke = new KaraokeLyric(prevLyricLabel);
+        lyricBoxContent = new VBox(3, karaoke.getRoot(), nextLyricLabel);
         lyricBoxContent.setPadding(new Insets(0));
 
         BorderPane.setAlignment(lyricBoxContent, Pos.BOTTOM_LEFT);
         BorderPane.setMargin(lyricBoxContent, new Insets(0, 0, 30, 20));
 
         localPane = new BorderPane();
-        localPane.setCenter(discContainer);
         localPane.setBottom(lyricBoxContent);
-        discImageView.setImage(new Image(DISC_IMG)); // 使用您原有的默认封面
+        scheduler.register(rotateTransition, localPane);
+        scheduler.register(karaoke.getFrameAnimation(), localPane);
+
+        // 有频谱数据时在唱片下方叠一层环形频谱画布
+        if (spectrumAnalyzer != null) {
+            SpectrumView spectrumView = new SpectrumView(spectrumAnalyzer, 330, 132);
+            StackPane discArea = new StackPane(spectrumView.getCanvas(), discContainer);
+            localPane.setCenter(discArea);
+            scheduler.register(spectrumView.getRedrawTimeline(), localPane);
+            scheduler.play(spectrumView.getRedrawTimeline());
+        } else {
+            localPane.setCenter(discContainer);
+        }
+        discImageView.setImage(MusicLibrary.defaultCover()); // 使用您原有的默认封面
     }
 
     /** 创建全屏模式 Pane：ScrollPane 中放完整歌词列表，隐藏滚动条并保持透明背景 **/
@@ -290,6 +1104,7 @@ public class MainWindow {
     /** 切换“局部歌词”↔“全屏歌词”并添加渐变动画 **/
     private void toggleLyricsMode() {
         isFullScreenLyrics = !isFullScreenLyrics;
+        saveSession();
 
         FadeTransition fadeOut = new FadeTransition(Duration.millis(300));
         FadeTransition fadeIn  = new FadeTransition(Duration.millis(300));
@@ -327,6 +1142,65 @@ public class MainWindow {
         }
     }
 
+    /** 进入迷你模式：完整界面从场景图摘下并释放重量级资源，播放不中断 */
+    private void enterMiniMode() {
+        if (isMiniMode) return;
+        isMiniMode = true;
+        if (miniView == null) {
+            miniView = new MiniPlayerView(
+                    () -> {
+                        trackPrevButton.fire();
+                        miniView.setPlaying(isPlaying);
+                    },
+                    () -> {
+                        playPauseButton.fire();
+                        miniView.setPlaying(isPlaying);
+                    },
+                    () -> {
+                        trackNextButton.fire();
+                        miniView.setPlaying(isPlaying);
+                    },
+                    this::exitMiniMode
+            );
+        }
+        fullWidth = stage.getWidth();
+        fullHeight = stage.getHeight();
+
+        // 收起浮层，释放全屏歌词节点、唱片阴影和歌单背景图
+        playlistOverlay.setVisible(false);
+        volumeOverlay.setVisible(false);
+        isVolumeControlVisible = false;
+        fullLyricsBox.getChildren().clear();
+        discContainer.setEffect(null);
+        playlistBgView.setImage(null);
+
+        miniView.showSong(songLabel.getText(), artistLabel.getText());
+        miniView.setLyric(prevLyricLabel.getText());
+        miniView.setPlaying(isPlaying);
+
+        // 换根后完整界面不再参与布局与渲染，调度器会随之暂停其中的动画
+        stage.getScene().setRoot(miniView.getRoot());
+        stage.setWidth(MiniPlayerView.WIDTH);
+        stage.setHeight(MiniPlayerView.HEIGHT);
+        stage.setAlwaysOnTop(true);
+    }
+
+    /** 退出迷你模式：先恢复资源再挂回完整界面，挂回时由调度器从播放时钟同步 */
+    private void exitMiniMode() {
+        if (!isMiniMode) return;
+        isMiniMode = false;
+        if (currentSong != null) {
+            rebuildFullLyrics(currentSong.getLyrics());
+        }
+        discContainer.setEffect(discShadow);
+        playlistBgView.setImage(new Image(LIST_BG_IMG));
+
+        stage.setAlwaysOnTop(false);
+        stage.getScene().setRoot(fullRoot);
+        stage.setWidth(fullWidth);
+        stage.setHeight(fullHeight);
+    }
+
     /** 处理进度条鼠标按下事件 */
     private void handleProgressBarMousePress(MouseEvent e) {
         isDragging = true;
@@ -340,9 +1214,7 @@ public class MainWindow {
         }
 
         // 暂停进度条更新定时器
-        if (progressTimer != null) {
-            progressTimer.pause();
-        }
+        scheduler.pause(progressTimer);
 
         // 计算并设置新进度
         updateProgressFromMouse(e);
@@ -369,14 +1241,12 @@ public class MainWindow {
         }
 
         // 恢复进度条更新定时器
-        if (progressTimer != null) {
-            progressTimer.play();
-        }
+        scheduler.play(progressTimer);
     }
 
     /** 根据鼠标位置更新进度 */
     private void updateProgressFromMouse(MouseEvent e) {
-        ProgressBar progressBar = (ProgressBar) e.getSource();
+        WaveformSeekBar progressBar = (WaveformSeekBar) e.getSource();
         double mouseX = e.getX();
         double totalWidth = progressBar.getWidth();
         double newProgress = mouseX / totalWidth;
@@ -386,7 +1256,7 @@ public class MainWindow {
         progressBar.setProgress(newProgress);
 
         // 计算对应的媒体时间
-        long totalMillis = currentTotalDuration > 0 ? currentTotalDuration : vlcPlayer.media().info().duration();
+        long totalMillis = currentTotalDuration;
         if (totalMillis > 0) {
             long newTime = (long) (newProgress * totalMillis);
 
@@ -434,11 +1304,9 @@ public class MainWindow {
      */
     private VBox createBottomBar() {
         // 1）底部进度条
-        bottomProgressBar = new ProgressBar(0);
+        bottomProgressBar = new WaveformSeekBar();
         bottomProgressBar.setPrefWidth(360);
-        bottomProgressBar.setPrefHeight(12);
-        bottomProgressBar.getStyleClass().clear();
-        bottomProgressBar.getStyleClass().add("custom-progress");
+        bottomProgressBar.setPrefHeight(28);
 
         bottomProgressBar.setOnMousePressed(this::handleProgressBarMousePress);
         bottomProgressBar.setOnMouseDragged(this::handleProgressBarDrag);
@@ -457,10 +1325,12 @@ public class MainWindow {
 
         // 3）控制按钮：上一曲、快退、播放/暂停、快进、下一曲
         Button trackPrev = createIconFontButton("\ue693", 24); // icon-shangyiqu
+        trackPrevButton = trackPrev;
         Button prev      = createIconFontButton("\ue68e", 20); // icon-kuaitui
         playPauseButton  = createIconFontButton("\ue692", 28); // icon-bofangzhong（“播放”）
         Button next      = createIconFontButton("\ue68f", 20); // icon-kuaijin
         Button trackNext = createIconFontButton("\ue694", 24); // icon-xiayiqu
+        trackNextButton = trackNext;
 
         // 3.1）歌单按钮（统一用 iconfont）
         Button listBtn = createIconFontButton("\ue699", 24); // icon-bofangduilie
@@ -470,11 +1340,16 @@ public class MainWindow {
 
         volumeBtn.setOnAction(e -> toggleVolumeControl());
 
+        // 3.3）迷你模式按钮
+        Button miniBtn = new Button("迷你");
+        miniBtn.setStyle("-fx-background-color: transparent; -fx-text-fill: rgba(0, 0, 0, 0.7);");
+        miniBtn.setOnAction(e -> enterMiniMode());
+
         // 4）播放/暂停 按钮：淡出→切换 Unicode→淡入 动画
         playPauseButton.setOnAction(e -> {
             if (currentSong == null) {
-                if (!allSongs.isEmpty()) {
-                    loadSong(allSongs.getFirst());
+                if (!queue.isEmpty()) {
+                    loadSong(queue.getFirst());
                 } else {
                     return;
                 }
@@ -492,8 +1367,8 @@ public class MainWindow {
                 applyFadeSwitch(playPauseButton, "\ue690", 28);
                 // 启动唱片转盘
                 RotateTransition rt =
-                        (RotateTransition) localPane.getCenter().getUserData();
-                rt.play();
+                        (RotateTransition) discContainer.getUserData();
+                scheduler.play(rt);
                 return;
             }
             if (vlcPlayer.status().isPlaying()) {
@@ -504,8 +1379,8 @@ public class MainWindow {
                 applyFadeSwitch(playPauseButton, "\ue692", 28);
                 // 停止转盘
                 RotateTransition rt =
-                        (RotateTransition) localPane.getCenter().getUserData();
-                rt.pause();
+                        (RotateTransition) discContainer.getUserData();
+                scheduler.pause(rt);
             } else {
                 // 当前暂停时，点击继续播放
                 vlcPlayer.controls().play();
@@ -514,8 +1389,8 @@ public class MainWindow {
                 applyFadeSwitch(playPauseButton, "\ue690", 28);
                 // 继续转盘
                 RotateTransition rt =
-                        (RotateTransition) localPane.getCenter().getUserData();
-                rt.play();
+                        (RotateTransition) discContainer.getUserData();
+                scheduler.play(rt);
             }
         });
 
@@ -535,61 +1410,24 @@ public class MainWindow {
             if (vlcPlayer != null) {
                 long currentTime = vlcPlayer.status().time();
                 long newTime = currentTime + 10_000;
-                long total = vlcPlayer.media().info().duration();
-                if (newTime > total) newTime = total;
+                long total = currentTotalDuration;
+                if (total > 0 && newTime > total) newTime = total;
                 vlcPlayer.controls().setTime(newTime);
                 updateProgressBar();
             }
         });
 
-// 7）“上一曲”
-        trackPrev.setOnAction(e -> {
-            if (currentSong != null && allSongs.size() > 1) {
-                int idx     = allSongs.indexOf(currentSong);
-                int prevIdx = (idx - 1 + allSongs.size()) % allSongs.size();
-                Song newSong = allSongs.get(prevIdx);
-
-                // === 修改开始 ===
-                // 直接使用 Song 对象的封面图片
-                playDiscChangeAnimation(newSong.getCoverImage());
-                // === 修改结束 ===
-
-                loadSong(newSong);
-                mediaPrepared = false;
-                prepareAndPlayCurrentSong(
-                        bottomProgressBar,
-                        bottomCurrentTimeLabel,
-                        bottomTotalTimeLabel
-                );
-                mediaPrepared = true;
-                isPlaying = true;
-                applyFadeSwitch(playPauseButton, "\ue690", 28);
-            }
-        });
-
-// 8）“下一曲”
-        trackNext.setOnAction(e -> {
-            if (currentSong != null && allSongs.size() > 1) {
-                int idx     = allSongs.indexOf(currentSong);
-                int nextIdx = (idx + 1) % allSongs.size();
-                Song newSong = allSongs.get(nextIdx);
-
-                // === 修改开始 ===
-                // 直接使用 Song 对象的封面图片
-                playDiscChangeAnimation(newSong.getCoverImage());
-                // === 修改结束 ===
-
-                loadSong(newSong);
-                mediaPrepared = false;
-                prepareAndPlayCurrentSong(
-                        bottomProgressBar,
-                        bottomCurrentTimeLabel,
-                        bottomTotalTimeLabel
-                );
-                mediaPrepared = true;
-                isPlaying = true;
-                applyFadeSwitch(playPauseButton, "\ue690", 28);
-            }
+// 7）“上一曲” / 8）“下一曲”：按播放模式选曲
+        trackPrev.setOnAction(e -> skipTrack(-1));
+        trackNext.setOnAction(e -> skipTrack(1));
+
+        // 8.1）播放模式：顺序 → 列表循环 → 单曲循环 → 随机，点击切换
+        Button modeBtn = new Button(playMode.getLabel());
+        modeBtn.setStyle("-fx-background-color: transparent; -fx-text-fill: rgba(0, 0, 0, 0.7);");
+        modeBtn.setOnAction(e -> {
+            playMode = playMode.next();
+            modeBtn.setText(playMode.getLabel());
+            saveSession();
         });
 
         // 9）“歌单”按钮：淡入弹出播放列表
@@ -613,7 +1451,7 @@ public class MainWindow {
         controls.setAlignment(Pos.CENTER);
 
         // —— 11）右侧放“音量”和“歌单”图标 ——
-        HBox rightBtns = new HBox(10, volumeBtn, listBtn);
+        HBox rightBtns = new HBox(10, modeBtn, miniBtn, volumeBtn, listBtn);
         rightBtns.setAlignment(Pos.CENTER_RIGHT);
 
         // —— 12）底部容器：中间放 controls，右侧放 rightBtns ——
@@ -630,16 +1468,31 @@ public class MainWindow {
     }
 
     // 在类中添加新方法
-    private void playDiscChangeAnimation(Image newImage) {
-        // 1. 获取唱片容器
-        StackPane discContainer = (StackPane) localPane.getCenter();
+    /** 封面已在缓存（通常由预读读好）时直接用；否则先给默认封面，后台读好后仍是这首才换上 */
+    private void withCover(Song song, Consumer<Image> apply) {
+        File file = song.getFile();
+        Image cached = MusicLibrary.cachedCover(file);
+        apply.accept(cached != null ? cached : MusicLibrary.defaultCover());
+        if (cached == null) {
+            coverLoader.execute(() -> {
+                Image cover = MusicLibrary.loadCover(file);
+                Platform.runLater(() -> {
+                    if (song == currentSong) {
+                        apply.accept(cover);
+                    }
+                });
+            });
+        }
+    }
 
-        // 2. 暂停旋转动画
+    private void playDiscChangeAnimation(Song song) {
+        // 1-2. 暂停唱片容器的旋转动画
         RotateTransition rt = (RotateTransition) discContainer.getUserData();
-        rt.pause();
+        scheduler.pause(rt);
 
         // 3. 创建新唱片视图
-        ImageView newDiscView = new ImageView(newImage);
+        ImageView newDiscView = new ImageView();
+        withCover(song, newDiscView::setImage);
         newDiscView.setPreserveRatio(true);
         newDiscView.setFitWidth(240);
         newDiscView.setFitHeight(240);
@@ -676,7 +1529,7 @@ public class MainWindow {
 
         parallelTransition.setOnFinished(e -> {
             // 1. 获取动画容器
-            StackPane animationContainer = (StackPane) ((StackPane) localPane.getCenter()).getChildren().get(0);
+            StackPane animationContainer = (StackPane) discContainer.getChildren().get(0);
 
             // 2. 找到原始唱片容器（包含旧唱片的 StackPane）
             StackPane originalDiscContainer = null;
@@ -708,9 +1561,9 @@ public class MainWindow {
             discImageView.setClip(discClipCircle);
 
             // 7. 继续旋转动画
-            RotateTransition rotate = (RotateTransition) ((StackPane) localPane.getCenter()).getUserData();
+            RotateTransition rotate = (RotateTransition) discContainer.getUserData();
             if (rotate != null) {
-                rotate.play();
+                scheduler.play(rotate);
             }
         });
         return parallelTransition;
@@ -755,9 +1608,8 @@ public class MainWindow {
 
         // 音量值改变事件
         volumeSlider.valueProperty().addListener((obs, oldVal, newVal) -> {
-            if (vlcPlayer != null) {
-                vlcPlayer.audio().setVolume(newVal.intValue());
-            }
+            applyVolume();
+            saveSession();
         });
 
         // 滑动条容器 - 透明背景，但确保音量条可见
@@ -792,6 +1644,16 @@ public class MainWindow {
         return overlay;
     }
 
+    /** 按音量滑块与当前歌曲的响度增益设置播放器音量 */
+    private void applyVolume() {
+        if (vlcPlayer == null) return;
+        double factor = (currentSong != null && loudnessAnalyzer != null)
+                ? loudnessAnalyzer.volumeFactor(currentSong.getFile())
+                : 1.0;
+        int volume = (int) Math.round(volumeSlider.getValue() * factor);
+        vlcPlayer.audio().setVolume(Math.max(0, Math.min(200, volume)));
+    }
+
     /** 显示/隐藏音量控制 **/
     private void toggleVolumeControl() {
         if (isVolumeControlVisible) {
@@ -844,9 +1706,7 @@ public class MainWindow {
         if (vlcPlayer != null && bottomProgressBar != null) {
             try {
                 long currentMillis = vlcPlayer.status().time();
-                long totalMillis = currentTotalDuration > 0 ?
-                        currentTotalDuration :
-                        vlcPlayer.media().info().duration();
+                long totalMillis = currentTotalDuration;
 
                 // 更新进度条
                 if (totalMillis > 0) {
@@ -886,26 +1746,43 @@ public class MainWindow {
 
         // 播放列表的 ListView
         listView = new ListView<>();
-        for (Song s : allSongs) {
-            String artist = s.getArtist();
-            if (artist == null || artist.isBlank()) {
-                artist = "无名";
-            }
-            listView.getItems().add(s.getTitle() + " - " + artist);
-        }
+        listView.getItems().addAll(queue);
         listView.setStyle("-fx-background-color: transparent; -fx-control-inner-background: transparent;");
         VBox.setVgrow(listView, Priority.ALWAYS);
         listView.setCellFactory(lv -> new ListCell<>() {
+            // 每个单元格只建一次：左侧 “标题 - 艺术家”，右侧时长
+            private final Label nameLabel = new Label();
+            private final Label durationLabel = new Label();
+            private final HBox row;
+
+            {
+                nameLabel.setFont(new Font("Arial", 14));
+                nameLabel.setTextFill(Color.WHITE);
+                nameLabel.setMaxWidth(Double.MAX_VALUE);
+                HBox.setHgrow(nameLabel, Priority.ALWAYS);
+                durationLabel.setFont(new Font("Arial", 12));
+                durationLabel.setTextFill(Color.rgb(255, 255, 255, 0.6));
+                durationLabel.setMinWidth(Region.USE_PREF_SIZE);
+                row = new HBox(8, nameLabel, durationLabel);
+                row.setAlignment(Pos.CENTER_LEFT);
+            }
+
             @Override
-            protected void updateItem(String item, boolean empty) {
+            protected void updateItem(Song item, boolean empty) {
                 super.updateItem(item, empty);
+                setText(null);
+                setStyle("-fx-background-color: transparent;");
                 if (empty || item == null) {
-                    setText(null);
-                    setStyle("-fx-background-color: transparent;");
+                    setGraphic(null);
                 } else {
-                    setText(item);
-                    setStyle("-fx-text-fill: white; -fx-background-color: transparent;");
-                    setFont(new Font("Arial", 14));
+                    String artist = item.getArtist();
+                    if (artist == null || artist.isBlank()) {
+                        artist = "无名";
+                    }
+                    nameLabel.setText(item.getTitle() + " - " + artist);
+                    long millis = item.getDurationMillis();
+                    durationLabel.setText(millis > 0 ? formatDuration(Duration.millis(millis)) : "--:--");
+                    setGraphic(row);
                 }
             }
         });
@@ -914,15 +1791,7 @@ public class MainWindow {
             if (evt.getClickCount() == 2) {
                 int idx = listView.getSelectionModel().getSelectedIndex();
                 if (idx >= 0) {
-                    loadSong(allSongs.get(idx));
-                    mediaPrepared = false;
-                    prepareAndPlayCurrentSong(bottomProgressBar, bottomCurrentTimeLabel, bottomTotalTimeLabel);
-                    mediaPrepared = true;
-                    isPlaying = true;
-                    RotateTransition rt = (RotateTransition) ((StackPane) localPane.getCenter()).getUserData();
-                    rt.play();
-                    playPauseButton.setText("\ue690");
-                    playPauseButton.setFont(Font.font("iconfont", 28));
+                    playQueueItem(queue.get(idx));
                 }
                 playlistOverlay.setVisible(false);
             }
@@ -931,10 +1800,79 @@ public class MainWindow {
         // 标题：播放队列
         VBox content = new VBox(10);
         Label title = new Label("播放队列");
+        queueTitleLabel = title;
+        updateQueueTitle();
         title.setStyle("-fx-text-fill: white; -fx-font-weight: bold; -fx-font-size: 16px;");
         title.setPadding(new Insets(15, 15, 10, 15));
 
-        content.getChildren().addAll(title, listView);
+        // 队列排序：按标题、艺术家、专辑、时长或加入时间重排当前队列
+        HBox sortBar = new HBox(2);
+        sortBar.setAlignment(Pos.CENTER_LEFT);
+        String[] sortNames = {"标题", "艺术家", "专辑", "时长", "最近添加"};
+        LibraryStore.Sort[] sorts = {
+                LibraryStore.Sort.TITLE, LibraryStore.Sort.ARTIST, LibraryStore.Sort.ALBUM,
+                LibraryStore.Sort.DURATION, LibraryStore.Sort.ADDED
+        };
+        for (int i = 0; i < sorts.length; i++) {
+            Button sortButton = new Button(sortNames[i]);
+            sortButton.setFont(new Font("Arial", 11));
+            sortButton.setStyle("-fx-background-color: transparent; -fx-text-fill: rgba(255,255,255,0.7);");
+            LibraryStore.Sort sort = sorts[i];
+            sortButton.setOnAction(e -> sortQueue(sort));
+            sortBar.getChildren().add(sortButton);
+        }
+        VBox queuePane = new VBox(4, sortBar, listView);
+        VBox.setVgrow(queuePane, Priority.ALWAYS);
+
+        // 歌单页：导入的 M3U/PLS 歌单，双击设为播放队列
+        playlistList = new ListView<>();
+        playlistList.setStyle("-fx-background-color: transparent; -fx-control-inner-background: transparent;");
+        VBox.setVgrow(playlistList, Priority.ALWAYS);
+        playlistList.setCellFactory(lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(Playlist item, boolean empty) {
+                super.updateItem(item, empty);
+                setStyle("-fx-background-color: transparent;");
+                if (empty || item == null) {
+                    setText(null);
+                    return;
+                }
+                int missing = item.getUnresolved().size();
+                setText(item.getName() + "（" + item.getSongs().size() + " 首"
+                        + (missing > 0 ? "，" + missing + " 首未找到" : "") + "）");
+                setTextFill(Color.WHITE);
+                setFont(new Font("Arial", 14));
+            }
+        });
+        playlistList.setOnMouseClicked(evt -> {
+            Playlist playlist = playlistList.getSelectionModel().getSelectedItem();
+            if (evt.getClickCount() == 2 && playlist != null) {
+                replaceQueue(playlist.getSongs(), null);
+            }
+        });
+        Button importButton = new Button("导入歌单");
+        Button exportButton = new Button("导出当前队列");
+        for (Button b : List.of(importButton, exportButton)) {
+            b.setFont(new Font("Arial", 11));
+            b.setStyle("-fx-background-color: transparent; -fx-text-fill: rgba(255,255,255,0.7);");
+        }
+        importButton.setOnAction(e -> importPlaylist());
+        exportButton.setOnAction(e -> exportQueue());
+        HBox playlistBar = new HBox(2, importButton, exportButton);
+        playlistBar.setAlignment(Pos.CENTER_LEFT);
+        VBox playlistPane = new VBox(4, playlistBar, playlistList);
+        VBox.setVgrow(playlistPane, Priority.ALWAYS);
+        // 每次切到“歌单”页时按最新的播放历史重新生成智能歌单
+        playlistPane.parentProperty().addListener((obs, old, parent) -> {
+            if (parent != null) {
+                refreshSmartPlaylists();
+            }
+        });
+
+        // 队列、歌单与按艺术家、专辑等浏览音乐库的切换页
+        libraryBrowser = new LibraryBrowserView(libraryStore, queuePane, playlistPane,
+                new DiagnosticsView(scanQuarantine), this::playFromLibrary);
+        content.getChildren().addAll(title, libraryBrowser.getRoot());
         content.setAlignment(Pos.TOP_CENTER);
         content.setPadding(new Insets(0, 0, 20, 0));
         content.setMaxWidth(Region.USE_PREF_SIZE);
@@ -942,6 +1880,7 @@ public class MainWindow {
         // 背景图片 ImageView
         ImageView bgView = new ImageView(new Image(LIST_BG_IMG));
         bgView.setPreserveRatio(false);
+        playlistBgView = bgView;
 
         // 容器：背景图片 + 列表内容
         StackPane listContainer = new StackPane(bgView, content);
@@ -955,7 +1894,7 @@ public class MainWindow {
         bgView.fitHeightProperty().bind(listContainer.prefHeightProperty());
 
         content.prefWidthProperty().bind(listContainer.prefWidthProperty().subtract(20));
-        listView.prefWidthProperty().bind(content.prefWidthProperty().subtract(30));
+        ((Region) libraryBrowser.getRoot()).prefWidthProperty().bind(content.prefWidthProperty().subtract(30));
 
         AnchorPane anchorPane = new AnchorPane(listContainer);
         AnchorPane.setRightAnchor(listContainer, 0.0);
@@ -974,12 +1913,15 @@ public class MainWindow {
 
 
     private void loadSong(Song song) {
-        Image cover = song.getCoverImage();
-        if (cover != null) {
-            discImageView.setImage(cover);
-        } else {
-            discImageView.setImage(new Image(DISC_IMG));
+        // 上一首播完前被切走：记为跳过
+        if (historyTrack != null) {
+            playHistory.record(PlayHistory.Kind.SKIP, historyTrack.getFile(),
+                    mediaPrepared ? vlcPlayer.status().time() : 0);
+            historyTrack = null;
         }
+        // 跳到别处：上一次的预读作废，新曲目开始播放后再预读它的下一首
+        readAhead.cancel();
+        withCover(song, cover -> discImageView.setImage(cover));
         if (vlcPlayer != null && vlcPlayer.status().isPlaying()) {
             vlcPlayer.controls().stop();
         }
@@ -987,6 +1929,17 @@ public class MainWindow {
 
         currentSong = song;
         currentLyricIndex = 0;
+        currentTotalDuration = song.getDurationMillis();
+        if (bottomTotalTimeLabel != null) {
+            bottomTotalTimeLabel.setText(formatDuration(Duration.millis(currentTotalDuration)));
+        }
+        // 逐字高亮的时钟回到曲首，开始播放后由位置事件校准
+        karaoke.setRunning(false);
+        karaoke.sync(0);
+        // 波形：内存里有就直接画，否则当前与下一首交给优先线程计算（没有响度标签的同时测量），就绪后回调
+        bottomProgressBar.setWaveform(waveformAnalyzer.get(song.getFile()));
+        Song upcoming = upcomingSong();
+        waveformAnalyzer.prioritize(song.getFile(), upcoming != null ? upcoming.getFile() : null);
 
         songLabel.setText(song.getTitle());
         String artist = song.getArtist();
@@ -997,6 +1950,7 @@ public class MainWindow {
             // “当前行”—— 首句，黑色
             prevLyricLabel.setText(lyrics.get(0).getText());
             prevLyricLabel.setFont(new Font("Arial", 18));
+            setKaraokeLine(lyrics, 0);
             prevLyricLabel.setTextFill(Color.BLACK); // 改为黑色
             prevLyricLabel.setOpacity(1.0);
 
@@ -1014,13 +1968,36 @@ public class MainWindow {
             // 纯音乐
             prevLyricLabel.setText("纯音乐，请欣赏");
             prevLyricLabel.setFont(new Font("Arial", 18));
+            setKaraokeLine(null, 0);
             prevLyricLabel.setTextFill(Color.BLACK);
             prevLyricLabel.setOpacity(1.0);
             nextLyricLabel.setText("");
             nextLyricLabel.setOpacity(1.0);
         }
 
-        // 全屏歌词清空后重新添加，默认都用黑色
+        // 全屏歌词清空后重新添加；迷你模式下不构建，回到完整界面时再构建
+        if (isMiniMode) {
+            fullLyricsBox.getChildren().clear();
+            miniView.showSong(songLabel.getText(), artistLabel.getText());
+            miniView.setLyric(prevLyricLabel.getText());
+        } else {
+            rebuildFullLyrics(lyrics);
+        }
+        // 重置唱片旋转角度
+        discContainer.setRotate(0);
+
+        // 停止并重置旋转动画
+        RotateTransition rt = (RotateTransition) discContainer.getUserData();
+        scheduler.stop(rt);
+
+        resumeAtMillis = 0;
+        saveSession();
+        playerEvents.publish(new PlayerEvent.TrackChanged(song, queue.indexOf(song)));
+    }
+
+
+    /** 按歌词重建全屏歌词列表，默认都用黑色 */
+    private void rebuildFullLyrics(List<LyricLine> lyrics) {
         fullLyricsBox.getChildren().clear();
         if (lyrics != null && !lyrics.isEmpty()) {
             for (LyricLine line : lyrics) {
@@ -1035,28 +2012,28 @@ public class MainWindow {
             lbl.setTextFill(Color.BLACK);
             fullLyricsBox.getChildren().add(lbl);
         }
-        // 重置唱片旋转角度
-        StackPane discContainer = (StackPane) localPane.getCenter();
-        discContainer.setRotate(0);
-
-        // 停止并重置旋转动画
-        RotateTransition rt = (RotateTransition) discContainer.getUserData();
-        if (rt != null) {
-            rt.stop();
-        }
     }
 
-
     /**
      * 准备并播放 currentSong，同时绑定进度条与时间显示
      *
-     * @param progressBar      当前底部的 ProgressBar 控件
+     * @param progressBar      当前底部的波形进度条
      * @param currentTimeLabel 底部显示“当前播放时间”的 Label
      * @param totalTimeLabel   底部显示“总时长”的 Label
      */
-    private void prepareAndPlayCurrentSong(ProgressBar progressBar,
+    private void prepareAndPlayCurrentSong(WaveformSeekBar progressBar,
                                            Label currentTimeLabel,
                                            Label totalTimeLabel) {
+        prepareCurrentSong(progressBar, currentTimeLabel, totalTimeLabel, false);
+    }
+
+    /**
+     * 准备 currentSong 并绑定进度显示
+     *
+     * @param paused true 时打开媒体后停在 resumeAtMillis 处不出声（恢复会话），点播放时直接继续
+     */
+    private void prepareCurrentSong(WaveformSeekBar progressBar, Label currentTimeLabel, Label totalTimeLabel,
+                                    boolean paused) {
         if (currentSong == null) return;
 
         File songFile = currentSong.getFile();
@@ -1070,239 +2047,347 @@ public class MainWindow {
             vlcPlayer.controls().stop();
         }
         // 停掉旧的进度定时器
-        if (progressTimer != null) {
-            progressTimer.stop();
-            progressTimer = null;
+        scheduler.unregister(progressTimer);
+        progressTimer = null;
+        String mediaPath = MusicLibrary.toMrl(songFile);
+        System.out.println("播放路径: " + mediaPath);
+
+        awaitingFirstPlaying = true;
+
+        // 音频回调按曲目采样率输出，设备不支持时保持原采样率
+        if (audioTap != null) {
+            int rate = audioTap.useRate(currentSong.getSampleRate());
+            if (rate != tapRate) {
+                tapRate = rate;
+                vlcPlayer.audio().callback(AudioTap.FORMAT, rate, AudioTap.CHANNELS, audioTap, true);
+                spectrumAnalyzer.setSampleRate(rate);
+            }
+        }
+
+        List<String> options = new ArrayList<>(2);
+        if (resumeAtMillis > 0) {
+            // 恢复会话：从保存的位置开始；位置在第一次 playing 事件前仍以 resumeAtMillis 为准
+            options.add(":start-time=" + resumeAtMillis / 1000.0);
         }
-        // 移除旧的媒体监听
-        if (currentMediaListener != null) {
-            vlcPlayer.events().removeMediaPlayerEventListener(currentMediaListener);
-            currentMediaListener = null;
+        if (paused) {
+            options.add(":start-paused");
         }
+        vlcPlayer.media().prepare(mediaPath, options.toArray(String[]::new));
+        vlcPlayer.controls().play();
 
-        String mediaPath = songFile.toURI().toString();
-        if (mediaPath.startsWith("file:/") && !mediaPath.startsWith("file:///")) {
-            mediaPath = mediaPath.replaceFirst("^file:/+", "file:///");
+        if (!paused) {
+            // 开始转盘动画
+            RotateTransition rtDisc = (RotateTransition) discContainer.getUserData();
+            scheduler.play(rtDisc);
         }
-        System.out.println("播放路径: " + mediaPath);
 
-        // 新建媒体监听器
-        currentMediaListener = new MediaPlayerEventAdapter() {
-            private boolean firstTime = true;
+        // 初始化歌词索引与全屏滚动位置
+        currentLyricIndex = 0;
+        lastVvalue = 0.0;
+        fullPane.setVvalue(0.0);
+        List<LyricLine> lyrics = currentSong.getLyrics();
+        if (lyrics != null && !lyrics.isEmpty()) {
+            showFullLyric(0, false);
+        }
 
-            @Override
-            public void playing(MediaPlayer mp) {
-                if (firstTime) {
-                    firstTime = false;
-                    currentTotalDuration = mp.media().info().duration();
-                    Platform.runLater(() -> {
-                        totalTimeLabel.setText(formatDuration(Duration.millis(currentTotalDuration)));
-                        progressBar.setProgress(0);
-                    });
+        // 进度更新定时器：每 200ms 更新一次，窗口不可见时由调度器暂停
+        progressTimer = new Timeline(
+                new KeyFrame(Duration.millis(200), evt -> {
+                    if (!isDragging && vlcPlayer.status().isPlaying()) {
+                        try {
+                            onProgressTick(progressBar, currentTimeLabel);
+                        } catch (Exception e) {
+                            System.err.println("更新进度出错: " + e.getMessage());
+                        }
+                    }
+                })
+        );
+        progressTimer.setCycleCount(Animation.INDEFINITE);
+        scheduler.register(progressTimer, null);
+        scheduler.play(progressTimer);
+    }
+
+    /** 播放器事件（FX 线程）：校准逐字高亮的时钟，开始播放后补全时长与音量，播完按播放模式继续 */
+    private void onPlayerEvent(PlayerEvent event) {
+        if (event instanceof PlayerEvent.PositionTick tick) {
+            karaoke.sync(tick.positionMillis());
+            return;
+        }
+        if (!(event instanceof PlayerEvent.StateChanged changed)) {
+            return;
+        }
+        boolean playing = changed.state() == PlayerEvent.State.PLAYING;
+        karaoke.setRunning(playing);
+        if (playing) {
+            scheduler.play(karaoke.getFrameAnimation());
+        } else {
+            scheduler.pause(karaoke.getFrameAnimation());
+        }
+        switch (changed.state()) {
+            case PLAYING -> {
+                if (awaitingFirstPlaying) {
+                    awaitingFirstPlaying = false;
+                    resumeAtMillis = 0;
+                    historyTrack = currentSong;
+                    playHistory.record(PlayHistory.Kind.PLAY, currentSong.getFile(), 0);
+                    readAhead.warm(upcomingSong());
+                    // 音频头没给出时长时（个别 VBR 文件），才向 libvlc 查询一次
+                    if (currentTotalDuration <= 0) {
+                        long nativeDuration = vlcPlayer.media().info().duration();
+                        if (nativeDuration > 0) {
+                            currentTotalDuration = nativeDuration;
+                        }
+                    }
+                    bottomTotalTimeLabel.setText(formatDuration(Duration.millis(currentTotalDuration)));
+                    bottomProgressBar.setProgress(0);
+                    // 音频输出就绪后再设置音量，带上该曲目的响度补偿
+                    applyVolume();
                 }
             }
+            case FINISHED -> onTrackFinished();
+            case ERROR -> {
+                System.err.println("媒体播放错误");
+                bottomProgressBar.setProgress(WaveformSeekBar.INDETERMINATE_PROGRESS);
+            }
+            default -> {
+            }
+        }
+    }
 
-            @Override
-            public void finished(MediaPlayer mp) {
-                Platform.runLater(() -> {
-                    isPlaying = false;
-                    // 停掉进度更新
-                    if (progressTimer != null) {
-                        progressTimer.stop();
-                        progressTimer = null;
-                    }
-                    // 切换回"播放"图标
-                    playPauseButton.setText("\ue692");
-                    playPauseButton.setFont(Font.font("iconfont", 28));
-
-                    // 停止转盘
-                    RotateTransition rt = (RotateTransition) ((StackPane) localPane.getCenter()).getUserData();
-                    if (rt != null) {
-                        rt.stop();
-                        // 重置旋转角度
-                        ((StackPane) localPane.getCenter()).setRotate(0);
-                    }
+    /** 一首播完：复位进度、转盘与歌词，再按播放模式继续 */
+    private void onTrackFinished() {
+        isPlaying = false;
+        if (historyTrack != null) {
+            playHistory.record(PlayHistory.Kind.COMPLETE, historyTrack.getFile(), currentTotalDuration);
+            historyTrack = null;
+        }
+        // 停掉进度更新
+        scheduler.unregister(progressTimer);
+        progressTimer = null;
+        // 切换回"播放"图标
+        playPauseButton.setText("\ue692");
+        playPauseButton.setFont(Font.font("iconfont", 28));
+
+        // 停止转盘
+        RotateTransition rt = (RotateTransition) discContainer.getUserData();
+        if (rt != null) {
+            scheduler.stop(rt);
+            // 重置旋转角度
+            discContainer.setRotate(0);
+        }
 
-                    // 保留总时长信息，只重置进度和当前时间
-                    bottomProgressBar.setProgress(0);
-                    bottomCurrentTimeLabel.setText("00:00");
+        // 保留总时长信息，只重置进度和当前时间
+        bottomProgressBar.setProgress(0);
+        bottomCurrentTimeLabel.setText("00:00");
 
-                    // 不要重置总时长标签，保持显示歌曲的实际时长
-                    // bottomTotalTimeLabel.setText("00:00"); // 移除这行
+        // 不要重置总时长标签，保持显示歌曲的实际时长
+        // bottomTotalTimeLabel.setText("00:00"); // 移除这行
 
-                    currentLyricIndex = 0;
-                    lastVvalue = 0.0;
-                    fullPane.setVvalue(0.0);
+        currentLyricIndex = 0;
+        lastVvalue = 0.0;
+        fullPane.setVvalue(0.0);
 
-                    // 重置歌词显示状态
-                    resetLyricsDisplay();
+        // 重置歌词显示状态
+        resetLyricsDisplay();
+        if (isMiniMode) {
+            miniView.setPlaying(false);
+            miniView.setLyric(prevLyricLabel.getText());
+        }
 
-                    // 重置媒体位置到开头
-                    if (vlcPlayer != null) {
-                        vlcPlayer.controls().setTime(0);
-                    }
+        // 重置媒体位置到开头
+        if (vlcPlayer != null) {
+            vlcPlayer.controls().setTime(0);
+        }
 
-                    // 重置媒体准备状态，以便下次点击播放时重新准备
-                    mediaPrepared = false;
-                });
+        // 重置媒体准备状态，以便下次点击播放时重新准备
+        mediaPrepared = false;
+
+        // 按播放模式继续
+        continueAfterFinished();
+    }
+
+    /** 重置歌词显示到初始状态（显示第一句歌词） */
+    private void resetLyricsDisplay() {
+        if (currentSong == null) return;
+
+        List<LyricLine> lyrics = currentSong.getLyrics();
+
+        // 重置局部歌词显示
+        if (lyrics != null && !lyrics.isEmpty()) {
+            // 显示第一句歌词
+            prevLyricLabel.setText(lyrics.get(0).getText());
+            prevLyricLabel.setFont(new Font("Arial", 18));
+            setKaraokeLine(lyrics, 0);
+            prevLyricLabel.setTextFill(Color.BLACK);
+            prevLyricLabel.setOpacity(1.0);
+
+            // 显示第二句歌词（如果有）
+            if (lyrics.size() > 1) {
+                nextLyricLabel.setText(lyrics.get(1).getText());
+                nextLyricLabel.setFont(new Font("Arial", 12));
+                nextLyricLabel.setTextFill(Color.rgb(0, 0, 0, 0.5));
+                nextLyricLabel.setOpacity(1.0);
+            } else {
+                nextLyricLabel.setText("");
+                nextLyricLabel.setOpacity(1.0);
             }
+        } else {
+            // 纯音乐提示
+            prevLyricLabel.setText("纯音乐，请欣赏");
+            prevLyricLabel.setFont(new Font("Arial", 18));
+            setKaraokeLine(null, 0);
+            prevLyricLabel.setTextFill(Color.BLACK);
+            prevLyricLabel.setOpacity(1.0);
+            nextLyricLabel.setText("");
+            nextLyricLabel.setOpacity(1.0);
+        }
 
-            /**
-             * 重置歌词显示到初始状态（显示第一句歌词）
-             */
-            private void resetLyricsDisplay() {
-                if (currentSong == null) return;
-
-                List<LyricLine> lyrics = currentSong.getLyrics();
-
-                // 重置局部歌词显示
-                if (lyrics != null && !lyrics.isEmpty()) {
-                    // 显示第一句歌词
-                    prevLyricLabel.setText(lyrics.get(0).getText());
-                    prevLyricLabel.setFont(new Font("Arial", 18));
-                    prevLyricLabel.setTextFill(Color.BLACK);
-                    prevLyricLabel.setOpacity(1.0);
-
-                    // 显示第二句歌词（如果有）
-                    if (lyrics.size() > 1) {
-                        nextLyricLabel.setText(lyrics.get(1).getText());
-                        nextLyricLabel.setFont(new Font("Arial", 12));
-                        nextLyricLabel.setTextFill(Color.rgb(0, 0, 0, 0.5));
-                        nextLyricLabel.setOpacity(1.0);
-                    } else {
-                        nextLyricLabel.setText("");
-                        nextLyricLabel.setOpacity(1.0);
-                    }
-                } else {
-                    // 纯音乐提示
-                    prevLyricLabel.setText("纯音乐，请欣赏");
-                    prevLyricLabel.setFont(new Font("Arial", 18));
-                    prevLyricLabel.setTextFill(Color.BLACK);
-                    prevLyricLabel.setOpacity(1.0);
-                    nextLyricLabel.setText("");
-                    nextLyricLabel.setOpacity(1.0);
+        // 重置全屏歌词高亮状态
+        if (fullLyricsBox != null) {
+            for (Node node : fullLyricsBox.getChildren()) {
+                if (node instanceof Label) {
+                    Label label = (Label) node;
+                    label.setStyle("-fx-text-fill: black; -fx-font-weight: normal;");
                 }
+            }
 
-                // 重置全屏歌词高亮状态
-                if (fullLyricsBox != null) {
-                    for (Node node : fullLyricsBox.getChildren()) {
-                        if (node instanceof Label) {
-                            Label label = (Label) node;
-                            label.setStyle("-fx-text-fill: black; -fx-font-weight: normal;");
-                        }
-                    }
+            // 高亮第一行歌词
+            if (!fullLyricsBox.getChildren().isEmpty()) {
+                ((Label) fullLyricsBox.getChildren().get(0)).setStyle(
+                        "-fx-text-fill: rgba(255,100,100,0.6); -fx-font-weight:bold;"
+                );
+            }
+        }
+    }
 
-                    // 高亮第一行歌词
-                    if (!fullLyricsBox.getChildren().isEmpty()) {
-                        ((Label) fullLyricsBox.getChildren().get(0)).setStyle(
-                                "-fx-text-fill: rgba(255,100,100,0.6); -fx-font-weight:bold;"
-                        );
-                    }
+    /** 定时刷新：更新进度条、时间标签，并只为当前可见的歌词面板做动画 */
+    private void onProgressTick(WaveformSeekBar progressBar, Label currentTimeLabel) {
+        long currentMillis = vlcPlayer.status().time();
+        if (Math.abs(currentMillis - lastSavedPosition) >= 10_000) {
+            saveSession();
+        }
+        if (isMiniMode) {
+            // 迷你模式只维护一行歌词，完整界面回来时再整体同步
+            List<LyricLine> lyrics = currentSong.getLyrics();
+            if (lyrics != null && !lyrics.isEmpty()) {
+                int newIndex = LyricLine.indexAt(lyrics, currentMillis);
+                if (newIndex != currentLyricIndex) {
+                    currentLyricIndex = newIndex;
+                    miniView.setLyric(lyrics.get(newIndex).getText());
                 }
             }
-            @Override
-            public void error(MediaPlayer mp) {
-                System.err.println("媒体播放错误");
-                Platform.runLater(() -> progressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS));
-            }
-        };
-        vlcPlayer.events().addMediaPlayerEventListener(currentMediaListener);
+            return;
+        }
+        long totalMillis = currentTotalDuration;
 
-        vlcPlayer.media().prepare(mediaPath);
-        vlcPlayer.controls().play();
+        // 更新进度条
+        if (totalMillis > 0) {
+            double frac = (double) currentMillis / totalMillis;
+            frac = Math.min(1.0, Math.max(0.0, frac));
+            progressBar.setProgress(frac);
+        } else {
+            progressBar.setProgress(0);
+        }
+        currentTimeLabel.setText(formatDuration(Duration.millis(currentMillis)));
 
-        // 开始转盘动画
-        RotateTransition rtDisc = (RotateTransition) ((StackPane) localPane.getCenter()).getUserData();
-        if (rtDisc != null) rtDisc.play();
+        List<LyricLine> lyrics = currentSong.getLyrics();
+        if (lyrics == null || lyrics.isEmpty()) return;
+        int newIndex = LyricLine.indexAt(lyrics, currentMillis);
+        if (newIndex == currentLyricIndex) return;
+        currentLyricIndex = newIndex;
 
-        // 初始化歌词索引与全屏滚动位置
-        currentLyricIndex = 0;
-        lastVvalue = 0.0;
-        fullPane.setVvalue(0.0);
+        // 隐藏的面板不做动画，重新可见时由 resyncFromClock 一步同步
+        if (scheduler.isShowing(localPane)) {
+            showLocalLyric(lyrics, newIndex, true);
+        }
+        if (scheduler.isShowing(fullPane)) {
+            showFullLyric(newIndex, true);
+        }
+    }
 
-        // 进度更新定时器：每 200ms 更新一次
-        progressTimer = new Timeline(
-                new KeyFrame(Duration.millis(200), evt -> {
-                    if (!isDragging && vlcPlayer.status().isPlaying()) {
-                        try {
-                            long currentMillis = vlcPlayer.status().time();
-                            long totalMillis = currentTotalDuration > 0
-                                    ? currentTotalDuration
-                                    : vlcPlayer.media().info().duration();
-
-                            // 更新进度条
-                            if (totalMillis > 0) {
-                                double frac = (double) currentMillis / totalMillis;
-                                frac = Math.min(1.0, Math.max(0.0, frac));
-                                progressBar.setProgress(frac);
-                            } else {
-                                progressBar.setProgress(0);
-                            }
-                            currentTimeLabel.setText(formatDuration(Duration.millis(currentMillis)));
-
-                            // —— 局部歌词动画 ——
-                            List<LyricLine> localList = currentSong.getLyrics();
-                            if (localList != null && !localList.isEmpty()) {
-                                int oldIndex = currentLyricIndex;
-                                while (currentLyricIndex < localList.size() - 1
-                                        && currentMillis >= localList.get(currentLyricIndex + 1).getTimeInMillis()) {
-                                    currentLyricIndex++;
-                                }
-                                if (currentLyricIndex != oldIndex) {
-                                    // 当前行淡入效果
-                                    prevLyricLabel.setText(localList.get(currentLyricIndex).getText());
-                                    prevLyricLabel.setFont(new Font("Arial", 18));
-                                    prevLyricLabel.setTextFill(Color.rgb(255, 100, 100, 0.7));
-                                    prevLyricLabel.setOpacity(0.0);
-                                    FadeTransition fadeIn = new FadeTransition(Duration.millis(300), prevLyricLabel);
-                                    fadeIn.setFromValue(0.0);
-                                    fadeIn.setToValue(1.0);
-                                    fadeIn.play();
-                                    // 下一行显示
-                                    if (currentLyricIndex + 1 < localList.size()) {
-                                        nextLyricLabel.setText(localList.get(currentLyricIndex + 1).getText());
-                                        nextLyricLabel.setFont(new Font("Arial", 12));
-                                        nextLyricLabel.setTextFill(Color.rgb(0, 0, 0, 0.7));
-                                        nextLyricLabel.setOpacity(1.0);
-                                    } else {
-                                        nextLyricLabel.setText("");
-                                        nextLyricLabel.setOpacity(1.0);
-                                    }
-                                }
-                            }
-                            // —— 全屏滚动与样式更新 ——
-                            List<LyricLine> fullLyricList = currentSong.getLyrics();
-                            if (fullLyricList != null && !fullLyricList.isEmpty()) {
-                                int totalLines = fullLyricsBox.getChildren().size();
-                                double targetV = (double) currentLyricIndex / (totalLines - 1);
-                                Timeline scrollAnim = new Timeline(
-                                        new KeyFrame(Duration.ZERO,
-                                                new KeyValue(fullPane.vvalueProperty(), lastVvalue)
-                                        ),
-                                        new KeyFrame(Duration.millis(300),
-                                                new KeyValue(fullPane.vvalueProperty(), targetV)
-                                        )
-                                );
-                                scrollAnim.play();
-                                lastVvalue = targetV;
-
-                                for (int i = 0; i < fullLyricList.size(); i++) {
-                                    Label lbl = (Label) fullLyricsBox.getChildren().get(i);
-                                    if (i == currentLyricIndex) {
-                                        lbl.setStyle("-fx-text-fill: rgba(255,100,100,0.6); -fx-font-weight:bold;");
-                                    } else {
-                                        lbl.setStyle("-fx-text-fill: rgba(0,0,0,0.6); -fx-font-weight: normal;");
-                                    }
-                                }
-                            }
-                        } catch (Exception e) {
-                            System.err.println("更新进度出错: " + e.getMessage());
-                        }
-                    }
-                })
-        );
-        progressTimer.setCycleCount(Animation.INDEFINITE);
-        progressTimer.play();
+    /** 从播放时钟一次性同步进度与歌词，窗口或面板恢复可见时调用，不播放过渡动画 */
+    private void resyncFromClock() {
+        if (currentSong == null || vlcPlayer == null || !mediaPrepared) return;
+        updateProgressBar();
+
+        List<LyricLine> lyrics = currentSong.getLyrics();
+        if (lyrics == null || lyrics.isEmpty()) return;
+        currentLyricIndex = LyricLine.indexAt(lyrics, vlcPlayer.status().time());
+        if (scheduler.isShowing(localPane)) {
+            showLocalLyric(lyrics, currentLyricIndex, false);
+        }
+        if (scheduler.isShowing(fullPane)) {
+            showFullLyric(currentLyricIndex, false);
+        }
+    }
+
+    /** 局部歌词：当前行高亮（可选淡入），下一行淡化显示 */
+    private void showLocalLyric(List<LyricLine> lyrics, int index, boolean animate) {
+        prevLyricLabel.setText(lyrics.get(index).getText());
+        prevLyricLabel.setFont(new Font("Arial", 18));
+        prevLyricLabel.setTextFill(Color.rgb(255, 100, 100, 0.7));
+        setKaraokeLine(lyrics, index);
+        if (animate) {
+            prevLyricLabel.setOpacity(0.0);
+            FadeTransition fadeIn = new FadeTransition(Duration.millis(300), prevLyricLabel);
+            fadeIn.setFromValue(0.0);
+            fadeIn.setToValue(1.0);
+            fadeIn.play();
+        } else {
+            prevLyricLabel.setOpacity(1.0);
+        }
+        // 下一行显示
+        if (index + 1 < lyrics.size()) {
+            nextLyricLabel.setText(lyrics.get(index + 1).getText());
+            nextLyricLabel.setFont(new Font("Arial", 12));
+            nextLyricLabel.setTextFill(Color.rgb(0, 0, 0, 0.7));
+        } else {
+            nextLyricLabel.setText("");
+        }
+        nextLyricLabel.setOpacity(1.0);
+    }
+
+    /** 逐字高亮切到第 index 行；本行结束于下一行的时间戳，最后一行结束于曲末 */
+    private void setKaraokeLine(List<LyricLine> lyrics, int index) {
+        if (lyrics == null || index < 0 || index >= lyrics.size()) {
+            karaoke.setLine(null, 0);
+            return;
+        }
+        LyricLine line = lyrics.get(index);
+        long end = index + 1 < lyrics.size() ? lyrics.get(index + 1).getTimeInMillis()
+                : Math.max(currentTotalDuration, line.getTimeInMillis() + 5000);
+        karaoke.setLine(line, end);
+    }
+
+    /** 全屏歌词：滚动到当前行（可选滚动动画）并刷新高亮样式 */
+    private void showFullLyric(int index, boolean animate) {
+        List<Node> labels = fullLyricsBox.getChildren();
+        if (index >= labels.size()) return;
+        int totalLines = labels.size();
+        double targetV = totalLines > 1 ? (double) index / (totalLines - 1) : 0.0;
+        if (animate) {
+            Timeline scrollAnim = new Timeline(
+                    new KeyFrame(Duration.ZERO,
+                            new KeyValue(fullPane.vvalueProperty(), lastVvalue)
+                    ),
+                    new KeyFrame(Duration.millis(300),
+                            new KeyValue(fullPane.vvalueProperty(), targetV)
+                    )
+            );
+            scrollAnim.play();
+        } else {
+            fullPane.setVvalue(targetV);
+        }
+        lastVvalue = targetV;
+
+        for (int i = 0; i < totalLines; i++) {
+            Label lbl = (Label) labels.get(i);
+            if (i == index) {
+                lbl.setStyle("-fx-text-fill: rgba(255,100,100,0.6); -fx-font-weight:bold;");
+            } else {
+                lbl.setStyle("-fx-text-fill: rgba(0,0,0,0.6); -fx-font-weight: normal;");
+            }
+        }
     }
 
 
@@ -1316,6 +2401,192 @@ public class MainWindow {
         return String.format("%02d:%02d", minutes, seconds);
     }
 
+    /** 当前会话状态；写入在后台线程进行，所以队列交出去的是快照，只在队列改动后才重新复制 */
+    private SessionStore.Session currentSession() {
+        if (savedQueueSource != queue || savedQueueVersion != queue.version()) {
+            savedQueue = List.copyOf(queue);
+            savedQueueSource = queue;
+            savedQueueVersion = queue.version();
+        }
+        return new SessionStore.Session(savedQueue, queueIsLibrary,
+                currentSong != null ? queue.indexOf(currentSong) : -1, Math.max(0, positionMillis()),
+                volumeSlider.getValue(), isFullScreenLyrics, playMode);
+    }
+
+    /** 播放位置；恢复会话后媒体还没打开、读不到位置时为保存的位置 */
+    private long positionMillis() {
+        if (!mediaPrepared || vlcPlayer == null) {
+            return resumeAtMillis;
+        }
+        long time = vlcPlayer.status().time();
+        return awaitingFirstPlaying && time <= 0 ? resumeAtMillis : time;
+    }
+
+    /** 请求保存会话（合并后延迟写入） */
+    private void saveSession() {
+        if (sessionStore == null || volumeSlider == null) {
+            return;
+        }
+        SessionStore.Session session = currentSession();
+        lastSavedPosition = session.positionMillis();
+        sessionStore.save(session);
+    }
+
+    /** 恢复会话后，还没开始播放时把进度条和时间停在保存的位置 */
+    private void showRestoredPosition() {
+        if (currentTotalDuration > 0) {
+            bottomProgressBar.setProgress(Math.min(1.0, (double) resumeAtMillis / currentTotalDuration));
+        }
+        bottomCurrentTimeLabel.setText(formatDuration(Duration.millis(resumeAtMillis)));
+    }
+
+    /** 按排序键重排播放队列，当前曲目保持不变 */
+    private void sortQueue(LibraryStore.Sort sort) {
+        queue = new SongList(SortKeys.sortSongs(queue, sort, song -> {
+            LibraryStore.Track track = libraryStore.get(song.getFile().getAbsolutePath());
+            return track != null ? track.addedAt() : song.getFile().lastModified();
+        }));
+        listView.getItems().setAll(queue);
+        int idx = currentSong != null ? queue.indexOf(currentSong) : -1;
+        if (idx >= 0) {
+            listView.scrollTo(idx);
+        }
+        saveSession();
+    }
+
+    /** 播放列表标题：曲目数与总时长 */
+    private void updateQueueTitle() {
+        long queueMillis = 0;
+        for (Song s : queue) {
+            queueMillis += s.getDurationMillis();
+        }
+        queueTitleLabel.setText(queue.isEmpty()
+                ? "播放队列"
+                : "播放队列（" + queue.size() + " 首 · " + formatQueueLength(queueMillis) + "）");
+    }
+
+    /** 队列总时长：超过一小时显示为 "h:mm:ss" */
+    private static String formatQueueLength(long millis) {
+        long totalSeconds = millis / 1000;
+        long hours = totalSeconds / 3600;
+        long minutes = totalSeconds % 3600 / 60;
+        long seconds = totalSeconds % 60;
+        if (hours > 0) {
+            return String.format("%d:%02d:%02d", hours, minutes, seconds);
+        }
+        return String.format("%02d:%02d", minutes, seconds);
+    }
+
+    /** HTTP 遥控的操作：在请求线程上调用，切到 FX 线程执行并等待结果 */
+    private final class RemotePlayer implements RemoteControlServer.Player {
+        @Override
+        public RemoteControlServer.Status status() {
+            return onFx(() -> new RemoteControlServer.Status(currentSong,
+                    currentSong != null ? queue.indexOf(currentSong) : -1,
+                    isPlaying,
+                    positionMillis(),
+                    currentTotalDuration));
+        }
+
+        @Override
+        public void play() {
+            onFx(() -> {
+                if (!isPlaying) playPauseButton.fire();
+                return null;
+            });
+        }
+
+        @Override
+        public void pause() {
+            onFx(() -> {
+                if (isPlaying) playPauseButton.fire();
+                return null;
+            });
+        }
+
+        @Override
+        public void toggle() {
+            onFx(() -> {
+                playPauseButton.fire();
+                return null;
+            });
+        }
+
+        @Override
+        public void next() {
+            onFx(() -> {
+                skipTrack(1);
+                return null;
+            });
+        }
+
+        @Override
+        public void previous() {
+            onFx(() -> {
+                skipTrack(-1);
+                return null;
+            });
+        }
+
+        @Override
+        public void seek(long millis) {
+            onFx(() -> {
+                if (!mediaPrepared) {
+                    throw new IllegalArgumentException("当前没有在播放");
+                }
+                long target = currentTotalDuration > 0 ? Math.min(millis, currentTotalDuration) : millis;
+                vlcPlayer.controls().setTime(Math.max(0, target));
+                resyncFromClock();
+                return null;
+            });
+        }
+
+        @Override
+        public List<Song> queue() {
+            return onFx(() -> List.copyOf(queue));
+        }
+
+        @Override
+        public void playAt(int index) {
+            onFx(() -> {
+                if (index < 0 || index >= queue.size()) {
+                    throw new IllegalArgumentException("队列中没有第 " + index + " 首");
+                }
+                playQueueItem(queue.get(index));
+                return null;
+            });
+        }
+
+        @Override
+        public List<Song> library() {
+            return onFx(() -> List.copyOf(allSongs));
+        }
+
+        private static <T> T onFx(Supplier<T> work) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            Platform.runLater(() -> {
+                try {
+                    result.complete(work.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+            try {
+                return result.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw (RuntimeException) e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待界面线程时被中断");
+            } catch (TimeoutException e) {
+                throw new IllegalStateException("界面线程无响应");
+            }
+        }
+    }
+
     /** 工具方法：从 classpath 加载资源 **/
     private static String getResource(String path) {
         URL url = MainWindow.class.getResource(path);
@@ -0,0 +1,95 @@
+// 文件：src/main/java/player/view/MiniPlayerView.java
+package player.view;
+
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Parent;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+
+/**
+ * 迷你播放器界面：标题、艺术家、一行歌词与传输按钮
+ * <p>
+ * 只用纯色背景和几个 Label/Button，不带阴影、渐变、图片和动画，
+ * 播放逻辑全部回调给 MainWindow，切换模式不会影响正在播放的媒体。
+ */
+public class MiniPlayerView {
+    public static final double WIDTH  = 380;
+    public static final double HEIGHT = 120;
+
+    private final Label titleLabel;
+    private final Label artistLabel;
+    private final Label lyricLabel;
+    private final Button playPauseButton;
+    private final BorderPane root;
+
+    /**
+     * @param onPrev      上一曲
+     * @param onPlayPause 播放/暂停
+     * @param onNext      下一曲
+     * @param onExpand    返回完整窗口
+     */
+    public MiniPlayerView(Runnable onPrev, Runnable onPlayPause, Runnable onNext, Runnable onExpand) {
+        titleLabel = new Label("歌曲名");
+        titleLabel.setStyle("-fx-font-weight:bold; -fx-font-size:14px;");
+        artistLabel = new Label("艺术家");
+        artistLabel.setStyle("-fx-font-size:11px; -fx-text-fill: rgba(0,0,0,0.6);");
+        lyricLabel = new Label("");
+        lyricLabel.setStyle("-fx-font-size:13px; -fx-text-fill: rgb(255,100,100);");
+
+        VBox info = new VBox(2, titleLabel, artistLabel, lyricLabel);
+        info.setAlignment(Pos.CENTER_LEFT);
+
+        Button prev = createButton("\ue693", 18);       // icon-shangyiqu
+        playPauseButton = createButton("\ue692", 22);   // icon-zanting（“播放”）
+        Button next = createButton("\ue694", 18);       // icon-xiayiqu
+        Button expand = new Button("展开");
+        expand.setStyle("-fx-background-color: transparent; -fx-text-fill: rgba(0,0,0,0.6);");
+
+        prev.setOnAction(e -> onPrev.run());
+        playPauseButton.setOnAction(e -> onPlayPause.run());
+        next.setOnAction(e -> onNext.run());
+        expand.setOnAction(e -> onExpand.run());
+
+        HBox controls = new HBox(6, prev, playPauseButton, next, expand);
+        controls.setAlignment(Pos.CENTER_RIGHT);
+
+        root = new BorderPane();
+        root.setCenter(info);
+        root.setRight(controls);
+        root.setPadding(new Insets(10, 12, 10, 12));
+        root.setStyle("-fx-background-color: #F3E8FF;");
+    }
+
+    private static Button createButton(String textUnicode, double fontSize) {
+        Button btn = new Button(textUnicode);
+        btn.setFont(Font.font("iconfont", fontSize));
+        btn.setStyle("-fx-background-color: transparent; -fx-text-fill: rgba(0, 0, 0, 0.7);");
+        return btn;
+    }
+
+    /** 返回迷你界面的根节点 */
+    public Parent getRoot() {
+        return root;
+    }
+
+    /** 显示歌曲标题与艺术家 */
+    public void showSong(String title, String artist) {
+        titleLabel.setText(title);
+        artistLabel.setText(artist);
+    }
+
+    /** 显示当前歌词行 */
+    public void setLyric(String text) {
+        lyricLabel.setText(text);
+    }
+
+    /** 根据播放状态切换播放/暂停图标 */
+    public void setPlaying(boolean playing) {
+        playPauseButton.setText(playing ? "\ue690" : "\ue692");
+    }
+}
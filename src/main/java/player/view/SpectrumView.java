@@ -0,0 +1,94 @@
+// 文件：src/main/java/player/view/SpectrumView.java
+package player.view;
+
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.StrokeLineCap;
+import javafx.util.Duration;
+import player.util.SpectrumAnalyzer;
+
+/**
+ * 唱片周围的环形频谱
+ * <p>
+ * FX 线程只负责按约 30fps 绘制分析线程算好的最新频段，没有新帧时跳过绘制；
+ * 重绘 Timeline 交给 AnimationScheduler 调度，面板不可见时自动停止。
+ */
+public class SpectrumView {
+    private static final Color BAR_COLOR = Color.rgb(180, 120, 255, 0.55);
+
+    private final SpectrumAnalyzer analyzer;
+    private final Canvas canvas;
+    private final Timeline redraw;
+    private final double innerRadius;
+    private final double maxLength;
+    /** 每个频段的方向，预先算好避免每帧三角运算 */
+    private final double[] dirX;
+    private final double[] dirY;
+    private float[] lastDrawn;
+
+    /**
+     * @param analyzer    频谱数据来源
+     * @param size        画布边长
+     * @param innerRadius 频谱条起点半径（唱片外沿）
+     */
+    public SpectrumView(SpectrumAnalyzer analyzer, double size, double innerRadius) {
+        this.analyzer = analyzer;
+        this.canvas = new Canvas(size, size);
+        this.canvas.setMouseTransparent(true);
+        this.innerRadius = innerRadius;
+        this.maxLength = size / 2 - innerRadius - 2;
+
+        int bands = analyzer.getBandCount();
+        dirX = new double[bands];
+        dirY = new double[bands];
+        for (int i = 0; i < bands; i++) {
+            double angle = 2 * Math.PI * i / bands - Math.PI / 2;
+            dirX[i] = Math.cos(angle);
+            dirY[i] = Math.sin(angle);
+        }
+
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setStroke(BAR_COLOR);
+        gc.setLineWidth(3);
+        gc.setLineCap(StrokeLineCap.ROUND);
+
+        redraw = new Timeline(new KeyFrame(Duration.millis(33), e -> draw()));
+        redraw.setCycleCount(Animation.INDEFINITE);
+    }
+
+    /** 返回画布节点 */
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    /** 返回重绘动画，由调用方登记到调度器 */
+    public Timeline getRedrawTimeline() {
+        return redraw;
+    }
+
+    private void draw() {
+        float[] bands = analyzer.latestBands();
+        if (bands == lastDrawn) {
+            return; // 没有新帧
+        }
+        lastDrawn = bands;
+
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double w = canvas.getWidth();
+        double h = canvas.getHeight();
+        double cx = w / 2;
+        double cy = h / 2;
+        gc.clearRect(0, 0, w, h);
+        for (int i = 0; i < bands.length; i++) {
+            double len = bands[i] * maxLength;
+            if (len < 0.5) continue;
+            double x1 = cx + dirX[i] * innerRadius;
+            double y1 = cy + dirY[i] * innerRadius;
+            gc.strokeLine(x1, y1, x1 + dirX[i] * len, y1 + dirY[i] * len);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+// 文件：src/main/java/player/view/WaveformSeekBar.java
+package player.view;
+
+import javafx.scene.Cursor;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import player.util.WaveformAnalyzer;
+
+/**
+ * 底部的波形进度条：已播放部分与未播放部分分色绘制峰值与均方根
+ * <p>
+ * 尺寸或波形变化时把桶折算成每像素一列并整体重绘；播放位置变化时只重绘新旧分界之间的几列。
+ * 波形还没算好时画一条细线，与普通进度条一样可拖动。
+ */
+public final class WaveformSeekBar extends Region {
+    /** 出错等不确定进度时使用，整条按未播放绘制 */
+    public static final double INDETERMINATE_PROGRESS = -1;
+
+    private static final Color PLAYED_PEAK = Color.rgb(0, 114, 255, 0.45);
+    private static final Color PLAYED_RMS = Color.rgb(0, 114, 255);
+    private static final Color UNPLAYED_PEAK = Color.rgb(0, 0, 0, 0.12);
+    private static final Color UNPLAYED_RMS = Color.rgb(0, 0, 0, 0.25);
+
+    private final Canvas canvas = new Canvas();
+    private WaveformAnalyzer.Waveform waveform;
+    private double progress;
+    /** [0, playedColumns) 列按已播放绘制 */
+    private int playedColumns;
+    /** 每列的峰值与均方根（相对本曲最大峰值），0～1 */
+    private float[] columnPeak = new float[0];
+    private float[] columnRms = new float[0];
+
+    public WaveformSeekBar() {
+        getChildren().add(canvas);
+        setCursor(Cursor.HAND);
+    }
+
+    /** 设置当前曲目的波形，null 表示尚未算好 */
+    public void setWaveform(WaveformAnalyzer.Waveform waveform) {
+        if (waveform == this.waveform) return;
+        this.waveform = waveform;
+        rebuildColumns();
+        redraw(0, columnPeak.length);
+    }
+
+    /** 返回当前进度 */
+    public double getProgress() {
+        return progress;
+    }
+
+    /** 设置进度（0～1，或 {@link #INDETERMINATE_PROGRESS}），只重绘分界移动经过的列 */
+    public void setProgress(double progress) {
+        this.progress = progress;
+        int columns = progress < 0 ? 0 : (int) Math.round(Math.min(1.0, progress) * columnPeak.length);
+        if (columns == playedColumns) return;
+        int from = Math.min(columns, playedColumns);
+        int to = Math.max(columns, playedColumns);
+        playedColumns = columns;
+        redraw(from, to);
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double w = snapSizeX(getWidth());
+        double h = snapSizeY(getHeight());
+        if (w != canvas.getWidth() || h != canvas.getHeight()) {
+            canvas.setWidth(w);
+            canvas.setHeight(h);
+            rebuildColumns();
+            redraw(0, columnPeak.length);
+        }
+    }
+
+    /** 把桶折算成每像素一列，并按本曲最大峰值归一化 */
+    private void rebuildColumns() {
+        int width = (int) canvas.getWidth();
+        columnPeak = new float[width];
+        columnRms = new float[width];
+        playedColumns = progress < 0 ? 0 : (int) Math.round(Math.min(1.0, progress) * width);
+        if (waveform == null || waveform.size() == 0 || width == 0) {
+            return;
+        }
+        int buckets = waveform.size();
+        double max = 0;
+        for (int i = 0; i < buckets; i++) {
+            max = Math.max(max, waveform.peakAt(i));
+        }
+        if (max <= 0) {
+            return;
+        }
+        for (int x = 0; x < width; x++) {
+            int from = (int) ((long) x * buckets / width);
+            int to = Math.max(from + 1, (int) ((long) (x + 1) * buckets / width));
+            double peak = 0;
+            double rms = 0;
+            for (int i = from; i < to && i < buckets; i++) {
+                peak = Math.max(peak, waveform.peakAt(i));
+                rms = Math.max(rms, waveform.rmsAt(i));
+            }
+            columnPeak[x] = (float) (peak / max);
+            columnRms[x] = (float) Math.min(1.0, rms / max);
+        }
+    }
+
+    private void redraw(int from, int to) {
+        double h = canvas.getHeight();
+        if (to <= from || h <= 0) return;
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.clearRect(from, 0, to - from, h);
+        double mid = h / 2;
+        for (int x = from; x < to; x++) {
+            boolean played = x < playedColumns;
+            // 没有波形时峰值为 0，画成 2px 的细线
+            double peak = Math.max(1, columnPeak[x] * mid);
+            double rms = columnRms[x] * mid;
+            gc.setFill(played ? PLAYED_PEAK : UNPLAYED_PEAK);
+            gc.fillRect(x, mid - peak, 1, 2 * peak);
+            if (rms > 0) {
+                gc.setFill(played ? PLAYED_RMS : UNPLAYED_RMS);
+                gc.fillRect(x, mid - rms, 1, 2 * rms);
+            }
+        }
+    }
+}
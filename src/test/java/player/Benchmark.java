@@ -0,0 +1,61 @@
+// 文件：src/test/java/player/Benchmark.java
+package player;
+
+import java.util.Arrays;
+
+/**
+ * 极简的基准测试工具，供各 *Benchmark 类使用（mvn test -Pbench）
+ * <p>
+ * 先预热若干轮，再测若干轮，输出每次操作耗时的中位数与最小值；
+ * 每轮的返回值写入 volatile 字段，防止 JIT 把整段计算消掉。
+ */
+public final class Benchmark {
+    /** 一轮要测的代码，返回值只用于防止被优化掉 */
+    @FunctionalInterface
+    public interface Round {
+        Object run() throws Exception;
+    }
+
+    @SuppressWarnings("unused")
+    private static volatile Object sink;
+
+    private Benchmark() {
+    }
+
+    /**
+     * @param opsPerRound 每轮包含的操作次数，结果按单次操作折算
+     * @return 每次操作耗时的中位数（纳秒）
+     */
+    public static double measure(String name, int warmup, int rounds, long opsPerRound, Round round)
+            throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            sink = round.run();
+        }
+        double[] perOp = new double[rounds];
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            sink = round.run();
+            perOp[i] = (System.nanoTime() - start) / (double) opsPerRound;
+        }
+        Arrays.sort(perOp);
+        double median = perOp[rounds / 2];
+        System.out.printf("[bench] %s：中位数 %s，最小 %s（%d 轮）%n", name, format(median), format(perOp[0]), rounds);
+        return median;
+    }
+
+    /** 只测一轮，适合冷启动类的耗时 */
+    public static double once(String name, Round round) throws Exception {
+        long start = System.nanoTime();
+        sink = round.run();
+        double elapsed = System.nanoTime() - start;
+        System.out.printf("[bench] %s：%s%n", name, format(elapsed));
+        return elapsed;
+    }
+
+    private static String format(double nanos) {
+        if (nanos < 1e3) return String.format("%.1f ns", nanos);
+        if (nanos < 1e6) return String.format("%.1f µs", nanos / 1e3);
+        if (nanos < 1e9) return String.format("%.1f ms", nanos / 1e6);
+        return String.format("%.2f s", nanos / 1e9);
+    }
+}
@@ -0,0 +1,43 @@
+// 文件：src/test/java/player/model/LyricLineBenchmark.java
+package player.model;
+
+import org.junit.jupiter.api.Test;
+import player.Benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** 逐帧调用的 charPositionAt：12 个字词的增强 LRC 行与没有逐字时间的普通行 */
+class LyricLineBenchmark {
+    private static final int WORDS = 12;
+    private static final long LINE_START = 60_000;
+    private static final long LINE_END = LINE_START + WORDS * 400;
+    private static final int CALLS = 1_000_000;
+
+    private static double sweep(LyricLine line) {
+        double sum = 0;
+        for (int i = 0; i < CALLS; i++) {
+            // 按帧间隔约 16ms 扫过整行，前后各留一点越界的时刻
+            sum += line.charPositionAt(LINE_START - 100 + (i * 16L) % (LINE_END - LINE_START + 200), LINE_END);
+        }
+        return sum;
+    }
+
+    @Test
+    void charPositionAt() throws Exception {
+        StringBuilder text = new StringBuilder();
+        long[] times = new long[WORDS];
+        int[] offsets = new int[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            times[i] = LINE_START + i * 400L;
+            offsets[i] = text.length();
+            text.append("词").append(i).append(' ');
+        }
+        LyricLine karaoke = new LyricLine(LINE_START, text.toString(), times, offsets);
+        LyricLine plain = new LyricLine(LINE_START, text.toString());
+
+        Benchmark.measure("charPositionAt（逐字时间）", 5, 11, CALLS, () -> sweep(karaoke));
+        Benchmark.measure("charPositionAt（均匀推进）", 5, 11, CALLS, () -> sweep(plain));
+        assertEquals(text.length(), karaoke.charPositionAt(LINE_END, LINE_END));
+        assertEquals(0, karaoke.charPositionAt(LINE_START - 1, LINE_END));
+    }
+}
@@ -0,0 +1,55 @@
+// 文件：src/test/java/player/model/SongBenchmark.java
+package player.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** 每首歌常驻内存的大小：50k 首、每张专辑 12 首一个目录，按创建前后的堆增量折算 */
+class SongBenchmark {
+    private static final int TRACKS = 50_000;
+    private static final int PER_ALBUM = 12;
+    private static final int TARGET_BYTES = 256;
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // 多做几次 GC 取最小值，减少未回收垃圾带来的噪声
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+
+    @Test
+    void retainedBytesPerTrack() throws Exception {
+        Song[] songs = new Song[TRACKS];
+        long before = usedHeap();
+        for (int i = 0; i < TRACKS; i++) {
+            int album = i / PER_ALBUM;
+            int artist = album / 4;
+            // 标题与文件名是每首独有的新字符串，其余字段在同一专辑内重复
+            String title = "Track " + (i % PER_ALBUM + 1) + " of Album " + album;
+            File file = new File("/music/Artist " + artist + "/Album " + album,
+                    String.format("%02d - %s.flac", i % PER_ALBUM + 1, title));
+            songs[i] = new Song(file, title, "Artist " + artist, "Album " + album, "Artist " + artist,
+                    2000 + album % 25, "Rock", 240_000, 44_100, 16, 900, "FLAC 16 bits");
+        }
+        // 扣掉数组本身（每个元素一个引用），只算歌曲记录与它独占或分摊的字符串
+        long after = usedHeap();
+        long arrayBytes = 16L + 4L * TRACKS;
+        double perTrack = (after - before - arrayBytes) / (double) TRACKS;
+        System.out.printf("[bench] Song 常驻内存：每首约 %.0f 字节（%d 首，每目录 %d 首，目标 ≤ %d）%n",
+                perTrack, TRACKS, PER_ALBUM, TARGET_BYTES);
+
+        assertEquals("Track 1 of Album 0", songs[0].getTitle());
+        assertEquals(new File("/music/Artist 0/Album 0/01 - Track 1 of Album 0.flac").getAbsoluteFile(),
+                songs[0].getFile());
+        assertTrue(perTrack <= TARGET_BYTES, "每首 " + perTrack + " 字节，超过 " + TARGET_BYTES);
+    }
+}
@@ -0,0 +1,327 @@
+// 文件：src/test/java/player/util/FastTagReaderTest.java
+package player.util;
+
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.AudioHeader;
+import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/** 轻量标签读取与 jaudiotagger 对同一文件的结果一致；夹具在测试里按格式拼出，不带二进制文件 */
+class FastTagReaderTest {
+    /** MPEG-1 Layer III、128kbps、44.1kHz、立体声，每帧 417 字节 */
+    private static final byte[] MP3_FRAME_HEADER = {(byte) 0xFF, (byte) 0xFB, (byte) 0x90, 0x00};
+    private static final int MP3_FRAME_BYTES = 417;
+    private static final byte[] COVER = {(byte) 0x89, 'P', 'N', 'G', 13, 10, 26, 10, 1, 2, 3, 4};
+
+    @TempDir
+    Path dir;
+
+    // ========================= 夹具 =========================
+
+    private static final class Bytes extends ByteArrayOutputStream {
+        Bytes bytes(byte... b) {
+            writeBytes(b);
+            return this;
+        }
+
+        Bytes ascii(String s) {
+            return bytes(s.getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        Bytes text(String s, Charset cs) {
+            return bytes(s.getBytes(cs));
+        }
+
+        Bytes beInt(int v) {
+            return bytes(ByteBuffer.allocate(4).putInt(v).array());
+        }
+
+        Bytes leInt(int v) {
+            return bytes(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(v).array());
+        }
+
+        Bytes leShort(int v) {
+            return bytes((byte) v, (byte) (v >> 8));
+        }
+    }
+
+    private static byte[] syncsafe(int v) {
+        return new byte[]{(byte) (v >> 21 & 0x7F), (byte) (v >> 14 & 0x7F), (byte) (v >> 7 & 0x7F), (byte) (v & 0x7F)};
+    }
+
+    /** ID3v2 标签：frames 为拼好的帧 */
+    private static byte[] id3(int major, int flags, byte[]... frames) {
+        Bytes body = new Bytes();
+        for (byte[] frame : frames) body.bytes(frame);
+        body.bytes(new byte[32]); // 填充
+        return new Bytes().ascii("ID3").bytes((byte) major, (byte) 0, (byte) flags)
+                .bytes(syncsafe(body.size())).bytes(body.toByteArray()).toByteArray();
+    }
+
+    private static byte[] frame(int major, String id, int formatFlags, byte[] body) {
+        Bytes out = new Bytes().ascii(id);
+        out.bytes(major == 4 ? syncsafe(body.length) : ByteBuffer.allocate(4).putInt(body.length).array());
+        return out.bytes((byte) 0, (byte) formatFlags).bytes(body).toByteArray();
+    }
+
+    /** 文本帧：编码 1 为带 BOM 的 UTF-16，3 为 UTF-8 */
+    private static byte[] textFrame(int major, String id, int encoding, String text) {
+        return frame(major, id, 0, new Bytes().bytes((byte) encoding).text(text, charset(encoding)).toByteArray());
+    }
+
+    private static Charset charset(int encoding) {
+        return encoding == 1 ? StandardCharsets.UTF_16 : encoding == 3 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1;
+    }
+
+    private static byte[] terminator(int encoding) {
+        return encoding == 1 ? new byte[2] : new byte[1];
+    }
+
+    private static byte[] usltFrame(int major, int encoding, String lyrics) {
+        return frame(major, "USLT", 0, new Bytes().bytes((byte) encoding).ascii("chi")
+                .text("desc", charset(encoding)).bytes(terminator(encoding))
+                .text(lyrics, charset(encoding)).toByteArray());
+    }
+
+    private static byte[] apicFrame(int major, int encoding) {
+        return frame(major, "APIC", 0, new Bytes().bytes((byte) encoding).ascii("image/png").bytes((byte) 0)
+                .bytes((byte) 3).text("封面", charset(encoding)).bytes(terminator(encoding))
+                .bytes(COVER).toByteArray());
+    }
+
+    private static byte[] txxxFrame(int major, String description, String value) {
+        return frame(major, "TXXX", 0, new Bytes().bytes((byte) 3).text(description, StandardCharsets.UTF_8)
+                .bytes((byte) 0).text(value, StandardCharsets.UTF_8).toByteArray());
+    }
+
+    /** frames 个相同的 CBR 帧；xing 时第一帧带 Xing 头（帧数 + 字节数），即 LAME 写出的 VBR 文件 */
+    private static byte[] mp3Audio(int frames, boolean xing) {
+        Bytes out = new Bytes();
+        for (int i = 0; i < frames; i++) {
+            byte[] frame = new byte[MP3_FRAME_BYTES];
+            System.arraycopy(MP3_FRAME_HEADER, 0, frame, 0, 4);
+            if (i == 0 && xing) {
+                ByteBuffer.wrap(frame, 4 + 32, 16).put("Xing".getBytes(StandardCharsets.ISO_8859_1))
+                        .putInt(3).putInt(frames).putInt(frames * MP3_FRAME_BYTES);
+            }
+            out.bytes(frame);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] id3v1(String title, String artist, String album, String year) {
+        byte[] tag = new byte[128];
+        ByteBuffer b = ByteBuffer.wrap(tag).put("TAG".getBytes(StandardCharsets.ISO_8859_1));
+        b.position(3).put(title.getBytes(StandardCharsets.ISO_8859_1));
+        b.position(33).put(artist.getBytes(StandardCharsets.ISO_8859_1));
+        b.position(63).put(album.getBytes(StandardCharsets.ISO_8859_1));
+        b.position(93).put(year.getBytes(StandardCharsets.ISO_8859_1));
+        tag[127] = (byte) 255;
+        return tag;
+    }
+
+    private static byte[] flac(String... comments) {
+        Bytes streamInfo = new Bytes().bytes(new byte[]{0x10, 0, 0x10, 0, 0, 0, 0, 0, 0, 0});
+        long samples = 44100L * 3;
+        // 采样率 20 位、声道数 - 1 占 3 位、位深 - 1 占 5 位、总采样数 36 位
+        long packed = (44100L << 44) | (1L << 41) | (15L << 36) | samples;
+        streamInfo.bytes(ByteBuffer.allocate(8).putLong(packed).array()).bytes(new byte[16]);
+
+        Bytes vorbis = new Bytes().leInt(6).ascii("vendor").leInt(comments.length);
+        for (String comment : comments) {
+            byte[] c = comment.getBytes(StandardCharsets.UTF_8);
+            vorbis.leInt(c.length).bytes(c);
+        }
+        Bytes picture = new Bytes().beInt(3).beInt(9).ascii("image/png").beInt(0)
+                .beInt(1).beInt(1).beInt(24).beInt(0).beInt(COVER.length).bytes(COVER);
+
+        Bytes out = new Bytes().ascii("fLaC");
+        block(out, 0, false, streamInfo.toByteArray());
+        block(out, 4, false, vorbis.toByteArray());
+        block(out, 6, true, picture.toByteArray());
+        return out.bytes(new byte[4096]).toByteArray();
+    }
+
+    private static void block(Bytes out, int type, boolean last, byte[] body) {
+        out.beInt((last ? 0x80000000 : 0) | type << 24 | body.length).bytes(body);
+    }
+
+    private static byte[] wavWithInfo(Charset infoCharset, String title, String artist, String album) {
+        Bytes info = new Bytes().ascii("INFO");
+        infoChunk(info, "INAM", title.getBytes(infoCharset));
+        infoChunk(info, "IART", artist.getBytes(infoCharset));
+        infoChunk(info, "IPRD", album.getBytes(infoCharset));
+        int dataBytes = 44100 * 4 * 2;
+        Bytes body = new Bytes().ascii("WAVE")
+                .ascii("fmt ").leInt(16).leShort(1).leShort(2).leInt(44100).leInt(44100 * 4).leShort(4).leShort(16)
+                .ascii("data").leInt(dataBytes).bytes(new byte[dataBytes])
+                .ascii("LIST").leInt(info.size()).bytes(info.toByteArray());
+        return new Bytes().ascii("RIFF").leInt(body.size()).bytes(body.toByteArray()).toByteArray();
+    }
+
+    private static void infoChunk(Bytes info, String id, byte[] text) {
+        int size = text.length + 1;
+        info.ascii(id).leInt(size).bytes(text).bytes((byte) 0);
+        if ((size & 1) != 0) info.bytes((byte) 0);
+    }
+
+    private File write(String name, byte[]... parts) throws IOException {
+        Bytes all = new Bytes();
+        for (byte[] part : parts) all.bytes(part);
+        return Files.write(dir.resolve(name), all.toByteArray()).toFile();
+    }
+
+    // ========================= 比对 =========================
+
+    /** 文本字段与音频信息同 jaudiotagger 一致，时长允许 30ms 的取整差 */
+    private static FastTagReader.Tags assertSameAsJaudiotagger(File file) throws Exception {
+        FastTagReader.Tags fast = FastTagReader.read(file, true);
+        assertNotNull(fast, "轻量读取不应放弃：" + file.getName());
+        AudioFile audio = AudioFileIO.read(file);
+        Tag tag = audio.getTag();
+        assertEquals(tag.getFirst(FieldKey.TITLE), fast.title);
+        assertEquals(tag.getFirst(FieldKey.ARTIST), fast.artist);
+        assertEquals(tag.getFirst(FieldKey.ALBUM), fast.album);
+        assertEquals(tag.getFirst(FieldKey.YEAR), fast.year);
+        AudioHeader header = audio.getAudioHeader();
+        assertEquals(header.getSampleRateAsNumber(), fast.sampleRate);
+        assertEquals(header.getPreciseTrackLength() * 1000, fast.durationMillis, 30);
+        return fast;
+    }
+
+    // ========================= mp3 =========================
+
+    @Test
+    void id3v23WithUtf16LyricsAndCover() throws Exception {
+        File file = write("v23.mp3", id3(3, 0,
+                textFrame(3, "TIT2", 1, "晴天"),
+                textFrame(3, "TPE1", 1, "周杰伦"),
+                textFrame(3, "TALB", 0, "Ye Hui Mei"),
+                textFrame(3, "TYER", 0, "2003"),
+                textFrame(3, "TCON", 0, "Pop"),
+                usltFrame(3, 1, "故事的小黄花\n从出生那年就飘着"),
+                apicFrame(3, 1)), mp3Audio(200, false));
+
+        FastTagReader.Tags fast = assertSameAsJaudiotagger(file);
+        Tag tag = AudioFileIO.read(file).getTag();
+        assertEquals(tag.getFirst(FieldKey.GENRE), fast.genre);
+        assertEquals(tag.getFirst(FieldKey.LYRICS), fast.lyrics);
+        assertArrayEquals(tag.getFirstArtwork().getBinaryData(), fast.artwork);
+        assertEquals("晴天", fast.title);
+        assertEquals("故事的小黄花\n从出生那年就飘着", fast.lyrics);
+        assertEquals("MPEG-1 Layer 3", fast.codec);
+    }
+
+    @Test
+    void id3v24WithUtf8TextAndUtf16Lyrics() throws Exception {
+        File file = write("v24.mp3", id3(4, 0,
+                textFrame(4, "TIT2", 3, "七里香"),
+                textFrame(4, "TPE1", 3, "周杰伦"),
+                textFrame(4, "TALB", 3, "七里香"),
+                textFrame(4, "TDRC", 3, "2004"),
+                usltFrame(4, 1, "窗外的麻雀"),
+                apicFrame(4, 3),
+                txxxFrame(4, "REPLAYGAIN_TRACK_GAIN", "-6.50 dB"),
+                txxxFrame(4, "REPLAYGAIN_TRACK_PEAK", "0.988")), mp3Audio(200, false));
+
+        FastTagReader.Tags fast = assertSameAsJaudiotagger(file);
+        Tag tag = AudioFileIO.read(file).getTag();
+        assertEquals(tag.getFirst(FieldKey.LYRICS), fast.lyrics);
+        assertArrayEquals(tag.getFirstArtwork().getBinaryData(), fast.artwork);
+        assertEquals("窗外的麻雀", fast.lyrics);
+
+        FastTagReader.Tags gain = FastTagReader.readGain(file);
+        assertNotNull(gain);
+        assertEquals("-6.50 dB", gain.trackGain);
+        assertEquals("0.988", gain.trackPeak);
+    }
+
+    @Test
+    void id3v1OnlyMp3() throws Exception {
+        File file = write("v1.mp3", mp3Audio(100, false), id3v1("Old Song", "Old Band", "Old Album", "1999"));
+
+        FastTagReader.Tags fast = assertSameAsJaudiotagger(file);
+        assertEquals("Old Song", fast.title);
+        assertEquals("Old Band", fast.artist);
+    }
+
+    @Test
+    void xingVbrAndCbrDurations() throws Exception {
+        File vbr = write("vbr.mp3", id3(3, 0, textFrame(3, "TIT2", 0, "VBR")), mp3Audio(300, true));
+        File cbr = write("cbr.mp3", id3(3, 0, textFrame(3, "TIT2", 0, "CBR")), mp3Audio(300, false));
+
+        FastTagReader.Tags fastVbr = assertSameAsJaudiotagger(vbr);
+        FastTagReader.Tags fastCbr = assertSameAsJaudiotagger(cbr);
+        // 300 帧 × 1152 / 44100 ≈ 7836ms
+        assertEquals(7836, fastVbr.durationMillis, 30);
+        assertEquals(7836, fastCbr.durationMillis, 30);
+        assertEquals(128, fastCbr.bitrate);
+        assertEquals(AudioFileIO.read(cbr).getAudioHeader().getBitRateAsNumber(), fastCbr.bitrate);
+    }
+
+    @Test
+    void unusualId3LayoutsFallBack() throws Exception {
+        byte[] audio = mp3Audio(50, false);
+        // ID3v2.2 的帧 ID 只有三个字符
+        File v22 = write("v22.mp3", new Bytes().ascii("ID3").bytes(new byte[]{2, 0, 0}).bytes(syncsafe(16))
+                .ascii("TT2").bytes(new byte[]{0, 0, 5, 0}).ascii("Song").bytes(new byte[3]).toByteArray(), audio);
+        File unsynchronised = write("unsync.mp3", id3(3, 0x80, textFrame(3, "TIT2", 0, "Song")), audio);
+        File compressed = write("compressed.mp3",
+                id3(3, 0, frame(3, "TIT2", 0x80, new byte[]{0, 0, 0, 0, 8, 'x', 'x'})), audio);
+
+        assertNull(FastTagReader.read(v22, false));
+        assertNull(FastTagReader.read(unsynchronised, false));
+        assertNull(FastTagReader.read(compressed, false));
+    }
+
+    // ========================= FLAC / wav =========================
+
+    @Test
+    void flacWithVorbisCommentAndPicture() throws Exception {
+        File file = write("tagged.flac", flac("TITLE=稻香", "ARTIST=周杰伦", "ALBUM=魔杰座", "DATE=2008",
+                "GENRE=Pop", "LYRICS=还记得你说家是唯一的城堡", "REPLAYGAIN_TRACK_GAIN=-3.20 dB"));
+
+        FastTagReader.Tags fast = assertSameAsJaudiotagger(file);
+        Tag tag = AudioFileIO.read(file).getTag();
+        assertEquals(tag.getFirst(FieldKey.GENRE), fast.genre);
+        assertEquals(tag.getFirst(FieldKey.LYRICS), fast.lyrics);
+        assertArrayEquals(tag.getFirstArtwork().getBinaryData(), fast.artwork);
+        assertEquals("还记得你说家是唯一的城堡", fast.lyrics);
+        assertEquals(16, fast.bitsPerSample);
+        assertEquals("-3.20 dB", FastTagReader.readGain(file).trackGain);
+    }
+
+    @Test
+    void wavWithGbkInfo() throws Exception {
+        File file = write("info.wav", wavWithInfo(Charset.forName("GBK"), "蜗牛", "周杰伦", "我很忙"));
+
+        FastTagReader.Tags fast = FastTagReader.read(file, false);
+        assertNotNull(fast);
+        // jaudiotagger 不识别 GBK，文本只比对期望值，音频信息与它比对
+        assertEquals("蜗牛", fast.title);
+        assertEquals("周杰伦", fast.artist);
+        assertEquals("我很忙", fast.album);
+        AudioHeader header = AudioFileIO.read(file).getAudioHeader();
+        assertEquals(header.getSampleRateAsNumber(), fast.sampleRate);
+        assertEquals(header.getBitsPerSample(), fast.bitsPerSample);
+        assertEquals(header.getPreciseTrackLength() * 1000, fast.durationMillis, 30);
+    }
+}
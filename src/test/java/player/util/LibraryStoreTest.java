@@ -0,0 +1,223 @@
+// 文件：src/test/java/player/util/LibraryStoreTest.java
+package player.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import player.model.Song;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** 排序缓存：翻页取自同一次排序，写入后作废，按分类筛选；排序键在文本无人使用后丢弃；快照与日志在重启后读回，日志尾部损坏时忽略，按阈值压缩 */
+class LibraryStoreTest {
+    private final Semaphore batches = new Semaphore(0);
+    private final Path snapshot = AppFiles.resolve("library.idx");
+    private final Path log = AppFiles.resolve("library.log");
+    /** 模拟崩溃时没有关闭的旧实例，测试结束时一并关闭 */
+    private final List<LibraryStore> crashed = new ArrayList<>();
+    private LibraryStore store;
+
+    @BeforeEach
+    void openEmptyStore() throws IOException {
+        Files.deleteIfExists(AppFiles.resolve("library.idx"));
+        Files.deleteIfExists(AppFiles.resolve("library.log"));
+        store = new LibraryStore(batches::release);
+    }
+
+    @AfterEach
+    void close() {
+        store.close();
+        crashed.forEach(LibraryStore::close);
+    }
+
+    /** 正常关闭（写快照）后重新打开 */
+    private void restart() {
+        store.close();
+        store = new LibraryStore(batches::release);
+    }
+
+    /** 不关闭旧实例直接重新打开，只能靠已刷盘的日志恢复 */
+    private void crashAndReopen() {
+        crashed.add(store);
+        store = new LibraryStore(batches::release);
+    }
+
+    private static Song song(String name, String title, String artist, String album, long durationMillis) {
+        return new Song(new File("/music/" + name + ".mp3"), title, artist, album, "", 0, "",
+                durationMillis, 44100, 16, 320, "MPEG-1 Layer 3");
+    }
+
+    private void awaitBatch() throws InterruptedException {
+        assertTrue(batches.tryAcquire(5, TimeUnit.SECONDS), "写入批次未完成");
+    }
+
+    private static List<String> titles(List<LibraryStore.Track> tracks) {
+        return tracks.stream().map(LibraryStore.Track::title).toList();
+    }
+
+    @Test
+    void pagesComeFromOneSortedView() throws InterruptedException {
+        List<Song> songs = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // 标题与插入顺序错开
+            songs.add(song("s" + i, String.format("t%03d", (i * 7919) % 500), "a", "b", i));
+        }
+        store.sync(songs);
+        awaitBatch();
+
+        List<LibraryStore.Track> all = store.query(null, null, LibraryStore.Sort.TITLE, 0, Integer.MAX_VALUE);
+        assertEquals(500, all.size());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals(String.format("t%03d", i), all.get(i).title());
+        }
+        List<LibraryStore.Track> paged = new ArrayList<>();
+        for (int offset = 0; offset < 500; offset += 64) {
+            paged.addAll(store.query(null, null, LibraryStore.Sort.TITLE, offset, 64));
+        }
+        assertEquals(all, paged);
+        assertEquals(List.of(), store.query(null, null, LibraryStore.Sort.TITLE, 600, 64));
+    }
+
+    @Test
+    void writesInvalidateCachedOrder() throws InterruptedException {
+        Song b = song("b", "b", "x", "y", 2000);
+        Song c = song("c", "c", "x", "y", 1000);
+        store.sync(List.of(b, c));
+        awaitBatch();
+        assertEquals(List.of("b", "c"), titles(store.query(null, null, LibraryStore.Sort.TITLE, 0, 10)));
+        assertEquals(List.of("c", "b"), titles(store.query(null, null, LibraryStore.Sort.DURATION, 0, 10)));
+
+        store.apply(List.of(song("a", "a", "x", "y", 1500)), List.of(c.getFile()));
+        awaitBatch();
+        assertEquals(List.of("a", "b"), titles(store.query(null, null, LibraryStore.Sort.TITLE, 0, 10)));
+        assertEquals(List.of("a", "b"), titles(store.query(null, null, LibraryStore.Sort.DURATION, 0, 10)));
+    }
+
+    @Test
+    void filtersByFieldAndSortsWithinIt() throws InterruptedException {
+        store.sync(List.of(
+                song("1", "z", "Artist A", "Second", 1),
+                song("2", "y", "Artist B", "First", 1),
+                song("3", "x", "artist a", "First", 1),
+                song("4", "w", "Artist A", "First", 1)));
+        awaitBatch();
+
+        // 取值不区分大小写，专辑 → 标题
+        List<LibraryStore.Track> tracks = store.query(LibraryStore.Field.ARTIST, "ARTIST A",
+                LibraryStore.Sort.ALBUM, 0, 10);
+        assertEquals(List.of("w", "x", "z"), titles(tracks));
+        assertEquals(3, store.count(LibraryStore.Field.ARTIST, "artist a"));
+        assertEquals(List.of(), store.query(LibraryStore.Field.ARTIST, "nobody", LibraryStore.Sort.TITLE, 0, 10));
+    }
+
+    @Test
+    void sortKeysLastWhileAnyTrackUsesTheText() throws InterruptedException {
+        store.sync(List.of(
+                song("k1", "keys-old", "keys-artist", "keys-album", 1),
+                song("k2", "keys-shared", "keys-artist", "keys-album", 1),
+                song("k3", "keys-shared", "keys-artist", "keys-album", 1)));
+        awaitBatch();
+        store.query(null, null, LibraryStore.Sort.ARTIST, 0, 10);
+        assertTrue(SortKeys.isCached("keys-old"));
+
+        // 改标题并删掉一首：旧标题已无人使用，共享的标题与艺术家仍有曲目用到
+        store.apply(List.of(song("k1", "keys-new", "keys-artist", "keys-album", 1)),
+                List.of(new File("/music/k3.mp3")));
+        awaitBatch();
+        assertFalse(SortKeys.isCached("keys-old"));
+        assertTrue(SortKeys.isCached("keys-shared"));
+        assertTrue(SortKeys.isCached("keys-artist"));
+        assertTrue(SortKeys.isCached("keys-album"));
+    }
+
+    @Test
+    void reloadsFromSnapshotAndLogAcrossRestarts() throws Exception {
+        Song a = song("a", "a", "x", "y", 1000);
+        Song b = song("b", "b", "x", "z", 2000);
+        Song c = song("c", "c", "w", "z", 3000);
+        store.sync(List.of(a, b, c));
+        awaitBatch();
+        List<LibraryStore.Track> before = store.query(null, null, LibraryStore.Sort.TITLE, 0, 10);
+
+        restart();
+        assertEquals(before, store.query(null, null, LibraryStore.Sort.TITLE, 0, 10));
+        assertEquals(2, store.count(LibraryStore.Field.ARTIST, "x"));
+
+        // 删除与修改只在日志里，没有写快照
+        store.apply(List.of(song("a", "a2", "x", "y", 1000)), List.of(c.getFile()));
+        awaitBatch();
+        assertTrue(Files.size(log) > 8);
+        crashAndReopen();
+        assertEquals(List.of("a2", "b"), titles(store.query(null, null, LibraryStore.Sort.TITLE, 0, 10)));
+        assertEquals(before.getFirst().addedAt(), store.get(a.getFile().getAbsolutePath()).addedAt());
+        assertEquals(0, store.count(LibraryStore.Field.ARTIST, "w"));
+
+        restart();
+        assertEquals(List.of("a2", "b"), titles(store.query(null, null, LibraryStore.Sort.TITLE, 0, 10)));
+    }
+
+    @Test
+    void ignoresATornLogTail() throws Exception {
+        store.sync(List.of(song("a", "a", "x", "y", 1000), song("b", "b", "x", "y", 2000)));
+        awaitBatch();
+        // 崩溃时写了一半的记录：操作码、id 与半截路径
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(log, StandardOpenOption.APPEND))) {
+            out.writeByte(1);
+            out.writeInt(2);
+            out.writeShort(40);
+            out.writeBytes("/music/tor");
+        }
+        crashAndReopen();
+        assertEquals(List.of("a", "b"), titles(store.query(null, null, LibraryStore.Sort.TITLE, 0, 10)));
+
+        // 打开时已压缩，损坏的尾部不会挡住之后追加的记录
+        store.apply(List.of(song("c", "c", "x", "y", 3000)), List.of());
+        awaitBatch();
+        crashAndReopen();
+        assertEquals(List.of("a", "b", "c"), titles(store.query(null, null, LibraryStore.Sort.TITLE, 0, 10)));
+    }
+
+    @Test
+    void compactsOnceTheLogOutgrowsHalfTheLibrary() throws Exception {
+        List<Song> songs = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            songs.add(song("s" + i, "t" + i, "a", "b", i));
+        }
+        // 3000 条 > max(1024, 1500)：写完即压缩，日志只剩文件头
+        store.sync(songs);
+        awaitBatch();
+        assertEquals(8, Files.size(log));
+        assertTrue(Files.isRegularFile(snapshot));
+
+        // 1100 条超过 1024，但没超过曲目数的一半，继续追加
+        store.apply(retitled(songs.subList(0, 1100), "u"), List.of());
+        awaitBatch();
+        assertTrue(Files.size(log) > 8);
+
+        store.apply(retitled(songs.subList(1100, 1600), "u"), List.of());
+        awaitBatch();
+        assertEquals(8, Files.size(log));
+        crashAndReopen();
+        assertEquals(3000, store.size());
+        assertEquals("u0", store.get(songs.getFirst().getFile().getAbsolutePath()).title());
+        assertEquals("u1599", store.get(songs.get(1599).getFile().getAbsolutePath()).title());
+    }
+
+    private static List<Song> retitled(List<Song> songs, String prefix) {
+        return songs.stream().map(s -> new Song(s.getFile(), prefix + s.getTitle().substring(1), s.getArtist(),
+                s.getAlbum(), "", 0, "", s.getDurationMillis(), 44100, 16, 320, "MPEG-1 Layer 3")).toList();
+    }
+}
@@ -0,0 +1,110 @@
+// 文件：src/test/java/player/util/MediaPreparserTest.java
+package player.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import player.model.Song;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** 预解析的筛选与攒批：解析换成假实现，不需要 libvlc */
+class MediaPreparserTest {
+    @TempDir
+    Path dir;
+
+    private final BlockingQueue<List<Song>> batches = new LinkedBlockingQueue<>();
+    private final AtomicInteger parses = new AtomicInteger();
+    private ScanQuarantine quarantine;
+    private MediaPreparser preparser;
+
+    @BeforeEach
+    void clearQuarantine() throws IOException {
+        Files.deleteIfExists(AppFiles.resolve("quarantine.bin"));
+        quarantine = new ScanQuarantine();
+    }
+
+    @AfterEach
+    void close() {
+        if (preparser != null) {
+            preparser.close();
+        }
+    }
+
+    private void start(long parseMillis) {
+        UnaryOperator<Song> parser = song -> {
+            parses.incrementAndGet();
+            try {
+                Thread.sleep(parseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return new Song(song.getFile(), song.getTitle(), "", "", "", 0, "", 1000, 44100, 0, 128, "Opus");
+        };
+        preparser = new MediaPreparser(null, parser, batches::add, quarantine);
+    }
+
+    private Song song(String name, long durationMillis, String codec) throws IOException {
+        File file = Files.writeString(dir.resolve(name), name).toFile();
+        return new Song(file, name, "", "", "", 0, "", durationMillis, 0, 0, 0, codec);
+    }
+
+    @Test
+    void submitsOnlyIncompleteSongsOnce() throws Exception {
+        start(0);
+        Song incomplete = song("a.opus", 0, "");
+        Song complete = song("b.mp3", 1000, "MP3");
+        Song failedBefore = song("c.ape", 0, "");
+        quarantine.reportNative(failedBefore.getFile(), "libvlc 解析失败");
+
+        preparser.submit(List.of(incomplete, complete, failedBefore));
+        List<Song> batch = batches.poll(5, TimeUnit.SECONDS);
+        assertNotNull(batch);
+        assertEquals(List.of(incomplete.getFile()), batch.stream().map(Song::getFile).toList());
+        assertEquals(1000, batch.getFirst().getDurationMillis());
+
+        // 同一文件没有变化时不再提交
+        preparser.submit(List.of(incomplete));
+        assertNull(batches.poll(600, TimeUnit.MILLISECONDS));
+        assertEquals(1, parses.get());
+    }
+
+    @Test
+    void deliversBatchesWhileParsingContinues() throws Exception {
+        start(100);
+        List<Song> songs = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            songs.add(song("s" + i + ".opus", 0, ""));
+        }
+        preparser.submit(songs);
+
+        // 两个线程各 100ms 一首，全部解析完约需 1 秒；第一批在 300ms 攒批延迟后就该到达
+        List<Song> first = batches.poll(5, TimeUnit.SECONDS);
+        assertNotNull(first);
+        assertTrue(first.size() < songs.size(), "第一批应在全部解析完成前到达，实际 " + first.size());
+        int delivered = first.size();
+        while (delivered < songs.size()) {
+            List<Song> batch = batches.poll(5, TimeUnit.SECONDS);
+            assertNotNull(batch, "只收到 " + delivered + " 首");
+            delivered += batch.size();
+        }
+        assertEquals(songs.size(), delivered);
+    }
+}
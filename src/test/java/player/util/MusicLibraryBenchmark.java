@@ -0,0 +1,74 @@
+// 文件：src/test/java/player/util/MusicLibraryBenchmark.java
+package player.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import player.Benchmark;
+import player.model.Song;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/** 打开一个 5 万首的目录：第一首解析完（即可以开始播放）的耗时，与遍历完整棵树的耗时对比 */
+class MusicLibraryBenchmark {
+    private static final int DIRS = 500;
+    private static final int FILES_PER_DIR = 100;
+    private static final int FRAMES = 441;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void firstSongOfA50kDirectory() throws Exception {
+        // 44 字节头 + 10ms 静音的 wav，音频头能读出，整棵树约 90MB
+        byte[] wav = new byte[44 + FRAMES * 4];
+        System.arraycopy("RIFF".getBytes(), 0, wav, 0, 4);
+        putInt(wav, 4, wav.length - 8);
+        System.arraycopy("WAVEfmt ".getBytes(), 0, wav, 8, 8);
+        putInt(wav, 16, 16);
+        wav[20] = 1;
+        wav[22] = 2;
+        putInt(wav, 24, 44100);
+        putInt(wav, 28, 44100 * 4);
+        wav[32] = 4;
+        wav[34] = 16;
+        System.arraycopy("data".getBytes(), 0, wav, 36, 4);
+        putInt(wav, 40, FRAMES * 4);
+        for (int d = 0; d < DIRS; d++) {
+            Path sub = Files.createDirectories(dir.resolve(String.format("artist%03d/album", d)));
+            for (int f = 0; f < FILES_PER_DIR; f++) {
+                Files.write(sub.resolve(String.format("%03d.wav", f)), wav);
+            }
+        }
+        List<File> paths = List.of(dir.toFile());
+
+        Benchmark.once("5 万首的目录：解析出第一首", () -> {
+            Iterator<File> files = MusicLibrary.audioFiles(paths);
+            Song song = null;
+            while (song == null && files.hasNext()) {
+                song = MusicLibrary.parseSongFile(files.next());
+            }
+            assertNotNull(song);
+            return song.getLyrics();
+        });
+        Benchmark.once("5 万首的目录：遍历完整棵树（不解析）", () -> {
+            int n = 0;
+            for (Iterator<File> files = MusicLibrary.audioFiles(paths); files.hasNext(); files.next()) {
+                n++;
+            }
+            return n;
+        });
+    }
+
+    private static void putInt(byte[] b, int at, int v) {
+        b[at] = (byte) v;
+        b[at + 1] = (byte) (v >> 8);
+        b[at + 2] = (byte) (v >> 16);
+        b[at + 3] = (byte) (v >> 24);
+    }
+}
@@ -0,0 +1,44 @@
+// 文件：src/test/java/player/util/MusicLibraryTest.java
+package player.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** 打开的路径边遍历边给出：深度优先、每层按名称排序，跳过不支持的格式 */
+class MusicLibraryTest {
+    @TempDir
+    Path dir;
+
+    private File touch(String relative) throws IOException {
+        Path path = dir.resolve(relative);
+        Files.createDirectories(path.getParent());
+        return Files.createFile(path).toFile();
+    }
+
+    @Test
+    void walksDepthFirstInNameOrder() throws IOException {
+        File z = touch("z.mp3");
+        File a2 = touch("a/2.flac");
+        File a1 = touch("a/1.mp3");
+        File deep = touch("b/c/x.ogg");
+        touch("b/notes.txt");
+        File y = touch("y.WAV");
+        Files.createDirectories(dir.resolve("empty"));
+
+        List<File> files = new ArrayList<>();
+        Iterator<File> it = MusicLibrary.audioFiles(List.of(dir.toFile(), z, new File(dir.toFile(), "missing.mp3")));
+        it.forEachRemaining(files::add);
+
+        assertEquals(List.of(a1, a2, deep, y, z, z), files);
+    }
+}
@@ -0,0 +1,47 @@
+// 文件：src/test/java/player/util/PlayHistoryBenchmark.java
+package player.util;
+
+import org.junit.jupiter.api.Test;
+import player.Benchmark;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** “最近 30 天播放最多的 100 首”：4000 首曲目、一年多每天 150 次播放的历史 */
+class PlayHistoryBenchmark {
+    private static final int TRACKS = 4000;
+    private static final int DAYS = 400;
+    private static final int PLAYS_PER_DAY = 150;
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    @Test
+    void topPlayedLast30Days() throws Exception {
+        Files.deleteIfExists(AppFiles.resolve("history.idx"));
+        List<String> paths = new ArrayList<>(TRACKS);
+        for (int i = 0; i < TRACKS; i++) {
+            paths.add("/music/artist" + (i % 200) + "/track" + i + ".flac");
+        }
+        // 播放集中在少数曲目上：下标取两个随机数中较小的一个
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        List<PlayHistoryTest.LoggedEvent> events = new ArrayList<>(DAYS * PLAYS_PER_DAY);
+        for (int day = DAYS - 1; day >= 0; day--) {
+            for (int i = 0; i < PLAYS_PER_DAY; i++) {
+                int track = Math.min(random.nextInt(TRACKS), random.nextInt(TRACKS));
+                events.add(new PlayHistoryTest.LoggedEvent(PlayHistory.Kind.PLAY, track,
+                        now - day * DAY_MILLIS - random.nextInt(3_600_000)));
+            }
+        }
+        PlayHistoryTest.writeLog(paths, events);
+
+        try (PlayHistory history = new PlayHistory()) {
+            Benchmark.measure("最近 30 天播放最多的 100 首", 2000, 201, 1, () -> history.topPlayed(30, 100));
+            Benchmark.measure("全部时间播放最多的 100 首", 2000, 201, 1, () -> history.topPlayed(0, 100));
+            assertEquals(100, history.topPlayed(30, 100).size());
+        }
+    }
+}
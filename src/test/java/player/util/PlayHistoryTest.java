@@ -0,0 +1,138 @@
+// 文件：src/test/java/player/util/PlayHistoryTest.java
+package player.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/** 播放次数、最近播放与跳过的统计，按天的时间窗口，以及快照与日志重放后统计不变 */
+class PlayHistoryTest {
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private PlayHistory history;
+
+    @BeforeEach
+    void clearHistory() throws IOException {
+        Files.deleteIfExists(AppFiles.resolve("history.idx"));
+        Files.deleteIfExists(AppFiles.resolve("history.log"));
+    }
+
+    @AfterEach
+    void close() {
+        if (history != null) {
+            history.close();
+        }
+    }
+
+    private static File track(int n) {
+        return new File("/music/track" + n + ".flac");
+    }
+
+    /** 一条历史事件，用于直接写日志来构造过去的播放记录 */
+    record LoggedEvent(PlayHistory.Kind kind, int pathIndex, long time) {
+    }
+
+    /** 按 history.log 的格式写出路径表与事件，time 可以是任意过去的时刻 */
+    static void writeLog(List<String> paths, List<LoggedEvent> events) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(AppFiles.resolve("history.log"))))) {
+            out.writeInt(0x4849534C);
+            out.writeInt(1);
+            for (String path : paths) {
+                out.writeByte(1);
+                out.writeUTF(path);
+            }
+            for (LoggedEvent e : events) {
+                out.writeByte(2);
+                out.writeByte(e.kind().ordinal());
+                out.writeInt(e.pathIndex());
+                out.writeLong(e.time());
+                out.writeInt(0);
+            }
+        }
+    }
+
+    private static List<String> paths(List<PlayHistory.Stat> stats) {
+        return stats.stream().map(PlayHistory.Stat::path).toList();
+    }
+
+    @Test
+    void countsPlaysCompletesAndSkips() {
+        history = new PlayHistory();
+        for (int i = 0; i < 3; i++) {
+            history.record(PlayHistory.Kind.PLAY, track(1), 0);
+            history.record(PlayHistory.Kind.COMPLETE, track(1), 200_000);
+        }
+        history.record(PlayHistory.Kind.PLAY, track(2), 0);
+        history.record(PlayHistory.Kind.SKIP, track(2), 5_000);
+        history.record(PlayHistory.Kind.PLAY, track(2), 0);
+        history.record(PlayHistory.Kind.PLAY, track(3), 0);
+
+        assertEquals(List.of(track(1).getAbsolutePath(), track(2).getAbsolutePath(), track(3).getAbsolutePath()),
+                paths(history.topPlayed(30, 10)));
+        assertEquals(List.of(track(1).getAbsolutePath()), paths(history.topPlayed(0, 1)));
+        assertEquals(List.of(track(3).getAbsolutePath(), track(2).getAbsolutePath()),
+                paths(history.recentlyPlayed(2)));
+        assertEquals(List.of(track(2).getAbsolutePath()), paths(history.mostSkipped(10)));
+
+        PlayHistory.Stat stat = history.stat(track(1));
+        assertEquals(3, stat.plays());
+        assertEquals(3, stat.completes());
+        assertEquals(0, stat.skips());
+        assertNull(history.stat(track(4)));
+    }
+
+    @Test
+    void windowExcludesOlderPlays() throws IOException {
+        long now = System.currentTimeMillis();
+        writeLog(List.of(track(1).getAbsolutePath(), track(2).getAbsolutePath()), List.of(
+                new LoggedEvent(PlayHistory.Kind.PLAY, 0, now - 40 * DAY_MILLIS),
+                new LoggedEvent(PlayHistory.Kind.PLAY, 0, now - 40 * DAY_MILLIS),
+                new LoggedEvent(PlayHistory.Kind.PLAY, 0, now - 35 * DAY_MILLIS),
+                new LoggedEvent(PlayHistory.Kind.PLAY, 1, now - 2 * DAY_MILLIS)));
+        history = new PlayHistory();
+
+        List<PlayHistory.Stat> lastMonth = history.topPlayed(30, 10);
+        assertEquals(List.of(track(2).getAbsolutePath()), paths(lastMonth));
+        assertEquals(1, lastMonth.getFirst().plays());
+        List<PlayHistory.Stat> allTime = history.topPlayed(0, 10);
+        assertEquals(List.of(track(1).getAbsolutePath(), track(2).getAbsolutePath()), paths(allTime));
+        assertEquals(3, allTime.getFirst().plays());
+    }
+
+    @Test
+    void statisticsSurviveSnapshotAndLogReplay() throws IOException {
+        long now = System.currentTimeMillis();
+        writeLog(List.of(track(1).getAbsolutePath()), List.of(
+                new LoggedEvent(PlayHistory.Kind.PLAY, 0, now - 3 * DAY_MILLIS),
+                new LoggedEvent(PlayHistory.Kind.SKIP, 0, now - 3 * DAY_MILLIS)));
+        history = new PlayHistory();
+        history.record(PlayHistory.Kind.PLAY, track(2), 0);
+        history.record(PlayHistory.Kind.PLAY, track(2), 0);
+        history.record(PlayHistory.Kind.COMPLETE, track(2), 180_000);
+        List<PlayHistory.Stat> top = history.topPlayed(30, 10);
+        List<PlayHistory.Stat> recent = history.recentlyPlayed(10);
+        List<PlayHistory.Stat> skipped = history.mostSkipped(10);
+        history.close();
+
+        // 关闭时日志已并入快照
+        Path log = AppFiles.resolve("history.log");
+        assertFalse(Files.isRegularFile(log) && Files.size(log) > 8);
+        history = new PlayHistory();
+        assertEquals(top, history.topPlayed(30, 10));
+        assertEquals(recent, history.recentlyPlayed(10));
+        assertEquals(skipped, history.mostSkipped(10));
+    }
+}
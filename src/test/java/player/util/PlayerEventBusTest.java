@@ -0,0 +1,212 @@
+// 文件：src/test/java/player/util/PlayerEventBusTest.java
+package player.util;
+
+import org.junit.jupiter.api.Test;
+import player.model.PlayerEvent;
+import player.model.PlayerEvent.State;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** 事件合并、旧媒体事件丢弃、状态缓冲上限、需求量与取消；投递任务手动执行，模拟跟不上的订阅者 */
+class PlayerEventBusTest {
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final Executor manual = tasks::add;
+    private final PlayerEventBus bus = new PlayerEventBus(manual);
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    /** 记录收到的事件，需求量由测试控制 */
+    private static final class Recorder implements Flow.Subscriber<PlayerEvent> {
+        final List<PlayerEvent> events = new ArrayList<>();
+        final List<Throwable> errors = new ArrayList<>();
+        Flow.Subscription subscription;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(PlayerEvent item) {
+            events.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            errors.add(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    @Test
+    void conflatesLatestValuesButDeliversEveryStateChange() {
+        List<PlayerEvent> received = new ArrayList<>();
+        bus.subscribe(manual, received::add);
+
+        bus.publish(new PlayerEvent.PositionTick(1, 0));
+        bus.publish(new PlayerEvent.StateChanged(State.PLAYING, 0));
+        bus.publish(new PlayerEvent.PositionTick(2, 0));
+        bus.publish(new PlayerEvent.StateChanged(State.PAUSED, 0));
+        bus.publish(new PlayerEvent.LibraryUpdated(1));
+        bus.publish(new PlayerEvent.LibraryUpdated(2));
+        runTasks();
+
+        // 合并后的事件排到最后
+        assertEquals(List.of(
+                new PlayerEvent.StateChanged(State.PLAYING, 0),
+                new PlayerEvent.PositionTick(2, 0),
+                new PlayerEvent.StateChanged(State.PAUSED, 0),
+                new PlayerEvent.LibraryUpdated(2)), received);
+    }
+
+    @Test
+    void dropsPendingEventsOfThePreviousMedia() {
+        List<PlayerEvent> received = new ArrayList<>();
+        bus.subscribe(manual, received::add);
+
+        bus.publish(new PlayerEvent.StateChanged(State.FINISHED, 0));
+        bus.publish(new PlayerEvent.PositionTick(180_000, 0));
+        bus.onMediaChanged();
+        bus.publish(new PlayerEvent.TrackChanged(null, 1));
+        bus.publish(new PlayerEvent.StateChanged(State.PLAYING, 1));
+        runTasks();
+
+        assertEquals(List.of(
+                new PlayerEvent.TrackChanged(null, 1),
+                new PlayerEvent.StateChanged(State.PLAYING, 1)), received);
+    }
+
+    @Test
+    void convenienceSubscriberSurvivesHandlerErrors() {
+        List<PlayerEvent> received = new ArrayList<>();
+        bus.subscribe(Runnable::run, event -> {
+            if (event instanceof PlayerEvent.LibraryUpdated updated && updated.size() == 1) {
+                throw new IllegalStateException("处理失败");
+            }
+            received.add(event);
+        });
+
+        bus.publish(new PlayerEvent.LibraryUpdated(1));
+        bus.publish(new PlayerEvent.LibraryUpdated(2));
+
+        assertEquals(List.of(new PlayerEvent.LibraryUpdated(2)), received);
+    }
+
+    @Test
+    void deliversOnlyWhatWasRequested() {
+        Recorder recorder = new Recorder();
+        bus.subscribe(recorder, manual);
+
+        bus.publish(new PlayerEvent.StateChanged(State.PLAYING, 0));
+        bus.publish(new PlayerEvent.StateChanged(State.PAUSED, 0));
+        bus.publish(new PlayerEvent.StateChanged(State.PLAYING, 0));
+        runTasks();
+        assertTrue(recorder.events.isEmpty());
+
+        recorder.subscription.request(1);
+        runTasks();
+        assertEquals(1, recorder.events.size());
+
+        recorder.subscription.request(5);
+        runTasks();
+        assertEquals(List.of(
+                new PlayerEvent.StateChanged(State.PLAYING, 0),
+                new PlayerEvent.StateChanged(State.PAUSED, 0),
+                new PlayerEvent.StateChanged(State.PLAYING, 0)), recorder.events);
+    }
+
+    @Test
+    void boundsStateChangesForASubscriberThatNeverRequests() {
+        Recorder recorder = new Recorder();
+        bus.subscribe(recorder, manual);
+
+        // 连续相同的状态只留一个；交替的状态超过上限后只保留最近的
+        bus.publish(new PlayerEvent.StateChanged(State.PLAYING, 0));
+        bus.publish(new PlayerEvent.StateChanged(State.PLAYING, 0));
+        for (int i = 0; i < 10_000; i++) {
+            bus.publish(new PlayerEvent.StateChanged(i % 2 == 0 ? State.PAUSED : State.PLAYING, 0));
+            bus.publish(new PlayerEvent.PositionTick(i, 0));
+        }
+        runTasks();
+        assertTrue(recorder.events.isEmpty());
+
+        recorder.subscription.request(Long.MAX_VALUE);
+        runTasks();
+        List<PlayerEvent> states = recorder.events.stream()
+                .filter(e -> e instanceof PlayerEvent.StateChanged).toList();
+        assertEquals(PlayerEventBus.MAX_UNMERGED, states.size());
+        assertEquals(new PlayerEvent.StateChanged(State.PLAYING, 0), states.getLast());
+        assertEquals(new PlayerEvent.PositionTick(9_999, 0), recorder.events.getLast());
+        assertEquals(PlayerEventBus.MAX_UNMERGED + 1, recorder.events.size());
+    }
+
+    @Test
+    void conflatesRepeatedStates() {
+        List<PlayerEvent> received = new ArrayList<>();
+        bus.subscribe(manual, received::add);
+
+        bus.publish(new PlayerEvent.StateChanged(State.PLAYING, 0));
+        bus.publish(new PlayerEvent.StateChanged(State.PLAYING, 0));
+        bus.publish(new PlayerEvent.PositionTick(1, 0));
+        bus.publish(new PlayerEvent.StateChanged(State.PLAYING, 0));
+        runTasks();
+
+        // 中间隔了别的事件，仍按顺序各投递一次
+        assertEquals(List.of(
+                new PlayerEvent.StateChanged(State.PLAYING, 0),
+                new PlayerEvent.PositionTick(1, 0),
+                new PlayerEvent.StateChanged(State.PLAYING, 0)), received);
+    }
+
+    @Test
+    void cancelStopsDeliveryAndBadRequestsFail() {
+        Recorder cancelled = new Recorder();
+        Recorder invalid = new Recorder();
+        bus.subscribe(cancelled, manual);
+        bus.subscribe(invalid, manual);
+        cancelled.subscription.request(Long.MAX_VALUE);
+        invalid.subscription.request(0);
+        cancelled.subscription.cancel();
+
+        bus.publish(new PlayerEvent.LibraryUpdated(1));
+        runTasks();
+
+        assertTrue(cancelled.events.isEmpty());
+        assertTrue(invalid.events.isEmpty());
+        assertEquals(1, invalid.errors.size());
+        assertInstanceOf(IllegalArgumentException.class, invalid.errors.getFirst());
+    }
+
+    @Test
+    void closeCompletesAfterPendingEvents() {
+        Recorder recorder = new Recorder();
+        bus.subscribe(recorder, manual);
+        recorder.subscription.request(Long.MAX_VALUE);
+
+        bus.publish(new PlayerEvent.LibraryUpdated(3));
+        bus.close();
+        runTasks();
+
+        assertEquals(List.of(new PlayerEvent.LibraryUpdated(3)), recorder.events);
+        assertTrue(recorder.completed);
+    }
+}
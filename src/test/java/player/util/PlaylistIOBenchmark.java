@@ -0,0 +1,48 @@
+// 文件：src/test/java/player/util/PlaylistIOBenchmark.java
+package player.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import player.Benchmark;
+import player.model.Song;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** 5 万条的 M3U8 导入：相对路径、绝对路径与 file: URI 混合，含建立路径索引 */
+class PlaylistIOBenchmark {
+    private static final int ENTRIES = 50_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void import50kEntries() throws Exception {
+        List<Song> library = new ArrayList<>(ENTRIES);
+        Path m3u8 = dir.resolve("big.m3u8");
+        try (BufferedWriter out = Files.newBufferedWriter(m3u8, StandardCharsets.UTF_8)) {
+            out.write("#EXTM3U\n");
+            for (int i = 0; i < ENTRIES; i++) {
+                Path file = dir.resolve("music/artist" + (i % 500) + "/track" + i + ".flac");
+                library.add(new Song(file.toFile(), "Track " + i, "Artist " + (i % 500), "Album", "", 0, "",
+                        200_000, 44100, 16, 900, "FLAC"));
+                String entry = switch (i % 3) {
+                    case 0 -> dir.relativize(file).toString();
+                    case 1 -> file.toString();
+                    default -> file.toUri().toString();
+                };
+                out.write("#EXTINF:200,Artist " + (i % 500) + " - Track " + i + "\n" + entry + "\n");
+            }
+        }
+
+        Benchmark.once("导入 5 万条 M3U8（冷启动）", () -> PlaylistIO.read(m3u8, library));
+        Benchmark.measure("导入 5 万条 M3U8（预热后）", 3, 7, 1, () -> PlaylistIO.read(m3u8, library));
+        assertEquals(ENTRIES, PlaylistIO.read(m3u8, library).getSongs().size());
+    }
+}
@@ -0,0 +1,124 @@
+// 文件：src/test/java/player/util/PlaylistIOTest.java
+package player.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import player.model.Playlist;
+import player.model.Song;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** 歌单解析：各种路径写法、按“艺术家 - 标题”回退匹配、编码，以及写出后再读回 */
+class PlaylistIOTest {
+    @TempDir
+    Path dir;
+
+    private Song song(String relative, String title, String artist) {
+        return new Song(dir.resolve(relative).toFile(), title, artist, "", "", 0, "", 180_000, 44100, 16, 320, "FLAC");
+    }
+
+    @Test
+    void resolvesRelativeAbsoluteAndUriEntries() throws IOException {
+        Song a = song("music/a.flac", "A", "甲");
+        Song b = song("music/sub/b.flac", "B", "乙");
+        Song c = song("other/c.flac", "C", "丙");
+        Path m3u8 = dir.resolve("music/list.m3u8");
+        Files.createDirectories(m3u8.getParent());
+        Files.writeString(m3u8, "\uFEFF#EXTM3U\n"
+                + "#EXTINF:180,甲 - A\n"
+                + "a.flac\n"
+                + "\n"
+                + "# 注释行\n"
+                + "sub\\b.flac\n"
+                + c.getFile().toURI() + "\n"
+                + "../music/./a.flac\n"
+                + "missing.flac\n", StandardCharsets.UTF_8);
+
+        Playlist playlist = PlaylistIO.read(m3u8, List.of(a, b, c));
+
+        assertEquals("list", playlist.getName());
+        assertEquals(List.of(a, b, c, a), playlist.getSongs());
+        assertEquals(List.of("missing.flac"), playlist.getUnresolved());
+    }
+
+    @Test
+    void fallsBackToArtistAndTitleWhenPathsMoved() throws IOException {
+        Song a = song("new/a.flac", "Song A", "Band");
+        Song b = song("new/b.flac", "Song B", "Other");
+        Path m3u = dir.resolve("old.m3u");
+        Files.writeString(m3u, "#EXTM3U\n"
+                + "#EXTINF:200, band - song a \n"
+                + "D:\\Old\\a.flac\n"
+                + "#EXTINF:200,Song B\n"
+                + "D:\\Old\\b.flac\n"
+                + "#EXTINF:200,Nobody - Nothing\n"
+                + "D:\\Old\\c.flac\n", StandardCharsets.UTF_8);
+
+        Playlist playlist = PlaylistIO.read(m3u, List.of(a, b));
+
+        assertEquals(List.of(a, b), playlist.getSongs());
+        assertEquals(List.of("D:\\Old\\c.flac"), playlist.getUnresolved());
+    }
+
+    @Test
+    void readsPlsWithTitlesAfterTheirFiles() throws IOException {
+        Song a = song("a.mp3", "A", "X");
+        Song b = song("b.mp3", "B", "Y");
+        Path pls = dir.resolve("list.pls");
+        Files.writeString(pls, "[playlist]\n"
+                + "File1=a.mp3\n"
+                + "Title1=ignored\n"
+                + "File2=/gone/b.mp3\n"
+                + "Title2=Y - B\n"
+                + "Length2=200\n"
+                + "File3=/gone/c.mp3\n"
+                + "NumberOfEntries=3\n"
+                + "Version=2\n", StandardCharsets.UTF_8);
+
+        Playlist playlist = PlaylistIO.read(pls, List.of(a, b));
+
+        assertEquals(List.of(a, b), playlist.getSongs());
+        assertEquals(List.of("/gone/c.mp3"), playlist.getUnresolved());
+    }
+
+    @Test
+    void readsGbkEncodedM3u() throws IOException {
+        Song a = song("song.mp3", "歌曲", "歌手");
+        Path m3u = dir.resolve("gbk.m3u");
+        Files.write(m3u, "#EXTM3U\n#EXTINF:1,歌手 - 歌曲\n/gone/song.mp3\n".getBytes(Charset.forName("GBK")));
+
+        Playlist playlist = PlaylistIO.read(m3u, List.of(a));
+
+        assertEquals(List.of(a), playlist.getSongs());
+        assertTrue(playlist.getUnresolved().isEmpty());
+    }
+
+    @Test
+    void writtenPlaylistsReadBack() throws IOException {
+        Song inside = song("lists/../music/a.flac", "A", "甲");
+        Song outside = new Song(new File("/elsewhere/b.flac"), "B", "", "", "", 0, "", 0, 0, 0, 0, "");
+        List<Song> songs = List.of(inside, outside);
+
+        for (String name : List.of("out.m3u8", "out.pls")) {
+            Path file = dir.resolve(name);
+            PlaylistIO.write(file, songs);
+            String text = Files.readString(file, StandardCharsets.UTF_8);
+            assertTrue(text.contains("music" + File.separator + "a.flac"), text);
+            assertFalse(text.contains(dir.toString() + File.separator + "music"), text);
+            assertTrue(text.contains(outside.getFile().getAbsolutePath()), text);
+            assertEquals(songs, PlaylistIO.read(file, songs).getSongs());
+        }
+        assertTrue(Files.readString(dir.resolve("out.m3u8")).contains("#EXTINF:180,甲 - A\n"));
+        assertTrue(Files.readString(dir.resolve("out.pls")).contains("NumberOfEntries=2\n"));
+    }
+}
@@ -0,0 +1,78 @@
+// 文件：src/test/java/player/util/SingleInstanceTest.java
+package player.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** 命令行解析，以及第二个进程转交的请求在设置处理器前缓存、之后按顺序交付，不被空闲连接挡住 */
+class SingleInstanceTest {
+
+    /** 第二个进程：转交成功退出码为 0，没连上主实例、自己成了独立实例为 1 */
+    public static final class Forwarder {
+        public static void main(String[] args) {
+            System.exit(SingleInstance.claim(args) == null ? 0 : 1);
+        }
+    }
+
+    private static int launchSecondInstance(String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("surefire.test.class.path", System.getProperty("java.class.path")));
+        command.add("-Dplayer.data.dir=" + System.getProperty("player.data.dir"));
+        command.add(Forwarder.class.getName());
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS), "第二个进程没有退出");
+        return process.exitValue();
+    }
+
+    @Test
+    void parsesActionsAndAbsolutePaths() {
+        assertEquals(new SingleInstance.Request(SingleInstance.Action.ACTIVATE, List.of()),
+                SingleInstance.parse(new String[]{"--enqueue", "-Dignored"}));
+        SingleInstance.Request request = SingleInstance.parse(new String[]{"a.mp3", "--enqueue", "/music/b"});
+        assertEquals(SingleInstance.Action.ENQUEUE, request.action());
+        assertEquals(List.of(new File("a.mp3").getAbsolutePath(), new File("/music/b").getAbsolutePath()),
+                request.paths());
+        assertEquals(SingleInstance.Action.PLAY, SingleInstance.parse(new String[]{"c.flac"}).action());
+    }
+
+    @Test
+    void buffersForwardedRequestsUntilAHandlerIsSet() throws Exception {
+        SingleInstance primary = SingleInstance.claim(new String[0]);
+        assertNotNull(primary);
+
+        // 连上却一直不发数据的客户端不影响后来的实例
+        try (SocketChannel idle = SocketChannel.open(UnixDomainSocketAddress.of(AppFiles.resolve("instance.sock")))) {
+            assertEquals(0, launchSecondInstance("--enqueue", "first.mp3"));
+            assertEquals(0, launchSecondInstance("second.mp3"));
+        }
+
+        BlockingQueue<SingleInstance.Request> received = new LinkedBlockingQueue<>();
+        primary.setHandler(received::add);
+        assertEquals(List.of(
+                new SingleInstance.Request(SingleInstance.Action.ENQUEUE, List.of(new File("first.mp3").getAbsolutePath())),
+                new SingleInstance.Request(SingleInstance.Action.PLAY, List.of(new File("second.mp3").getAbsolutePath()))),
+                List.copyOf(received));
+
+        // 设置之后直接交付
+        received.clear();
+        assertEquals(0, launchSecondInstance());
+        assertEquals(new SingleInstance.Request(SingleInstance.Action.ACTIVATE, List.of()),
+                received.poll(5, TimeUnit.SECONDS));
+    }
+}